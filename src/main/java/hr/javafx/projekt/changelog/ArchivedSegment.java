@@ -0,0 +1,158 @@
+package hr.javafx.projekt.changelog;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.SoftReference;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Segment dnevnika premješten u arhivu. Arhivirani segment je gzip cijelog segmenta (zaglavlje i zapisi),
+ * pa položaji zapisa unutar segmenta ostaju isti kao da segment nije komprimiran.
+ * <p>
+ * Sadržaj se raspakira tek pri prvom čitanju i pamti preko meke reference, tako da arhiva ne zauzima
+ * memoriju dok se ne pretražuje starija povijest. Veličina raspakiranog segmenta čita se iz gzip
+ * zaglavlja na kraju datoteke, bez raspakiravanja.
+ */
+final class ArchivedSegment implements ReadableSegment {
+
+    private static final int GZIP_TRAILER_SIZE = Integer.BYTES * 2;
+
+    private final long id;
+    private final Path path;
+    private final long size;
+    private byte formatVersion;
+    private SoftReference<ByteBuffer> content;
+
+    private ArchivedSegment(long id, Path path, long size) {
+        this.id = id;
+        this.path = path;
+        this.size = size;
+    }
+
+    /**
+     * Otvara postojeći arhivirani segment.
+     */
+    static ArchivedSegment open(long id, Path path) throws IOException {
+        ByteBuffer trailer = ByteBuffer.allocate(GZIP_TRAILER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (ch.size() < GZIP_TRAILER_SIZE) {
+                throw new IOException("Datoteka " + path + " nije arhivirani segment dnevnika promjena.");
+            }
+            while (trailer.hasRemaining()) {
+                if (ch.read(trailer, ch.size() - trailer.remaining()) < 0) {
+                    break;
+                }
+            }
+        }
+        return new ArchivedSegment(id, path, Integer.toUnsignedLong(trailer.getInt(Integer.BYTES)));
+    }
+
+    /**
+     * Zapisuje arhivirani segment iz zadanih zapisa. Datoteka se najprije zapisuje pod privremenim imenom
+     * i sinkronizira na disk, a zatim se atomarno premješta na konačno mjesto.
+     *
+     * @param lastModified Vrijeme zadnje izmjene izvornog segmenta, prema kojem se računa starost arhive.
+     */
+    static ArchivedSegment write(long id, Path path, byte formatVersion, List<byte[]> payloads,
+                                 FileTime lastModified) throws IOException {
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        long size = LogSegment.HEADER_SIZE;
+        try (FileOutputStream file = new FileOutputStream(temp.toFile());
+             GZIPOutputStream out = new GZIPOutputStream(file, 64 * 1024)) {
+            ByteBuffer header = ByteBuffer.allocate(LogSegment.HEADER_SIZE);
+            LogSegment.encodeHeader(header, formatVersion);
+            out.write(header.array());
+            for (byte[] payload : payloads) {
+                ByteBuffer record = ByteBuffer.allocate(LogSegment.RECORD_OVERHEAD + payload.length);
+                LogSegment.encodeRecord(record, payload);
+                out.write(record.array());
+                size += record.capacity();
+            }
+            out.finish();
+            file.getFD().sync();
+        }
+        Files.setLastModifiedTime(temp, lastModified);
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        ArchivedSegment segment = new ArchivedSegment(id, path, size);
+        segment.formatVersion = formatVersion;
+        return segment;
+    }
+
+    @Override
+    public long id() {
+        return id;
+    }
+
+    Path path() {
+        return path;
+    }
+
+    @Override
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Vraća verziju formata; raspakira se samo zaglavlje segmenta.
+     */
+    @Override
+    public byte formatVersion() throws IOException {
+        if (formatVersion == 0) {
+            try (InputStream in = new GZIPInputStream(Files.newInputStream(path))) {
+                byte[] header = in.readNBytes(LogSegment.HEADER_SIZE);
+                ByteBuffer buffer = ByteBuffer.wrap(header);
+                if (header.length < LogSegment.HEADER_SIZE || buffer.getInt(0) != LogSegment.MAGIC) {
+                    throw new IOException("Datoteka " + path + " nije arhivirani segment dnevnika promjena.");
+                }
+                formatVersion = buffer.get(Integer.BYTES);
+            }
+        }
+        return formatVersion;
+    }
+
+    @Override
+    public void readRecords(SegmentedLog.RecordVisitor visitor) throws IOException {
+        LogSegment.scanContent(id, path, content(), visitor);
+    }
+
+    @Override
+    public void readRecordAt(long offset, SegmentedLog.RecordVisitor visitor) throws IOException {
+        LogSegment.readRecordAt(id, path, content(), offset, visitor);
+    }
+
+    /**
+     * Otpušta raspakirani sadržaj.
+     */
+    @Override
+    public void close() {
+        content = null;
+    }
+
+    /**
+     * Vraća raspakirani sadržaj segmenta, raspakiravajući ga ako ga sakupljač smeća u međuvremenu oslobodio.
+     */
+    private ByteBuffer content() throws IOException {
+        ByteBuffer buffer = content == null ? null : content.get();
+        if (buffer == null) {
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Arhivirani segment " + path + " je prevelik za čitanje.");
+            }
+            try (InputStream in = new GZIPInputStream(Files.newInputStream(path), 64 * 1024)) {
+                buffer = ByteBuffer.wrap(in.readNBytes((int) size)).asReadOnlyBuffer();
+            }
+            content = new SoftReference<>(buffer);
+        }
+        return buffer.duplicate();
+    }
+}
@@ -0,0 +1,334 @@
+package hr.javafx.projekt.changelog;
+
+import hr.javafx.projekt.model.ChangeLogEntry;
+import hr.javafx.projekt.model.FieldChange;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Pretvara zapise o promjenama u sadržaj zapisa dnevnika i natrag.
+ * Svaki zapis se kodira zasebno, pa se za čitanje ili upis jednog zapisa
+ * ne mora obrađivati ostatak povijesti.
+ * <p>
+ * Verzija 1 je Java serijalizacija i podržana je samo za čitanje. Verzija 2 je binarni format:
+ * <pre>
+ * [zastavice:1] zatim tijelo (po potrebi komprimirano Deflateom):
+ *   vrijeme (epoch ms, UTC, varint), tip promjene, entitet, rola (rječnik),
+ *   ID entiteta + 1 (varint, 0 = null),
+ *   [naziv polja (rječnik), stara i nova vrijednost (niz)] ako sažetak nije izveden iz promjena,
+ *   broj promjena (varint), pa za svaku: naziv polja (rječnik), stara i nova vrijednost (niz)
+ * </pre>
+ * Nizovi se zapisuju kao {@code duljina + 1} (varint, 0 = null) i UTF-8 bajtovi. Vrijednosti iz rječnika
+ * zapisuju se kao indeks + 1, a 0 označava da slijedi doslovni niz. Rječnik i Deflate rječnik smiju se
+ * samo nadopunjavati na kraju, jer o njima ovise već zapisani podaci.
+ * Vrijeme se pohranjuje s preciznošću od jedne milisekunde.
+ */
+public final class ChangeLogCodec {
+
+    /**
+     * Verzija formata koju {@link #encode} zapisuje.
+     */
+    public static final byte CURRENT_VERSION = 2;
+
+    private static final byte LEGACY_SERIALIZED_VERSION = 1;
+    private static final int FLAG_DEFLATED = 1;
+    private static final int FLAG_DERIVED_SUMMARY = 1 << 1;
+    private static final int COMPRESSION_THRESHOLD = 96;
+
+    private static final List<String> DICTIONARY = List.of(
+            "ADD", "UPDATE", "DELETE", "N/A", "null",
+            "Supplier", "Invoice", "User",
+            "ADMIN", "USER", "SYSTEM",
+            "name", "address", "oib",
+            "invoiceNumber", "amount", "amountPayable", "issueDate", "dueDate", "status", "supplier",
+            "username", "role", "passwordHash"
+    );
+
+    private static final Map<String, Integer> DICTIONARY_CODES = new HashMap<>();
+
+    private static final byte[] DEFLATE_DICTIONARY = String.join("",
+            ", oib=", ", address=", "Supplier[name=",
+            ", status=UNPAID]", ", status=PAID]", ", status=OVERDUE]",
+            ", supplier=", ", amount=", "Invoice[invoiceNumber="
+    ).getBytes(StandardCharsets.UTF_8);
+
+    static {
+        for (int i = 0; i < DICTIONARY.size(); i++) {
+            DICTIONARY_CODES.put(DICTIONARY.get(i), i + 1);
+        }
+    }
+
+    private ChangeLogCodec() {}
+
+    /**
+     * Kodira zapis o promjeni u trenutnoj verziji formata.
+     * @param entry Zapis o promjeni.
+     * @return Kodirani sadržaj.
+     */
+    public static byte[] encode(ChangeLogEntry entry) {
+        boolean derived = entry.hasDerivedSummary();
+        Writer body = new Writer();
+        body.varLong(entry.timestamp().toInstant(ZoneOffset.UTC).toEpochMilli());
+        body.dictionary(entry.changeType());
+        body.dictionary(entry.entityName());
+        body.dictionary(entry.userRole());
+        body.varLong(entry.entityId() == null ? 0 : entry.entityId() + 1);
+        if (!derived) {
+            body.dictionary(entry.fieldName());
+            body.string(entry.oldValue());
+            body.string(entry.newValue());
+        }
+        body.varLong(entry.changes().size());
+        for (FieldChange change : entry.changes()) {
+            body.dictionary(change.fieldName());
+            body.string(change.oldValue());
+            body.string(change.newValue());
+        }
+
+        int flags = derived ? FLAG_DERIVED_SUMMARY : 0;
+        byte[] raw = body.toByteArray();
+        if (raw.length >= COMPRESSION_THRESHOLD) {
+            byte[] compressed = deflate(raw);
+            if (compressed != null) {
+                return withFlags(flags | FLAG_DEFLATED, compressed);
+            }
+        }
+        return withFlags(flags, raw);
+    }
+
+    /**
+     * Dekodira zapis o promjeni zapisan u zadanoj verziji formata.
+     * @param formatVersion Verzija formata segmenta iz kojeg je zapis pročitan.
+     * @param payload Kodirani sadržaj.
+     * @return Zapis o promjeni.
+     * @throws IOException Ako sadržaj nije ispravan zapis o promjeni.
+     */
+    public static ChangeLogEntry decode(byte formatVersion, byte[] payload) throws IOException {
+        return decode(formatVersion, ByteBuffer.wrap(payload));
+    }
+
+    /**
+     * Dekodira zapis o promjeni izravno iz međuspremnika, npr. iz mapiranog segmenta.
+     * Pozicija predanog međuspremnika se ne mijenja.
+     * @param formatVersion Verzija formata segmenta iz kojeg je zapis pročitan.
+     * @param payload Kodirani sadržaj, od trenutne pozicije do granice.
+     * @return Zapis o promjeni.
+     * @throws IOException Ako sadržaj nije ispravan zapis o promjeni.
+     */
+    public static ChangeLogEntry decode(byte formatVersion, ByteBuffer payload) throws IOException {
+        return switch (formatVersion) {
+            case LEGACY_SERIALIZED_VERSION -> decodeSerialized(payload.duplicate());
+            case CURRENT_VERSION -> decodeBinary(payload.duplicate());
+            default -> throw new IOException("Nepodržana verzija formata zapisa: " + formatVersion);
+        };
+    }
+
+    private static ChangeLogEntry decodeBinary(ByteBuffer payload) throws IOException {
+        if (!payload.hasRemaining()) {
+            throw new IOException("Prazan zapis u dnevniku promjena.");
+        }
+        int flags = payload.get();
+        ByteBuffer raw = (flags & FLAG_DEFLATED) != 0 ? ByteBuffer.wrap(inflate(payload)) : payload;
+
+        try {
+            Reader body = new Reader(raw);
+            LocalDateTime timestamp = LocalDateTime.ofInstant(Instant.ofEpochMilli(body.varLong()), ZoneOffset.UTC);
+            String changeType = body.dictionary();
+            String entityName = body.dictionary();
+            String userRole = body.dictionary();
+            long encodedId = body.varLong();
+            Long entityId = encodedId == 0 ? null : encodedId - 1;
+
+            boolean derived = (flags & FLAG_DERIVED_SUMMARY) != 0;
+            String fieldName = null;
+            String oldValue = null;
+            String newValue = null;
+            if (!derived) {
+                fieldName = body.dictionary();
+                oldValue = body.string();
+                newValue = body.string();
+            }
+
+            int changeCount = Math.toIntExact(body.varLong());
+            List<FieldChange> changes = new ArrayList<>(changeCount);
+            for (int i = 0; i < changeCount; i++) {
+                changes.add(new FieldChange(body.dictionary(), body.string(), body.string()));
+            }
+
+            if (derived) {
+                ChangeLogEntry update = ChangeLogEntry.ofUpdate(entityName, entityId, changes, timestamp, userRole);
+                return new ChangeLogEntry(changeType, entityName, update.fieldName(), update.oldValue(),
+                        update.newValue(), timestamp, userRole, entityId, changes);
+            }
+            return new ChangeLogEntry(changeType, entityName, fieldName, oldValue, newValue,
+                    timestamp, userRole, entityId, changes);
+        } catch (BufferUnderflowException | ArithmeticException | IllegalArgumentException e) {
+            throw new IOException("Zapis u dnevniku promjena je oštećen.", e);
+        }
+    }
+
+    private static ChangeLogEntry decodeSerialized(ByteBuffer payload) throws IOException {
+        byte[] bytes = new byte[payload.remaining()];
+        payload.get(bytes);
+        try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            Object readObject = ois.readObject();
+            if (readObject instanceof ChangeLogEntry entry) {
+                return entry;
+            }
+            throw new IOException("Neočekivani tip objekta u dnevniku promjena: "
+                    + (readObject != null ? readObject.getClass().getName() : "null"));
+        } catch (ClassNotFoundException e) {
+            throw new IOException("Nepoznata klasa u dnevniku promjena.", e);
+        }
+    }
+
+    private static byte[] withFlags(int flags, byte[] body) {
+        byte[] payload = new byte[body.length + 1];
+        payload[0] = (byte) flags;
+        System.arraycopy(body, 0, payload, 1, body.length);
+        return payload;
+    }
+
+    /**
+     * Komprimira tijelo zapisa. Vraća null ako komprimirani oblik nije manji.
+     */
+    private static byte[] deflate(byte[] raw) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED, true);
+        try {
+            deflater.setDictionary(DEFLATE_DICTIONARY);
+            deflater.setInput(raw);
+            deflater.finish();
+            byte[] buffer = new byte[raw.length];
+            int length = deflater.deflate(buffer);
+            if (!deflater.finished() || length >= raw.length) {
+                return null;
+            }
+            return Arrays.copyOf(buffer, length);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(ByteBuffer compressed) throws IOException {
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setDictionary(DEFLATE_DICTIONARY);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(compressed.remaining() * 3);
+            inflater.setInput(compressed);
+            byte[] buffer = new byte[512];
+            while (!inflater.finished()) {
+                int length = inflater.inflate(buffer);
+                if (length == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IOException("Komprimirani zapis u dnevniku promjena je nepotpun.");
+                }
+                out.write(buffer, 0, length);
+            }
+            return out.toByteArray();
+        } catch (DataFormatException e) {
+            throw new IOException("Komprimirani zapis u dnevniku promjena je oštećen.", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * Piše varint brojeve, nizove i vrijednosti iz rječnika.
+     */
+    private static final class Writer {
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream(128);
+
+        void varLong(long value) {
+            long remaining = value;
+            while ((remaining & ~0x7FL) != 0) {
+                out.write((int) ((remaining & 0x7F) | 0x80));
+                remaining >>>= 7;
+            }
+            out.write((int) remaining);
+        }
+
+        void string(String value) {
+            if (value == null) {
+                varLong(0);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            varLong(bytes.length + 1L);
+            out.write(bytes, 0, bytes.length);
+        }
+
+        void dictionary(String value) {
+            Integer code = value == null ? null : DICTIONARY_CODES.get(value);
+            if (code != null) {
+                varLong(code);
+            } else {
+                varLong(0);
+                string(value);
+            }
+        }
+
+        byte[] toByteArray() {
+            return out.toByteArray();
+        }
+    }
+
+    /**
+     * Čita vrijednosti koje je zapisao {@link Writer}.
+     */
+    private static final class Reader {
+        private final ByteBuffer in;
+
+        Reader(ByteBuffer in) {
+            this.in = in;
+        }
+
+        long varLong() throws IOException {
+            long result = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = in.get();
+                result |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return result;
+                }
+            }
+            throw new IOException("Neispravan varint u dnevniku promjena.");
+        }
+
+        String string() throws IOException {
+            long length = varLong();
+            if (length == 0) {
+                return null;
+            }
+            byte[] bytes = new byte[Math.toIntExact(length - 1)];
+            in.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        String dictionary() throws IOException {
+            int code = Math.toIntExact(varLong());
+            if (code == 0) {
+                return string();
+            }
+            if (code > DICTIONARY.size()) {
+                throw new IOException("Nepoznata vrijednost rječnika u dnevniku promjena: " + code);
+            }
+            return DICTIONARY.get(code - 1);
+        }
+    }
+}
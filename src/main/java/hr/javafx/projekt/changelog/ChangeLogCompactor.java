@@ -0,0 +1,93 @@
+package hr.javafx.projekt.changelog;
+
+import hr.javafx.projekt.model.ChangeLogEntry;
+import hr.javafx.projekt.model.FieldChange;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Sažima zapise segmenta prije arhiviranja.
+ * <p>
+ * Uzastopna ažuriranja istog zapisa (isti entitet i ID) koja je napravila ista rola spajaju se u jedno
+ * ažuriranje: za svako polje zadržava se prva stara i zadnja nova vrijednost. Ažuriranja su uzastopna
+ * ako između njih nema dodavanja ili brisanja tog zapisa; promjene drugih zapisa između njih ne smetaju.
+ * Spojeni zapis dobiva vrijeme i položaj zadnjeg ažuriranja, a polja koja su se vratila na početnu
+ * vrijednost se izostavljaju. Zapisi bez ID-a entiteta ili bez popisa promjena ne sažimaju se.
+ */
+public final class ChangeLogCompactor {
+
+    private static final String UPDATE = "UPDATE";
+
+    private record EntityKey(String entityName, Long entityId) {
+    }
+
+    private ChangeLogCompactor() {
+    }
+
+    /**
+     * Sažima zapise jednog segmenta.
+     *
+     * @param entries Zapisi redoslijedom kojim su upisani.
+     * @return Sažeti zapisi, istim redoslijedom; zapisi koji se nisu mogli spojiti ostaju nepromijenjeni.
+     */
+    public static List<ChangeLogEntry> compact(List<ChangeLogEntry> entries) {
+        List<ChangeLogEntry> slots = new ArrayList<>(entries);
+        Map<EntityKey, Integer> openUpdates = new HashMap<>();
+        for (int i = 0; i < slots.size(); i++) {
+            ChangeLogEntry entry = slots.get(i);
+            EntityKey key = new EntityKey(entry.entityName(), entry.entityId());
+            if (!isCompactable(entry)) {
+                openUpdates.remove(key);
+                continue;
+            }
+            Integer previous = openUpdates.get(key);
+            if (previous != null && Objects.equals(slots.get(previous).userRole(), entry.userRole())) {
+                slots.set(i, merge(slots.get(previous), entry));
+                slots.set(previous, null);
+            }
+            openUpdates.put(key, i);
+        }
+
+        List<ChangeLogEntry> compacted = new ArrayList<>(slots.size());
+        for (int i = 0; i < slots.size(); i++) {
+            ChangeLogEntry entry = slots.get(i);
+            if (entry != null && (entry == entries.get(i) || !entry.changes().isEmpty())) {
+                compacted.add(entry);
+            }
+        }
+        return compacted;
+    }
+
+    private static boolean isCompactable(ChangeLogEntry entry) {
+        return UPDATE.equals(entry.changeType()) && entry.entityId() != null && !entry.changes().isEmpty();
+    }
+
+    /**
+     * Spaja dva ažuriranja istog zapisa. Polja koja su nakon spajanja nepromijenjena izostavljaju se.
+     */
+    private static ChangeLogEntry merge(ChangeLogEntry first, ChangeLogEntry second) {
+        Map<String, FieldChange> fields = new LinkedHashMap<>();
+        for (FieldChange change : first.changes()) {
+            fields.put(change.fieldName(), change);
+        }
+        for (FieldChange change : second.changes()) {
+            FieldChange earlier = fields.get(change.fieldName());
+            fields.put(change.fieldName(), earlier == null
+                    ? change
+                    : new FieldChange(change.fieldName(), earlier.oldValue(), change.newValue()));
+        }
+        List<FieldChange> changes = new ArrayList<>(fields.size());
+        for (FieldChange change : fields.values()) {
+            if (!Objects.equals(change.oldValue(), change.newValue())) {
+                changes.add(change);
+            }
+        }
+        return ChangeLogEntry.ofUpdate(second.entityName(), second.entityId(), changes,
+                second.timestamp(), second.userRole());
+    }
+}
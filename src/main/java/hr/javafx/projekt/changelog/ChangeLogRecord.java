@@ -0,0 +1,70 @@
+package hr.javafx.projekt.changelog;
+
+import hr.javafx.projekt.model.ChangeLogEntry;
+
+import java.io.IOException;
+import java.lang.ref.SoftReference;
+import java.nio.ByteBuffer;
+
+/**
+ * Zapis dnevnika promjena koji se dekodira tek kada se zatraži njegov sadržaj.
+ * Drži samo položaj i pogled na kodirani sadržaj (kod zapečaćenih segmenata dio mapirane datoteke),
+ * pa pregled velike povijesti ne kopira zapise na heap. Dekodirani zapis se pamti preko meke reference,
+ * tako da ga sakupljač smeća može osloboditi kada nedostaje memorije.
+ */
+public final class ChangeLogRecord {
+
+    private final RecordPointer pointer;
+    private final byte formatVersion;
+    private final ByteBuffer payload;
+    private SoftReference<ChangeLogEntry> decoded;
+
+    /**
+     * Kreira pogled na zapis.
+     *
+     * @param pointer Položaj zapisa u dnevniku.
+     * @param formatVersion Verzija formata segmenta.
+     * @param payload Kodirani sadržaj zapisa.
+     */
+    public ChangeLogRecord(RecordPointer pointer, byte formatVersion, ByteBuffer payload) {
+        this.pointer = pointer;
+        this.formatVersion = formatVersion;
+        this.payload = payload.asReadOnlyBuffer();
+    }
+
+    public RecordPointer pointer() {
+        return pointer;
+    }
+
+    /**
+     * Vraća veličinu kodiranog zapisa.
+     * @return Broj bajtova.
+     */
+    public int encodedSize() {
+        return payload.remaining();
+    }
+
+    /**
+     * Dekodira zapis, ili vraća ranije dekodiranu vrijednost ako je još u memoriji.
+     * @return Zapis o promjeni.
+     * @throws IOException Ako sadržaj nije ispravan zapis o promjeni.
+     */
+    public ChangeLogEntry entry() throws IOException {
+        ChangeLogEntry entry = decoded == null ? null : decoded.get();
+        if (entry == null) {
+            entry = ChangeLogCodec.decode(formatVersion, payload);
+            decoded = new SoftReference<>(entry);
+        }
+        return entry;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || (o instanceof ChangeLogRecord that && pointer.equals(that.pointer));
+    }
+
+    @Override
+    public int hashCode() {
+        return pointer.hashCode();
+    }
+}
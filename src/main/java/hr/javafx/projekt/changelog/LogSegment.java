@@ -0,0 +1,440 @@
+package hr.javafx.projekt.changelog;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Jedna datoteka (segment) dnevnika promjena.
+ * Segment počinje zaglavljem (magični broj i verzija formata), a zatim slijede zapisi
+ * oblika {@code [duljina:int][crc32:int][sadržaj]}. Zapisi se samo dodaju na kraj.
+ * <p>
+ * Zapečaćeni segmenti čitaju se preko memorijski mapirane datoteke, pa se sadržaj zapisa ne kopira
+ * na heap: posjetitelj dobiva pogled samo za čitanje na dio mapiranog segmenta. Aktivni segment
+ * se ne mapira jer mu se veličina mijenja i jer se pri otvaranju može skratiti; čita se slijedno
+ * kroz međuspremnik ograničene veličine.
+ */
+final class LogSegment implements ReadableSegment {
+
+    private static final Logger log = LoggerFactory.getLogger(LogSegment.class);
+
+    static final int MAGIC = 0x434C4F47;
+    static final int HEADER_SIZE = Integer.BYTES + 1;
+    static final int RECORD_OVERHEAD = Integer.BYTES * 2;
+    private static final int SCAN_BUFFER_SIZE = 64 * 1024;
+
+    private final long id;
+    private final Path path;
+    private FileChannel channel;
+    private FileChannel readChannel;
+    private MappedByteBuffer mapping;
+    private long size;
+    private byte formatVersion;
+
+    private LogSegment(long id, Path path, FileChannel channel, long size) {
+        this.id = id;
+        this.path = path;
+        this.channel = channel;
+        this.size = size;
+    }
+
+    /**
+     * Kreira novi, prazan segment otvoren za pisanje.
+     */
+    static LogSegment create(long id, Path path, byte formatVersion) throws IOException {
+        FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        encodeHeader(header, formatVersion);
+        header.flip();
+        while (header.hasRemaining()) {
+            channel.write(header, HEADER_SIZE - header.remaining());
+        }
+        LogSegment segment = new LogSegment(id, path, channel, HEADER_SIZE);
+        segment.formatVersion = formatVersion;
+        return segment;
+    }
+
+    /**
+     * Otvara postojeći, zapečaćeni segment samo za čitanje.
+     */
+    static LogSegment openSealed(long id, Path path) throws IOException {
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new LogSegment(id, path, null, ch.size());
+        }
+    }
+
+    /**
+     * Otvara zadnji segment za nastavak pisanja. Ako je aplikacija prethodno pala
+     * usred upisa, nepotpuni ili oštećeni zapisi s kraja datoteke se odbacuju.
+     */
+    static LogSegment openActive(long id, Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        LogSegment segment = new LogSegment(id, path, channel, channel.size());
+        long validEnd = segment.scan(null);
+        if (validEnd < segment.size) {
+            log.warn("Segment {} ima oštećen kraj: odbacuje se {} bajtova nakon pozicije {}.",
+                    path.getFileName(), segment.size - validEnd, validEnd);
+            channel.truncate(validEnd);
+            channel.force(true);
+            segment.size = validEnd;
+        }
+        return segment;
+    }
+
+    @Override
+    public long id() {
+        return id;
+    }
+
+    Path path() {
+        return path;
+    }
+
+    @Override
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Vraća verziju formata zapisanu u zaglavlju segmenta.
+     */
+    @Override
+    public byte formatVersion() throws IOException {
+        if (formatVersion == 0) {
+            formatVersion = readHeader().get(Integer.BYTES);
+        }
+        return formatVersion;
+    }
+
+    /**
+     * Dodaje već kodirane zapise na kraj segmenta jednim upisom.
+     * @return Pozicija prvog dodanog zapisa.
+     */
+    long append(ByteBuffer records) throws IOException {
+        long start = size;
+        long position = start;
+        while (records.hasRemaining()) {
+            position += channel.write(records, position);
+        }
+        size = position;
+        return start;
+    }
+
+    /**
+     * Sinkronizira sadržaj segmenta na disk.
+     */
+    void force() throws IOException {
+        if (channel != null) {
+            channel.force(false);
+        }
+    }
+
+    /**
+     * Čita jedan zapis s poznate pozicije i provjerava njegov kontrolni zbroj.
+     */
+    @Override
+    public void readRecordAt(long offset, SegmentedLog.RecordVisitor visitor) throws IOException {
+        if (channel == null) {
+            readRecordAt(id, path, mapped(), offset, visitor);
+            return;
+        }
+        checkRecordBounds(path, offset, RECORD_OVERHEAD, size);
+        ByteBuffer recordHeader = region(offset, RECORD_OVERHEAD);
+        int length = recordHeader.getInt(0);
+        checkRecordBounds(path, offset, RECORD_OVERHEAD + (long) length, size);
+        visitChecked(id, path, offset, recordHeader.getInt(Integer.BYTES), formatVersion(),
+                region(offset + RECORD_OVERHEAD, length), visitor);
+    }
+
+    /**
+     * Čita jedan zapis s poznate pozicije iz sadržaja segmenta učitanog u međuspremnik.
+     */
+    static void readRecordAt(long id, Path path, ByteBuffer content, long offset,
+                             SegmentedLog.RecordVisitor visitor) throws IOException {
+        checkRecordBounds(path, offset, RECORD_OVERHEAD, content.limit());
+        int position = (int) offset;
+        int length = content.getInt(position);
+        checkRecordBounds(path, offset, RECORD_OVERHEAD + (long) length, content.limit());
+        visitChecked(id, path, offset, content.getInt(position + Integer.BYTES), content.get(Integer.BYTES),
+                content.slice(position + RECORD_OVERHEAD, length), visitor);
+    }
+
+    private static void checkRecordBounds(Path path, long offset, long recordBytes, long segmentSize) throws IOException {
+        if (offset < HEADER_SIZE || recordBytes < RECORD_OVERHEAD || offset + recordBytes > segmentSize) {
+            throw new IOException("Na poziciji " + offset + " segmenta " + path.getFileName() + " nije ispravan zapis.");
+        }
+    }
+
+    private static void visitChecked(long id, Path path, long offset, int checksum, byte formatVersion,
+                                     ByteBuffer payload, SegmentedLog.RecordVisitor visitor) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(payload.duplicate());
+        if ((int) crc.getValue() != checksum) {
+            throw new IOException("Zapis na poziciji " + offset + " segmenta " + path.getFileName() + " je oštećen.");
+        }
+        visitor.visit(id, offset, formatVersion, payload);
+    }
+
+    /**
+     * Oslobađa kanal za čitanje i mapiranje zapečaćenog segmenta. Pogledi koje su posjetitelji
+     * već dobili ostaju ispravni dok god se na njih drži referenca.
+     */
+    @Override
+    public void close() throws IOException {
+        seal();
+        mapping = null;
+        if (readChannel != null) {
+            readChannel.close();
+            readChannel = null;
+        }
+    }
+
+    /**
+     * Vraća dio segmenta kao međuspremnik samo za čitanje: pogled na mapiranu datoteku
+     * za zapečaćeni segment, odnosno pročitanu kopiju za aktivni segment.
+     */
+    private ByteBuffer region(long position, int length) throws IOException {
+        if (channel == null) {
+            return mapped().slice(Math.toIntExact(position), length);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        readFully(channel, buffer, position);
+        return buffer.flip().asReadOnlyBuffer();
+    }
+
+    private ByteBuffer mapped() throws IOException {
+        if (mapping == null) {
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Segment " + path + " je prevelik za mapiranje.");
+            }
+            mapping = readChannel().map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+        return mapping.duplicate();
+    }
+
+    private FileChannel readChannel() throws IOException {
+        if (readChannel == null) {
+            readChannel = FileChannel.open(path, StandardOpenOption.READ);
+        }
+        return readChannel;
+    }
+
+    /**
+     * Zatvara kanal za pisanje; segment nakon toga ostaje dostupan samo za čitanje.
+     */
+    void seal() throws IOException {
+        if (channel != null) {
+            channel.force(true);
+            channel.close();
+            channel = null;
+        }
+    }
+
+    /**
+     * Prolazi kroz sve ispravne zapise segmenta redoslijedom kojim su upisani.
+     */
+    @Override
+    public void readRecords(SegmentedLog.RecordVisitor visitor) throws IOException {
+        scan(visitor);
+    }
+
+    /**
+     * Zapisuje zaglavlje segmenta zadane verzije formata.
+     */
+    static void encodeHeader(ByteBuffer target, byte formatVersion) {
+        target.putInt(MAGIC).put(formatVersion);
+    }
+
+    /**
+     * Kodira jedan zapis u format segmenta.
+     */
+    static void encodeRecord(ByteBuffer target, byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        target.putInt(payload.length).putInt((int) crc.getValue()).put(payload);
+    }
+
+    /**
+     * Prolazi kroz segment i vraća poziciju iza zadnjeg ispravnog zapisa.
+     * Ako je posjetitelj zadan, predaje mu se svaki zapis zajedno s njegovom pozicijom u segmentu.
+     */
+    private long scan(SegmentedLog.RecordVisitor visitor) throws IOException {
+        if (channel == null) {
+            scanContent(id, path, mapped(), visitor);
+            return size;
+        }
+        long validEnd = scanActive(visitor);
+        if (visitor != null && validEnd < size) {
+            log.error("Aktivni segment {} je oštećen na poziciji {}; preskače se {} bajtova do kraja segmenta.",
+                    path.getFileName(), validEnd, size - validEnd);
+        }
+        return validEnd;
+    }
+
+    /**
+     * Prolazi kroz zapečaćeni segment učitan u međuspremnik.
+     * Posjetitelj, ako je zadan, dobiva poglede na dijelove predanog međuspremnika.
+     * <p>
+     * Zapečaćeni segment je u cijelosti potvrđen na disku, pa oštećen zapis nije nedovršen upis nego
+     * stvarno oštećenje: zapis s neispravnim kontrolnim zbrojem se logira i preskače, a ako je oštećena
+     * duljina zapisa, sljedeći zapis se ne može pronaći pa se logira i preskače ostatak segmenta.
+     */
+    static void scanContent(long id, Path path, ByteBuffer content, SegmentedLog.RecordVisitor visitor) throws IOException {
+        if (content.remaining() < HEADER_SIZE || content.getInt(0) != MAGIC) {
+            throw new IOException("Datoteka " + path + " nije segment dnevnika promjena.");
+        }
+        byte formatVersion = content.get(Integer.BYTES);
+        content.position(HEADER_SIZE);
+        CRC32 crc = new CRC32();
+        while (content.remaining() >= RECORD_OVERHEAD) {
+            int start = content.position();
+            int length = content.getInt();
+            int checksum = content.getInt();
+            if (length < 0 || length > content.remaining()) {
+                log.error("Segment {} ima neispravnu duljinu zapisa na poziciji {}; preskače se {} bajtova do kraja segmenta.",
+                        path.getFileName(), start, content.limit() - start);
+                return;
+            }
+            ByteBuffer payload = content.slice(content.position(), length);
+            content.position(content.position() + length);
+            crc.reset();
+            crc.update(payload.duplicate());
+            if ((int) crc.getValue() != checksum) {
+                log.error("Zapis na poziciji {} segmenta {} je oštećen i preskače se.", start, path.getFileName());
+                continue;
+            }
+            if (visitor != null) {
+                visitor.visit(id, start, formatVersion, payload);
+            }
+        }
+        if (content.hasRemaining()) {
+            log.error("Segment {} završava nepotpunim zapisom na poziciji {}; preskače se.",
+                    path.getFileName(), content.position());
+        }
+    }
+
+    /**
+     * Prolazi kroz aktivni segment čitajući ga kroz međuspremnik ograničene veličine, pa se segment
+     * ne kopira na heap u cijelosti. Čitanje staje na prvom nepotpunom ili oštećenom zapisu, što je
+     * kod aktivnog segmenta kraj upisa prekinutog padom aplikacije.
+     * Posjetitelj dobiva pogled na međuspremnik koji vrijedi samo do povratka iz posjetitelja.
+     *
+     * @return Pozicija iza zadnjeg ispravnog zapisa.
+     */
+    private long scanActive(SegmentedLog.RecordVisitor visitor) throws IOException {
+        BoundedReader reader = new BoundedReader(channel, size);
+        if (!reader.request(HEADER_SIZE) || reader.getInt() != MAGIC) {
+            throw new IOException("Datoteka " + path + " nije segment dnevnika promjena.");
+        }
+        byte formatVersion = reader.get();
+        CRC32 crc = new CRC32();
+        while (reader.request(RECORD_OVERHEAD)) {
+            long start = reader.position();
+            int length = reader.getInt();
+            int checksum = reader.getInt();
+            if (length < 0 || !reader.request(length)) {
+                return start;
+            }
+            ByteBuffer payload = reader.slice(length);
+            crc.reset();
+            crc.update(payload.duplicate());
+            if ((int) crc.getValue() != checksum) {
+                return start;
+            }
+            if (visitor != null) {
+                visitor.visit(id, start, formatVersion, payload);
+            }
+        }
+        return reader.position();
+    }
+
+    /**
+     * Slijedno čita dio datoteke kroz međuspremnik od {@link #SCAN_BUFFER_SIZE} bajtova, koji se
+     * povećava samo za zapis veći od toga.
+     */
+    private static final class BoundedReader {
+
+        private final FileChannel channel;
+        private final long end;
+        private ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE).limit(0);
+        private long position;
+
+        BoundedReader(FileChannel channel, long end) {
+            this.channel = channel;
+            this.end = end;
+        }
+
+        long position() {
+            return position;
+        }
+
+        /**
+         * Osigurava da je u međuspremniku sljedećih {@code count} bajtova.
+         * @return False ako do kraja datoteke nema toliko bajtova.
+         */
+        boolean request(int count) throws IOException {
+            if (buffer.remaining() >= count) {
+                return true;
+            }
+            if (end - position < count) {
+                return false;
+            }
+            if (buffer.capacity() < count) {
+                buffer = ByteBuffer.allocate(count).put(buffer);
+            } else {
+                buffer.compact();
+            }
+            buffer.limit((int) Math.min(buffer.capacity(), end - position));
+            readFully(channel, buffer, position + buffer.position());
+            buffer.flip();
+            return buffer.remaining() >= count;
+        }
+
+        byte get() {
+            position++;
+            return buffer.get();
+        }
+
+        int getInt() {
+            position += Integer.BYTES;
+            return buffer.getInt();
+        }
+
+        ByteBuffer slice(int length) {
+            ByteBuffer slice = buffer.slice(buffer.position(), length).asReadOnlyBuffer();
+            buffer.position(buffer.position() + length);
+            position += length;
+            return slice;
+        }
+    }
+
+    private ByteBuffer readHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            readFully(ch, header, 0);
+        }
+        if (header.getInt(0) != MAGIC) {
+            throw new IOException("Datoteka " + path + " nije segment dnevnika promjena.");
+        }
+        return header;
+    }
+
+    private static void readFully(FileChannel ch, ByteBuffer target, long position) throws IOException {
+        long current = position;
+        while (target.hasRemaining()) {
+            int read = ch.read(target, current);
+            if (read < 0) {
+                break;
+            }
+            current += read;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package hr.javafx.projekt.changelog;
+
+import java.io.IOException;
+
+/**
+ * Segment dnevnika iz kojeg se mogu čitati zapisi, neovisno o tome je li u aktivnom dijelu
+ * dnevnika ili u arhivi.
+ */
+interface ReadableSegment {
+
+    long id();
+
+    /**
+     * Vraća veličinu nekomprimiranog sadržaja segmenta, uključujući zaglavlje.
+     */
+    long size();
+
+    byte formatVersion() throws IOException;
+
+    /**
+     * Prolazi kroz sve ispravne zapise segmenta redoslijedom kojim su upisani.
+     */
+    void readRecords(SegmentedLog.RecordVisitor visitor) throws IOException;
+
+    /**
+     * Čita jedan zapis s poznate pozicije i provjerava njegov kontrolni zbroj.
+     */
+    void readRecordAt(long offset, SegmentedLog.RecordVisitor visitor) throws IOException;
+
+    /**
+     * Oslobađa resurse segmenta.
+     */
+    void close() throws IOException;
+}
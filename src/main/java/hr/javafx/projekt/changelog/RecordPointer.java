@@ -0,0 +1,10 @@
+package hr.javafx.projekt.changelog;
+
+/**
+ * Položaj zapisa u dnevniku promjena, dovoljan za njegovo ponovno čitanje bez prolaska kroz segment.
+ *
+ * @param segmentId ID segmenta u kojem se zapis nalazi.
+ * @param offset Pozicija zapisa unutar segmenta.
+ */
+public record RecordPointer(long segmentId, long offset) {
+}
@@ -0,0 +1,22 @@
+package hr.javafx.projekt.changelog;
+
+import java.time.Duration;
+
+/**
+ * Pravila zadržavanja dnevnika promjena.
+ * Zapečaćeni segment premješta se u arhivu kada postane stariji od {@code hotAge} ili kada nearhivirani
+ * segmenti zajedno prijeđu {@code maxHotBytes}. Arhivirani segment briše se kada postane stariji od
+ * {@code maxAge} ili kada arhiva prijeđe {@code maxArchiveBytes}. Uvijek se obrađuju najstariji segmenti.
+ *
+ * @param hotAge Starost nakon koje se segment arhivira.
+ * @param maxHotBytes Najveća ukupna veličina zapečaćenih segmenata koji nisu arhivirani.
+ * @param maxAge Starost nakon koje se arhivirani segment briše.
+ * @param maxArchiveBytes Najveća ukupna veličina arhive na disku.
+ */
+public record RetentionPolicy(
+        Duration hotAge,
+        long maxHotBytes,
+        Duration maxAge,
+        long maxArchiveBytes
+) {
+}
@@ -0,0 +1,498 @@
+package hr.javafx.projekt.changelog;
+
+import hr.javafx.projekt.enums.FsyncPolicy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+/**
+ * Dnevnik koji se samo nadopunjuje (append-only), podijeljen u segmente ograničene veličine.
+ * Upis zapisa ne ovisi o veličini povijesti: novi zapisi se dodaju na kraj aktivnog segmenta,
+ * a kada on dosegne najveću veličinu, zapečati se i otvara novi.
+ * Pri otvaranju se oštećeni kraj aktivnog segmenta (npr. nakon pada aplikacije) odbacuje.
+ * <p>
+ * Najstariji zapečaćeni segmenti mogu se premjestiti u komprimiranu arhivu (poddirektorij {@code archive})
+ * i iz nje brisati. Arhivirani segmenti ostaju dio dnevnika i čitaju se kao i ostali, ali se raspakiravaju
+ * tek kada čitanje do njih stigne.
+ */
+public final class SegmentedLog implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(SegmentedLog.class);
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String ARCHIVE_DIRECTORY = "archive";
+    private static final String ARCHIVE_SUFFIX = ".log.gz";
+    public static final byte FORMAT_VERSION = ChangeLogCodec.CURRENT_VERSION;
+    public static final byte MIN_SUPPORTED_VERSION = 1;
+
+    /**
+     * Prima zapise dnevnika tijekom čitanja.
+     */
+    @FunctionalInterface
+    public interface RecordVisitor {
+        /**
+         * Obrađuje jedan zapis.
+         *
+         * @param segmentId ID segmenta u kojem se zapis nalazi.
+         * @param offset Pozicija zapisa unutar segmenta.
+         * @param formatVersion Verzija formata segmenta, potrebna za dekodiranje sadržaja.
+         * @param payload Sadržaj zapisa kao pogled samo za čitanje; kod zapečaćenih segmenata to je
+         *                dio mapirane datoteke, pa se sadržaj ne kopira dok ga posjetitelj ne dekodira.
+         *                Kod prolaza kroz aktivni segment pogled vrijedi samo do povratka iz posjetitelja.
+         * @throws IOException Ako obrada zapisa ne uspije.
+         */
+        void visit(long segmentId, long offset, byte formatVersion, ByteBuffer payload) throws IOException;
+    }
+
+    /**
+     * Opis zapečaćenog segmenta za potrebe pravila zadržavanja.
+     *
+     * @param id ID segmenta.
+     * @param archived True ako je segment u komprimiranoj arhivi.
+     * @param sizeOnDisk Veličina datoteke segmenta na disku.
+     * @param lastModified Vrijeme zadnjeg upisa u segment.
+     */
+    public record SegmentInfo(long id, boolean archived, long sizeOnDisk, Instant lastModified) {
+    }
+
+    private final Path directory;
+    private final long maxSegmentBytes;
+    private final FsyncPolicy fsyncPolicy;
+    private final long fsyncIntervalMillis;
+    private final List<ArchivedSegment> archivedSegments = new ArrayList<>();
+    private final List<LogSegment> sealedSegments = new ArrayList<>();
+    private LogSegment activeSegment;
+    private long lastFsyncMillis = System.currentTimeMillis();
+    private boolean closed;
+
+    /**
+     * Otvara dnevnik u zadanom direktoriju, kreirajući ga ako ne postoji.
+     *
+     * @param directory Direktorij sa segmentima.
+     * @param maxSegmentBytes Veličina nakon koje se aktivni segment zatvara i otvara novi.
+     * @param fsyncPolicy Pravilo sinkronizacije na disk.
+     * @param fsyncIntervalMillis Interval sinkronizacije za {@link FsyncPolicy#INTERVAL}.
+     * @throws IOException Ako direktorij ili segmente nije moguće otvoriti.
+     */
+    public SegmentedLog(Path directory, long maxSegmentBytes, FsyncPolicy fsyncPolicy, long fsyncIntervalMillis) throws IOException {
+        this.directory = directory;
+        this.maxSegmentBytes = maxSegmentBytes;
+        this.fsyncPolicy = fsyncPolicy;
+        this.fsyncIntervalMillis = fsyncIntervalMillis;
+        Files.createDirectories(directory);
+        openSegments();
+    }
+
+    /**
+     * Dodaje jedan zapis na kraj dnevnika.
+     * @param payload Sadržaj zapisa.
+     * @return Položaj upisanog zapisa.
+     * @throws IOException Ako upis ne uspije.
+     */
+    public RecordPointer append(byte[] payload) throws IOException {
+        return appendAll(List.of(payload)).get(0);
+    }
+
+    /**
+     * Dodaje više zapisa na kraj dnevnika, grupirajući ih u što manje upisa na disk.
+     * @param payloads Sadržaji zapisa.
+     * @return Položaji upisanih zapisa, istim redoslijedom.
+     * @throws IOException Ako upis ne uspije.
+     */
+    public synchronized List<RecordPointer> appendAll(List<byte[]> payloads) throws IOException {
+        ensureOpen();
+        List<RecordPointer> pointers = new ArrayList<>(payloads.size());
+        int index = 0;
+        while (index < payloads.size()) {
+            long firstRecordBytes = (long) LogSegment.RECORD_OVERHEAD + payloads.get(index).length;
+            if (activeSegment.size() > LogSegment.HEADER_SIZE && activeSegment.size() + firstRecordBytes > maxSegmentBytes) {
+                roll();
+            }
+            long available = maxSegmentBytes - activeSegment.size();
+            int batchEnd = index;
+            long batchBytes = 0;
+            while (batchEnd < payloads.size()) {
+                long recordBytes = (long) LogSegment.RECORD_OVERHEAD + payloads.get(batchEnd).length;
+                if (batchEnd > index && batchBytes + recordBytes > available) {
+                    break;
+                }
+                batchBytes += recordBytes;
+                batchEnd++;
+            }
+
+            ByteBuffer buffer = ByteBuffer.allocate(Math.toIntExact(batchBytes));
+            for (int i = index; i < batchEnd; i++) {
+                LogSegment.encodeRecord(buffer, payloads.get(i));
+            }
+            long offset = activeSegment.append(buffer.flip());
+            for (int i = index; i < batchEnd; i++) {
+                pointers.add(new RecordPointer(activeSegment.id(), offset));
+                offset += LogSegment.RECORD_OVERHEAD + payloads.get(i).length;
+            }
+            index = batchEnd;
+        }
+        syncIfRequired();
+        return pointers;
+    }
+
+    /**
+     * Čita jedan zapis s poznatog položaja, bez prolaska kroz ostatak segmenta.
+     * @param pointer Položaj zapisa.
+     * @param visitor Prima pročitani zapis.
+     * @throws IOException Ako segment ne postoji ili zapis na tom položaju nije ispravan.
+     */
+    public synchronized void read(RecordPointer pointer, RecordVisitor visitor) throws IOException {
+        ensureOpen();
+        segment(pointer.segmentId()).readRecordAt(pointer.offset(), visitor);
+    }
+
+    /**
+     * Prolazi kroz sve zapise jednog segmenta redoslijedom kojim su upisani.
+     * @param segmentId ID segmenta.
+     * @param visitor Prima svaki zapis segmenta.
+     * @throws IOException Ako segment ne postoji ili ga nije moguće pročitati.
+     */
+    public synchronized void scanSegment(long segmentId, RecordVisitor visitor) throws IOException {
+        ensureOpen();
+        segment(segmentId).readRecords(visitor);
+    }
+
+    /**
+     * Vraća ID-eve svih segmenata, uključujući arhivirane, od najstarijeg do aktivnog.
+     * @return ID-evi segmenata.
+     */
+    public synchronized List<Long> segmentIds() {
+        List<Long> ids = new ArrayList<>(archivedSegments.size() + sealedSegments.size() + 1);
+        for (ArchivedSegment segment : archivedSegments) {
+            ids.add(segment.id());
+        }
+        for (LogSegment segment : sealedSegments) {
+            ids.add(segment.id());
+        }
+        ids.add(activeSegment.id());
+        return ids;
+    }
+
+    /**
+     * Vraća ID aktivnog segmenta, jedinog u koji se još piše.
+     * @return ID aktivnog segmenta.
+     */
+    public synchronized long activeSegmentId() {
+        return activeSegment.id();
+    }
+
+    /**
+     * Vraća veličinu segmenta u bajtovima.
+     * @param segmentId ID segmenta.
+     * @return Veličina segmenta, uključujući zaglavlje; za arhivirani segment veličina nakon raspakiravanja.
+     * @throws IOException Ako segment ne postoji.
+     */
+    public synchronized long segmentSize(long segmentId) throws IOException {
+        return segment(segmentId).size();
+    }
+
+    /**
+     * Vraća direktorij dnevnika, npr. za pomoćne datoteke koje prate segmente.
+     * @return Direktorij sa segmentima.
+     */
+    public Path directory() {
+        return directory;
+    }
+
+    /**
+     * Prolazi kroz sve zapise redoslijedom kojim su upisani.
+     * @param visitor Prima svaki zapis s njegovim položajem i verzijom formata.
+     * @throws IOException Ako čitanje ne uspije.
+     */
+    public synchronized void scan(RecordVisitor visitor) throws IOException {
+        ensureOpen();
+        for (ArchivedSegment segment : archivedSegments) {
+            segment.readRecords(visitor);
+        }
+        scanHot(visitor);
+    }
+
+    /**
+     * Prolazi kroz zapise segmenata koji nisu arhivirani, redoslijedom kojim su upisani.
+     * @param visitor Prima svaki zapis s njegovim položajem i verzijom formata.
+     * @throws IOException Ako čitanje ne uspije.
+     */
+    public synchronized void scanHot(RecordVisitor visitor) throws IOException {
+        ensureOpen();
+        for (LogSegment segment : sealedSegments) {
+            segment.readRecords(visitor);
+        }
+        activeSegment.readRecords(visitor);
+    }
+
+    /**
+     * Vraća verzije formata svih segmenata koji sadrže zapise.
+     * Starije verzije u skupu znače da dnevnik još nije u potpunosti nadograđen.
+     * @return Sortirani skup verzija formata.
+     * @throws IOException Ako zaglavlje segmenta nije moguće pročitati.
+     */
+    public synchronized SortedSet<Byte> formatVersions() throws IOException {
+        ensureOpen();
+        SortedSet<Byte> versions = new TreeSet<>();
+        for (ArchivedSegment segment : archivedSegments) {
+            versions.add(segment.formatVersion());
+        }
+        for (LogSegment segment : sealedSegments) {
+            versions.add(segment.formatVersion());
+        }
+        if (activeSegment.size() > LogSegment.HEADER_SIZE) {
+            versions.add(activeSegment.formatVersion());
+        }
+        return versions;
+    }
+
+    /**
+     * Provjerava sadrži li dnevnik ijedan zapis.
+     * @return True ako je dnevnik prazan.
+     */
+    public synchronized boolean isEmpty() {
+        return archivedSegments.isEmpty() && sealedSegments.isEmpty() && activeSegment.size() <= LogSegment.HEADER_SIZE;
+    }
+
+    /**
+     * Vraća opis svih segmenata osim aktivnog, od najstarijeg prema najnovijem:
+     * najprije arhivirane, zatim zapečaćene segmente koji još nisu arhivirani.
+     * @return Opisi segmenata.
+     * @throws IOException Ako podatke o datoteci segmenta nije moguće pročitati.
+     */
+    public synchronized List<SegmentInfo> segmentInfos() throws IOException {
+        ensureOpen();
+        List<SegmentInfo> infos = new ArrayList<>(archivedSegments.size() + sealedSegments.size());
+        for (ArchivedSegment segment : archivedSegments) {
+            infos.add(new SegmentInfo(segment.id(), true, Files.size(segment.path()),
+                    Files.getLastModifiedTime(segment.path()).toInstant()));
+        }
+        for (LogSegment segment : sealedSegments) {
+            infos.add(new SegmentInfo(segment.id(), false, segment.size(),
+                    Files.getLastModifiedTime(segment.path()).toInstant()));
+        }
+        return infos;
+    }
+
+    /**
+     * Premješta najstariji zapečaćeni segment u arhivu. Arhiva se gradi iz zadanih zapisa, koji mogu biti
+     * sažeta verzija zapisa segmenta; izvorna datoteka briše se tek nakon što je arhiva zapisana na disk.
+     *
+     * @param segmentId ID segmenta; mora biti najstariji zapečaćeni segment koji nije arhiviran.
+     * @param formatVersion Verzija formata zapisa koji se arhiviraju.
+     * @param payloads Zapisi arhiviranog segmenta.
+     * @throws IOException Ako segment nije moguće arhivirati.
+     */
+    public synchronized void archive(long segmentId, byte formatVersion, List<byte[]> payloads) throws IOException {
+        ensureOpen();
+        if (sealedSegments.isEmpty() || sealedSegments.get(0).id() != segmentId) {
+            throw new IOException("Segment " + segmentId + " nije najstariji zapečaćeni segment i ne može se arhivirati.");
+        }
+        LogSegment segment = sealedSegments.get(0);
+        Files.createDirectories(archiveDirectory());
+        FileTime lastModified = Files.getLastModifiedTime(segment.path());
+        ArchivedSegment archived = ArchivedSegment.write(segmentId, archivePath(segmentId), formatVersion,
+                payloads, lastModified);
+        archivedSegments.add(archived);
+        sealedSegments.remove(0);
+        segment.close();
+        deleteHotFile(segment.path());
+    }
+
+    /**
+     * Trajno briše najstariji arhivirani segment.
+     * @param segmentId ID segmenta; mora biti najstariji arhivirani segment.
+     * @throws IOException Ako segment nije moguće obrisati.
+     */
+    public synchronized void deleteArchived(long segmentId) throws IOException {
+        ensureOpen();
+        if (archivedSegments.isEmpty() || archivedSegments.get(0).id() != segmentId) {
+            throw new IOException("Segment " + segmentId + " nije najstariji arhivirani segment i ne može se obrisati.");
+        }
+        ArchivedSegment segment = archivedSegments.remove(0);
+        segment.close();
+        Files.delete(segment.path());
+    }
+
+    /**
+     * Sinkronizira sve nesinkronizirane upise na disk, neovisno o pravilu sinkronizacije.
+     * @throws IOException Ako sinkronizacija ne uspije.
+     */
+    public synchronized void flush() throws IOException {
+        if (!closed) {
+            activeSegment.force();
+            lastFsyncMillis = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Sinkronizira i zatvara aktivni segment te oslobađa kanale za čitanje ostalih segmenata.
+     * @throws IOException Ako zatvaranje ne uspije.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (!closed) {
+            closed = true;
+            for (ArchivedSegment segment : archivedSegments) {
+                segment.close();
+            }
+            for (LogSegment segment : sealedSegments) {
+                segment.close();
+            }
+            activeSegment.close();
+        }
+    }
+
+    /**
+     * Učitava postojeće segmente; zadnji postaje aktivni segment.
+     * Segmenti starije podržane verzije ostaju čitljivi, ali se u njih više ne piše:
+     * ako je zadnji segment starije verzije, zapečati se i otvara se novi segment trenutne verzije.
+     * Segment koji postoji i u arhivi ostatak je arhiviranja prekinutog prije brisanja izvorne datoteke, pa se briše.
+     */
+    private void openSegments() throws IOException {
+        if (Files.isDirectory(archiveDirectory())) {
+            for (Path file : listSegmentFiles(archiveDirectory(), ARCHIVE_SUFFIX)) {
+                archivedSegments.add(ArchivedSegment.open(parseSegmentId(file, ARCHIVE_SUFFIX), file));
+            }
+        }
+        long lastArchivedId = archivedSegments.isEmpty() ? -1 : archivedSegments.get(archivedSegments.size() - 1).id();
+        List<Path> files = new ArrayList<>();
+        for (Path file : listSegmentFiles(directory, SEGMENT_SUFFIX)) {
+            if (parseSegmentId(file, SEGMENT_SUFFIX) <= lastArchivedId) {
+                log.warn("Segment {} je već arhiviran; briše se zaostala izvorna datoteka.", file.getFileName());
+                Files.delete(file);
+            } else {
+                files.add(file);
+            }
+        }
+
+        for (int i = 0; i < files.size(); i++) {
+            Path file = files.get(i);
+            long id = parseSegmentId(file, SEGMENT_SUFFIX);
+            boolean last = i == files.size() - 1;
+            LogSegment segment = last ? LogSegment.openActive(id, file) : LogSegment.openSealed(id, file);
+            byte version = segment.formatVersion();
+            if (version < MIN_SUPPORTED_VERSION || version > FORMAT_VERSION) {
+                segment.seal();
+                throw new IOException("Segment " + file + " ima nepodržanu verziju formata " + version + ".");
+            }
+            if (last && version == FORMAT_VERSION) {
+                activeSegment = segment;
+            } else {
+                segment.seal();
+                sealedSegments.add(segment);
+            }
+        }
+
+        if (activeSegment == null) {
+            long nextId = sealedSegments.isEmpty() ? lastArchivedId + 1 : sealedSegments.get(sealedSegments.size() - 1).id() + 1;
+            activeSegment = LogSegment.create(nextId, segmentPath(nextId), FORMAT_VERSION);
+        }
+        log.info("Otvoren dnevnik promjena u {} ({} segmenata, od toga {} arhiviranih).", directory,
+                archivedSegments.size() + sealedSegments.size() + 1, archivedSegments.size());
+    }
+
+    /**
+     * Zatvara aktivni segment i otvara novi.
+     */
+    private void roll() throws IOException {
+        activeSegment.seal();
+        sealedSegments.add(activeSegment);
+        long nextId = activeSegment.id() + 1;
+        activeSegment = LogSegment.create(nextId, segmentPath(nextId), FORMAT_VERSION);
+        lastFsyncMillis = System.currentTimeMillis();
+        log.debug("Otvoren novi segment dnevnika promjena: {}", activeSegment.path().getFileName());
+    }
+
+    private ReadableSegment segment(long segmentId) throws IOException {
+        if (segmentId == activeSegment.id()) {
+            return activeSegment;
+        }
+        List<? extends ReadableSegment> segments =
+                !sealedSegments.isEmpty() && segmentId >= sealedSegments.get(0).id() ? sealedSegments : archivedSegments;
+        int low = 0;
+        int high = segments.size() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long midId = segments.get(mid).id();
+            if (midId < segmentId) {
+                low = mid + 1;
+            } else if (midId > segmentId) {
+                high = mid - 1;
+            } else {
+                return segments.get(mid);
+            }
+        }
+        throw new IOException("Segment " + segmentId + " ne postoji u dnevniku " + directory + ".");
+    }
+
+    /**
+     * Briše izvornu datoteku arhiviranog segmenta. Ako brisanje ne uspije (npr. dok je datoteka još mapirana),
+     * datoteka se briše pri sljedećem otvaranju dnevnika.
+     */
+    private static void deleteHotFile(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Izvornu datoteku arhiviranog segmenta {} nije moguće obrisati.", file.getFileName(), e);
+        }
+    }
+
+    private void syncIfRequired() throws IOException {
+        long now = System.currentTimeMillis();
+        boolean sync = switch (fsyncPolicy) {
+            case ALWAYS -> true;
+            case INTERVAL -> now - lastFsyncMillis >= fsyncIntervalMillis;
+            case NEVER -> false;
+        };
+        if (sync) {
+            activeSegment.force();
+            lastFsyncMillis = now;
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Dnevnik promjena je zatvoren.");
+        }
+    }
+
+    private Path segmentPath(long id) {
+        return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, id, SEGMENT_SUFFIX));
+    }
+
+    private Path archiveDirectory() {
+        return directory.resolve(ARCHIVE_DIRECTORY);
+    }
+
+    private Path archivePath(long id) {
+        return archiveDirectory().resolve(String.format("%s%020d%s", SEGMENT_PREFIX, id, ARCHIVE_SUFFIX));
+    }
+
+    private static List<Path> listSegmentFiles(Path directory, String suffix) throws IOException {
+        try (Stream<Path> listing = Files.list(directory)) {
+            return listing
+                    .filter(p -> p.getFileName().toString().startsWith(SEGMENT_PREFIX))
+                    .filter(p -> p.getFileName().toString().endsWith(suffix))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static long parseSegmentId(Path file, String suffix) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - suffix.length()));
+    }
+}
@@ -1,76 +1,262 @@
 package hr.javafx.projekt.controller;
 
+import hr.javafx.projekt.changelog.ChangeLogRecord;
+import hr.javafx.projekt.enums.UserRole;
+import hr.javafx.projekt.exception.RepositoryAccessException;
 import hr.javafx.projekt.model.ChangeLogEntry;
+import hr.javafx.projekt.repository.ChangeLogCriteria;
 import hr.javafx.projekt.repository.ChangeLogRepository;
+import hr.javafx.projekt.repository.Page;
+import hr.javafx.projekt.service.AuditLogWriter;
+import hr.javafx.projekt.service.SearchPipeline;
+import hr.javafx.projekt.utils.DialogUtils;
 import hr.javafx.projekt.utils.Navigation;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
+import javafx.scene.control.Button;
+import javafx.scene.control.ComboBox;
+import javafx.scene.control.DatePicker;
+import javafx.scene.control.Label;
 import javafx.scene.control.TableColumn;
 import javafx.scene.control.TableRow;
 import javafx.scene.control.TableView;
+import javafx.scene.control.TextField;
+import javafx.util.StringConverter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 /**
  * Kontroler za prikaz zapisa o promjenama u sustavu.
+ * Zapisi se dohvaćaju po stranicama, od najnovijeg prema najstarijem, prema odabranim filterima.
+ * Tablica drži nedekodirane zapise, a svaki se zapis dekodira tek kada se njegov redak prikaže.
+ * Stranice se čitaju na pozadinskoj niti, a na JavaFX nit se objavljuje samo rezultat zadnjeg zahtjeva.
  */
 public class ChangeLogController {
 
-    @FXML private TableView<ChangeLogEntry> changeLogTableView;
-    @FXML private TableColumn<ChangeLogEntry, String> timestampColumn;
-    @FXML private TableColumn<ChangeLogEntry, String> changeTypeColumn;
-    @FXML private TableColumn<ChangeLogEntry, String> entityNameColumn;
-    @FXML private TableColumn<ChangeLogEntry, String> userRoleColumn;
-    @FXML private TableColumn<ChangeLogEntry, String> detailsColumn;
+    private static final Logger log = LoggerFactory.getLogger(ChangeLogController.class);
+
+    private static final int PAGE_SIZE = 200;
+
+    @FXML private TableView<ChangeLogRecord> changeLogTableView;
+    @FXML private TableColumn<ChangeLogRecord, String> timestampColumn;
+    @FXML private TableColumn<ChangeLogRecord, String> changeTypeColumn;
+    @FXML private TableColumn<ChangeLogRecord, String> entityNameColumn;
+    @FXML private TableColumn<ChangeLogRecord, String> userRoleColumn;
+    @FXML private TableColumn<ChangeLogRecord, String> detailsColumn;
+    @FXML private ComboBox<String> entityFilterComboBox;
+    @FXML private TextField entityIdFilterField;
+    @FXML private TextField fieldFilterField;
+    @FXML private ComboBox<String> changeTypeFilterComboBox;
+    @FXML private ComboBox<String> userRoleFilterComboBox;
+    @FXML private DatePicker fromDatePicker;
+    @FXML private DatePicker toDatePicker;
+    @FXML private Label resultCountLabel;
+    @FXML private Button loadMoreButton;
 
     private final ChangeLogRepository changeLogRepository = new ChangeLogRepository();
+    private final ObservableList<ChangeLogRecord> changes = FXCollections.observableArrayList();
+    private ChangeLogCriteria currentCriteria = ChangeLogCriteria.all();
+    private final SearchPipeline<PageRequest, PageResult> pagePipeline = new SearchPipeline<>(
+            "promjene", Duration.ZERO,
+            this::loadPage,
+            this::showPage,
+            this::handleLoadError);
+    private Long nextCursor;
     private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("dd.MM.yyyy. HH:mm:ss");
 
+    /**
+     * Zahtjev za jednu stranicu zapisa.
+     *
+     * @param criteria Filteri.
+     * @param cursor Pozicija iza koje se nastavlja, ili null za prvu stranicu.
+     */
+    private record PageRequest(ChangeLogCriteria criteria, Long cursor) {
+    }
+
+    /**
+     * Učitana stranica zajedno sa zahtjevom za koji je učitana.
+     */
+    private record PageResult(PageRequest request, Page<ChangeLogRecord> page) {
+    }
+
     /**
      * Inicijalizira kontroler, postavlja stupce tablice i učitava podatke.
      */
     public void initialize() {
         setupTableColumns();
+        setupFilters();
         setupRowClickListener();
+        changeLogTableView.setItems(changes);
+        loadChanges();
+    }
+
+    /**
+     * Puni padajuće izbornike filtera. Prva stavka (null) znači da se po tom kriteriju ne filtrira.
+     */
+    private void setupFilters() {
+        setupOptions(entityFilterComboBox, "Svi entiteti", List.of("Supplier", "Invoice"));
+        setupOptions(changeTypeFilterComboBox, "Sve akcije", List.of("ADD", "UPDATE", "DELETE", "IMPORT"));
+        List<String> roles = new ArrayList<>(Arrays.stream(UserRole.values()).map(Enum::name).toList());
+        roles.add("SYSTEM");
+        setupOptions(userRoleFilterComboBox, "Sve role", roles);
+    }
+
+    private static void setupOptions(ComboBox<String> comboBox, String allLabel, List<String> options) {
+        List<String> items = new ArrayList<>();
+        items.add(null);
+        items.addAll(options);
+        comboBox.setItems(FXCollections.observableArrayList(items));
+        comboBox.setConverter(new StringConverter<>() {
+            @Override
+            public String toString(String value) {
+                return value == null ? allLabel : value;
+            }
+            @Override
+            public String fromString(String string) { return null; }
+        });
+    }
+
+    /**
+     * Primjenjuje filtere i prikazuje prvu stranicu rezultata.
+     */
+    @FXML
+    public void handleFilter() {
+        Long entityId = null;
+        String idText = entityIdFilterField.getText();
+        if (idText != null && !idText.isBlank()) {
+            try {
+                entityId = Long.parseLong(idText.trim());
+            } catch (NumberFormatException e) {
+                DialogUtils.showWarning("Neispravan unos", "ID entiteta mora biti cijeli broj.");
+                return;
+            }
+        }
+        LocalDate fromDate = fromDatePicker.getValue();
+        LocalDate toDate = toDatePicker.getValue();
+        currentCriteria = new ChangeLogCriteria.Builder()
+                .withEntityName(entityFilterComboBox.getValue())
+                .withEntityId(entityId)
+                .withFieldName(fieldFilterField.getText())
+                .withChangeType(changeTypeFilterComboBox.getValue())
+                .withUserRole(userRoleFilterComboBox.getValue())
+                .withTimeBetween(fromDate == null ? null : fromDate.atStartOfDay(),
+                        toDate == null ? null : LocalDateTime.of(toDate, LocalTime.MAX))
+                .build();
         loadChanges();
     }
 
+    /**
+     * Dodaje sljedeću stranicu rezultata na kraj tablice.
+     */
+    @FXML
+    public void handleLoadMore() {
+        if (nextCursor != null) {
+            loadMoreButton.setDisable(true);
+            pagePipeline.submitNow(new PageRequest(currentCriteria, nextCursor));
+        }
+    }
+
     /**
      * Konfigurira stupce tablice i način prikaza podataka.
      */
     private void setupTableColumns() {
-        timestampColumn.setCellValueFactory(data -> new SimpleStringProperty(data.getValue().timestamp().format(FORMATTER)));
-        changeTypeColumn.setCellValueFactory(data -> new SimpleStringProperty(data.getValue().changeType()));
-        entityNameColumn.setCellValueFactory(data -> new SimpleStringProperty(data.getValue().entityName()));
-        userRoleColumn.setCellValueFactory(data -> new SimpleStringProperty(data.getValue().userRole()));
+        timestampColumn.setCellValueFactory(data -> text(data.getValue(), entry -> entry.timestamp().format(FORMATTER)));
+        changeTypeColumn.setCellValueFactory(data -> text(data.getValue(), ChangeLogEntry::changeType));
+        entityNameColumn.setCellValueFactory(data -> text(data.getValue(), ChangeLogEntry::entityName));
+        userRoleColumn.setCellValueFactory(data -> text(data.getValue(), ChangeLogEntry::userRole));
+        detailsColumn.setCellValueFactory(data -> text(data.getValue(), ChangeLogController::details));
+    }
 
-        detailsColumn.setCellValueFactory(data -> {
-            ChangeLogEntry entry = data.getValue();
-            String changeType = entry.changeType();
+    /**
+     * Dekodira zapis i iz njega izvlači tekst za ćeliju. Zapis koji nije moguće dekodirati
+     * prikazuje se kao neispravan umjesto da prekine prikaz tablice.
+     */
+    private static SimpleStringProperty text(ChangeLogRecord record, Function<ChangeLogEntry, String> extractor) {
+        ChangeLogEntry entry = decode(record);
+        return new SimpleStringProperty(entry == null ? "Neispravan zapis" : extractor.apply(entry));
+    }
 
-            if (changeType == null) {
-                return new SimpleStringProperty("Nepoznata promjena");
-            }
+    private static ChangeLogEntry decode(ChangeLogRecord record) {
+        try {
+            return record.entry();
+        } catch (IOException e) {
+            log.warn("Zapis na poziciji {} segmenta {} nije moguće dekodirati.",
+                    record.pointer().offset(), record.pointer().segmentId(), e);
+            return null;
+        }
+    }
 
-            String details = switch (changeType) {
-                case "ADD" -> "Dodan: " + entry.newValue();
-                case "DELETE" -> "Obrisan: " + entry.oldValue();
-                case "UPDATE" -> String.format("Polje '%s' promijenjeno", entry.fieldName());
-                default -> "Nepoznata akcija";
-            };
-            return new SimpleStringProperty(details);
-        });
+    private static String details(ChangeLogEntry entry) {
+        String changeType = entry.changeType();
+        if (changeType == null) {
+            return "Nepoznata promjena";
+        }
+        return switch (changeType) {
+            case "ADD" -> "Dodan: " + entry.newValue();
+            case "DELETE" -> "Obrisan: " + entry.oldValue();
+            case "IMPORT" -> "Uvezeno: " + entry.newValue();
+            case "UPDATE" -> entry.changes().size() > 1
+                    ? String.format("Polja '%s' promijenjena", entry.fieldName())
+                    : String.format("Polje '%s' promijenjeno", entry.fieldName());
+            default -> "Nepoznata akcija";
+        };
     }
 
     /**
-     * Učitava zapise o promjenama iz repozitorija i prikazuje ih u tablici.
+     * Učitava prvu stranicu zapisa o promjenama prema trenutnim filterima.
      */
     private void loadChanges() {
-        List<ChangeLogEntry> changes = changeLogRepository.readChanges();
-        changeLogTableView.setItems(FXCollections.observableArrayList(changes));
+        loadMoreButton.setDisable(true);
+        resultCountLabel.setText("Učitavanje...");
+        pagePipeline.submitNow(new PageRequest(currentCriteria, null));
+    }
+
+    /**
+     * Čita stranicu zapisa. Izvršava se na pozadinskoj niti. Prije čitanja prve stranice čeka se
+     * da pozadinski pisač upiše zapise koji su još u redu.
+     *
+     * @param request Zahtjev za stranicu.
+     * @return Učitana stranica.
+     */
+    private PageResult loadPage(PageRequest request) {
+        if (request.cursor() == null) {
+            AuditLogWriter.getInstance().flush(2, TimeUnit.SECONDS);
+        }
+        return new PageResult(request, changeLogRepository.findRecords(request.criteria(), request.cursor(), PAGE_SIZE));
+    }
+
+    private void showPage(PageResult result) {
+        Page<ChangeLogRecord> page = result.page();
+        if (result.request().cursor() == null) {
+            changes.setAll(page.items());
+        } else {
+            changes.addAll(page.items());
+        }
+        nextCursor = page.hasMore() ? page.nextCursor() : null;
+        loadMoreButton.setDisable(nextCursor == null);
+        resultCountLabel.setText(String.format("Prikazano zapisa: %d%s", changes.size(), page.hasMore() ? "+" : ""));
+    }
+
+    private void handleLoadError(RepositoryAccessException e) {
+        log.error("Učitavanje zapisa o promjenama nije uspjelo.", e);
+        loadMoreButton.setDisable(nextCursor == null);
+        resultCountLabel.setText(String.format("Prikazano zapisa: %d", changes.size()));
+        DialogUtils.showError("Greška", "Nije moguće učitati zapise o promjenama.");
     }
 
     /**
@@ -78,11 +264,13 @@ public class ChangeLogController {
      */
     private void setupRowClickListener() {
         changeLogTableView.setRowFactory(tv -> {
-            TableRow<ChangeLogEntry> row = new TableRow<>();
+            TableRow<ChangeLogRecord> row = new TableRow<>();
             row.setOnMouseClicked(event -> {
                 if (event.getClickCount() == 2 && (!row.isEmpty())) {
-                    ChangeLogEntry rowData = row.getItem();
-                    showDetailsPopup(rowData);
+                    ChangeLogEntry rowData = decode(row.getItem());
+                    if (rowData != null) {
+                        showDetailsPopup(rowData);
+                    }
                 }
             });
             return row;
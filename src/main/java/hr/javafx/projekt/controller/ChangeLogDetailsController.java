@@ -1,29 +1,49 @@
 package hr.javafx.projekt.controller;
 
+import hr.javafx.projekt.exception.RepositoryAccessException;
 import hr.javafx.projekt.model.ChangeLogEntry;
+import hr.javafx.projekt.model.EntityState;
+import hr.javafx.projekt.model.FieldChange;
+import hr.javafx.projekt.service.EntityHistoryService;
+import hr.javafx.projekt.service.SearchPipeline;
 import javafx.fxml.FXML;
 import javafx.scene.control.Label;
 import javafx.scene.layout.VBox;
 import javafx.scene.paint.Color;
 import javafx.scene.text.Font;
 import javafx.scene.text.FontWeight;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.time.Duration;
 import java.time.format.DateTimeFormatter;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 
 /**
  * Kontroler za prikaz detalja pojedinog zapisa o promjeni.
+ * Uz promjenu se prikazuje i stanje entiteta neposredno nakon nje, rekonstruirano iz dnevnika promjena
+ * na pozadinskoj niti.
  */
 public class ChangeLogDetailsController {
 
+    private static final Logger log = LoggerFactory.getLogger(ChangeLogDetailsController.class);
+
     @FXML private Label timestampLabel;
     @FXML private Label userRoleLabel;
     @FXML private Label changeDetailsLabel;
     @FXML private VBox oldValueBox;
     @FXML private VBox newValueBox;
+    @FXML private VBox stateBox;
+
+    private final SearchPipeline<ChangeLogEntry, Optional<EntityState>> statePipeline = new SearchPipeline<>(
+            "povijest-entiteta", Duration.ZERO,
+            entry -> EntityHistoryService.getInstance().stateAt(entry.entityName(), entry.entityId(), entry.timestamp()),
+            this::displayState,
+            this::handleStateError);
 
     private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("dd.MM.yyyy. HH:mm:ss");
 
@@ -51,11 +71,47 @@ public class ChangeLogDetailsController {
             case "ADD" -> displayAdded(entry);
             case "DELETE" -> displayDeleted(entry);
             case "UPDATE" -> displayUpdated(entry);
+            case "IMPORT" -> {
+                oldValueBox.getChildren().add(new Label("Nema stare vrijednosti."));
+                newValueBox.getChildren().add(new Label(entry.newValue()));
+            }
             default -> {
                 oldValueBox.getChildren().add(new Label("N/A"));
                 newValueBox.getChildren().add(new Label("N/A"));
             }
         }
+
+        stateBox.getChildren().clear();
+        if (entry.entityId() == null) {
+            stateBox.getChildren().add(new Label("Zapis ne sadrži ID entiteta."));
+        } else {
+            stateBox.getChildren().add(new Label("Učitavanje..."));
+            statePipeline.submitNow(entry);
+        }
+    }
+
+    /**
+     * Prikazuje rekonstruirano stanje entiteta nakon promjene.
+     *
+     * @param state Stanje entiteta, ili prazan Optional ako entitet nakon promjene ne postoji.
+     */
+    private void displayState(Optional<EntityState> state) {
+        stateBox.getChildren().clear();
+        if (state.isEmpty()) {
+            stateBox.getChildren().add(new Label("Entitet nakon ove promjene ne postoji."));
+            return;
+        }
+        if (!state.get().complete()) {
+            stateBox.getChildren().add(highlighted(
+                    "Dnevnik nema zapis o dodavanju entiteta; prikazana su samo polja promijenjena nakon toga.",
+                    Color.DARKORANGE));
+        }
+        state.get().fields().forEach((key, value) -> stateBox.getChildren().add(new Label(key + ": " + value)));
+    }
+
+    private void handleStateError(RepositoryAccessException e) {
+        log.error("Rekonstrukcija stanja entiteta nije uspjela.", e);
+        stateBox.getChildren().setAll(new Label("Stanje entiteta nije moguće učitati."));
     }
 
     /**
@@ -84,10 +140,19 @@ public class ChangeLogDetailsController {
 
     /**
      * Prikazuje podatke za akciju ažuriranja entiteta, ističući promijenjena polja.
+     * Noviji zapisi nose popis promijenjenih polja, a stariji se parsiraju iz tekstualnih vrijednosti.
      *
      * @param entry Zapis o promjeni.
      */
     private void displayUpdated(ChangeLogEntry entry) {
+        if (!entry.changes().isEmpty()) {
+            for (FieldChange change : entry.changes()) {
+                oldValueBox.getChildren().add(highlighted(change.fieldName() + ": " + change.oldValue(), Color.RED));
+                newValueBox.getChildren().add(highlighted(change.fieldName() + ": " + change.newValue(), Color.GREEN));
+            }
+            return;
+        }
+
         Map<String, String> oldValues = parseStringToObjectMap(entry.oldValue());
         Map<String, String> newValues = parseStringToObjectMap(entry.newValue());
 
@@ -95,21 +160,30 @@ public class ChangeLogDetailsController {
             String oldValue = oldValues.getOrDefault(key, "N/A");
             String newValue = newValues.getOrDefault(key, "N/A");
 
-            Label oldLabel = new Label(key + ": " + oldValue);
-            Label newLabel = new Label(key + ": " + newValue);
-
             if (!Objects.equals(oldValue, newValue)) {
-                oldLabel.setTextFill(Color.RED);
-                oldLabel.setFont(Font.font("System", FontWeight.BOLD, 12));
-                newLabel.setTextFill(Color.GREEN);
-                newLabel.setFont(Font.font("System", FontWeight.BOLD, 12));
+                oldValueBox.getChildren().add(highlighted(key + ": " + oldValue, Color.RED));
+                newValueBox.getChildren().add(highlighted(key + ": " + newValue, Color.GREEN));
+            } else {
+                oldValueBox.getChildren().add(new Label(key + ": " + oldValue));
+                newValueBox.getChildren().add(new Label(key + ": " + newValue));
             }
-
-            oldValueBox.getChildren().add(oldLabel);
-            newValueBox.getChildren().add(newLabel);
         });
     }
 
+    /**
+     * Kreira podebljanu oznaku u zadanoj boji za isticanje promijenjene vrijednosti.
+     *
+     * @param text Tekst oznake.
+     * @param color Boja teksta.
+     * @return Oznaka.
+     */
+    private Label highlighted(String text, Color color) {
+        Label label = new Label(text);
+        label.setTextFill(color);
+        label.setFont(Font.font("System", FontWeight.BOLD, 12));
+        return label;
+    }
+
     /**
      * Parsira string reprezentaciju objekta (npr. "Supplier[name=Test, address=Adresa]") u mapu ključ-vrijednost.
      *
@@ -1,20 +1,40 @@
 package hr.javafx.projekt.controller;
 
+import hr.javafx.projekt.model.InvoiceDelta;
+import hr.javafx.projekt.model.PayablesSummary;
+import hr.javafx.projekt.model.SupplierOutstanding;
+import hr.javafx.projekt.service.InvoiceChangeBus;
+import hr.javafx.projekt.service.PayablesSummaryService;
 import hr.javafx.projekt.session.SessionManager;
 import hr.javafx.projekt.utils.Navigation;
 import javafx.fxml.FXML;
 import javafx.scene.control.Label;
 import javafx.scene.layout.VBox;
 
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
 /**
  * Kontroler za glavni (dashboard) ekran aplikacije.
+ * Uz navigacijske kartice prikazuje sažetak obveza prema dobavljačima. Zapamćeni sažetak prikazuje se
+ * odmah, a zastarjeli se ponovno izračunava na pozadinskoj niti. Sažetak se osvježava samo kada
+ * {@link InvoiceChangeBus} javi promjenu faktura.
  */
 public class DashboardController {
 
     @FXML private Label welcomeLabel;
     @FXML private Label roleLabel;
     @FXML private VBox adminCard;
+    @FXML private Label unpaidTotalLabel;
+    @FXML private Label overdueTotalLabel;
+    @FXML private Label dueNext7DaysLabel;
+    @FXML private Label dueNext30DaysLabel;
+    @FXML private VBox topSuppliersBox;
 
+    private final PayablesSummaryService summaryService = PayablesSummaryService.getInstance();
+    private final Consumer<InvoiceDelta> invoiceChanges = delta -> loadSummary();
 
     /**
      * Inicijalizira dashboard.
@@ -32,6 +52,47 @@ public class DashboardController {
             adminCard.setVisible(false);
             adminCard.setManaged(false);
         }
+
+        loadSummary();
+        InvoiceChangeBus.getInstance().subscribe(invoiceChanges);
+    }
+
+    /**
+     * Prikazuje zapamćeni sažetak obveza ako je važeći, a inače ga izračunava u pozadini.
+     */
+    private void loadSummary() {
+        summaryService.getCachedSummary().ifPresentOrElse(this::showSummary, () -> {
+            if (unpaidTotalLabel.getText().isEmpty()) {
+                unpaidTotalLabel.setText("Učitavanje...");
+            }
+            summaryService.loadAsync(this::showSummary,
+                    e -> unpaidTotalLabel.setText("Sažetak obveza nije dostupan."));
+        });
+    }
+
+    private void showSummary(PayablesSummary summary) {
+        unpaidTotalLabel.setText(formatAmount(summary.totalUnpaid(), summary.unpaidCount()));
+        overdueTotalLabel.setText(formatAmount(summary.totalOverdue(), summary.overdueCount()));
+        dueNext7DaysLabel.setText(formatAmount(summary.dueNext7Days()));
+        dueNext30DaysLabel.setText(formatAmount(summary.dueNext30Days()));
+
+        List<Label> rows = new ArrayList<>();
+        for (SupplierOutstanding supplier : summary.topSuppliers()) {
+            rows.add(new Label(supplier.supplierName() + ": "
+                    + formatAmount(supplier.outstanding(), supplier.invoiceCount())));
+        }
+        if (rows.isEmpty()) {
+            rows.add(new Label("Nema neplaćenih faktura."));
+        }
+        topSuppliersBox.getChildren().setAll(rows);
+    }
+
+    private static String formatAmount(BigDecimal amount) {
+        return String.format("%,.2f", amount);
+    }
+
+    private static String formatAmount(BigDecimal amount, int invoiceCount) {
+        return String.format("%s (%d faktura)", formatAmount(amount), invoiceCount);
     }
 
     /**
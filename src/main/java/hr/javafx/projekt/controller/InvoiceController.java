@@ -1,36 +1,60 @@
 package hr.javafx.projekt.controller;
 
+import hr.javafx.projekt.enums.ExportFormat;
+import hr.javafx.projekt.enums.InvoiceSortField;
 import hr.javafx.projekt.enums.InvoiceStatus;
+import hr.javafx.projekt.enums.SortDirection;
 import hr.javafx.projekt.exception.RepositoryAccessException;
+import hr.javafx.projekt.exception.ValidationException;
 import hr.javafx.projekt.main.MainApplication;
 import hr.javafx.projekt.model.Invoice;
+import hr.javafx.projekt.model.InvoiceDelta;
 import hr.javafx.projekt.model.Supplier;
+import hr.javafx.projekt.repository.InvoiceCriteria;
 import hr.javafx.projekt.repository.InvoiceRepository;
 import hr.javafx.projekt.repository.SupplierRepository;
+import hr.javafx.projekt.service.AgingReportService;
+import hr.javafx.projekt.service.ExportService;
+import hr.javafx.projekt.service.InvoiceChangeBus;
+import hr.javafx.projekt.service.InvoiceImportService;
+import hr.javafx.projekt.service.PagedObservableList;
+import hr.javafx.projekt.service.SearchPipeline;
 import hr.javafx.projekt.service.StatusBarState;
 import hr.javafx.projekt.session.SessionManager;
 import hr.javafx.projekt.utils.DialogUtils;
 import hr.javafx.projekt.utils.Navigation;
-import javafx.application.Platform;
 import javafx.beans.property.SimpleStringProperty;
+import javafx.beans.value.ObservableValue;
 import javafx.collections.FXCollections;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
+import javafx.stage.FileChooser;
 import javafx.util.StringConverter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
+import java.time.Duration;
+import java.time.LocalDate;
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 /**
  * Kontroler za ekran za prikaz i upravljanje fakturama.
+ * Tablica se ne učitava iznova nakon svakog upisa, nego prema promjenama s {@link InvoiceChangeBus}.
  */
 public class InvoiceController {
 
     private static final Logger log = LoggerFactory.getLogger(InvoiceController.class);
+    private static final int PAGE_SIZE = 100;
+    private static final int MAX_CACHED_PAGES = 10;
+    private static final Duration SEARCH_DEBOUNCE = Duration.ofMillis(250);
+    private static final int MAX_PATCHED_INVOICES = PAGE_SIZE * MAX_CACHED_PAGES;
 
     @FXML private TextField invoiceNumberFilterField;
     @FXML private ComboBox<Supplier> supplierFilterComboBox;
+    @FXML private ComboBox<InvoiceStatus> statusFilterComboBox;
     @FXML private TableView<Invoice> invoiceTableView;
     @FXML private TableColumn<Invoice, String> invoiceNumberColumn;
     @FXML private TableColumn<Invoice, String> supplierColumn;
@@ -44,6 +68,41 @@ public class InvoiceController {
 
     private final InvoiceRepository invoiceRepository = new InvoiceRepository();
     private final SupplierRepository supplierRepository = new SupplierRepository();
+    private final PagedObservableList<Invoice> invoices = new PagedObservableList<>(PAGE_SIZE, MAX_CACHED_PAGES,
+            e -> DialogUtils.showError("Greška", "Nije moguće učitati fakture iz baze podataka."));
+    private final Map<TableColumn<Invoice, ?>, InvoiceSortField> sortFields = new HashMap<>();
+    private final SearchPipeline<InvoiceCriteria, SearchResult> searchPipeline = new SearchPipeline<>(
+            "fakture", SEARCH_DEBOUNCE,
+            this::search,
+            this::showSearchResult,
+            e -> handleRepositoryError("Nije moguće učitati fakture iz baze podataka.", e));
+    private final SearchPipeline<DeltaCheck, DeltaCheckResult> deltaPipeline = new SearchPipeline<>(
+            "fakture-promjene", Duration.ZERO,
+            this::checkDelta,
+            this::applyDeltaCheck,
+            this::handleDeltaCheckError);
+    private final Consumer<InvoiceDelta> invoiceChanges = this::onInvoicesChanged;
+    private InvoiceCriteria currentCriteria;
+    private InvoiceDelta pendingDelta = InvoiceDelta.EMPTY;
+
+    /**
+     * Rezultat pretrage: ukupan broj faktura i prva stranica, dohvaćeni zajedno na pozadinskoj niti.
+     */
+    private record SearchResult(InvoiceCriteria criteria, int count, List<Invoice> firstPage) {
+    }
+
+    /**
+     * Promjene faktura koje treba provjeriti prema kriterijima prikazanim u trenutku promjene.
+     */
+    private record DeltaCheck(InvoiceCriteria criteria, InvoiceDelta delta) {
+    }
+
+    /**
+     * Rezultat provjere promjena: novi broj faktura za kriterije i trenutne verzije dodanih i izmijenjenih
+     * faktura koje odgovaraju kriterijima, prema ID-u.
+     */
+    private record DeltaCheckResult(DeltaCheck check, int count, Map<Long, Invoice> matching) {
+    }
 
     /**
      * Inicijalizira kontroler, postavlja stupce tablice, filtere i učitava podatke.
@@ -55,29 +114,46 @@ public class InvoiceController {
         setupTableColumns();
         setupRowColoring();
         setupSupplierFilterComboBox();
-        loadAndDisplayInvoices();
+        setupStatusFilterComboBox();
+        invoiceTableView.setItems(invoices);
+        invoiceNumberFilterField.textProperty().addListener((obs, oldVal, newVal) -> applyCriteria(false, true));
+        handleFilter();
 
-        StatusBarState state = MainApplication.getStatusBarState();
-        state.refreshSignalProperty().addListener((obs, oldVal, newVal) -> loadAndDisplayInvoices());
+        InvoiceChangeBus.getInstance().subscribe(invoiceChanges);
     }
 
     /**
      * Konfigurira stupce tablice za prikaz podataka o fakturama.
+     * Retci čija stranica još nije učitana nemaju fakturu i prikazuju se prazni.
+     * Sortiranje klikom na stupac obavlja baza, jer tablica drži samo učitane stranice.
      */
     public void setupTableColumns() {
-        invoiceNumberColumn.setCellValueFactory(data -> new SimpleStringProperty(data.getValue().getInvoiceNumber()));
-        supplierColumn.setCellValueFactory(data -> new SimpleStringProperty(data.getValue().getSupplier().getName()));
-        amountColumn.setCellValueFactory(data -> new SimpleStringProperty(data.getValue().getAmount().toString()));
-        issueDateColumn.setCellValueFactory(data -> new SimpleStringProperty(data.getValue().getIssueDate().toString()));
-        dueDateColumn.setCellValueFactory(data -> new SimpleStringProperty(data.getValue().getDueDate().toString()));
-        statusColumn.setCellValueFactory(data -> new SimpleStringProperty(data.getValue().getStatus().name()));
-        remainingDaysColumn.setCellValueFactory(data -> {
-            Invoice invoice = data.getValue();
-            return new SimpleStringProperty(invoice.getStatus() == InvoiceStatus.UNPAID ?
-                    String.valueOf(invoice.calculateRemainingDays()) : "-");
+        invoiceNumberColumn.setCellValueFactory(data -> text(data.getValue(), Invoice::getInvoiceNumber));
+        supplierColumn.setCellValueFactory(data -> text(data.getValue(), invoice -> invoice.getSupplier().getName()));
+        amountColumn.setCellValueFactory(data -> text(data.getValue(), invoice -> invoice.getAmount().toString()));
+        issueDateColumn.setCellValueFactory(data -> text(data.getValue(), invoice -> invoice.getIssueDate().toString()));
+        dueDateColumn.setCellValueFactory(data -> text(data.getValue(), invoice -> invoice.getDueDate().toString()));
+        statusColumn.setCellValueFactory(data -> text(data.getValue(), invoice -> invoice.getStatus().name()));
+        remainingDaysColumn.setCellValueFactory(data -> text(data.getValue(), invoice ->
+                invoice.getStatus() == InvoiceStatus.UNPAID ? String.valueOf(invoice.calculateRemainingDays()) : "-"));
+
+        sortFields.put(invoiceNumberColumn, InvoiceSortField.INVOICE_NUMBER);
+        sortFields.put(supplierColumn, InvoiceSortField.SUPPLIER);
+        sortFields.put(amountColumn, InvoiceSortField.AMOUNT);
+        sortFields.put(issueDateColumn, InvoiceSortField.ISSUE_DATE);
+        sortFields.put(dueDateColumn, InvoiceSortField.DUE_DATE);
+        sortFields.put(statusColumn, InvoiceSortField.STATUS);
+        sortFields.put(remainingDaysColumn, InvoiceSortField.DUE_DATE);
+        invoiceTableView.setSortPolicy(table -> {
+            applyCriteria(false, false);
+            return true;
         });
     }
 
+    private static ObservableValue<String> text(Invoice invoice, Function<Invoice, String> extractor) {
+        return new SimpleStringProperty(invoice == null ? "" : extractor.apply(invoice));
+    }
+
     /**
      * Postavlja bojanje redaka u tablici ovisno o statusu fakture.
      */
@@ -118,55 +194,237 @@ public class InvoiceController {
     }
 
     /**
-     * Učitava i prikazuje fakture, pozivajući filter ako je aktivan.
+     * Postavlja ComboBox za filtriranje po statusu fakture.
+     */
+    private void setupStatusFilterComboBox() {
+        List<InvoiceStatus> statuses = new ArrayList<>();
+        statuses.add(null);
+        statuses.addAll(Arrays.asList(InvoiceStatus.values()));
+        statusFilterComboBox.setItems(FXCollections.observableArrayList(statuses));
+        statusFilterComboBox.setConverter(new StringConverter<>() {
+            @Override
+            public String toString(InvoiceStatus status) {
+                return status == null ? "Svi statusi" : status.name();
+            }
+            @Override
+            public InvoiceStatus fromString(String string) { return null; }
+        });
+    }
+
+    /**
+     * Ponovno učitava prikazane fakture uz zadržavanje trenutnog filtera i pozicije u tablici.
      */
     private void loadAndDisplayInvoices() {
-        List<Invoice> invoices;
-        try {
-            invoices = invoiceRepository.findAll();
-        } catch (RepositoryAccessException e) {
-            handleRepositoryError("Nije moguće učitati fakture iz baze podataka.", e);
-            invoices = Collections.emptyList();
+        invoices.refresh();
+    }
+
+    /**
+     * Prima promjene faktura s {@link InvoiceChangeBus} i pokreće njihovu provjeru na pozadinskoj niti.
+     * Promjene koje stignu dok je provjera u tijeku spajaju se s njom u novu provjeru. Za vrlo velik broj
+     * promjena (npr. uvoz) provjera po ID-evima ne isplati se, pa se tablica osvježava u cijelosti,
+     * kao i kada promijenjene fakture nisu poznate.
+     *
+     * @param delta Promjene faktura.
+     */
+    private void onInvoicesChanged(InvoiceDelta delta) {
+        if (currentCriteria == null) {
+            return;
+        }
+        pendingDelta = pendingDelta.merge(delta);
+        if (pendingDelta.isEmpty()) {
+            return;
+        }
+        if (pendingDelta.reloadRequired() || pendingDelta.size() > MAX_PATCHED_INVOICES) {
+            pendingDelta = InvoiceDelta.EMPTY;
+            deltaPipeline.cancel();
+            loadAndDisplayInvoices();
+            return;
+        }
+        deltaPipeline.submitNow(new DeltaCheck(currentCriteria, pendingDelta));
+    }
+
+    /**
+     * Dohvaća broj faktura za kriterije i one dodane i izmijenjene fakture koje kriterijima odgovaraju.
+     * Izvršava se na pozadinskoj niti.
+     *
+     * @param check Promjene i kriteriji.
+     * @return Rezultat provjere.
+     */
+    private DeltaCheckResult checkDelta(DeltaCheck check) {
+        Set<Long> candidates = new HashSet<>(check.delta().inserted());
+        candidates.addAll(check.delta().updated());
+        Map<Long, Invoice> matching = new HashMap<>();
+        if (!candidates.isEmpty()) {
+            for (Invoice invoice : invoiceRepository.findByCriteria(
+                    check.criteria().restrictedTo(candidates), 0, candidates.size())) {
+                matching.put(invoice.getId(), invoice);
+            }
+        }
+        return new DeltaCheckResult(check, invoiceRepository.count(check.criteria()), matching);
+    }
+
+    /**
+     * Primjenjuje provjerene promjene. Ako se skup prikazanih faktura ili njihov poredak nije promijenio,
+     * zamjenjuju se samo izmijenjeni retci koji su učitani, a ostali se ne diraju. Inače se tablica
+     * osvježava uz zadržavanje pozicije i odabira.
+     *
+     * @param result Rezultat provjere.
+     */
+    private void applyDeltaCheck(DeltaCheckResult result) {
+        pendingDelta = InvoiceDelta.EMPTY;
+        if (!result.check().criteria().equals(currentCriteria) || requiresReload(result)) {
+            loadAndDisplayInvoices();
+            return;
+        }
+        int patched = 0;
+        for (Long id : result.check().delta().updated()) {
+            int index = loadedIndexOf(id);
+            Invoice current = result.matching().get(id);
+            if (index >= 0 && current != null && invoices.replaceLoaded(index, current)) {
+                patched++;
+            }
+        }
+        log.debug("Promjene faktura primijenjene bez ponovnog učitavanja tablice ({} redaka).", patched);
+    }
+
+    /**
+     * Provjerava mogu li promjene pomaknuti retke tablice: promijenjen je broj faktura, dodana faktura
+     * odgovara filteru, obrisana ili izmijenjena faktura bila je prikazana pa je nestala ili joj se
+     * promijenio ključ sortiranja, ili su neke neučitane fakture mogle istodobno ući u filter i izaći iz njega.
+     */
+    private boolean requiresReload(DeltaCheckResult result) {
+        InvoiceDelta delta = result.check().delta();
+        Map<Long, Invoice> matching = result.matching();
+        if (result.count() != invoices.size() || delta.inserted().stream().anyMatch(matching::containsKey)) {
+            return true;
         }
 
-        List<Invoice> finalInvoices = invoices;
-        Platform.runLater(() -> {
-            if (!invoiceNumberFilterField.getText().isBlank() || supplierFilterComboBox.getValue() != null) {
-                handleFilter();
+        boolean mayHaveLeft = false;
+        boolean mayHaveEntered = false;
+        for (Long id : delta.deleted()) {
+            if (loadedIndexOf(id) >= 0) {
+                return true;
+            }
+            mayHaveLeft = true;
+        }
+        InvoiceSortField sortField = currentCriteria.getSortField();
+        for (Long id : delta.updated()) {
+            int index = loadedIndexOf(id);
+            Invoice current = matching.get(id);
+            if (index >= 0) {
+                if (current == null || !Objects.equals(sortKey(sortField, invoices.getLoaded(index)),
+                        sortKey(sortField, current))) {
+                    return true;
+                }
+            } else if (current == null) {
+                mayHaveLeft = true;
+            } else if (sortField != InvoiceSortField.ID) {
+                return true;
             } else {
-                invoiceTableView.setItems(FXCollections.observableArrayList(finalInvoices));
+                mayHaveEntered = true;
             }
-        });
+        }
+        return mayHaveLeft && mayHaveEntered;
+    }
+
+    private void handleDeltaCheckError(RepositoryAccessException e) {
+        log.warn("Provjera promjena faktura nije uspjela, tablica se osvježava u cijelosti.", e);
+        pendingDelta = InvoiceDelta.EMPTY;
+        loadAndDisplayInvoices();
+    }
+
+    private int loadedIndexOf(Long id) {
+        return invoices.indexOfLoaded(invoice -> invoice.getId().equals(id));
+    }
+
+    private static Object sortKey(InvoiceSortField field, Invoice invoice) {
+        return switch (field) {
+            case ID -> invoice.getId();
+            case INVOICE_NUMBER -> invoice.getInvoiceNumber();
+            case SUPPLIER -> invoice.getSupplier().getName();
+            case AMOUNT -> invoice.getAmount();
+            case ISSUE_DATE -> invoice.getIssueDate();
+            case DUE_DATE -> invoice.getDueDate();
+            case STATUS -> invoice.getStatus();
+        };
     }
 
     /**
-     * Filtrira fakture na temelju unesenih kriterija.
+     * Postavlja izvor podataka tablice prema unesenim kriterijima. Filtriranje i sortiranje obavlja baza,
+     * a tablica učitava samo stranice koje prikazuje.
      */
     @FXML
     public void handleFilter() {
-        try {
-            List<Invoice> allInvoices = invoiceRepository.findAll();
-            String invoiceFilter = invoiceNumberFilterField.getText().toLowerCase();
-            Supplier selectedSupplier = supplierFilterComboBox.getValue();
+        applyCriteria(true, false);
+    }
 
-            List<Invoice> filteredList = allInvoices.stream()
-                    .filter(inv -> inv.getInvoiceNumber().toLowerCase().contains(invoiceFilter))
-                    .filter(inv -> {
+    /**
+     * Gradi kriterije iz filtera i odabranog sortiranja te pokreće pozadinsku pretragu.
+     * @param force Ako je false, pretraga se ne pokreće kada su kriteriji jednaki trenutnima.
+     * @param debounce Ako je true, pretraga se pokreće tek kada korisnik prestane tipkati.
+     */
+    private void applyCriteria(boolean force, boolean debounce) {
+        Supplier selectedSupplier = supplierFilterComboBox.getValue();
+        InvoiceCriteria.Builder builder = new InvoiceCriteria.Builder()
+                .withInvoiceNumberContaining(invoiceNumberFilterField.getText())
+                .withSupplierId(selectedSupplier == null ? null : selectedSupplier.getId())
+                .withStatuses(statusFilterComboBox.getValue());
 
-                        if (selectedSupplier == null) {
-                            return true;
-                        }
+        if (!invoiceTableView.getSortOrder().isEmpty()) {
+            TableColumn<Invoice, ?> column = invoiceTableView.getSortOrder().get(0);
+            builder.sortedBy(sortFields.getOrDefault(column, InvoiceSortField.ID),
+                    column.getSortType() == TableColumn.SortType.DESCENDING ? SortDirection.DESC : SortDirection.ASC);
+        }
 
-                        return Objects.equals(inv.getSupplier().getId(), selectedSupplier.getId());
-                    })
-                    .toList();
+        InvoiceCriteria criteria = builder.build();
+        if (!force && criteria.equals(currentCriteria)) {
+            return;
+        }
+        currentCriteria = criteria;
 
-            invoiceTableView.setItems(FXCollections.observableArrayList(filteredList));
-        } catch (RepositoryAccessException e) {
-            handleRepositoryError("Nije moguće filtrirati podatke.", e);
+        if (debounce) {
+            searchPipeline.submit(criteria);
+        } else {
+            searchPipeline.submitNow(criteria);
         }
     }
 
+    /**
+     * Dohvaća broj faktura i prvu stranicu za kriterije. Izvršava se na pozadinskoj niti.
+     * @param criteria Kriteriji pretrage.
+     * @return Rezultat pretrage.
+     */
+    private SearchResult search(InvoiceCriteria criteria) {
+        int count = invoiceRepository.count(criteria);
+        List<Invoice> firstPage = count == 0 ? List.of() : invoiceRepository.findByCriteria(criteria, 0, PAGE_SIZE);
+        return new SearchResult(criteria, count, firstPage);
+    }
+
+    /**
+     * Postavlja rezultat pretrage kao izvor tablice; ostale stranice učitavaju se po potrebi.
+     * @param result Rezultat pretrage.
+     */
+    private void showSearchResult(SearchResult result) {
+        InvoiceCriteria criteria = result.criteria();
+        invoices.setSource(new PagedObservableList.PageSource<>() {
+            @Override
+            public int count() throws RepositoryAccessException {
+                return invoiceRepository.count(criteria);
+            }
+
+            @Override
+            public List<Invoice> load(int offset, int limit) throws RepositoryAccessException {
+                return invoiceRepository.findByCriteria(criteria, offset, limit);
+            }
+
+            @Override
+            public List<Invoice> load(int offset, int limit, Invoice previous, Invoice next)
+                    throws RepositoryAccessException {
+                return invoiceRepository.findByCriteria(criteria, offset, limit, previous, next);
+            }
+        }, result.count(), result.firstPage());
+    }
+
     /**
      * Otvara prozor za unos nove fakture.
      */
@@ -198,13 +456,83 @@ public class InvoiceController {
         if (DialogUtils.showConfirmation("Potvrda brisanja", "Jeste li sigurni da želite obrisati ovu fakturu?")) {
             try {
                 invoiceRepository.deleteById(selected.getId());
-                loadAndDisplayInvoices();
             } catch (RepositoryAccessException e) {
                 handleRepositoryError("Brisanje fakture nije uspjelo.", e);
             }
         }
     }
 
+    /**
+     * Uvozi fakture iz CSV datoteke koju odabere korisnik. Uvoz se izvodi na pozadinskoj niti,
+     * napredak se prikazuje u statusnoj traci, a na kraju se prikazuje sažetak uvoza.
+     */
+    @FXML
+    public void handleImportInvoices() {
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Uvoz faktura");
+        fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("CSV datoteke", "*.csv"));
+        File source = fileChooser.showOpenDialog(invoiceTableView.getScene().getWindow());
+        if (source == null) {
+            return;
+        }
+        StatusBarState state = MainApplication.getStatusBarState();
+        InvoiceImportService.getInstance().importAsync(source.toPath(),
+                state::setLastUpdateText,
+                result -> {
+                    String summary = String.format("Spremljeno %d od %d redaka u %.1f s (%.0f redaka/s).",
+                            result.imported(), result.rowsRead(), result.elapsed().toMillis() / 1000.0,
+                            result.rowsPerSecond());
+                    state.setLastUpdateText("Uvoz faktura završen: " + summary);
+                    if (result.quarantineFile() != null) {
+                        summary += String.format("%nOdbijeno redaka: %d. Razlozi su zapisani u datoteku %s.",
+                                result.rejected(), result.quarantineFile().getFileName());
+                    }
+                    DialogUtils.showInformation("Uvoz završen", summary);
+                },
+                e -> {
+                    state.setLastUpdateText("Uvoz faktura nije uspio.");
+                    DialogUtils.showError("Greška", e instanceof ValidationException
+                            ? "Datoteka nije ispravna:\n" + e.getMessage()
+                            : "Uvoz faktura nije uspio.");
+                });
+    }
+
+    /**
+     * Izvozi sve fakture u CSV ili XLSX datoteku koju odabere korisnik.
+     * Izvoz se izvodi na pozadinskoj niti, a napredak se prikazuje u statusnoj traci.
+     */
+    @FXML
+    public void handleExportInvoices() {
+        DialogUtils.showExportDialog(invoiceTableView.getScene().getWindow(), "Izvoz faktura",
+                "fakture-" + LocalDate.now()).ifPresent(target ->
+                ExportService.getInstance().exportInvoicesAsync(target.toPath(),
+                        ExportFormat.fromFileName(target.getName()), MainApplication.getStatusBarState(),
+                        rows -> DialogUtils.showInformation("Izvoz završen",
+                                String.format("Izvezeno %d faktura u %s.", rows, target.getName())),
+                        e -> DialogUtils.showError("Greška", "Izvoz faktura nije uspio.")));
+    }
+
+    /**
+     * Izvozi starosnu strukturu neplaćenih obveza po dobavljačima u CSV datoteku koju odabere korisnik.
+     * Izvještaj se izrađuje na pozadinskoj niti.
+     */
+    @FXML
+    public void handleExportAgingReport() {
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Izvoz starosne strukture obveza");
+        fileChooser.setInitialFileName("starosna-struktura-" + LocalDate.now() + ".csv");
+        fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("CSV datoteke", "*.csv"));
+        File target = fileChooser.showSaveDialog(invoiceTableView.getScene().getWindow());
+        if (target == null) {
+            return;
+        }
+        AgingReportService.getInstance().exportAsync(target.toPath(),
+                report -> DialogUtils.showInformation("Izvoz završen", String.format(
+                        "Starosna struktura za %d dobavljača (%d faktura) spremljena je u %s.",
+                        report.suppliers().size(), report.invoiceCount(), target.getName())),
+                e -> DialogUtils.showError("Greška", "Izvoz starosne strukture obveza nije uspio."));
+    }
+
     /**
      * Prikazuje modalni prozor za dodavanje ili izmjenu fakture.
      * @param invoice Faktura za izmjenu, ili null ako se dodaje nova.
@@ -215,7 +543,6 @@ public class InvoiceController {
         popupOpt.ifPresent(popup -> {
             if (invoice != null) popup.controller().setInvoiceToEdit(invoice);
             popup.stage().showAndWait();
-            loadAndDisplayInvoices();
         });
     }
 
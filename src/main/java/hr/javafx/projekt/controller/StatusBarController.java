@@ -5,6 +5,7 @@ import hr.javafx.projekt.service.StatusBarState;
 import javafx.fxml.FXML;
 import javafx.scene.control.Label;
 import javafx.scene.control.ProgressBar;
+import javafx.scene.layout.HBox;
 
 /**
  * Kontroler za statusnu traku koja se prikazuje na dnu glavnih ekrana.
@@ -15,6 +16,14 @@ public class StatusBarController {
     private ProgressBar statusProgressBar;
     @FXML
     private Label lastUpdateLabel;
+    @FXML
+    private HBox taskBox;
+    @FXML
+    private ProgressBar taskProgressBar;
+    @FXML
+    private Label taskLabel;
+    @FXML
+    private Label leaseHolderLabel;
 
     /**
      * Inicijalizira kontroler i povezuje UI elemente na centralno stanje.
@@ -27,6 +36,11 @@ public class StatusBarController {
         if (state != null) {
             statusProgressBar.progressProperty().bind(state.progressProperty());
             lastUpdateLabel.textProperty().bind(state.lastUpdateTextProperty());
+            taskBox.visibleProperty().bind(state.taskRunningProperty());
+            taskBox.managedProperty().bind(state.taskRunningProperty());
+            taskProgressBar.progressProperty().bind(state.taskProgressProperty());
+            taskLabel.textProperty().bind(state.taskTextProperty());
+            leaseHolderLabel.textProperty().bind(state.leaseHolderTextProperty());
         }
     }
 }
\ No newline at end of file
@@ -1,8 +1,14 @@
 package hr.javafx.projekt.controller;
 
+import hr.javafx.projekt.enums.ExportFormat;
 import hr.javafx.projekt.exception.RepositoryAccessException;
+import hr.javafx.projekt.main.MainApplication;
 import hr.javafx.projekt.model.Supplier;
 import hr.javafx.projekt.repository.SupplierRepository;
+import hr.javafx.projekt.repository.SupplierSearchResult;
+import hr.javafx.projekt.service.ExportService;
+import hr.javafx.projekt.service.SearchPipeline;
+import hr.javafx.projekt.service.SupplierChangeBus;
 import hr.javafx.projekt.session.SessionManager;
 import hr.javafx.projekt.utils.DialogUtils;
 import hr.javafx.projekt.utils.Navigation;
@@ -13,7 +19,8 @@ import javafx.scene.control.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.List;
+import java.time.Duration;
+import java.time.LocalDate;
 import java.util.Optional;
 
 /**
@@ -22,6 +29,8 @@ import java.util.Optional;
 public class SupplierController {
 
     private static final Logger log = LoggerFactory.getLogger(SupplierController.class);
+    private static final Duration SEARCH_DEBOUNCE = Duration.ofMillis(250);
+    private static final int MAX_RESULTS = 500;
 
     @FXML private TextField nameFilterField;
     @FXML private TableView<Supplier> supplierTableView;
@@ -29,9 +38,16 @@ public class SupplierController {
     @FXML private TableColumn<Supplier, String> addressColumn;
     @FXML private TableColumn<Supplier, String> oibColumn;
     @FXML private Button deleteSupplierButton;
+    @FXML private Label resultCountLabel;
     @FXML private MenuController menuController;
 
     private final SupplierRepository supplierRepository = new SupplierRepository();
+    private final SearchPipeline<String, SupplierSearchResult> searchPipeline = new SearchPipeline<>(
+            "dobavljaci", SEARCH_DEBOUNCE,
+            query -> supplierRepository.search(query, MAX_RESULTS),
+            this::showSuppliers,
+            e -> handleRepositoryError("Nije moguće dohvatiti podatke o dobavljačima.", e));
+    private final Runnable supplierChanges = this::refreshTable;
 
     /**
      * Inicijalizira kontroler, postavlja stupce tablice, vidljivost gumba
@@ -44,28 +60,39 @@ public class SupplierController {
         nameColumn.setCellValueFactory(data -> new SimpleStringProperty(data.getValue().getName()));
         addressColumn.setCellValueFactory(data -> new SimpleStringProperty(data.getValue().getAddress()));
         oibColumn.setCellValueFactory(data -> new SimpleStringProperty(data.getValue().getOib()));
+        nameFilterField.textProperty().addListener((obs, oldVal, newVal) -> searchPipeline.submit(newVal));
+        SupplierChangeBus.getInstance().subscribe(supplierChanges);
 
         refreshTable();
     }
 
     /**
-     * Centralna metoda koja dohvaća sve dobavljače, primjenjuje filter
-     * i ažurira TableView.
+     * Centralna metoda koja u pozadini dohvaća dobavljače prema filteru i ažurira TableView.
+     * Tipkanje u polje za filter pokreće pretragu tek nakon kratke pauze. Pretraga se ponavlja i kada
+     * druga instanca aplikacije promijeni dobavljače ({@link SupplierChangeBus}).
      */
     private void refreshTable() {
-        try {
-            List<Supplier> allSuppliers = supplierRepository.findAll();
-            String nameFilter = nameFilterField.getText().toLowerCase();
-
-            List<Supplier> filteredList = allSuppliers.stream()
-                    .filter(supplier -> supplier.getName().toLowerCase().contains(nameFilter))
-                    .toList();
+        searchPipeline.submitNow(nameFilterField.getText());
+    }
 
-            supplierTableView.setItems(FXCollections.observableArrayList(filteredList));
-        } catch (RepositoryAccessException e) {
-            handleRepositoryError("Nije moguće dohvatiti podatke o dobavljačima.", e);
-            supplierTableView.setItems(FXCollections.emptyObservableList());
+    /**
+     * Prikazuje rezultat pretrage u tablici. Ako je pronađeno više od {@value #MAX_RESULTS} dobavljača,
+     * prikazuju se samo najbolji pogoci, a korisnik se upućuje da suzi pretragu.
+     * @param result Rezultat pretrage.
+     */
+    private void showSuppliers(SupplierSearchResult result) {
+        Supplier selected = supplierTableView.getSelectionModel().getSelectedItem();
+        supplierTableView.setItems(FXCollections.observableArrayList(result.suppliers()));
+        if (selected != null) {
+            result.suppliers().stream()
+                    .filter(supplier -> supplier.getId().equals(selected.getId()))
+                    .findFirst()
+                    .ifPresent(supplier -> supplierTableView.getSelectionModel().select(supplier));
         }
+        resultCountLabel.setText(result.truncated()
+                ? String.format("Prikazano %d od %d dobavljača; suzite pretragu za ostale.",
+                        result.suppliers().size(), result.totalMatches())
+                : String.format("Prikazano dobavljača: %d", result.totalMatches()));
     }
 
     /**
@@ -97,6 +124,21 @@ public class SupplierController {
         }
     }
 
+    /**
+     * Izvozi sve dobavljače u CSV ili XLSX datoteku koju odabere korisnik.
+     * Izvoz se izvodi na pozadinskoj niti, a napredak se prikazuje u statusnoj traci.
+     */
+    @FXML
+    private void handleExportSuppliers() {
+        DialogUtils.showExportDialog(supplierTableView.getScene().getWindow(), "Izvoz dobavljača",
+                "dobavljaci-" + LocalDate.now()).ifPresent(target ->
+                ExportService.getInstance().exportSuppliersAsync(target.toPath(),
+                        ExportFormat.fromFileName(target.getName()), MainApplication.getStatusBarState(),
+                        rows -> DialogUtils.showInformation("Izvoz završen",
+                                String.format("Izvezeno %d dobavljača u %s.", rows, target.getName())),
+                        e -> DialogUtils.showError("Greška", "Izvoz dobavljača nije uspio.")));
+    }
+
     /**
      * Briše odabranog dobavljača nakon provjere i potvrde.
      */
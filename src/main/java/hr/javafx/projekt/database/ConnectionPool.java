@@ -0,0 +1,517 @@
+package hr.javafx.projekt.database;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Ograničeni bazen (pool) JDBC konekcija.
+ * Posuđene konekcije su omotači čiji {@code close()} vraća fizičku konekciju u bazen,
+ * pa postojeći {@code try-with-resources} blokovi u repozitorijima rade bez izmjena.
+ * Pozadinska nit periodički izbacuje neaktivne i istrošene konekcije, nadopunjuje bazen do
+ * {@link PoolConfig#minIdle()} neaktivnih konekcija te prijavljuje konekcije koje se predugo ne vraćaju (curenje).
+ */
+public final class ConnectionPool {
+
+    private static final Logger log = LoggerFactory.getLogger(ConnectionPool.class);
+    private static final long HOUSEKEEPING_PERIOD_SECONDS = 30;
+
+    private final PoolConfig config;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition connectionAvailable = lock.newCondition();
+    private final Deque<PooledConnection> idle = new ArrayDeque<>();
+    private final Set<PooledConnection> active = new HashSet<>();
+    private final ScheduledExecutorService housekeeper;
+
+    private int totalConnections;
+    private int threadsAwaiting;
+    private boolean closed;
+
+    private final LongAdder totalBorrows = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final LongAdder leaksDetected = new LongAdder();
+
+    /**
+     * Kreira bazen i pokreće pozadinsko održavanje. Konekcije do {@link PoolConfig#minIdle()} otvaraju se
+     * odmah na pozadinskoj niti, a ostale tek na zahtjev.
+     * @param config Konfiguracija bazena.
+     */
+    public ConnectionPool(PoolConfig config) {
+        this.config = config;
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "db-pool-housekeeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        housekeeper.execute(this::fillToMinIdle);
+        housekeeper.scheduleAtFixedRate(this::housekeep,
+                HOUSEKEEPING_PERIOD_SECONDS, HOUSEKEEPING_PERIOD_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Posuđuje konekciju iz bazena. Ako slobodne nema, a bazen je pun,
+     * čeka najviše {@link PoolConfig#connectionTimeoutMillis()} milisekundi.
+     *
+     * @return Konekcija koju pozivatelj mora zatvoriti kako bi se vratila u bazen.
+     * @throws SQLException Ako bazen je zatvoren, čekanje istekne ili spajanje ne uspije.
+     */
+    public Connection getConnection() throws SQLException {
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(config.connectionTimeoutMillis());
+
+        while (true) {
+            PooledConnection candidate;
+            boolean mustCreate = false;
+
+            lock.lock();
+            try {
+                while (true) {
+                    if (closed) {
+                        throw new SQLException("Bazen konekcija je zatvoren.");
+                    }
+                    candidate = idle.pollFirst();
+                    if (candidate != null) {
+                        active.add(candidate);
+                        break;
+                    }
+                    if (totalConnections < config.maxPoolSize()) {
+                        totalConnections++;
+                        mustCreate = true;
+                        break;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        throw new SQLTimeoutException("Isteklo vrijeme čekanja na slobodnu konekciju ("
+                                + config.connectionTimeoutMillis() + " ms).");
+                    }
+                    awaitConnection(remaining);
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            if (mustCreate) {
+                candidate = openPhysicalConnection();
+            } else if (!isUsable(candidate)) {
+                discard(candidate);
+                continue;
+            }
+            return lend(candidate, start);
+        }
+    }
+
+    /**
+     * Vraća trenutno stanje bazena.
+     * @return Metrike bazena.
+     */
+    public PoolMetrics getMetrics() {
+        lock.lock();
+        try {
+            long borrows = totalBorrows.sum();
+            double averageWait = borrows == 0 ? 0.0 : totalWaitNanos.sum() / (double) borrows / 1_000_000.0;
+            return new PoolMetrics(
+                    active.size(),
+                    idle.size(),
+                    totalConnections,
+                    threadsAwaiting,
+                    borrows,
+                    averageWait,
+                    maxWaitNanos.get() / 1_000_000.0,
+                    leaksDetected.sum());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Zatvara bazen. Slobodne konekcije se odmah zatvaraju, a posuđene prilikom vraćanja.
+     */
+    public void close() {
+        List<PooledConnection> toClose;
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            toClose = new ArrayList<>(idle);
+            totalConnections -= idle.size();
+            idle.clear();
+            connectionAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        housekeeper.shutdownNow();
+        toClose.forEach(this::closeQuietly);
+        log.info("Bazen konekcija zatvoren. {}", getMetrics());
+    }
+
+    /**
+     * Čeka na signal da je konekcija vraćena. Poziva se isključivo dok se drži zaključavanje.
+     */
+    private void awaitConnection(long remainingNanos) throws SQLException {
+        threadsAwaiting++;
+        try {
+            connectionAvailable.awaitNanos(remainingNanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Nit je prekinuta dok je čekala na konekciju.", e);
+        } finally {
+            threadsAwaiting--;
+        }
+    }
+
+    /**
+     * Otvara novu fizičku konekciju. Mjesto u bazenu je već rezervirano pa se pri grešci oslobađa.
+     */
+    private PooledConnection openPhysicalConnection() throws SQLException {
+        try {
+            Connection physical = DriverManager.getConnection(config.url(), config.username(), config.password());
+            PooledConnection pooled = new PooledConnection(physical);
+            lock.lock();
+            try {
+                active.add(pooled);
+            } finally {
+                lock.unlock();
+            }
+            log.debug("Otvorena nova fizička konekcija ({} ukupno).", totalConnections);
+            return pooled;
+        } catch (SQLException | RuntimeException e) {
+            lock.lock();
+            try {
+                totalConnections--;
+                connectionAvailable.signal();
+            } finally {
+                lock.unlock();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Bilježi posudbu i vraća omotač oko fizičke konekcije.
+     */
+    private Connection lend(PooledConnection pooled, long requestStartNanos) {
+        long now = System.nanoTime();
+        long waited = now - requestStartNanos;
+        totalBorrows.increment();
+        totalWaitNanos.add(waited);
+        maxWaitNanos.accumulateAndGet(waited, Math::max);
+
+        pooled.borrowedAt = now;
+        pooled.leakReported = false;
+        pooled.borrowTrace = config.leakDetectionThresholdMillis() > 0
+                ? new Exception("Mjesto posudbe konekcije")
+                : null;
+        return pooled.createHandle();
+    }
+
+    /**
+     * Provjerava je li konekcija iz bazena još upotrebljiva. Provjera prema bazi radi se
+     * samo ako je konekcija dulje neaktivna, kako uobičajeni slučaj ne bi plaćao dodatni zahtjev.
+     */
+    private boolean isUsable(PooledConnection pooled) {
+        long now = System.nanoTime();
+        if (pooled.isExpired(now)) {
+            return false;
+        }
+        if (now - pooled.lastReturnedAt < TimeUnit.MILLISECONDS.toNanos(config.validationIntervalMillis())) {
+            return true;
+        }
+        try {
+            return pooled.physical.isValid(config.validationTimeoutSeconds());
+        } catch (SQLException e) {
+            log.warn("Provjera ispravnosti konekcije nije uspjela, konekcija se odbacuje.", e);
+            return false;
+        }
+    }
+
+    /**
+     * Vraća konekciju u bazen ili je odbacuje ako je neispravna, istrošena ili je bazen zatvoren.
+     */
+    private void release(PooledConnection pooled) {
+        boolean reusable = resetState(pooled);
+        long now = System.nanoTime();
+        if (pooled.leakReported) {
+            log.info("Konekcija prijavljena kao curenje vraćena je nakon {} ms.",
+                    TimeUnit.NANOSECONDS.toMillis(now - pooled.borrowedAt));
+        }
+        pooled.borrowTrace = null;
+
+        boolean returnedToPool = false;
+        lock.lock();
+        try {
+            active.remove(pooled);
+            if (!closed && reusable && !pooled.isExpired(now)) {
+                pooled.lastReturnedAt = now;
+                idle.addFirst(pooled);
+                returnedToPool = true;
+            } else {
+                totalConnections--;
+            }
+            connectionAvailable.signal();
+        } finally {
+            lock.unlock();
+        }
+
+        if (!returnedToPool) {
+            closeQuietly(pooled);
+        }
+    }
+
+    /**
+     * Vraća konekciju u početno stanje ako ju je pozivatelj mijenjao.
+     * @return True ako se konekcija smije ponovno koristiti.
+     */
+    private boolean resetState(PooledConnection pooled) {
+        try {
+            if (pooled.physical.isClosed()) {
+                return false;
+            }
+            if (pooled.dirty) {
+                if (!pooled.physical.getAutoCommit()) {
+                    pooled.physical.rollback();
+                    pooled.physical.setAutoCommit(true);
+                }
+                if (pooled.physical.isReadOnly()) {
+                    pooled.physical.setReadOnly(false);
+                }
+                pooled.dirty = false;
+            }
+            pooled.physical.clearWarnings();
+            return true;
+        } catch (SQLException e) {
+            log.warn("Konekciju nije moguće vratiti u početno stanje, odbacuje se.", e);
+            return false;
+        }
+    }
+
+    /**
+     * Trajno uklanja posuđenu konekciju iz bazena.
+     */
+    private void discard(PooledConnection pooled) {
+        lock.lock();
+        try {
+            active.remove(pooled);
+            totalConnections--;
+            connectionAvailable.signal();
+        } finally {
+            lock.unlock();
+        }
+        closeQuietly(pooled);
+    }
+
+    /**
+     * Periodičko održavanje: zatvara predugo neaktivne i istrošene konekcije, nadopunjuje bazen do
+     * {@link PoolConfig#minIdle()} neaktivnih konekcija te prijavljuje curenja. Predugo neaktivne konekcije
+     * izbacuju se samo dok u bazenu ostaje više od {@link PoolConfig#minIdle()} neaktivnih.
+     */
+    private void housekeep() {
+        long now = System.nanoTime();
+        long idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(config.idleTimeoutMillis());
+        long leakThresholdNanos = TimeUnit.MILLISECONDS.toNanos(config.leakDetectionThresholdMillis());
+        List<PooledConnection> toClose = new ArrayList<>();
+        List<PooledConnection> leaked = new ArrayList<>();
+
+        lock.lock();
+        try {
+            int remainingIdle = idle.size();
+            Iterator<PooledConnection> oldestFirst = idle.descendingIterator();
+            while (oldestFirst.hasNext()) {
+                PooledConnection pooled = oldestFirst.next();
+                boolean idleTooLong = now - pooled.lastReturnedAt > idleTimeoutNanos
+                        && remainingIdle > config.minIdle();
+                if (idleTooLong || pooled.isExpired(now)) {
+                    oldestFirst.remove();
+                    totalConnections--;
+                    remainingIdle--;
+                    toClose.add(pooled);
+                }
+            }
+            if (leakThresholdNanos > 0) {
+                for (PooledConnection pooled : active) {
+                    if (!pooled.leakReported && now - pooled.borrowedAt > leakThresholdNanos) {
+                        pooled.leakReported = true;
+                        leaked.add(pooled);
+                    }
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        toClose.forEach(this::closeQuietly);
+        if (!toClose.isEmpty()) {
+            log.debug("Iz bazena izbačeno {} neaktivnih konekcija.", toClose.size());
+        }
+        for (PooledConnection pooled : leaked) {
+            leaksDetected.increment();
+            log.warn("Moguće curenje konekcije: posuđena prije {} ms i još nije vraćena.",
+                    TimeUnit.NANOSECONDS.toMillis(now - pooled.borrowedAt), pooled.borrowTrace);
+        }
+        fillToMinIdle();
+    }
+
+    /**
+     * Otvara nove konekcije dok bazen nema barem {@link PoolConfig#minIdle()} neaktivnih, bez prelaska
+     * najveće veličine bazena. Ako spajanje ne uspije, pokušava se ponovno pri sljedećem održavanju.
+     */
+    private void fillToMinIdle() {
+        while (true) {
+            lock.lock();
+            try {
+                if (closed || idle.size() >= config.minIdle() || totalConnections >= config.maxPoolSize()) {
+                    return;
+                }
+                totalConnections++;
+            } finally {
+                lock.unlock();
+            }
+
+            PooledConnection pooled;
+            try {
+                pooled = new PooledConnection(
+                        DriverManager.getConnection(config.url(), config.username(), config.password()));
+            } catch (SQLException | RuntimeException e) {
+                lock.lock();
+                try {
+                    totalConnections--;
+                    connectionAvailable.signal();
+                } finally {
+                    lock.unlock();
+                }
+                log.warn("Otvaranje neaktivne konekcije nije uspjelo; pokušat ću pri sljedećem održavanju.", e);
+                return;
+            }
+
+            boolean added = false;
+            lock.lock();
+            try {
+                if (!closed) {
+                    idle.addLast(pooled);
+                    added = true;
+                } else {
+                    totalConnections--;
+                }
+                connectionAvailable.signal();
+            } finally {
+                lock.unlock();
+            }
+            if (!added) {
+                closeQuietly(pooled);
+                return;
+            }
+        }
+    }
+
+    private void closeQuietly(PooledConnection pooled) {
+        try {
+            pooled.physical.close();
+        } catch (SQLException e) {
+            log.error("Greška prilikom zatvaranja fizičke konekcije.", e);
+        }
+    }
+
+    /**
+     * Fizička konekcija zajedno s podacima koje bazen prati o njoj.
+     */
+    private final class PooledConnection {
+        private final Connection physical;
+        private final long createdAt = System.nanoTime();
+        private volatile long lastReturnedAt = createdAt;
+        private volatile long borrowedAt;
+        private volatile boolean leakReported;
+        private volatile Exception borrowTrace;
+        private volatile boolean dirty;
+
+        private PooledConnection(Connection physical) {
+            this.physical = physical;
+        }
+
+        private boolean isExpired(long now) {
+            return config.maxLifetimeMillis() > 0
+                    && now - createdAt > TimeUnit.MILLISECONDS.toNanos(config.maxLifetimeMillis());
+        }
+
+        /**
+         * Kreira novi omotač za jednu posudbu. Nakon {@code close()} omotač više nije upotrebljiv,
+         * čak i ako je ista fizička konekcija u međuvremenu posuđena nekom drugom. Kreirane naredbe
+         * prijavljuju se {@link QueryCancellation} aktivnom na trenutnoj niti.
+         */
+        private Connection createHandle() {
+            InvocationHandler handler = new InvocationHandler() {
+                private volatile boolean handleClosed;
+
+                @Override
+                public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                    switch (method.getName()) {
+                        case "close" -> {
+                            if (!handleClosed) {
+                                handleClosed = true;
+                                release(PooledConnection.this);
+                            }
+                            return null;
+                        }
+                        case "isClosed" -> {
+                            if (handleClosed) {
+                                return true;
+                            }
+                        }
+                        case "equals" -> {
+                            return proxy == args[0];
+                        }
+                        case "hashCode" -> {
+                            return System.identityHashCode(proxy);
+                        }
+                        case "toString" -> {
+                            return "PooledConnection[" + physical + "]";
+                        }
+                        case "setAutoCommit", "setReadOnly" -> dirty = true;
+                        default -> {
+                            // Ostale metode se samo prosljeđuju fizičkoj konekciji.
+                        }
+                    }
+                    if (handleClosed) {
+                        throw new SQLException("Konekcija je već vraćena u bazen.");
+                    }
+                    Object result;
+                    try {
+                        result = method.invoke(physical, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                    if (result instanceof Statement statement) {
+                        QueryCancellation.register(statement);
+                    }
+                    return result;
+                }
+            };
+            return (Connection) Proxy.newProxyInstance(
+                    ConnectionPool.class.getClassLoader(), new Class<?>[]{Connection.class}, handler);
+        }
+    }
+}
@@ -5,16 +5,23 @@ import org.slf4j.LoggerFactory;
 import java.io.FileReader;
 import java.io.IOException;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.Optional;
 import java.util.Properties;
 
 /**
  * Upravlja konekcijom s bazom podataka.
+ * Postavke se iz {@code database.properties} čitaju samo jednom, pri prvom zahtjevu,
+ * a konekcije se posuđuju iz zajedničkog {@link ConnectionPool} bazena.
  */
 public class DatabaseConnection {
 
     private static final Logger log = LoggerFactory.getLogger(DatabaseConnection.class);
+    private static final String PROPERTIES_FILE = "database.properties";
+    private static final int AVAILABILITY_TIMEOUT_SECONDS = 2;
+
+    private static volatile ConnectionPool pool;
+    private static volatile boolean shutDown;
 
     /**
      * Privatni konstruktor sprječava instanciranje.
@@ -23,23 +30,50 @@ public class DatabaseConnection {
     }
 
     /**
-     * Uspostavlja konekciju s bazom podataka.
+     * Posuđuje konekciju iz bazena. Zatvaranjem konekcije ona se vraća u bazen.
      *
      * @return Objekt konekcije.
-     * @throws SQLException Ako dođe do greške pri spajanju.
+     * @throws SQLException Ako dođe do greške pri spajanju ili je bazen zatvoren.
      * @throws IOException Ako dođe do greške pri čitanju datoteke.
      */
     public static Connection getConnection() throws SQLException, IOException {
-        Properties props = new Properties();
-        try (FileReader reader = new FileReader("database.properties")) {
-            props.load(reader);
+        return getPool().getConnection();
+    }
+
+    /**
+     * Provjerava je li baza dostupna: posuđuje konekciju iz bazena i provjerava je.
+     *
+     * @return True ako je konekciju moguće dobiti i ona je ispravna.
+     */
+    public static boolean isAvailable() {
+        try (Connection connection = getConnection()) {
+            return connection.isValid(AVAILABILITY_TIMEOUT_SECONDS);
+        } catch (SQLException | IOException e) {
+            log.debug("Baza podataka nije dostupna.", e);
+            return false;
         }
+    }
 
-        return DriverManager.getConnection(
-                props.getProperty("databaseUrl"),
-                props.getProperty("username"),
-                props.getProperty("password")
-        );
+    /**
+     * Vraća metrike bazena konekcija.
+     *
+     * @return Metrike ako je bazen već inicijaliziran, inače prazan Optional.
+     */
+    public static Optional<PoolMetrics> getPoolMetrics() {
+        ConnectionPool current = pool;
+        return current == null ? Optional.empty() : Optional.of(current.getMetrics());
+    }
+
+    /**
+     * Zatvara bazen konekcija. Poziva se prilikom gašenja aplikacije.
+     * Nakon zatvaranja svaki zahtjev za konekcijom odmah završava greškom, umjesto da se otvori novi bazen
+     * (npr. za pozadinski zadatak koji se još izvodi dok se aplikacija gasi).
+     */
+    public static synchronized void shutdown() {
+        shutDown = true;
+        if (pool != null) {
+            pool.close();
+        }
     }
 
     /**
@@ -58,4 +92,38 @@ public class DatabaseConnection {
             }
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Vraća bazen konekcija, kreirajući ga pri prvom pozivu.
+     * Zatvoreni bazen se ne zamjenjuje novim, pa njegov {@code getConnection()} javlja grešku.
+     */
+    private static ConnectionPool getPool() throws SQLException, IOException {
+        ConnectionPool current = pool;
+        if (current == null) {
+            synchronized (DatabaseConnection.class) {
+                current = pool;
+                if (current == null) {
+                    if (shutDown) {
+                        throw new SQLException("Bazen konekcija je zatvoren.");
+                    }
+                    PoolConfig config = loadConfig();
+                    current = new ConnectionPool(config);
+                    pool = current;
+                    log.info("Inicijaliziran bazen konekcija (najviše {} konekcija).", config.maxPoolSize());
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Učitava konfiguraciju baze iz datoteke.
+     */
+    private static PoolConfig loadConfig() throws IOException {
+        Properties props = new Properties();
+        try (FileReader reader = new FileReader(PROPERTIES_FILE)) {
+            props.load(reader);
+        }
+        return PoolConfig.fromProperties(props);
+    }
+}
@@ -0,0 +1,41 @@
+package hr.javafx.projekt.database;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.UUID;
+
+/**
+ * Jedinstvena oznaka ove instance aplikacije među svim instancama spojenima na istu bazu.
+ * Oznaka se sastoji od naziva računala, ID-a procesa i nasumičnog sufiksa, pa je čitljiva u logovima,
+ * a ponovno pokrenuta aplikacija na istom računalu dobiva novu oznaku.
+ */
+public final class InstanceIdentity {
+
+    private static final int MAX_HOST_LENGTH = 64;
+    private static final String ID = host() + ":" + ProcessHandle.current().pid() + ":"
+            + UUID.randomUUID().toString().substring(0, 8);
+
+    /**
+     * Privatni konstruktor sprječava instanciranje.
+     */
+    private InstanceIdentity() {
+    }
+
+    /**
+     * Vraća oznaku ove instance aplikacije.
+     * @return Oznaka instance, najviše 128 znakova.
+     */
+    public static String get() {
+        return ID;
+    }
+
+    private static String host() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            host = "unknown";
+        }
+        return host.length() > MAX_HOST_LENGTH ? host.substring(0, MAX_HOST_LENGTH) : host;
+    }
+}
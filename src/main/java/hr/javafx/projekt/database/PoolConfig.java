@@ -0,0 +1,66 @@
+package hr.javafx.projekt.database;
+
+import java.util.Properties;
+
+/**
+ * Nepromjenjiva konfiguracija bazena konekcija, učitana jednom iz {@code database.properties}.
+ *
+ * @param url JDBC URL baze podataka.
+ * @param username Korisničko ime za spajanje.
+ * @param password Lozinka za spajanje.
+ * @param maxPoolSize Najveći broj fizičkih konekcija koje bazen smije otvoriti.
+ * @param minIdle Broj neaktivnih konekcija koje se ne izbacuju iz bazena.
+ * @param connectionTimeoutMillis Najdulje vrijeme čekanja na slobodnu konekciju.
+ * @param validationTimeoutSeconds Vrijeme dopušteno za provjeru ispravnosti konekcije.
+ * @param validationIntervalMillis Konekcija neaktivna dulje od ovoga provjerava se prije posudbe.
+ * @param idleTimeoutMillis Nakon ovoliko vremena neaktivnosti konekcija se zatvara.
+ * @param maxLifetimeMillis Najdulji životni vijek fizičke konekcije.
+ * @param leakDetectionThresholdMillis Konekcija posuđena dulje od ovoga prijavljuje se kao curenje (0 isključuje).
+ */
+public record PoolConfig(
+        String url,
+        String username,
+        String password,
+        int maxPoolSize,
+        int minIdle,
+        long connectionTimeoutMillis,
+        int validationTimeoutSeconds,
+        long validationIntervalMillis,
+        long idleTimeoutMillis,
+        long maxLifetimeMillis,
+        long leakDetectionThresholdMillis
+) {
+
+    /**
+     * Kreira konfiguraciju iz učitanih svojstava. Postavke bazena su opcionalne
+     * i imaju razumne zadane vrijednosti.
+     *
+     * @param props Svojstva učitana iz datoteke.
+     * @return Konfiguracija bazena.
+     */
+    public static PoolConfig fromProperties(Properties props) {
+        return new PoolConfig(
+                props.getProperty("databaseUrl"),
+                props.getProperty("username"),
+                props.getProperty("password"),
+                intProperty(props, "pool.maxSize", 10),
+                intProperty(props, "pool.minIdle", 2),
+                longProperty(props, "pool.connectionTimeoutMillis", 30_000L),
+                intProperty(props, "pool.validationTimeoutSeconds", 2),
+                longProperty(props, "pool.validationIntervalMillis", 5_000L),
+                longProperty(props, "pool.idleTimeoutMillis", 600_000L),
+                longProperty(props, "pool.maxLifetimeMillis", 1_800_000L),
+                longProperty(props, "pool.leakDetectionThresholdMillis", 60_000L)
+        );
+    }
+
+    private static int intProperty(Properties props, String key, int defaultValue) {
+        String value = props.getProperty(key);
+        return value == null || value.isBlank() ? defaultValue : Integer.parseInt(value.trim());
+    }
+
+    private static long longProperty(Properties props, String key, long defaultValue) {
+        String value = props.getProperty(key);
+        return value == null || value.isBlank() ? defaultValue : Long.parseLong(value.trim());
+    }
+}
@@ -0,0 +1,32 @@
+package hr.javafx.projekt.database;
+
+/**
+ * Trenutna slika stanja bazena konekcija.
+ *
+ * @param activeConnections Broj konekcija koje su trenutno posuđene.
+ * @param idleConnections Broj konekcija koje čekaju u bazenu.
+ * @param totalConnections Ukupan broj otvorenih fizičkih konekcija.
+ * @param threadsAwaiting Broj niti koje čekaju na slobodnu konekciju.
+ * @param totalBorrows Ukupan broj posudbi od pokretanja.
+ * @param averageWaitMillis Prosječno vrijeme čekanja na konekciju.
+ * @param maxWaitMillis Najdulje zabilježeno vrijeme čekanja na konekciju.
+ * @param leaksDetected Broj konekcija prijavljenih kao moguće curenje.
+ */
+public record PoolMetrics(
+        int activeConnections,
+        int idleConnections,
+        int totalConnections,
+        int threadsAwaiting,
+        long totalBorrows,
+        double averageWaitMillis,
+        double maxWaitMillis,
+        long leaksDetected
+) {
+
+    @Override
+    public String toString() {
+        return String.format("Pool[aktivne=%d, slobodne=%d, ukupno=%d, čekaju=%d, posudbe=%d, prosj. čekanje=%.2f ms, maks. čekanje=%.2f ms, curenja=%d]",
+                activeConnections, idleConnections, totalConnections, threadsAwaiting,
+                totalBorrows, averageWaitMillis, maxWaitMillis, leaksDetected);
+    }
+}
@@ -0,0 +1,86 @@
+package hr.javafx.projekt.database;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Omogućuje prekid SQL upita koje izvršava druga nit. Prekid niti ({@link Thread#interrupt()}) ne prekida
+ * upit koji se već izvršava u bazi, pa se naredbe koje nit kreira dok je prekid aktivan ({@link #activate()})
+ * pamte i na {@link #cancel()} se prekidaju pomoću {@link Statement#cancel()}.
+ * <p>
+ * Naredbe se bilježe u omotaču konekcije iz {@link ConnectionPool}, pa repozitoriji ne moraju ništa mijenjati.
+ * Metoda {@link #cancel()} smije se pozvati s bilo koje niti.
+ */
+public final class QueryCancellation implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(QueryCancellation.class);
+    private static final ThreadLocal<QueryCancellation> active = new ThreadLocal<>();
+
+    private final Set<Statement> statements = ConcurrentHashMap.newKeySet();
+    private volatile boolean cancelled;
+
+    /**
+     * Veže prekid uz trenutnu nit; naredbe koje nit kreira do {@link #close()} mogu se prekinuti.
+     */
+    public void activate() {
+        active.set(this);
+    }
+
+    /**
+     * Prekida sve zapamćene naredbe i one koje se nakon toga pokušaju kreirati.
+     */
+    public void cancel() {
+        cancelled = true;
+        statements.forEach(QueryCancellation::cancelQuietly);
+    }
+
+    /**
+     * Provjerava je li zatražen prekid.
+     * @return True ako je pozvan {@link #cancel()}.
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Odvezuje prekid od trenutne niti.
+     */
+    @Override
+    public void close() {
+        if (active.get() == this) {
+            active.remove();
+        }
+        statements.clear();
+    }
+
+    /**
+     * Pamti naredbu ako je na trenutnoj niti aktivan prekid.
+     *
+     * @param statement Upravo kreirana naredba.
+     * @throws SQLException ako je prekid već zatražen, pa se upit ne smije ni započeti.
+     */
+    static void register(Statement statement) throws SQLException {
+        QueryCancellation cancellation = active.get();
+        if (cancellation == null) {
+            return;
+        }
+        cancellation.statements.add(statement);
+        if (cancellation.cancelled) {
+            statement.close();
+            throw new SQLException("Upit je prekinut.");
+        }
+    }
+
+    private static void cancelQuietly(Statement statement) {
+        try {
+            statement.cancel();
+        } catch (SQLException e) {
+            log.debug("Prekid naredbe nije uspio; naredba je vjerojatno već zatvorena.", e);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package hr.javafx.projekt.database;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * Osigurava pomoćne tablice i indekse koje koriste upiti aplikacije. Naredbe su idempotentne
+ * pa se sigurno izvršavaju pri svakom pokretanju.
+ */
+public final class SchemaInitializer {
+
+    private static final Logger log = LoggerFactory.getLogger(SchemaInitializer.class);
+
+    private static final List<String> TABLES = List.of(
+            "CREATE TABLE IF NOT EXISTS CHANGE_SEQUENCE (" +
+                    "seq BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, " +
+                    "entity_type VARCHAR(32) NOT NULL, " +
+                    "entity_id BIGINT NOT NULL, " +
+                    "change_type VARCHAR(16) NOT NULL, " +
+                    "origin VARCHAR(128) NOT NULL, " +
+                    "changed_at TIMESTAMP NOT NULL)",
+            "CREATE TABLE IF NOT EXISTS SERVICE_LEASE (" +
+                    "name VARCHAR(64) PRIMARY KEY, " +
+                    "holder VARCHAR(128) NOT NULL, " +
+                    "acquired_at TIMESTAMP NOT NULL, " +
+                    "expires_at TIMESTAMP NOT NULL)"
+    );
+
+    private static final List<String> INDEXES = List.of(
+            "CREATE INDEX IF NOT EXISTS IDX_INVOICE_NUMBER ON INVOICE(invoice_number)",
+            "CREATE INDEX IF NOT EXISTS IDX_INVOICE_SUPPLIER ON INVOICE(supplier_id)",
+            "CREATE INDEX IF NOT EXISTS IDX_INVOICE_STATUS_DUE_DATE ON INVOICE(status, due_date)",
+            "CREATE INDEX IF NOT EXISTS IDX_INVOICE_DUE_DATE ON INVOICE(due_date)",
+            "CREATE INDEX IF NOT EXISTS IDX_INVOICE_AMOUNT ON INVOICE(amount)",
+            "CREATE INDEX IF NOT EXISTS IDX_SUPPLIER_NAME ON SUPPLIER(name)",
+            "CREATE INDEX IF NOT EXISTS IDX_CHANGE_SEQUENCE_CHANGED_AT ON CHANGE_SEQUENCE(changed_at)"
+    );
+
+    /**
+     * Privatni konstruktor sprječava instanciranje.
+     */
+    private SchemaInitializer() {
+    }
+
+    /**
+     * Kreira pomoćne tablice i indekse koji još ne postoje. Greška se samo logira: bez indeksa aplikacija
+     * radi sporije, a ako nije moguće kreirati ni tablice, baza najčešće uopće nije dostupna.
+     */
+    public static void ensureSchema() {
+        try (Connection connection = DatabaseConnection.getConnection();
+             Statement stmt = connection.createStatement()) {
+            for (String sql : TABLES) {
+                stmt.execute(sql);
+            }
+            for (String sql : INDEXES) {
+                stmt.execute(sql);
+            }
+            log.info("Shema baze podataka je provjerena ({} tablica, {} indeksa).", TABLES.size(), INDEXES.size());
+        } catch (SQLException | IOException e) {
+            log.error("Kreiranje tablica i indeksa baze podataka nije uspjelo.", e);
+        }
+    }
+}
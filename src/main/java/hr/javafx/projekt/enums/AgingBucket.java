@@ -0,0 +1,44 @@
+package hr.javafx.projekt.enums;
+
+/**
+ * Enumeracija koja definira razrede starosne strukture obveza prema broju dana nakon dospijeća.
+ */
+public enum AgingBucket {
+    CURRENT("Nije dospjelo"),
+    DAYS_1_30("1-30 dana"),
+    DAYS_31_60("31-60 dana"),
+    DAYS_61_90("61-90 dana"),
+    DAYS_OVER_90("Više od 90 dana");
+
+    private final String label;
+
+    AgingBucket(String label) {
+        this.label = label;
+    }
+
+    /**
+     * Vraća naziv razreda za prikaz i izvoz.
+     * @return Naziv razreda.
+     */
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * Određuje razred za zadani broj dana nakon dospijeća.
+     * @param daysOverdue Broj dana proteklih od dospijeća; nula ili negativan broj znači da obveza nije dospjela.
+     * @return Razred starosne strukture.
+     */
+    public static AgingBucket forDaysOverdue(long daysOverdue) {
+        if (daysOverdue <= 0) {
+            return CURRENT;
+        } else if (daysOverdue <= 30) {
+            return DAYS_1_30;
+        } else if (daysOverdue <= 60) {
+            return DAYS_31_60;
+        } else if (daysOverdue <= 90) {
+            return DAYS_61_90;
+        }
+        return DAYS_OVER_90;
+    }
+}
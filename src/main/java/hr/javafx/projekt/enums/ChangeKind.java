@@ -0,0 +1,13 @@
+package hr.javafx.projekt.enums;
+
+/**
+ * Enumeracija vrsta upisa koje se bilježe u slijedu promjena.
+ */
+public enum ChangeKind {
+    /** Dodan je novi entitet. */
+    INSERT,
+    /** Postojeći entitet je izmijenjen. */
+    UPDATE,
+    /** Entitet je obrisan. */
+    DELETE
+}
@@ -0,0 +1,44 @@
+package hr.javafx.projekt.enums;
+
+import java.util.Locale;
+
+/**
+ * Enumeracija koja definira formate datoteka u koje se podaci mogu izvesti.
+ */
+public enum ExportFormat {
+    CSV("CSV datoteke", ".csv"),
+    XLSX("Excel radne knjige", ".xlsx");
+
+    private final String description;
+    private final String extension;
+
+    ExportFormat(String description, String extension) {
+        this.description = description;
+        this.extension = extension;
+    }
+
+    /**
+     * Vraća opis formata za dijalog odabira datoteke.
+     * @return Opis formata.
+     */
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * Vraća nastavak naziva datoteke, s točkom.
+     * @return Nastavak naziva datoteke.
+     */
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * Određuje format prema nastavku naziva datoteke. Nepoznati nastavak smatra se CSV datotekom.
+     * @param fileName Naziv datoteke.
+     * @return Format datoteke.
+     */
+    public static ExportFormat fromFileName(String fileName) {
+        return fileName.toLowerCase(Locale.ROOT).endsWith(XLSX.extension) ? XLSX : CSV;
+    }
+}
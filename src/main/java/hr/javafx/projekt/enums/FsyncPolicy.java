@@ -0,0 +1,13 @@
+package hr.javafx.projekt.enums;
+
+/**
+ * Enumeracija koja definira kada se zapisi dnevnika promjena fizički sinkroniziraju na disk.
+ */
+public enum FsyncPolicy {
+    /** Sinkronizacija nakon svakog upisa. Najsigurnije, ali najsporije. */
+    ALWAYS,
+    /** Sinkronizacija najviše jednom u zadanom intervalu. */
+    INTERVAL,
+    /** Sinkronizaciju prepušta operacijskom sustavu. */
+    NEVER
+}
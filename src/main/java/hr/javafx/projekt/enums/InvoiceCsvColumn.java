@@ -0,0 +1,39 @@
+package hr.javafx.projekt.enums;
+
+/**
+ * Enumeracija koja definira stupce CSV datoteke s fakturama i njihove nazive u zaglavlju.
+ * Dobavljač se prepoznaje po OIB-u ili, ako OIB nije naveden, po nazivu.
+ */
+public enum InvoiceCsvColumn {
+    INVOICE_NUMBER("broj_fakture", true),
+    SUPPLIER_OIB("oib_dobavljaca", false),
+    SUPPLIER_NAME("dobavljac", false),
+    ISSUE_DATE("datum_izdavanja", true),
+    DUE_DATE("datum_dospijeca", true),
+    AMOUNT("iznos", true),
+    STATUS("status", false);
+
+    private final String header;
+    private final boolean required;
+
+    InvoiceCsvColumn(String header, boolean required) {
+        this.header = header;
+        this.required = required;
+    }
+
+    /**
+     * Vraća naziv stupca u zaglavlju datoteke.
+     * @return Naziv stupca.
+     */
+    public String getHeader() {
+        return header;
+    }
+
+    /**
+     * Provjerava mora li stupac postojati u zaglavlju.
+     * @return True ako je stupac obavezan.
+     */
+    public boolean isRequired() {
+        return required;
+    }
+}
@@ -0,0 +1,28 @@
+package hr.javafx.projekt.enums;
+
+/**
+ * Enumeracija koja definira polja po kojima se fakture mogu sortirati.
+ */
+public enum InvoiceSortField {
+    ID("i.id"),
+    INVOICE_NUMBER("i.invoice_number"),
+    SUPPLIER("s.name"),
+    AMOUNT("i.amount"),
+    ISSUE_DATE("i.issue_date"),
+    DUE_DATE("i.due_date"),
+    STATUS("i.status");
+
+    private final String column;
+
+    InvoiceSortField(String column) {
+        this.column = column;
+    }
+
+    /**
+     * Vraća stupac upita po kojem se sortira.
+     * @return Naziv stupca s aliasom tablice.
+     */
+    public String getColumn() {
+        return column;
+    }
+}
@@ -0,0 +1,8 @@
+package hr.javafx.projekt.enums;
+
+/**
+ * Enumeracija koja definira smjer sortiranja rezultata upita.
+ */
+public enum SortDirection {
+    ASC, DESC
+}
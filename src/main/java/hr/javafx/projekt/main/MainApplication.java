@@ -1,6 +1,19 @@
 package hr.javafx.projekt.main;
 
+import hr.javafx.projekt.database.DatabaseConnection;
+import hr.javafx.projekt.database.SchemaInitializer;
+import hr.javafx.projekt.repository.ChangeLogRepository;
+import hr.javafx.projekt.repository.ChangeSequenceRepository;
+import hr.javafx.projekt.repository.LeaseRepository;
+import hr.javafx.projekt.repository.SupplierCache;
+import hr.javafx.projekt.repository.SupplierRepository;
+import hr.javafx.projekt.repository.SupplierSearchIndex;
+import hr.javafx.projekt.service.AuditLogWriter;
+import hr.javafx.projekt.service.AuditWriterMetrics;
+import hr.javafx.projekt.service.ChangeSequencePoller;
+import hr.javafx.projekt.service.DueDateScheduler;
 import hr.javafx.projekt.service.InvoiceStatusMonitor;
+import hr.javafx.projekt.service.LeaderElection;
 import hr.javafx.projekt.service.ProgressBarUpdaterService;
 import hr.javafx.projekt.service.StatusBarState;
 import hr.javafx.projekt.utils.Navigation;
@@ -9,6 +22,8 @@ import javafx.stage.Stage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.Clock;
+import java.time.Duration;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -21,10 +36,23 @@ import java.util.concurrent.TimeUnit;
 public class MainApplication extends Application {
 
     private static final Logger log = LoggerFactory.getLogger(MainApplication.class);
-    private static final int UPDATE_INTERVAL_SECONDS = 10;
+    private static final int RECONCILIATION_INTERVAL_SECONDS = 300;
+    private static final long CHANGE_LOG_MAINTENANCE_DELAY_MINUTES = 1;
+    private static final long CHANGE_LOG_MAINTENANCE_INTERVAL_MINUTES = 24 * 60L;
+    private static final long CHANGE_SEQUENCE_POLL_INTERVAL_MILLIS = 2_000;
+    private static final long CHANGE_SEQUENCE_PRUNE_INTERVAL_MINUTES = 60;
+    private static final long DIAGNOSTICS_INTERVAL_MINUTES = 5;
+    private static final String STATUS_MONITOR_LEASE = "invoice-status-monitor";
+    private static final Duration STATUS_MONITOR_LEASE_TTL = Duration.ofSeconds(30);
+    private static final long STATUS_MONITOR_LEASE_RENEW_SECONDS = 10;
     private static final StatusBarState statusBarState = new StatusBarState();
 
     private static ScheduledExecutorService backgroundScheduler;
+    private static ScheduledExecutorService maintenanceScheduler;
+    private static ScheduledExecutorService leaderElectionScheduler;
+    private static DueDateScheduler dueDateScheduler;
+    private static ChangeSequencePoller changeSequencePoller;
+    private static LeaderElection statusMonitorElection;
 
     /**
      * Vraća jedinstvenu, statičku instancu stanja statusne trake.
@@ -36,49 +64,140 @@ public class MainApplication extends Application {
 
     /**
      * Glavna ulazna točka za JavaFX aplikaciju.
-     * Postavlja primarni Stage, pokreće pozadinske servise i prikazuje početni ekran za prijavu.
+     * Postavlja primarni Stage, provjerava tablice i indekse baze, pokreće pozadinske servise i prikazuje početni ekran za prijavu.
      * @param stage Glavni prozor (Stage) aplikacije.
      */
     @Override
     public void start(Stage stage) {
         Navigation.setPrimaryStage(stage);
+        SchemaInitializer.ensureSchema();
         startBackgroundServices();
         Navigation.showScene("login.fxml", "Supplier Payment System - Login");
     }
 
     /**
      * Metoda koju JavaFX poziva kada se aplikacija zatvara.
-     * Ovdje sigurno gasimo sve pokrenute pozadinske servise.
+     * Ovdje sigurno gasimo sve pokrenute pozadinske servise, upisujemo preostale zapise o promjenama
+     * te zatvaramo dnevnik promjena i bazen konekcija.
      */
     @Override
     public void stop() {
         log.info("Aplikacija se zatvara. Gasim pozadinski servis.");
+        log.info("Statistika priručne memorije dobavljača: {}", SupplierCache.getInstance().getStats());
+        log.info("Statistika indeksa za pretragu dobavljača: {}", SupplierSearchIndex.getInstance().getStats());
+        if (dueDateScheduler != null) {
+            dueDateScheduler.stop();
+        }
+        shutdownExecutor(leaderElectionScheduler);
         shutdownExecutor(backgroundScheduler);
+        if (statusMonitorElection != null) {
+            statusMonitorElection.release();
+        }
+        shutdownExecutor(maintenanceScheduler);
+        AuditLogWriter.getInstance().shutdown();
+        ChangeLogRepository.closeStore();
+        DatabaseConnection.shutdown();
     }
 
     /**
      * Pokreće pozadinske servise za praćenje statusa faktura i ažuriranje progress bara.
-     * Koristi jedan single-thread scheduler za oba zadatka.
+     * Dospjele fakture označava {@link DueDateScheduler} točno na granici dana, a puna provjera
+     * se izvršava samo kao rijetki rezervni prolaz. Od svih instanci spojenih na istu bazu provjeru izvodi
+     * samo ona koja drži najam ({@link LeaderElection}), a instanca koja postane voditelj odmah predaje
+     * punu provjeru zajedničkom scheduleru, pa periodički rezervni prolaz počinje tek nakon prvog
+     * intervala. Promjene drugih instanci aplikacije svake dvije sekunde čita {@link ChangeSequencePoller}.
+     * Koristi se jedan single-thread scheduler za sve zadatke, osim obnove najma, koja ima vlastitu nit
+     * kako je dugotrajna provjera ili čitanje promjena ne bi odgodili do isteka najma, te održavanja
+     * dnevnika i slijeda promjena, koje zbog sažimanja segmenata može potrajati pa ima vlastitu nit.
      * Servis se pokreće samo ako već nije aktivan.
      */
     public static void startBackgroundServices() {
         if (backgroundScheduler == null || backgroundScheduler.isShutdown()) {
             backgroundScheduler = Executors.newSingleThreadScheduledExecutor();
+            leaderElectionScheduler = Executors.newSingleThreadScheduledExecutor();
 
-            backgroundScheduler.scheduleAtFixedRate(
-                    new InvoiceStatusMonitor(statusBarState),
+            statusMonitorElection = new LeaderElection(
+                    new LeaseRepository(),
+                    STATUS_MONITOR_LEASE,
+                    STATUS_MONITOR_LEASE_TTL,
+                    statusBarState,
+                    () -> backgroundScheduler.execute(dueDateScheduler::reconcile));
+            dueDateScheduler = new DueDateScheduler(
+                    backgroundScheduler,
+                    new InvoiceStatusMonitor(statusBarState, statusMonitorElection),
+                    Clock.systemDefaultZone());
+            dueDateScheduler.start();
+
+            leaderElectionScheduler.scheduleWithFixedDelay(
+                    statusMonitorElection,
                     0,
-                    UPDATE_INTERVAL_SECONDS,
+                    STATUS_MONITOR_LEASE_RENEW_SECONDS,
                     TimeUnit.SECONDS
             );
 
             backgroundScheduler.scheduleAtFixedRate(
-                    new ProgressBarUpdaterService(statusBarState, UPDATE_INTERVAL_SECONDS),
+                    dueDateScheduler::reconcile,
+                    RECONCILIATION_INTERVAL_SECONDS,
+                    RECONCILIATION_INTERVAL_SECONDS,
+                    TimeUnit.SECONDS
+            );
+
+            changeSequencePoller = new ChangeSequencePoller(
+                    new ChangeSequenceRepository(),
+                    new SupplierRepository(),
+                    Clock.systemDefaultZone());
+            backgroundScheduler.scheduleWithFixedDelay(
+                    changeSequencePoller,
+                    0,
+                    CHANGE_SEQUENCE_POLL_INTERVAL_MILLIS,
+                    TimeUnit.MILLISECONDS
+            );
+
+            backgroundScheduler.scheduleAtFixedRate(
+                    new ProgressBarUpdaterService(statusBarState, RECONCILIATION_INTERVAL_SECONDS),
                     0,
                     1,
                     TimeUnit.SECONDS
             );
         }
+        if (maintenanceScheduler == null || maintenanceScheduler.isShutdown()) {
+            maintenanceScheduler = Executors.newSingleThreadScheduledExecutor();
+            maintenanceScheduler.scheduleWithFixedDelay(
+                    ChangeLogRepository::runMaintenance,
+                    CHANGE_LOG_MAINTENANCE_DELAY_MINUTES,
+                    CHANGE_LOG_MAINTENANCE_INTERVAL_MINUTES,
+                    TimeUnit.MINUTES
+            );
+            maintenanceScheduler.scheduleAtFixedRate(
+                    MainApplication::logDiagnostics,
+                    DIAGNOSTICS_INTERVAL_MINUTES,
+                    DIAGNOSTICS_INTERVAL_MINUTES,
+                    TimeUnit.MINUTES
+            );
+            ChangeSequencePoller poller = changeSequencePoller;
+            maintenanceScheduler.scheduleWithFixedDelay(
+                    poller::pruneExpired,
+                    CHANGE_SEQUENCE_PRUNE_INTERVAL_MINUTES,
+                    CHANGE_SEQUENCE_PRUNE_INTERVAL_MINUTES,
+                    TimeUnit.MINUTES
+            );
+        }
+    }
+
+    /**
+     * Periodički bilježi stanje bazena konekcija i pisača zapisa o promjenama, kako bi se iscrpljenost
+     * bazena, curenja konekcija i zaostajanje upisa u dnevnik mogli uočiti u logu dok aplikacija radi,
+     * a ne tek pri gašenju.
+     */
+    private static void logDiagnostics() {
+        DatabaseConnection.getPoolMetrics().ifPresent(metrics -> log.info("Stanje bazena konekcija: {}", metrics));
+        AuditWriterMetrics audit = AuditLogWriter.getInstance().getMetrics();
+        log.info("Pisač zapisa o promjenama: red {}/{}, upisano {} zapisa u {} grupa (prosjek {} po grupi), "
+                        + "čekanja na pun red {}, upis zadnji {} ms, prosjek {} ms, najdulji {} ms.",
+                audit.queueDepth(), audit.queueCapacity(), audit.entriesWritten(), audit.batchesWritten(),
+                String.format("%.1f", audit.averageBatchSize()), audit.backPressureWaits(),
+                String.format("%.1f", audit.lastFlushMillis()), String.format("%.1f", audit.averageFlushMillis()),
+                String.format("%.1f", audit.maxFlushMillis()));
     }
 
     /**
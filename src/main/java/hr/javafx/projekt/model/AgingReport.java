@@ -0,0 +1,34 @@
+package hr.javafx.projekt.model;
+
+import hr.javafx.projekt.enums.AgingBucket;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Izvještaj o starosnoj strukturi neplaćenih obveza na određeni dan, po dobavljačima.
+ *
+ * @param asOf Dan prema kojem se računa broj dana nakon dospijeća.
+ * @param suppliers Starosna struktura po dobavljačima, od najvećeg ukupnog iznosa prema manjem.
+ * @param totals Zbroj iznosa svih dobavljača po razredima starosti.
+ * @param total Ukupan iznos svih neplaćenih obveza.
+ * @param invoiceCount Ukupan broj neplaćenih faktura.
+ */
+public record AgingReport(
+        LocalDate asOf,
+        List<SupplierAging> suppliers,
+        Map<AgingBucket, BigDecimal> totals,
+        BigDecimal total,
+        int invoiceCount
+) {
+
+    /**
+     * Kompaktni konstruktor. Lista dobavljača i iznosi kopiraju se u nepromjenjive kolekcije.
+     */
+    public AgingReport {
+        suppliers = List.copyOf(suppliers);
+        totals = SupplierAging.completeBuckets(totals);
+    }
+}
@@ -3,18 +3,23 @@ package hr.javafx.projekt.model;
 import java.io.Serializable;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.stream.Collectors;
 
 /**
  * Predstavlja nepromjenjivi zapis (record) o promjeni u sustavu.
  * Koristi se za serijalizaciju i praćenje promjena entiteta.
+ * Jedno ažuriranje bilježi se jednim zapisom koji u {@code changes} sadrži sva promijenjena polja.
  *
  * @param changeType Tip promjene (npr. "ADD", "UPDATE", "DELETE").
  * @param entityName Naziv entiteta koji se mijenja.
- * @param fieldName Naziv polja koje se mijenja (ili "N/A" za ADD/DELETE).
+ * @param fieldName Naziv polja koje se mijenja, nazivi polja odvojeni zarezom, ili "N/A" za ADD/DELETE.
  * @param oldValue Stara vrijednost podatka.
  * @param newValue Nova vrijednost podatka.
  * @param timestamp Vrijeme kada se promjena dogodila.
  * @param userRole Rola korisnika koji je napravio promjenu.
+ * @param entityId ID entiteta, ili null za zapise nastale prije nego što se ID bilježio.
+ * @param changes Promijenjena polja kod ažuriranja; prazna lista za ostale promjene i starije zapise.
  */
 public record ChangeLogEntry(
         String changeType,
@@ -23,11 +28,78 @@ public record ChangeLogEntry(
         String oldValue,
         String newValue,
         LocalDateTime timestamp,
-        String userRole
+        String userRole,
+        Long entityId,
+        List<FieldChange> changes
 ) implements Serializable {
 
     private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("dd.MM.yyyy. HH:mm:ss");
 
+    /**
+     * Kompaktni konstruktor. Zapisi serijalizirani prije uvođenja liste promjena deserijaliziraju se s praznom listom.
+     */
+    public ChangeLogEntry {
+        changes = changes == null ? List.of() : List.copyOf(changes);
+    }
+
+    /**
+     * Kreira zapis bez ID-a entiteta i bez liste promijenjenih polja.
+     *
+     * @param changeType Tip promjene.
+     * @param entityName Naziv entiteta.
+     * @param fieldName Naziv polja.
+     * @param oldValue Stara vrijednost.
+     * @param newValue Nova vrijednost.
+     * @param timestamp Vrijeme promjene.
+     * @param userRole Rola korisnika.
+     */
+    public ChangeLogEntry(String changeType, String entityName, String fieldName, String oldValue,
+                          String newValue, LocalDateTime timestamp, String userRole) {
+        this(changeType, entityName, fieldName, oldValue, newValue, timestamp, userRole, null, List.of());
+    }
+
+    /**
+     * Kreira zapis o ažuriranju iz popisa promijenjenih polja. Naziv polja i vrijednosti izvode se iz popisa:
+     * nazivi polja odvajaju se zarezom, a vrijednosti se sažimaju u oblik "Entitet[polje=vrijednost, ...]",
+     * koji razumiju i stariji prikazi zapisa.
+     *
+     * @param entityName Naziv entiteta.
+     * @param entityId ID entiteta.
+     * @param changes Promijenjena polja.
+     * @param timestamp Vrijeme promjene.
+     * @param userRole Rola korisnika.
+     * @return Zapis o ažuriranju.
+     */
+    public static ChangeLogEntry ofUpdate(String entityName, Long entityId, List<FieldChange> changes,
+                                          LocalDateTime timestamp, String userRole) {
+        return new ChangeLogEntry("UPDATE", entityName, joinFieldNames(changes),
+                summarize(entityName, changes, true), summarize(entityName, changes, false),
+                timestamp, userRole, entityId, changes);
+    }
+
+    /**
+     * Provjerava jesu li naziv polja i vrijednosti ovog zapisa izvedeni iz popisa promjena,
+     * kao kod zapisa kreiranih s {@link #ofUpdate}. Takve vrijednosti nije potrebno posebno pohranjivati.
+     *
+     * @return True ako se naziv polja i vrijednosti mogu ponovno izvesti iz popisa promjena.
+     */
+    public boolean hasDerivedSummary() {
+        return !changes.isEmpty()
+                && joinFieldNames(changes).equals(fieldName)
+                && summarize(entityName, changes, true).equals(oldValue)
+                && summarize(entityName, changes, false).equals(newValue);
+    }
+
+    private static String joinFieldNames(List<FieldChange> changes) {
+        return changes.stream().map(FieldChange::fieldName).collect(Collectors.joining(", "));
+    }
+
+    private static String summarize(String entityName, List<FieldChange> changes, boolean oldValues) {
+        return changes.stream()
+                .map(change -> change.fieldName() + "=" + (oldValues ? change.oldValue() : change.newValue()))
+                .collect(Collectors.joining(", ", entityName + "[", "]"));
+    }
+
     /**
      * Vraća formatiranu string reprezentaciju zapisa o promjeni.
      * @return String s detaljima promjene.
@@ -43,4 +115,4 @@ public record ChangeLogEntry(
                 entityName,
                 userRole);
     }
-}
\ No newline at end of file
+}
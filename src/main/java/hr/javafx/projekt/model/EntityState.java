@@ -0,0 +1,33 @@
+package hr.javafx.projekt.model;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Stanje jednog entiteta u određenom trenutku, rekonstruirano iz dnevnika promjena.
+ * Vrijednosti polja su tekstualne, onakve kakve su zapisane u dnevniku.
+ *
+ * @param entityName Naziv entiteta, npr. "Invoice".
+ * @param entityId ID entiteta.
+ * @param fields Vrijednosti polja prema nazivu polja; polja koja dnevnik nikada nije zabilježio nedostaju.
+ * @param lastChange Vrijeme zadnje promjene primijenjene na stanje.
+ * @param complete False ako u dnevniku nema zapisa o dodavanju entiteta (npr. jer je uklonjen pravilom
+ *                 zadržavanja), pa stanje sadrži samo polja promijenjena nakon toga.
+ */
+public record EntityState(
+        String entityName,
+        Long entityId,
+        Map<String, String> fields,
+        LocalDateTime lastChange,
+        boolean complete
+) {
+
+    /**
+     * Kompaktni konstruktor. Vrijednosti polja kopiraju se u nepromjenjivu mapu sortiranu po nazivu polja.
+     */
+    public EntityState {
+        fields = Collections.unmodifiableMap(new TreeMap<>(fields));
+    }
+}
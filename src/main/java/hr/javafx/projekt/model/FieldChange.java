@@ -0,0 +1,17 @@
+package hr.javafx.projekt.model;
+
+import java.io.Serializable;
+
+/**
+ * Predstavlja promjenu vrijednosti jednog polja entiteta.
+ *
+ * @param fieldName Naziv polja.
+ * @param oldValue Stara vrijednost, kao tekst.
+ * @param newValue Nova vrijednost, kao tekst.
+ */
+public record FieldChange(
+        String fieldName,
+        String oldValue,
+        String newValue
+) implements Serializable {
+}
@@ -0,0 +1,35 @@
+package hr.javafx.projekt.model;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Rezultat uvoza zapisa iz datoteke.
+ *
+ * @param source Uvezena datoteka.
+ * @param rowsRead Broj pročitanih redaka bez zaglavlja.
+ * @param imported Broj spremljenih zapisa.
+ * @param rejected Broj odbijenih redaka.
+ * @param batches Broj grupnih upisa u bazu.
+ * @param elapsed Trajanje uvoza.
+ * @param quarantineFile Datoteka s odbijenim retcima i razlozima odbijanja, ili null ako nijedan redak nije odbijen.
+ */
+public record ImportResult(
+        Path source,
+        long rowsRead,
+        int imported,
+        int rejected,
+        int batches,
+        Duration elapsed,
+        Path quarantineFile
+) {
+
+    /**
+     * Vraća propusnost uvoza.
+     * @return Broj obrađenih redaka u sekundi.
+     */
+    public double rowsPerSecond() {
+        long millis = Math.max(1, elapsed.toMillis());
+        return rowsRead * 1000.0 / millis;
+    }
+}
@@ -0,0 +1,173 @@
+package hr.javafx.projekt.model;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Skup promjena faktura: ID-evi dodanih, izmijenjenih i obrisanih faktura.
+ * <p>
+ * Promjene se mogu spajati ({@link #merge(InvoiceDelta)}, {@link Builder#add(InvoiceDelta)}), pri čemu se
+ * svaka faktura pojavljuje u najviše jednom skupu: izmjena nove fakture ostaje dodavanje, izmjena
+ * obrisane fakture postaje brisanje, a faktura dodana i obrisana unutar istog skupa promjena se izostavlja.
+ * <p>
+ * Kada točne promjene nisu poznate (npr. instanca je propustila dio slijeda promjena), skup je označen
+ * s {@code reloadRequired} i primatelj mora ponovno učitati sve fakture koje prikazuje.
+ *
+ * @param inserted ID-evi dodanih faktura.
+ * @param updated ID-evi izmijenjenih faktura.
+ * @param deleted ID-evi obrisanih faktura.
+ * @param reloadRequired True ako promijenjene fakture nisu poznate pa je potrebno ponovno učitavanje.
+ */
+public record InvoiceDelta(Set<Long> inserted, Set<Long> updated, Set<Long> deleted, boolean reloadRequired) {
+
+    /** Skup bez promjena. */
+    public static final InvoiceDelta EMPTY = new InvoiceDelta(Set.of(), Set.of(), Set.of(), false);
+
+    /** Skup promjena koji zahtijeva ponovno učitavanje svih faktura. */
+    public static final InvoiceDelta RELOAD = new InvoiceDelta(Set.of(), Set.of(), Set.of(), true);
+
+    public InvoiceDelta {
+        inserted = Set.copyOf(inserted);
+        updated = Set.copyOf(updated);
+        deleted = Set.copyOf(deleted);
+    }
+
+    /**
+     * Vraća skup promjena s dodanim fakturama.
+     * @param ids ID-evi dodanih faktura.
+     * @return Skup promjena.
+     */
+    public static InvoiceDelta inserted(Collection<Long> ids) {
+        return new Builder().inserted(ids).build();
+    }
+
+    /**
+     * Vraća skup promjena s izmijenjenim fakturama.
+     * @param ids ID-evi izmijenjenih faktura.
+     * @return Skup promjena.
+     */
+    public static InvoiceDelta updated(Collection<Long> ids) {
+        return new Builder().updated(ids).build();
+    }
+
+    /**
+     * Vraća skup promjena s obrisanim fakturama.
+     * @param ids ID-evi obrisanih faktura.
+     * @return Skup promjena.
+     */
+    public static InvoiceDelta deleted(Collection<Long> ids) {
+        return new Builder().deleted(ids).build();
+    }
+
+    /**
+     * Provjerava sadrži li skup ikakvu promjenu.
+     * @return True ako nema promjena.
+     */
+    public boolean isEmpty() {
+        return !reloadRequired && inserted.isEmpty() && updated.isEmpty() && deleted.isEmpty();
+    }
+
+    /**
+     * Vraća ukupan broj promijenjenih faktura.
+     * @return Broj faktura.
+     */
+    public int size() {
+        return inserted.size() + updated.size() + deleted.size();
+    }
+
+    /**
+     * Spaja ovaj skup promjena s promjenama koje su nastale nakon njega.
+     * @param later Kasnije promjene.
+     * @return Spojeni skup promjena.
+     */
+    public InvoiceDelta merge(InvoiceDelta later) {
+        return new Builder().add(this).add(later).build();
+    }
+
+    /**
+     * Builder koji spaja promjene redom kojim su nastale.
+     */
+    public static class Builder {
+        private final Set<Long> inserted = new LinkedHashSet<>();
+        private final Set<Long> updated = new LinkedHashSet<>();
+        private final Set<Long> deleted = new LinkedHashSet<>();
+        private boolean reloadRequired;
+
+        /**
+         * Dodaje nove fakture.
+         * @param ids ID-evi dodanih faktura.
+         * @return Referenca na trenutni Builder objekt.
+         */
+        public Builder inserted(Collection<Long> ids) {
+            inserted.addAll(ids);
+            return this;
+        }
+
+        /**
+         * Dodaje izmijenjene fakture. Faktura koja je u ovom skupu dodana ostaje dodana.
+         * @param ids ID-evi izmijenjenih faktura.
+         * @return Referenca na trenutni Builder objekt.
+         */
+        public Builder updated(Collection<Long> ids) {
+            for (Long id : ids) {
+                if (!inserted.contains(id) && !deleted.contains(id)) {
+                    updated.add(id);
+                }
+            }
+            return this;
+        }
+
+        /**
+         * Dodaje obrisane fakture. Faktura koja je u ovom skupu dodana potpuno se izostavlja.
+         * @param ids ID-evi obrisanih faktura.
+         * @return Referenca na trenutni Builder objekt.
+         */
+        public Builder deleted(Collection<Long> ids) {
+            for (Long id : ids) {
+                updated.remove(id);
+                if (!inserted.remove(id)) {
+                    deleted.add(id);
+                }
+            }
+            return this;
+        }
+
+        /**
+         * Dodaje promjene koje su nastale nakon dosad dodanih.
+         * @param delta Kasnije promjene.
+         * @return Referenca na trenutni Builder objekt.
+         */
+        public Builder add(InvoiceDelta delta) {
+            if (delta.reloadRequired()) {
+                reloadRequired();
+            }
+            return inserted(delta.inserted()).updated(delta.updated()).deleted(delta.deleted());
+        }
+
+        /**
+         * Označava da je potrebno ponovno učitati sve fakture.
+         * @return Referenca na trenutni Builder objekt.
+         */
+        public Builder reloadRequired() {
+            reloadRequired = true;
+            return this;
+        }
+
+        /**
+         * Provjerava je li dosad dodana ikakva promjena.
+         * @return True ako nema promjena.
+         */
+        public boolean isEmpty() {
+            return !reloadRequired && inserted.isEmpty() && updated.isEmpty() && deleted.isEmpty();
+        }
+
+        /**
+         * Kreira nepromjenjivi skup promjena.
+         * @return Skup promjena.
+         */
+        public InvoiceDelta build() {
+            return isEmpty() ? EMPTY : new InvoiceDelta(inserted, updated, deleted, reloadRequired);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package hr.javafx.projekt.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Najam koji jednoj instanci aplikacije daje isključivo pravo izvođenja pozadinskog zadatka.
+ * Vremena su izražena satom baze podataka, zajedničkim za sve instance.
+ *
+ * @param name Naziv najma.
+ * @param holder Oznaka instance koja drži najam.
+ * @param acquiredAt Trenutak kada je instanca preuzela najam.
+ * @param expiresAt Trenutak isteka najma ako ga instanca ne obnovi.
+ * @param expired True ako je najam u trenutku čitanja već istekao.
+ */
+public record Lease(
+        String name,
+        String holder,
+        LocalDateTime acquiredAt,
+        LocalDateTime expiresAt,
+        boolean expired
+) {
+}
@@ -0,0 +1,37 @@
+package hr.javafx.projekt.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Sažetak obveza prema dobavljačima na određeni dan, izračunat agregatnim upitima u bazi.
+ * Neplaćenim fakturama smatraju se sve fakture koje nisu plaćene, uključujući dospjele.
+ *
+ * @param asOf Dan za koji je sažetak izračunat.
+ * @param totalUnpaid Zbroj iznosa svih neplaćenih faktura.
+ * @param unpaidCount Broj neplaćenih faktura.
+ * @param totalOverdue Zbroj iznosa neplaćenih faktura kojima je rok prošao.
+ * @param overdueCount Broj neplaćenih faktura kojima je rok prošao.
+ * @param dueNext7Days Zbroj iznosa neplaćenih faktura koje dospijevaju u sljedećih 7 dana, uključujući danas.
+ * @param dueNext30Days Zbroj iznosa neplaćenih faktura koje dospijevaju u sljedećih 30 dana, uključujući danas.
+ * @param topSuppliers Dobavljači s najvećim neplaćenim iznosom, od najvećeg prema manjem.
+ */
+public record PayablesSummary(
+        LocalDate asOf,
+        BigDecimal totalUnpaid,
+        int unpaidCount,
+        BigDecimal totalOverdue,
+        int overdueCount,
+        BigDecimal dueNext7Days,
+        BigDecimal dueNext30Days,
+        List<SupplierOutstanding> topSuppliers
+) {
+
+    /**
+     * Kompaktni konstruktor. Lista dobavljača kopira se u nepromjenjivu listu.
+     */
+    public PayablesSummary {
+        topSuppliers = List.copyOf(topSuppliers);
+    }
+}
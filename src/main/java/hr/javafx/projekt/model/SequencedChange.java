@@ -0,0 +1,25 @@
+package hr.javafx.projekt.model;
+
+import hr.javafx.projekt.enums.ChangeKind;
+
+import java.time.LocalDateTime;
+
+/**
+ * Jedan zapis iz slijeda promjena koji dijele sve instance aplikacije spojene na istu bazu.
+ *
+ * @param seq Redni broj promjene; raste sa svakim upisom.
+ * @param entityType Vrsta entiteta (jednostavni naziv klase, npr. "Invoice").
+ * @param entityId ID promijenjenog entiteta.
+ * @param kind Vrsta promjene.
+ * @param origin Oznaka instance aplikacije koja je napravila promjenu.
+ * @param changedAt Vrijeme promjene.
+ */
+public record SequencedChange(
+        long seq,
+        String entityType,
+        long entityId,
+        ChangeKind kind,
+        String origin,
+        LocalDateTime changedAt
+) {
+}
@@ -0,0 +1,55 @@
+package hr.javafx.projekt.model;
+
+import hr.javafx.projekt.enums.AgingBucket;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Starosna struktura neplaćenih obveza prema jednom dobavljaču.
+ *
+ * @param supplierId ID dobavljača.
+ * @param supplierName Naziv dobavljača.
+ * @param amounts Zbroj iznosa za plaćanje po razredima starosti.
+ * @param total Ukupan iznos za plaćanje.
+ * @param invoiceCount Broj neplaćenih faktura.
+ */
+public record SupplierAging(
+        Long supplierId,
+        String supplierName,
+        Map<AgingBucket, BigDecimal> amounts,
+        BigDecimal total,
+        int invoiceCount
+) {
+
+    /**
+     * Kompaktni konstruktor. Iznosi se kopiraju u nepromjenjivu mapu koja sadrži sve razrede.
+     */
+    public SupplierAging {
+        amounts = completeBuckets(amounts);
+    }
+
+    /**
+     * Vraća iznos za plaćanje u zadanom razredu.
+     * @param bucket Razred starosti.
+     * @return Iznos, ili nula ako u razredu nema faktura.
+     */
+    public BigDecimal amount(AgingBucket bucket) {
+        return amounts.get(bucket);
+    }
+
+    /**
+     * Kopira iznose u mapu u kojoj svaki razred ima vrijednost, pa razredi bez faktura imaju nulu.
+     * @param amounts Iznosi po razredima.
+     * @return Nepromjenjiva mapa iznosa.
+     */
+    static Map<AgingBucket, BigDecimal> completeBuckets(Map<AgingBucket, BigDecimal> amounts) {
+        Map<AgingBucket, BigDecimal> complete = new EnumMap<>(AgingBucket.class);
+        for (AgingBucket bucket : AgingBucket.values()) {
+            complete.put(bucket, amounts.getOrDefault(bucket, BigDecimal.ZERO));
+        }
+        return Collections.unmodifiableMap(complete);
+    }
+}
@@ -0,0 +1,19 @@
+package hr.javafx.projekt.model;
+
+import java.math.BigDecimal;
+
+/**
+ * Ukupni neplaćeni iznos faktura jednog dobavljača.
+ *
+ * @param supplierId ID dobavljača.
+ * @param supplierName Naziv dobavljača.
+ * @param outstanding Zbroj iznosa neplaćenih i dospjelih faktura.
+ * @param invoiceCount Broj neplaćenih i dospjelih faktura.
+ */
+public record SupplierOutstanding(
+        Long supplierId,
+        String supplierName,
+        BigDecimal outstanding,
+        int invoiceCount
+) {
+}
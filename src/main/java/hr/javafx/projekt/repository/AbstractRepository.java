@@ -1,19 +1,39 @@
 package hr.javafx.projekt.repository;
 
+import hr.javafx.projekt.database.DatabaseConnection;
+import hr.javafx.projekt.enums.SortDirection;
 import hr.javafx.projekt.exception.RepositoryAccessException;
 import hr.javafx.projekt.model.Entity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Apstraktna generička klasa koja definira standardne CRUD (Create, Read, Update, Delete)
  * operacije za rad s entitetima u bazi podataka.
+ * Uz njih nudi i dohvat po stranicama (keyset paginacija) te lijeno čitanje kroz {@link Stream},
+ * koji se oslanjaju na osnovni upit i mapper koje definira podklasa.
  *
  * @param <T> Tip entiteta koji nasljeđuje {@link Entity}.
  */
 public abstract class AbstractRepository<T extends Entity> {
 
+    private static final Logger log = LoggerFactory.getLogger(AbstractRepository.class);
+    protected static final int STREAM_FETCH_SIZE = 500;
+
     /**
      * Sprema novi entitet u bazu podataka.
      * @param entity Entitet za spremanje.
@@ -50,4 +70,170 @@ public abstract class AbstractRepository<T extends Entity> {
      * @throws RepositoryAccessException ako dođe do greške pri pristupu bazi.
      */
     public abstract void deleteById(Long id) throws RepositoryAccessException;
-}
\ No newline at end of file
+
+    /**
+     * Vraća osnovni SELECT upit (bez WHERE i ORDER BY dijela) kojim se dohvaćaju entiteti.
+     * @return SQL upit.
+     */
+    protected abstract String selectSql();
+
+    /**
+     * Vraća naziv stupca s ID-em entiteta, kako se navodi u {@link #selectSql()}.
+     * @return Naziv stupca.
+     */
+    protected abstract String idColumn();
+
+    /**
+     * Kreira novi mapper za jedan result set upita {@link #selectSql()}.
+     * @return Mapper redaka.
+     */
+    protected abstract RowMapper<T> newRowMapper();
+
+    /**
+     * Dohvaća jednu stranicu entiteta sortiranih po ID-u, počevši iza zadanog ID-a.
+     * Za razliku od OFFSET paginacije, cijena dohvata ne raste s brojem prethodnih stranica.
+     *
+     * @param afterId ID zadnjeg entiteta s prethodne stranice, ili null za prvu stranicu.
+     * @param limit Najveći broj entiteta na stranici.
+     * @param direction Smjer sortiranja po ID-u.
+     * @return Stranica entiteta.
+     * @throws RepositoryAccessException ako dođe do greške pri pristupu bazi.
+     */
+    public Page<T> findPage(Long afterId, int limit, SortDirection direction) throws RepositoryAccessException {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Veličina stranice mora biti pozitivna.");
+        }
+        StringBuilder sql = new StringBuilder(selectSql());
+        if (afterId != null) {
+            sql.append(" WHERE ").append(idColumn()).append(direction == SortDirection.ASC ? " > ?" : " < ?");
+        }
+        sql.append(" ORDER BY ").append(idColumn()).append(' ').append(direction.name()).append(" LIMIT ?");
+
+        List<T> items = new ArrayList<>();
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(sql.toString())) {
+            int index = 1;
+            if (afterId != null) {
+                stmt.setLong(index++, afterId);
+            }
+            stmt.setInt(index, limit + 1);
+            try (ResultSet rs = stmt.executeQuery()) {
+                RowMapper<T> mapper = newRowMapper();
+                while (rs.next()) {
+                    items.add(mapper.map(rs));
+                }
+            }
+        } catch (SQLException | IOException e) {
+            throw new RepositoryAccessException("Greška prilikom dohvaćanja stranice zapisa!", e);
+        }
+
+        boolean hasMore = items.size() > limit;
+        if (hasMore) {
+            items.remove(items.size() - 1);
+        }
+        Long nextCursor = items.isEmpty() ? afterId : items.get(items.size() - 1).getId();
+        return new Page<>(items, nextCursor, hasMore);
+    }
+
+    /**
+     * Broji sve entitete koje vraća osnovni upit.
+     * @return Broj entiteta.
+     * @throws RepositoryAccessException ako dođe do greške pri pristupu bazi.
+     */
+    public int countAll() throws RepositoryAccessException {
+        String sql = "SELECT COUNT(*) FROM (" + selectSql() + ") t";
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+            return rs.next() ? rs.getInt(1) : 0;
+        } catch (SQLException | IOException e) {
+            throw new RepositoryAccessException("Greška prilikom prebrojavanja zapisa!", e);
+        }
+    }
+
+    /**
+     * Vraća lijeni tok svih entiteta sortiranih po ID-u. Redci se s baze dohvaćaju u blokovima,
+     * pa potrošnja memorije ne ovisi o veličini tablice. Tok drži konekciju iz bazena
+     * sve dok se ne zatvori, zato ga treba koristiti u {@code try-with-resources} bloku.
+     *
+     * @return Tok entiteta.
+     * @throws RepositoryAccessException ako dođe do greške pri pristupu bazi.
+     */
+    public Stream<T> streamAll() throws RepositoryAccessException {
+        return stream(selectSql() + " ORDER BY " + idColumn(), stmt -> {});
+    }
+
+    /**
+     * Izvršava upit i vraća lijeni tok mapiranih redaka. Konekcija, naredba i result set
+     * zatvaraju se zatvaranjem toka.
+     *
+     * @param sql SQL upit.
+     * @param binder Postavlja parametre upita.
+     * @return Tok entiteta.
+     * @throws RepositoryAccessException ako dođe do greške pri pristupu bazi.
+     */
+    protected Stream<T> stream(String sql, StatementBinder binder) throws RepositoryAccessException {
+        Connection connection = null;
+        PreparedStatement stmt = null;
+        try {
+            connection = DatabaseConnection.getConnection();
+            stmt = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            stmt.setFetchSize(STREAM_FETCH_SIZE);
+            binder.bind(stmt);
+            ResultSet rs = stmt.executeQuery();
+            RowMapper<T> mapper = newRowMapper();
+
+            Spliterator<T> spliterator = new Spliterators.AbstractSpliterator<>(
+                    Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+                @Override
+                public boolean tryAdvance(Consumer<? super T> action) {
+                    try {
+                        if (!rs.next()) {
+                            return false;
+                        }
+                        action.accept(mapper.map(rs));
+                        return true;
+                    } catch (SQLException e) {
+                        throw new RepositoryAccessException("Greška prilikom čitanja zapisa iz toka!", e);
+                    }
+                }
+            };
+
+            PreparedStatement openStatement = stmt;
+            Connection openConnection = connection;
+            return StreamSupport.stream(spliterator, false)
+                    .onClose(() -> closeQuietly(rs, openStatement, openConnection));
+        } catch (SQLException | IOException e) {
+            closeQuietly(null, stmt, connection);
+            throw new RepositoryAccessException("Greška prilikom otvaranja toka zapisa!", e);
+        }
+    }
+
+    /**
+     * Funkcijsko sučelje za postavljanje parametara pripremljene naredbe.
+     */
+    @FunctionalInterface
+    protected interface StatementBinder {
+        /**
+         * Postavlja parametre naredbe.
+         * @param stmt Pripremljena naredba.
+         * @throws SQLException ako postavljanje parametra ne uspije.
+         */
+        void bind(PreparedStatement stmt) throws SQLException;
+    }
+
+    private static void closeQuietly(ResultSet rs, PreparedStatement stmt, Connection connection) {
+        try {
+            if (rs != null) {
+                rs.close();
+            }
+            if (stmt != null) {
+                stmt.close();
+            }
+        } catch (SQLException e) {
+            log.error("Greška prilikom zatvaranja toka zapisa.", e);
+        } finally {
+            DatabaseConnection.closeConnection(connection);
+        }
+    }
+}
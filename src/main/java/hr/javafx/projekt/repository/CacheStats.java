@@ -0,0 +1,36 @@
+package hr.javafx.projekt.repository;
+
+/**
+ * Trenutna slika stanja priručne memorije repozitorija.
+ *
+ * @param hits Broj dohvata posluženih iz memorije.
+ * @param misses Broj dohvata za koje se morala čitati baza.
+ * @param evictions Broj zapisa izbačenih zbog ograničenja veličine.
+ * @param invalidations Broj poništavanja nakon upisa.
+ * @param size Trenutni broj zapisa u memoriji.
+ * @param maxSize Najveći broj zapisa u memoriji.
+ */
+public record CacheStats(
+        long hits,
+        long misses,
+        long evictions,
+        long invalidations,
+        int size,
+        int maxSize
+) {
+
+    /**
+     * Vraća udio dohvata posluženih iz memorije.
+     * @return Omjer pogodaka između 0 i 1.
+     */
+    public double hitRate() {
+        long total = hits + misses;
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Cache[pogoci=%d, promašaji=%d (%.1f%% pogodaka), izbačeno=%d, poništeno=%d, veličina=%d/%d]",
+                hits, misses, hitRate() * 100, evictions, invalidations, size, maxSize);
+    }
+}
@@ -0,0 +1,179 @@
+package hr.javafx.projekt.repository;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Nepromjenjivi kriteriji pretrage dnevnika promjena.
+ * Svi kriteriji su opcionalni; kriterij koji nije postavljen ne ograničava rezultat.
+ * Objekt se kreira pomoću {@link Builder} klase.
+ */
+public final class ChangeLogCriteria {
+
+    private final String entityName;
+    private final Long entityId;
+    private final String fieldName;
+    private final String userRole;
+    private final String changeType;
+    private final LocalDateTime from;
+    private final LocalDateTime to;
+
+    private ChangeLogCriteria(Builder builder) {
+        this.entityName = builder.entityName;
+        this.entityId = builder.entityId;
+        this.fieldName = builder.fieldName;
+        this.userRole = builder.userRole;
+        this.changeType = builder.changeType;
+        this.from = builder.from;
+        this.to = builder.to;
+    }
+
+    /**
+     * Vraća kriterije bez ograničenja.
+     * @return Prazni kriteriji.
+     */
+    public static ChangeLogCriteria all() {
+        return new Builder().build();
+    }
+
+    public String getEntityName() {
+        return entityName;
+    }
+
+    public Long getEntityId() {
+        return entityId;
+    }
+
+    public String getFieldName() {
+        return fieldName;
+    }
+
+    public String getUserRole() {
+        return userRole;
+    }
+
+    public String getChangeType() {
+        return changeType;
+    }
+
+    public LocalDateTime getFrom() {
+        return from;
+    }
+
+    public LocalDateTime getTo() {
+        return to;
+    }
+
+    /**
+     * Provjerava je li postavljen ijedan kriterij osim vremenskog raspona.
+     * @return True ako je postavljen entitet, ID, polje, rola ili tip promjene.
+     */
+    public boolean hasAttributeFilters() {
+        return entityName != null || entityId != null || fieldName != null || userRole != null || changeType != null;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ChangeLogCriteria that)) return false;
+        return Objects.equals(entityName, that.entityName)
+                && Objects.equals(entityId, that.entityId)
+                && Objects.equals(fieldName, that.fieldName)
+                && Objects.equals(userRole, that.userRole)
+                && Objects.equals(changeType, that.changeType)
+                && Objects.equals(from, that.from)
+                && Objects.equals(to, that.to);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(entityName, entityId, fieldName, userRole, changeType, from, to);
+    }
+
+    /**
+     * Builder klasa za kreiranje {@link ChangeLogCriteria} objekata.
+     */
+    public static class Builder {
+        private String entityName;
+        private Long entityId;
+        private String fieldName;
+        private String userRole;
+        private String changeType;
+        private LocalDateTime from;
+        private LocalDateTime to;
+
+        /**
+         * Ograničava rezultat na promjene jednog entiteta, npr. "Supplier".
+         * @param entityName Naziv entiteta; prazan niz se zanemaruje.
+         * @return Referenca na trenutni Builder objekt.
+         */
+        public Builder withEntityName(String entityName) {
+            this.entityName = blankToNull(entityName);
+            return this;
+        }
+
+        /**
+         * Ograničava rezultat na promjene zapisa s jednim ID-em.
+         * @param entityId ID entiteta, ili null za sve zapise.
+         * @return Referenca na trenutni Builder objekt.
+         */
+        public Builder withEntityId(Long entityId) {
+            this.entityId = entityId;
+            return this;
+        }
+
+        /**
+         * Ograničava rezultat na ažuriranja koja su promijenila zadano polje.
+         * @param fieldName Naziv polja, npr. "address"; prazan niz se zanemaruje.
+         * @return Referenca na trenutni Builder objekt.
+         */
+        public Builder withFieldName(String fieldName) {
+            this.fieldName = blankToNull(fieldName);
+            return this;
+        }
+
+        /**
+         * Ograničava rezultat na promjene koje je napravio korisnik zadane role.
+         * @param userRole Rola korisnika; prazan niz se zanemaruje.
+         * @return Referenca na trenutni Builder objekt.
+         */
+        public Builder withUserRole(String userRole) {
+            this.userRole = blankToNull(userRole);
+            return this;
+        }
+
+        /**
+         * Ograničava rezultat na jedan tip promjene.
+         * @param changeType Tip promjene ("ADD", "UPDATE" ili "DELETE"); prazan niz se zanemaruje.
+         * @return Referenca na trenutni Builder objekt.
+         */
+        public Builder withChangeType(String changeType) {
+            this.changeType = blankToNull(changeType);
+            return this;
+        }
+
+        /**
+         * Ograničava vrijeme promjene na zatvoreni interval.
+         * @param from Najranije vrijeme, ili null.
+         * @param to Najkasnije vrijeme, ili null.
+         * @return Referenca na trenutni Builder objekt.
+         */
+        public Builder withTimeBetween(LocalDateTime from, LocalDateTime to) {
+            this.from = from;
+            this.to = to;
+            return this;
+        }
+
+        /**
+         * Kreira i vraća finalni {@link ChangeLogCriteria} objekt.
+         * @return Novi, nepromjenjivi objekt kriterija.
+         */
+        public ChangeLogCriteria build() {
+            return new ChangeLogCriteria(this);
+        }
+
+        private static String blankToNull(String value) {
+            return value == null || value.isBlank() ? null : value.trim();
+        }
+    }
+}
@@ -0,0 +1,558 @@
+package hr.javafx.projekt.repository;
+
+import hr.javafx.projekt.changelog.ChangeLogCodec;
+import hr.javafx.projekt.changelog.ChangeLogRecord;
+import hr.javafx.projekt.changelog.RecordPointer;
+import hr.javafx.projekt.changelog.SegmentedLog;
+import hr.javafx.projekt.model.ChangeLogEntry;
+import hr.javafx.projekt.model.FieldChange;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Indeks nad dnevnikom promjena koji omogućuje filtriranu pretragu bez čitanja cijelog dnevnika.
+ * <p>
+ * Svaki zapis dobiva redni broj prema redoslijedu u dnevniku. Za svaki redni broj pamti se položaj zapisa,
+ * a za entitet, ID entiteta, promijenjeno polje, rolu korisnika i tip promjene vode se sortirane liste
+ * rednih brojeva. Vrijeme se indeksira rijetko: za svaki blok od {@value #BLOCK_SIZE} zapisa pamti se
+ * najranije i najkasnije vrijeme, pa se blokovi izvan traženog raspona preskaču bez čitanja.
+ * <p>
+ * Uz svaki zapečaćeni segment sprema se pomoćna datoteka s metapodacima njegovih zapisa, pa se pri
+ * pokretanju čita samo aktivni segment. Pomoćna datoteka koja nedostaje ili ne odgovara segmentu
+ * gradi se iznova iz segmenta.
+ * <p>
+ * Održavanje dnevnika (arhiviranje i brisanje segmenata) mijenja položaje zapisa, pa se nakon njega indeks
+ * gradi iznova. Redni brojevi se time mijenjaju, a kursori dobiveni prije održavanja više ne vrijede.
+ */
+final class ChangeLogIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(ChangeLogIndex.class);
+    private static final int BLOCK_SIZE = 64;
+    private static final int SIDECAR_MAGIC = 0x434C4958;
+    private static final byte SIDECAR_VERSION = 2;
+    private static final String SIDECAR_SUFFIX = ".idx";
+    private static final String SIDECAR_PREFIX = "segment-";
+    private static final String NOT_APPLICABLE = "N/A";
+
+    /**
+     * Zadatak održavanja dnevnika koji se izvršava dok su upisi i pretrage zaustavljeni.
+     */
+    @FunctionalInterface
+    interface Maintenance {
+        /**
+         * Izvršava održavanje.
+         * @param changedSegments Skup u koji se dodaju ID-evi arhiviranih ili obrisanih segmenata.
+         * @throws IOException Ako održavanje ne uspije.
+         */
+        void run(Set<Long> changedSegments) throws IOException;
+    }
+
+    /**
+     * Metapodaci jednog zapisa koji se indeksiraju i spremaju u pomoćnu datoteku segmenta.
+     */
+    private record IndexedRecord(long offset, long timestampMillis, String changeType, String entityName,
+                                 Long entityId, String userRole, List<String> fieldNames) {
+
+        static IndexedRecord of(long offset, ChangeLogEntry entry) {
+            List<String> fieldNames;
+            if (!entry.changes().isEmpty()) {
+                fieldNames = entry.changes().stream().map(FieldChange::fieldName).toList();
+            } else if (entry.fieldName() != null && !NOT_APPLICABLE.equals(entry.fieldName())) {
+                fieldNames = List.of(entry.fieldName());
+            } else {
+                fieldNames = List.of();
+            }
+            return new IndexedRecord(offset, toMillis(entry.timestamp()), entry.changeType(), entry.entityName(),
+                    entry.entityId(), entry.userRole(), fieldNames);
+        }
+    }
+
+    private final SegmentedLog changeLog;
+    private final LongArray segmentIds = new LongArray();
+    private final IntArray segmentFirstOrdinals = new IntArray();
+    private final IntArray offsets = new IntArray();
+    private final LongArray blockMinMillis = new LongArray();
+    private final LongArray blockMaxMillis = new LongArray();
+    private final Map<String, IntArray> byChangeType = new HashMap<>();
+    private final Map<String, IntArray> byEntityName = new HashMap<>();
+    private final Map<Long, IntArray> byEntityId = new HashMap<>();
+    private final Map<String, IntArray> byFieldName = new HashMap<>();
+    private final Map<String, IntArray> byUserRole = new HashMap<>();
+    private final List<IndexedRecord> activeRecords = new ArrayList<>();
+    private long activeSegmentId;
+
+    private ChangeLogIndex(SegmentedLog changeLog) {
+        this.changeLog = changeLog;
+    }
+
+    /**
+     * Gradi indeks za dnevnik iz pomoćnih datoteka zapečaćenih segmenata i čitanjem aktivnog segmenta.
+     *
+     * @param changeLog Dnevnik promjena.
+     * @return Indeks svih zapisa u dnevniku.
+     * @throws IOException Ako segment nije moguće pročitati.
+     */
+    static ChangeLogIndex load(SegmentedLog changeLog) throws IOException {
+        ChangeLogIndex index = new ChangeLogIndex(changeLog);
+        index.rebuild();
+        return index;
+    }
+
+    /**
+     * Izvršava održavanje dnevnika pod zaključavanjem indeksa. Ako je ijedan segment promijenjen,
+     * njegova pomoćna datoteka se briše i indeks se gradi iznova, i kada održavanje ne uspije do kraja.
+     *
+     * @param maintenance Zadatak održavanja.
+     * @throws IOException Ako održavanje ili ponovna izgradnja indeksa ne uspije.
+     */
+    synchronized void maintain(Maintenance maintenance) throws IOException {
+        Set<Long> changedSegments = new HashSet<>();
+        try {
+            maintenance.run(changedSegments);
+        } finally {
+            if (!changedSegments.isEmpty()) {
+                for (long segmentId : changedSegments) {
+                    Files.deleteIfExists(sidecarPath(segmentId));
+                }
+                rebuild();
+            }
+        }
+    }
+
+    /**
+     * Gradi indeks iz pomoćnih datoteka zapečaćenih segmenata i čitanjem aktivnog segmenta.
+     * Pomoćne datoteke segmenata kojih više nema u dnevniku se brišu.
+     */
+    private void rebuild() throws IOException {
+        clear();
+        long activeId = changeLog.activeSegmentId();
+        List<Long> segments = changeLog.segmentIds();
+        int rebuilt = 0;
+        for (long segmentId : segments) {
+            List<IndexedRecord> records = segmentId == activeId ? null : readSidecar(segmentId);
+            if (records == null) {
+                records = scanSegment(segmentId);
+                if (segmentId != activeId) {
+                    writeSidecar(segmentId, records);
+                    rebuilt++;
+                }
+            }
+            for (IndexedRecord record : records) {
+                add(segmentId, record);
+            }
+            if (segmentId == activeId) {
+                activeRecords.addAll(records);
+            }
+        }
+        activeSegmentId = activeId;
+        deleteStaleSidecars(new HashSet<>(segments));
+        log.info("Učitan indeks dnevnika promjena: {} zapisa, {} pomoćnih datoteka izgrađeno iznova.",
+                size(), rebuilt);
+    }
+
+    private void clear() {
+        segmentIds.clear();
+        segmentFirstOrdinals.clear();
+        offsets.clear();
+        blockMinMillis.clear();
+        blockMaxMillis.clear();
+        byChangeType.clear();
+        byEntityName.clear();
+        byEntityId.clear();
+        byFieldName.clear();
+        byUserRole.clear();
+        activeRecords.clear();
+    }
+
+    /**
+     * Upisuje zapise u dnevnik i dodaje ih u indeks. Upis i indeksiranje obavljaju se pod istim
+     * zaključavanjem kako bi redni brojevi pratili redoslijed zapisa u dnevniku.
+     *
+     * @param entries Zapisi o promjenama.
+     * @param payloads Kodirani zapisi, istim redoslijedom.
+     * @throws IOException Ako upis ne uspije.
+     */
+    synchronized void append(List<ChangeLogEntry> entries, List<byte[]> payloads) throws IOException {
+        List<RecordPointer> pointers = changeLog.appendAll(payloads);
+        for (int i = 0; i < pointers.size(); i++) {
+            RecordPointer pointer = pointers.get(i);
+            if (pointer.segmentId() != activeSegmentId) {
+                writeSidecar(activeSegmentId, activeRecords);
+                activeRecords.clear();
+                activeSegmentId = pointer.segmentId();
+            }
+            IndexedRecord record = IndexedRecord.of(pointer.offset(), entries.get(i));
+            activeRecords.add(record);
+            add(pointer.segmentId(), record);
+        }
+    }
+
+    /**
+     * Vraća zapise koji zadovoljavaju kriterije, od najnovijeg prema najstarijem.
+     * Zapisi se vraćaju nedekodirani; dekodiraju se samo oni iz blokova koji su samo djelomično
+     * unutar traženog vremenskog raspona, jer se za njih vrijeme mora provjeriti.
+     *
+     * @param criteria Kriteriji pretrage.
+     * @param beforeCursor Kursor s prethodne stranice, ili null za prvu stranicu.
+     * @param limit Najveći broj zapisa na stranici.
+     * @return Stranica zapisa; kursor je redni broj zadnjeg zapisa na stranici.
+     * @throws IOException Ako zapis nije moguće pročitati iz dnevnika.
+     */
+    synchronized Page<ChangeLogRecord> query(ChangeLogCriteria criteria, Long beforeCursor, int limit) throws IOException {
+        List<IntArray> postings = new ArrayList<>();
+        if (!collectPostings(criteria, postings)) {
+            return new Page<>(List.of(), null, false);
+        }
+        IntArray driver = null;
+        for (IntArray candidate : postings) {
+            if (driver == null || candidate.size() < driver.size()) {
+                driver = candidate;
+            }
+        }
+
+        long fromMillis = criteria.getFrom() == null ? Long.MIN_VALUE : toMillis(criteria.getFrom());
+        long toMillis = criteria.getTo() == null ? Long.MAX_VALUE : toMillis(criteria.getTo());
+        int end = beforeCursor == null ? size() : (int) Math.max(0, Math.min(beforeCursor, size()));
+
+        List<ChangeLogRecord> items = new ArrayList<>(Math.min(limit, 256));
+        long lastOrdinal = -1;
+        boolean hasMore = false;
+        int position = driver == null ? end - 1 : driver.lowerBound(end) - 1;
+        while (position >= 0) {
+            int ordinal = driver == null ? position : driver.get(position);
+            int block = ordinal / BLOCK_SIZE;
+            if (blockMaxMillis.get(block) < fromMillis || blockMinMillis.get(block) > toMillis) {
+                int blockStart = block * BLOCK_SIZE;
+                position = driver == null ? blockStart - 1 : driver.lowerBound(blockStart) - 1;
+                continue;
+            }
+            position--;
+            if (!containsAll(postings, driver, ordinal)) {
+                continue;
+            }
+            ChangeLogRecord record = read(ordinal);
+            boolean blockInRange = blockMinMillis.get(block) >= fromMillis && blockMaxMillis.get(block) <= toMillis;
+            if (!blockInRange && !withinTime(record, fromMillis, toMillis)) {
+                continue;
+            }
+            if (items.size() == limit) {
+                hasMore = true;
+                break;
+            }
+            items.add(record);
+            lastOrdinal = ordinal;
+        }
+        return new Page<>(items, items.isEmpty() ? null : lastOrdinal, hasMore);
+    }
+
+    /**
+     * Vraća broj indeksiranih zapisa.
+     * @return Broj zapisa.
+     */
+    synchronized int size() {
+        return offsets.size();
+    }
+
+    private boolean collectPostings(ChangeLogCriteria criteria, List<IntArray> postings) {
+        return addPosting(postings, byChangeType, criteria.getChangeType())
+                && addPosting(postings, byEntityName, criteria.getEntityName())
+                && addPosting(postings, byEntityId, criteria.getEntityId())
+                && addPosting(postings, byFieldName, criteria.getFieldName())
+                && addPosting(postings, byUserRole, criteria.getUserRole());
+    }
+
+    /**
+     * Dodaje listu za zadanu vrijednost kriterija. Vraća false ako nijedan zapis nema tu vrijednost.
+     */
+    private static <K> boolean addPosting(List<IntArray> postings, Map<K, IntArray> index, K key) {
+        if (key == null) {
+            return true;
+        }
+        IntArray posting = index.get(key);
+        if (posting == null) {
+            return false;
+        }
+        postings.add(posting);
+        return true;
+    }
+
+    private static boolean containsAll(List<IntArray> postings, IntArray driver, int ordinal) {
+        for (IntArray posting : postings) {
+            if (posting != driver && !posting.contains(ordinal)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private ChangeLogRecord read(int ordinal) throws IOException {
+        ChangeLogRecord[] result = new ChangeLogRecord[1];
+        int segment = segmentFirstOrdinals.lowerBound(ordinal + 1) - 1;
+        RecordPointer pointer = new RecordPointer(segmentIds.get(segment), offsets.get(ordinal));
+        changeLog.read(pointer, (segmentId, offset, formatVersion, payload) ->
+                result[0] = new ChangeLogRecord(pointer, formatVersion, payload));
+        return result[0];
+    }
+
+    private static boolean withinTime(ChangeLogRecord record, long fromMillis, long toMillis) {
+        try {
+            long millis = toMillis(record.entry().timestamp());
+            return millis >= fromMillis && millis <= toMillis;
+        } catch (IOException e) {
+            log.warn("Zapis na poziciji {} segmenta {} nije moguće dekodirati i preskače se.",
+                    record.pointer().offset(), record.pointer().segmentId(), e);
+            return false;
+        }
+    }
+
+    private void add(long segmentId, IndexedRecord record) {
+        int ordinal = offsets.size();
+        if (segmentIds.size() == 0 || segmentIds.get(segmentIds.size() - 1) != segmentId) {
+            segmentIds.add(segmentId);
+            segmentFirstOrdinals.add(ordinal);
+        }
+        offsets.add(Math.toIntExact(record.offset()));
+
+        int block = ordinal / BLOCK_SIZE;
+        if (block == blockMinMillis.size()) {
+            blockMinMillis.add(record.timestampMillis());
+            blockMaxMillis.add(record.timestampMillis());
+        } else {
+            blockMinMillis.set(block, Math.min(blockMinMillis.get(block), record.timestampMillis()));
+            blockMaxMillis.set(block, Math.max(blockMaxMillis.get(block), record.timestampMillis()));
+        }
+
+        addPosting(byChangeType, record.changeType(), ordinal);
+        addPosting(byEntityName, record.entityName(), ordinal);
+        addPosting(byEntityId, record.entityId(), ordinal);
+        addPosting(byUserRole, record.userRole(), ordinal);
+        for (String fieldName : record.fieldNames()) {
+            addPosting(byFieldName, fieldName, ordinal);
+        }
+    }
+
+    private static <K> void addPosting(Map<K, IntArray> index, K key, int ordinal) {
+        if (key != null) {
+            IntArray posting = index.computeIfAbsent(key, k -> new IntArray());
+            if (posting.size() == 0 || posting.get(posting.size() - 1) != ordinal) {
+                posting.add(ordinal);
+            }
+        }
+    }
+
+    private List<IndexedRecord> scanSegment(long segmentId) throws IOException {
+        List<IndexedRecord> records = new ArrayList<>();
+        changeLog.scanSegment(segmentId, (id, offset, formatVersion, payload) -> {
+            try {
+                records.add(IndexedRecord.of(offset, ChangeLogCodec.decode(formatVersion, payload)));
+            } catch (IOException e) {
+                log.warn("Zapis na poziciji {} segmenta {} nije moguće dekodirati i ne indeksira se.", offset, id, e);
+            }
+        });
+        return records;
+    }
+
+    /**
+     * Čita pomoćnu datoteku segmenta. Vraća null ako ne postoji, oštećena je ili ne odgovara segmentu.
+     */
+    private List<IndexedRecord> readSidecar(long segmentId) throws IOException {
+        Path file = sidecarPath(segmentId);
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != SIDECAR_MAGIC || in.readByte() != SIDECAR_VERSION
+                    || in.readLong() != changeLog.segmentSize(segmentId)) {
+                log.warn("Pomoćna datoteka {} ne odgovara segmentu i gradi se iznova.", file.getFileName());
+                return null;
+            }
+            String[] strings = new String[in.readInt()];
+            for (int i = 0; i < strings.length; i++) {
+                strings[i] = in.readUTF();
+            }
+            int count = in.readInt();
+            List<IndexedRecord> records = new ArrayList<>(count);
+            long offset = 0;
+            long timestampMillis = 0;
+            for (int i = 0; i < count; i++) {
+                offset += readVarLong(in);
+                long zigZag = readVarLong(in);
+                timestampMillis += (zigZag >>> 1) ^ -(zigZag & 1);
+                String changeType = readString(in, strings);
+                String entityName = readString(in, strings);
+                long encodedId = readVarLong(in);
+                String userRole = readString(in, strings);
+                String[] fieldNames = new String[Math.toIntExact(readVarLong(in))];
+                for (int f = 0; f < fieldNames.length; f++) {
+                    fieldNames[f] = readString(in, strings);
+                }
+                records.add(new IndexedRecord(offset, timestampMillis, changeType, entityName,
+                        encodedId == 0 ? null : encodedId - 1, userRole, Arrays.asList(fieldNames)));
+            }
+            return records;
+        } catch (IOException | RuntimeException e) {
+            log.warn("Pomoćnu datoteku {} nije moguće pročitati i gradi se iznova.", file.getFileName(), e);
+            return null;
+        }
+    }
+
+    /**
+     * Zapisuje pomoćnu datoteku zapečaćenog segmenta. Ponavljajući nizovi (entitet, rola, polja) zapisuju se
+     * jednom u tablicu nizova, a položaji i vremena kao razlike u odnosu na prethodni zapis.
+     * Neuspjeh se samo bilježi, jer se datoteka može ponovno izgraditi iz segmenta pri sljedećem pokretanju.
+     */
+    private void writeSidecar(long segmentId, List<IndexedRecord> records) {
+        Path file = sidecarPath(segmentId);
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        Map<String, Integer> strings = new LinkedHashMap<>();
+        for (IndexedRecord record : records) {
+            internString(strings, record.changeType());
+            internString(strings, record.entityName());
+            internString(strings, record.userRole());
+            record.fieldNames().forEach(fieldName -> internString(strings, fieldName));
+        }
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(SIDECAR_MAGIC);
+                out.writeByte(SIDECAR_VERSION);
+                out.writeLong(changeLog.segmentSize(segmentId));
+                out.writeInt(strings.size());
+                for (String value : strings.keySet()) {
+                    out.writeUTF(value);
+                }
+                out.writeInt(records.size());
+                long previousOffset = 0;
+                long previousMillis = 0;
+                for (IndexedRecord record : records) {
+                    writeVarLong(out, record.offset() - previousOffset);
+                    long delta = record.timestampMillis() - previousMillis;
+                    writeVarLong(out, (delta << 1) ^ (delta >> 63));
+                    previousOffset = record.offset();
+                    previousMillis = record.timestampMillis();
+                    writeString(out, strings, record.changeType());
+                    writeString(out, strings, record.entityName());
+                    writeVarLong(out, record.entityId() == null ? 0 : record.entityId() + 1);
+                    writeString(out, strings, record.userRole());
+                    writeVarLong(out, record.fieldNames().size());
+                    for (String fieldName : record.fieldNames()) {
+                        writeString(out, strings, fieldName);
+                    }
+                }
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Pomoćnu datoteku {} nije moguće zapisati.", file.getFileName(), e);
+        }
+    }
+
+    private Path sidecarPath(long segmentId) {
+        return changeLog.directory().resolve(String.format("%s%020d%s", SIDECAR_PREFIX, segmentId, SIDECAR_SUFFIX));
+    }
+
+    private void deleteStaleSidecars(Set<Long> segments) {
+        try (Stream<Path> listing = Files.list(changeLog.directory())) {
+            for (Path file : listing.toList()) {
+                String name = file.getFileName().toString();
+                if (name.startsWith(SIDECAR_PREFIX) && name.endsWith(SIDECAR_SUFFIX)
+                        && !segments.contains(Long.parseLong(name.substring(SIDECAR_PREFIX.length(),
+                                name.length() - SIDECAR_SUFFIX.length())))) {
+                    Files.delete(file);
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            log.warn("Zastarjele pomoćne datoteke indeksa nije moguće obrisati.", e);
+        }
+    }
+
+    private static void internString(Map<String, Integer> strings, String value) {
+        if (value != null) {
+            strings.putIfAbsent(value, strings.size() + 1);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, Map<String, Integer> strings, String value) throws IOException {
+        writeVarLong(out, value == null ? 0 : strings.get(value));
+    }
+
+    private static String readString(DataInputStream in, String[] strings) throws IOException {
+        int reference = Math.toIntExact(readVarLong(in));
+        return reference == 0 ? null : strings[reference - 1];
+    }
+
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        long remaining = value;
+        while ((remaining & ~0x7FL) != 0) {
+            out.writeByte((int) ((remaining & 0x7F) | 0x80));
+            remaining >>>= 7;
+        }
+        out.writeByte((int) remaining);
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.readByte();
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new IOException("Neispravan varint u pomoćnoj datoteci.");
+    }
+
+    private static long toMillis(LocalDateTime timestamp) {
+        return timestamp.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    /**
+     * Rastuća lista long vrijednosti bez pakiranja u objekte.
+     */
+    private static final class LongArray {
+        private long[] values = new long[16];
+        private int size;
+
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        long get(int index) {
+            return values[index];
+        }
+
+        void set(int index, long value) {
+            values[index] = value;
+        }
+
+        void clear() {
+            values = new long[16];
+            size = 0;
+        }
+
+        int size() {
+            return size;
+        }
+    }
+}
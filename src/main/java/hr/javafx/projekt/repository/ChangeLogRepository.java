@@ -1,93 +1,427 @@
 package hr.javafx.projekt.repository;
 
+import hr.javafx.projekt.changelog.ChangeLogCodec;
+import hr.javafx.projekt.changelog.ChangeLogCompactor;
+import hr.javafx.projekt.changelog.ChangeLogRecord;
+import hr.javafx.projekt.changelog.RecordPointer;
+import hr.javafx.projekt.changelog.RetentionPolicy;
+import hr.javafx.projekt.changelog.SegmentedLog;
+import hr.javafx.projekt.enums.FsyncPolicy;
 import hr.javafx.projekt.model.ChangeLogEntry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.stream.Stream;
 
 /**
- * Upravlja zapisima o promjenama (ChangeLog) koristeći serijalizaciju i osigurava siguran pristup datoteci iz više niti.
+ * Upravlja zapisima o promjenama (ChangeLog) koristeći segmentirani dnevnik koji se samo nadopunjuje.
+ * Dnevnik je zajednički za sve instance repozitorija i sam osigurava siguran pristup iz više niti.
+ * Pri prvom pokretanju postojeća datoteka {@code dat/changelog.dat} se prebacuje u novi dnevnik,
+ * a dnevnik sa zapisima starije verzije formata jednokratno se prepisuje u trenutnu verziju.
+ * Stariji segmenti se prema pravilima zadržavanja sažimaju i premještaju u komprimiranu arhivu,
+ * u kojoj ostaju dostupni pretrazi, a najstarija arhiva se s vremenom briše.
  */
 public class ChangeLogRepository {
 
-    private static final String FILE_NAME = "dat/changelog.dat";
+    private static final String LEGACY_FILE_NAME = "dat/changelog.dat";
+    private static final Path LOG_DIRECTORY = Path.of("dat", "changelog");
+    private static final Path UPGRADE_DIRECTORY = Path.of("dat", "changelog.upgrade");
+    private static final int UPGRADE_BATCH_SIZE = 1_000;
+    private static final long MAX_SEGMENT_BYTES = 4L * 1024 * 1024;
+    private static final FsyncPolicy FSYNC_POLICY = FsyncPolicy.ALWAYS;
+    private static final long FSYNC_INTERVAL_MILLIS = 1_000L;
+    private static final RetentionPolicy RETENTION_POLICY = new RetentionPolicy(
+            Duration.ofDays(30), 64L * 1024 * 1024, Duration.ofDays(3650), 1024L * 1024 * 1024);
     private static final Logger log = LoggerFactory.getLogger(ChangeLogRepository.class);
-    private static boolean isFileLocked = false;
+    private static SegmentedLog segmentedLog;
+    private static ChangeLogIndex changeLogIndex;
+    private static boolean shutDown;
 
     /**
-     * Sinkronizirano sprema zapis o promjeni u datoteku.
+     * Dodaje zapis o promjeni na kraj dnevnika.
      *
      * @param entry Zapis o promjeni za spremanje.
      */
-    public synchronized void saveChange(ChangeLogEntry entry) {
-        while (isFileLocked) {
+    public void saveChange(ChangeLogEntry entry) {
+        saveChanges(List.of(entry));
+    }
+
+    /**
+     * Dodaje više zapisa o promjenama na kraj dnevnika jednim upisom na disk.
+     *
+     * @param entries Zapisi o promjenama za spremanje.
+     */
+    public void saveChanges(List<ChangeLogEntry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        try {
+            List<byte[]> payloads = new ArrayList<>(entries.size());
+            for (ChangeLogEntry entry : entries) {
+                payloads.add(ChangeLogCodec.encode(entry));
+            }
+            index().append(entries, payloads);
+        } catch (IOException e) {
+            log.error("Greška prilikom upisa {} zapisa o promjenama.", entries.size(), e);
+        }
+    }
+
+    /**
+     * Čita zapise o promjenama iz segmenata koji nisu arhivirani. Zapisi se dekodiraju izravno iz mapiranih
+     * segmenata, ali se svi dekodirani zapisi drže u memoriji; za pregled cijele povijesti, uključujući arhivu,
+     * koristi se {@link #findRecords}.
+     *
+     * @return Lista zapisa o promjenama koji nisu arhivirani.
+     */
+    public List<ChangeLogEntry> readChanges() {
+        return readChangesInternal();
+    }
+
+    /**
+     * Dohvaća stranicu zapisa koji zadovoljavaju kriterije, od najnovijeg prema najstarijem.
+     * Pretraga koristi indeks, pa se iz dnevnika čitaju samo zapisi koji odgovaraju kriterijima.
+     *
+     * @param criteria Kriteriji pretrage.
+     * @param beforeCursor Kursor iz prethodne stranice ({@link Page#nextCursor()}), ili null za prvu stranicu.
+     * @param limit Najveći broj zapisa na stranici.
+     * @return Stranica zapisa; u slučaju greške prazna stranica.
+     */
+    public Page<ChangeLogEntry> findChanges(ChangeLogCriteria criteria, Long beforeCursor, int limit) {
+        Page<ChangeLogRecord> records = findRecords(criteria, beforeCursor, limit);
+        List<ChangeLogEntry> entries = new ArrayList<>(records.items().size());
+        for (ChangeLogRecord record : records.items()) {
             try {
-                wait();
-            } catch (InterruptedException e) {
-                log.error("Nit prekinuta dok ceka za pristup datoteci.", e);
-                Thread.currentThread().interrupt();
+                entries.add(record.entry());
+            } catch (IOException e) {
+                log.warn("Zapis na poziciji {} segmenta {} nije moguće dekodirati i preskače se.",
+                        record.pointer().offset(), record.pointer().segmentId(), e);
             }
         }
+        return new Page<>(entries, records.nextCursor(), records.hasMore());
+    }
 
-        isFileLocked = true;
+    /**
+     * Dohvaća stranicu zapisa kao nedekodirane poglede na dnevnik, za prikaz u kojem se
+     * zapis dekodira tek kada se prikaže. Kriteriji i kursor jednaki su kao kod {@link #findChanges}.
+     *
+     * @param criteria Kriteriji pretrage.
+     * @param beforeCursor Kursor iz prethodne stranice, ili null za prvu stranicu.
+     * @param limit Najveći broj zapisa na stranici.
+     * @return Stranica zapisa; u slučaju greške prazna stranica.
+     */
+    public Page<ChangeLogRecord> findRecords(ChangeLogCriteria criteria, Long beforeCursor, int limit) {
         try {
-            List<ChangeLogEntry> changes = readChangesInternal();
-            changes.add(entry);
-
-            File file = new File(FILE_NAME);
-            File parentDir = file.getParentFile();
-            if (parentDir != null && !parentDir.exists() && !parentDir.mkdirs()) {
-                log.error("Nije moguće kreirati direktorij: {}", parentDir.getAbsolutePath());
-                return;
+            return index().query(criteria, beforeCursor, limit);
+        } catch (IOException e) {
+            log.error("Greška prilikom pretrage dnevnika promjena.", e);
+            return new Page<>(List.of(), null, false);
+        }
+    }
+
+    /**
+     * Čita jedan zapis s poznatog položaja u dnevniku.
+     *
+     * @param pointer Položaj zapisa, npr. iz {@link ChangeLogRecord#pointer()}.
+     * @return Nedekodirani zapis, ili prazan Optional ako zapis nije moguće pročitati.
+     */
+    public Optional<ChangeLogRecord> readRecord(RecordPointer pointer) {
+        ChangeLogRecord[] result = new ChangeLogRecord[1];
+        try {
+            store().read(pointer, (segmentId, offset, formatVersion, payload) ->
+                    result[0] = new ChangeLogRecord(pointer, formatVersion, payload));
+        } catch (IOException e) {
+            log.error("Greška prilikom čitanja zapisa na poziciji {} segmenta {}.", pointer.offset(), pointer.segmentId(), e);
+        }
+        return Optional.ofNullable(result[0]);
+    }
+
+    /**
+     * Primjenjuje pravila zadržavanja: najstarije zapečaćene segmente sažima i premješta u arhivu,
+     * a najstarije arhivirane segmente briše. Upisi i pretrage čekaju dok održavanje ne završi,
+     * a kursori stranica dobiveni prije održavanja više ne vrijede.
+     */
+    public static void runMaintenance() {
+        try {
+            SegmentedLog changeLog = store();
+            index().maintain(changedSegments ->
+                    applyRetention(changeLog, RETENTION_POLICY, Instant.now(), changedSegments));
+        } catch (IOException e) {
+            log.error("Greška prilikom održavanja dnevnika promjena.", e);
+        }
+    }
+
+    /**
+     * Sinkronizira i zatvara dnevnik promjena. Poziva se prilikom gašenja aplikacije; nakon toga se
+     * dnevnik više ne otvara ponovno, a kasniji upisi i čitanja završavaju greškom.
+     */
+    public static synchronized void closeStore() {
+        shutDown = true;
+        if (segmentedLog != null) {
+            try {
+                segmentedLog.close();
+            } catch (IOException e) {
+                log.error("Greška prilikom zatvaranja dnevnika promjena.", e);
             }
+            segmentedLog = null;
+            changeLogIndex = null;
+        }
+    }
 
-            try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(file))) {
-                oos.writeObject(changes);
+    /**
+     * Cita promjene
+     */
+    private List<ChangeLogEntry> readChangesInternal() {
+        List<ChangeLogEntry> changeLogEntries = new ArrayList<>();
+        try {
+            store().scanHot((segmentId, offset, formatVersion, payload) -> {
+                try {
+                    changeLogEntries.add(ChangeLogCodec.decode(formatVersion, payload));
+                } catch (IOException e) {
+                    log.warn("Zapis na poziciji {} segmenta {} nije moguće dekodirati i preskače se.", offset, segmentId, e);
+                }
+            });
+        } catch (IOException e) {
+            log.error("Greška prilikom čitanja dnevnika promjena.", e);
+        }
+        return changeLogEntries;
+    }
+
+    /**
+     * Vraća zajednički dnevnik promjena, otvarajući ga pri prvom pozivu.
+     *
+     * @throws IOException Ako je dnevnik već zatvoren pozivom {@link #closeStore()} ili ga nije moguće otvoriti.
+     */
+    private static synchronized SegmentedLog store() throws IOException {
+        if (shutDown) {
+            throw new IOException("Dnevnik promjena je zatvoren.");
+        }
+        if (segmentedLog == null) {
+            recoverInterruptedUpgrade();
+            SegmentedLog opened = openLog(LOG_DIRECTORY);
+            SortedSet<Byte> versions = opened.formatVersions();
+            if (!versions.isEmpty() && versions.first() < SegmentedLog.FORMAT_VERSION) {
+                opened = upgradeFormat(opened);
+            }
+            try {
+                migrateLegacyFile(opened);
+                changeLogIndex = ChangeLogIndex.load(opened);
             } catch (IOException e) {
-                log.error("Greška prilikom serijalizacije zapisa o promjeni.", e);
+                opened.close();
+                throw e;
             }
-        } finally {
-            isFileLocked = false;
-            notifyAll();
+            segmentedLog = opened;
         }
+        return segmentedLog;
     }
 
     /**
-     * Sinkronizirano čita sve zapise o promjenama iz datoteke.
+     * Vraća indeks zajedničkog dnevnika promjena, otvarajući dnevnik pri prvom pozivu.
+     */
+    private static synchronized ChangeLogIndex index() throws IOException {
+        store();
+        return changeLogIndex;
+    }
+
+    /**
+     * Arhivira pa briše najstarije segmente dok god su stariji od dopuštenog ili prelaze dopuštenu veličinu.
+     */
+    private static void applyRetention(SegmentedLog changeLog, RetentionPolicy policy, Instant now,
+                                       Set<Long> changedSegments) throws IOException {
+        List<SegmentedLog.SegmentInfo> segments = changeLog.segmentInfos();
+        long hotBytes = segments.stream()
+                .filter(info -> !info.archived())
+                .mapToLong(SegmentedLog.SegmentInfo::sizeOnDisk)
+                .sum();
+        Instant archiveBefore = now.minus(policy.hotAge());
+        int archived = 0;
+        int compactedRecords = 0;
+        for (SegmentedLog.SegmentInfo info : segments) {
+            if (info.archived()) {
+                continue;
+            }
+            if (!info.lastModified().isBefore(archiveBefore) && hotBytes <= policy.maxHotBytes()) {
+                break;
+            }
+            compactedRecords += archiveSegment(changeLog, info.id());
+            changedSegments.add(info.id());
+            hotBytes -= info.sizeOnDisk();
+            archived++;
+        }
+
+        segments = changeLog.segmentInfos();
+        long archiveBytes = segments.stream()
+                .filter(SegmentedLog.SegmentInfo::archived)
+                .mapToLong(SegmentedLog.SegmentInfo::sizeOnDisk)
+                .sum();
+        Instant deleteBefore = now.minus(policy.maxAge());
+        int deleted = 0;
+        for (SegmentedLog.SegmentInfo info : segments) {
+            if (!info.archived()
+                    || (!info.lastModified().isBefore(deleteBefore) && archiveBytes <= policy.maxArchiveBytes())) {
+                break;
+            }
+            changeLog.deleteArchived(info.id());
+            changedSegments.add(info.id());
+            archiveBytes -= info.sizeOnDisk();
+            deleted++;
+        }
+        if (archived > 0 || deleted > 0) {
+            log.info("Održavanje dnevnika promjena: arhivirano {} segmenata (sažeto {} zapisa), "
+                    + "obrisano {} arhiviranih segmenata.", archived, compactedRecords, deleted);
+        }
+    }
+
+    /**
+     * Sažima zapise segmenta i premješta ga u arhivu. Ako ijedan zapis nije moguće dekodirati,
+     * segment se arhivira bez sažimanja kako se ne bi izgubio nijedan zapis.
      *
-     * @return Lista svih zapisa o promjenama.
+     * @return Broj zapisa uklonjenih sažimanjem.
      */
-    public synchronized List<ChangeLogEntry> readChanges() {
-        while (isFileLocked) {
+    private static int archiveSegment(SegmentedLog changeLog, long segmentId) throws IOException {
+        List<byte[]> payloads = new ArrayList<>();
+        List<ChangeLogEntry> entries = new ArrayList<>();
+        byte[] segmentVersion = {SegmentedLog.FORMAT_VERSION};
+        boolean[] undecodable = {false};
+        changeLog.scanSegment(segmentId, (id, offset, formatVersion, payload) -> {
+            byte[] bytes = new byte[payload.remaining()];
+            payload.duplicate().get(bytes);
+            payloads.add(bytes);
+            segmentVersion[0] = formatVersion;
             try {
-                wait();
-            } catch (InterruptedException e) {
-                log.error("Nit prekinuta dok ceka za pristup datoteci.", e);
-                Thread.currentThread().interrupt();
+                entries.add(ChangeLogCodec.decode(formatVersion, payload));
+            } catch (IOException e) {
+                log.warn("Zapis na poziciji {} segmenta {} nije moguće dekodirati; segment se arhivira bez sažimanja.",
+                        offset, id, e);
+                undecodable[0] = true;
             }
+        });
+        if (undecodable[0]) {
+            changeLog.archive(segmentId, segmentVersion[0], payloads);
+            return 0;
+        }
+        List<ChangeLogEntry> compacted = ChangeLogCompactor.compact(entries);
+        List<byte[]> compactedPayloads = new ArrayList<>(compacted.size());
+        for (ChangeLogEntry entry : compacted) {
+            compactedPayloads.add(ChangeLogCodec.encode(entry));
         }
+        changeLog.archive(segmentId, SegmentedLog.FORMAT_VERSION, compactedPayloads);
+        return entries.size() - compacted.size();
+    }
 
-        isFileLocked = true;
-        try {
-            return readChangesInternal();
-        } finally {
-            isFileLocked = false;
-            notifyAll();
+    private static SegmentedLog openLog(Path directory) throws IOException {
+        return new SegmentedLog(directory, MAX_SEGMENT_BYTES, FSYNC_POLICY, FSYNC_INTERVAL_MILLIS);
+    }
+
+    /**
+     * Prepisuje cijeli dnevnik u trenutnu verziju formata. Novi dnevnik se gradi u zasebnom direktoriju,
+     * a stari se zadržava kao sigurnosna kopija tek kada je novi u potpunosti zapisan na disk.
+     */
+    private static SegmentedLog upgradeFormat(SegmentedLog current) throws IOException {
+        byte oldestVersion = current.formatVersions().first();
+        deleteDirectory(UPGRADE_DIRECTORY);
+
+        long upgraded = 0;
+        try (SegmentedLog target = new SegmentedLog(UPGRADE_DIRECTORY, MAX_SEGMENT_BYTES, FsyncPolicy.NEVER, 0)) {
+            List<byte[]> batch = new ArrayList<>(UPGRADE_BATCH_SIZE);
+            current.scan((segmentId, offset, formatVersion, payload) -> {
+                try {
+                    batch.add(ChangeLogCodec.encode(ChangeLogCodec.decode(formatVersion, payload)));
+                } catch (IOException e) {
+                    log.warn("Zapis na poziciji {} segmenta {} nije moguće dekodirati i izostavlja se iz nadogradnje.",
+                            offset, segmentId, e);
+                }
+                if (batch.size() == UPGRADE_BATCH_SIZE) {
+                    target.appendAll(batch);
+                    batch.clear();
+                }
+            });
+            target.appendAll(batch);
+            target.flush();
         }
+        current.close();
+
+        Path backup = LOG_DIRECTORY.resolveSibling(LOG_DIRECTORY.getFileName() + ".v" + oldestVersion + ".bak");
+        deleteDirectory(backup);
+        Files.move(LOG_DIRECTORY, backup);
+        Files.move(UPGRADE_DIRECTORY, LOG_DIRECTORY);
+
+        SegmentedLog reopened = openLog(LOG_DIRECTORY);
+        log.info("Dnevnik promjena nadograđen s verzije {} na verziju {}; stari dnevnik sačuvan u {}.",
+                oldestVersion, SegmentedLog.FORMAT_VERSION, backup);
+        return reopened;
     }
 
     /**
-     * Cita promjene
+     * Dovršava nadogradnju prekinutu između premještanja direktorija, odnosno briše
+     * nedovršeni direktorij nadogradnje ako je stari dnevnik još na svom mjestu.
      */
-    private List<ChangeLogEntry> readChangesInternal() {
-        File file = new File(FILE_NAME);
-        if (!file.exists()) {
-            return new ArrayList<>();
+    private static void recoverInterruptedUpgrade() throws IOException {
+        if (!Files.exists(UPGRADE_DIRECTORY)) {
+            return;
         }
+        if (Files.exists(LOG_DIRECTORY)) {
+            log.warn("Pronađena nedovršena nadogradnja dnevnika promjena; nadogradnja će se ponoviti.");
+            deleteDirectory(UPGRADE_DIRECTORY);
+        } else {
+            log.warn("Dovršava se prekinuta nadogradnja dnevnika promjena.");
+            Files.move(UPGRADE_DIRECTORY, LOG_DIRECTORY);
+        }
+    }
 
+    private static void deleteDirectory(Path directory) throws IOException {
+        if (!Files.exists(directory)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    /**
+     * Prebacuje zapise iz stare datoteke sa serijaliziranom listom u segmentirani dnevnik
+     * i preimenuje staru datoteku kako se migracija ne bi ponovila.
+     */
+    private static void migrateLegacyFile(SegmentedLog target) throws IOException {
+        File legacyFile = new File(LEGACY_FILE_NAME);
+        if (!legacyFile.exists()) {
+            return;
+        }
+        if (!target.isEmpty()) {
+            log.warn("Stara datoteka {} postoji, ali dnevnik već sadrži zapise. Migracija se preskače.", LEGACY_FILE_NAME);
+            return;
+        }
+
+        List<ChangeLogEntry> legacyEntries = readLegacyFile(legacyFile);
+        List<byte[]> payloads = new ArrayList<>(legacyEntries.size());
+        for (ChangeLogEntry entry : legacyEntries) {
+            payloads.add(ChangeLogCodec.encode(entry));
+        }
+        target.appendAll(payloads);
+        target.flush();
+
+        Path migrated = legacyFile.toPath().resolveSibling(legacyFile.getName() + ".migrated");
+        Files.move(legacyFile.toPath(), migrated, StandardCopyOption.REPLACE_EXISTING);
+        log.info("Migrirano {} zapisa iz {} u segmentirani dnevnik.", legacyEntries.size(), LEGACY_FILE_NAME);
+    }
+
+    /**
+     * Čita staru datoteku koja sadrži cijelu serijaliziranu listu zapisa.
+     */
+    private static List<ChangeLogEntry> readLegacyFile(File file) {
         try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(file))) {
             Object readObject = ois.readObject();
             if (readObject instanceof List<?> rawList) {
@@ -98,7 +432,7 @@ public class ChangeLogRepository {
                 return new ArrayList<>();
             }
         } catch (EOFException e) {
-            log.info("Pronađena prazna datoteka s logovima, što je očekivano pri prvom pokretanju.");
+            log.info("Pronađena prazna datoteka s logovima, nema zapisa za migraciju.");
             return new ArrayList<>();
         } catch (IOException | ClassNotFoundException e) {
             log.error("Greška prilikom deserijalizacije zapisa o promjenama.", e);
@@ -111,7 +445,7 @@ public class ChangeLogRepository {
      * @param rawList
      * @return Promjene iz datoteke
      */
-    private List<ChangeLogEntry> processLogList(List<?> rawList) {
+    private static List<ChangeLogEntry> processLogList(List<?> rawList) {
         List<ChangeLogEntry> changeLogEntries = new ArrayList<>();
         for (Object item : rawList) {
             if (item instanceof ChangeLogEntry changeLogEntry) {
@@ -123,4 +457,4 @@ public class ChangeLogRepository {
         }
         return changeLogEntries;
     }
-}
\ No newline at end of file
+}
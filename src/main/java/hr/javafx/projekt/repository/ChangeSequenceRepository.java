@@ -0,0 +1,138 @@
+package hr.javafx.projekt.repository;
+
+import hr.javafx.projekt.database.DatabaseConnection;
+import hr.javafx.projekt.database.InstanceIdentity;
+import hr.javafx.projekt.enums.ChangeKind;
+import hr.javafx.projekt.exception.RepositoryAccessException;
+import hr.javafx.projekt.model.Entity;
+import hr.javafx.projekt.model.SequencedChange;
+
+import java.io.IOException;
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.OptionalLong;
+
+/**
+ * Upravlja slijedom promjena ({@code CHANGE_SEQUENCE}) koji dijele sve instance aplikacije spojene na istu bazu.
+ * <p>
+ * Repozitoriji u slijed upisuju jedan redak po promijenjenom entitetu, u istoj transakciji kao i sam upis,
+ * pa promjena i njezin zapis postaju vidljivi zajedno. Ostale instance čitaju slijed po rastućem rednom broju
+ * ({@code WHERE seq > ?}), što je dohvat po rasponu primarnog ključa, i poništavaju svoje priručne memorije.
+ * <p>
+ * Redni brojevi dodjeljuju se pri upisu, a ne pri potvrdi transakcije, pa transakcija koja kasnije završi
+ * može postati vidljiva s manjim rednim brojem od već pročitanih. Čitatelj zato mora pratiti praznine u slijedu.
+ */
+public class ChangeSequenceRepository {
+
+    private static final String INSERT_CHANGE =
+            "INSERT INTO CHANGE_SEQUENCE (entity_type, entity_id, change_type, origin, changed_at) VALUES (?, ?, ?, ?, ?)";
+
+    /**
+     * Upisuje promjene u slijed koristeći konekciju pozivatelja. Poziva se prije potvrde transakcije upisa,
+     * kako bi zapis o promjeni bio potvrđen ili poništen zajedno s njom.
+     *
+     * @param connection Konekcija na kojoj je izvršen upis.
+     * @param entityType Klasa promijenjenih entiteta.
+     * @param kind Vrsta promjene.
+     * @param ids ID-evi promijenjenih entiteta.
+     * @throws SQLException ako upis ne uspije.
+     */
+    void append(Connection connection, Class<? extends Entity> entityType, ChangeKind kind,
+                Collection<Long> ids) throws SQLException {
+        if (ids.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        try (PreparedStatement stmt = connection.prepareStatement(INSERT_CHANGE)) {
+            for (Long id : ids) {
+                stmt.setString(1, entityType.getSimpleName());
+                stmt.setLong(2, id);
+                stmt.setString(3, kind.name());
+                stmt.setString(4, InstanceIdentity.get());
+                stmt.setTimestamp(5, now);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
+    }
+
+    /**
+     * Dohvaća najveći redni broj u slijedu.
+     *
+     * @return Najveći redni broj, ili 0 ako je slijed prazan.
+     * @throws RepositoryAccessException ako dođe do greške pri pristupu bazi.
+     */
+    public long findLatestSequence() throws RepositoryAccessException {
+        return findSequence("SELECT MAX(seq) FROM CHANGE_SEQUENCE").orElse(0L);
+    }
+
+    /**
+     * Dohvaća promjene s rednim brojem većim od zadanog, po rastućem rednom broju.
+     *
+     * @param afterSeq Redni broj nakon kojeg se čita.
+     * @param limit Najveći broj promjena.
+     * @return Promjene, najviše {@code limit}.
+     * @throws RepositoryAccessException ako dođe do greške pri pristupu bazi.
+     */
+    public List<SequencedChange> findAfter(long afterSeq, int limit) throws RepositoryAccessException {
+        String sql = "SELECT seq, entity_type, entity_id, change_type, origin, changed_at FROM CHANGE_SEQUENCE " +
+                "WHERE seq > ? ORDER BY seq LIMIT ?";
+        List<SequencedChange> changes = new ArrayList<>();
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setLong(1, afterSeq);
+            stmt.setInt(2, limit);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    changes.add(new SequencedChange(
+                            rs.getLong("seq"),
+                            rs.getString("entity_type"),
+                            rs.getLong("entity_id"),
+                            ChangeKind.valueOf(rs.getString("change_type")),
+                            rs.getString("origin"),
+                            rs.getTimestamp("changed_at").toLocalDateTime()));
+                }
+            }
+        } catch (SQLException | IOException e) {
+            throw new RepositoryAccessException("Greška prilikom dohvaćanja slijeda promjena!", e);
+        }
+        return changes;
+    }
+
+    /**
+     * Briše promjene starije od zadanog trenutka.
+     *
+     * @param cutoff Promjene prije ovog trenutka se brišu.
+     * @return Broj obrisanih promjena.
+     * @throws RepositoryAccessException ako dođe do greške pri pristupu bazi.
+     */
+    public int deleteOlderThan(LocalDateTime cutoff) throws RepositoryAccessException {
+        String sql = "DELETE FROM CHANGE_SEQUENCE WHERE changed_at < ?";
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setTimestamp(1, Timestamp.valueOf(cutoff));
+            return stmt.executeUpdate();
+        } catch (SQLException | IOException e) {
+            throw new RepositoryAccessException("Greška prilikom brisanja starih promjena iz slijeda!", e);
+        }
+    }
+
+    private OptionalLong findSequence(String sql) throws RepositoryAccessException {
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+            if (rs.next()) {
+                long seq = rs.getLong(1);
+                if (!rs.wasNull()) {
+                    return OptionalLong.of(seq);
+                }
+            }
+            return OptionalLong.empty();
+        } catch (SQLException | IOException e) {
+            throw new RepositoryAccessException("Greška prilikom dohvaćanja rednog broja slijeda promjena!", e);
+        }
+    }
+}
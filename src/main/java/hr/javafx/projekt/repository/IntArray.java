@@ -0,0 +1,88 @@
+package hr.javafx.projekt.repository;
+
+import java.util.Arrays;
+
+/**
+ * Proširivi niz cijelih brojeva bez pakiranja u objekte, za liste pojavljivanja u indeksima u memoriji
+ * ({@link ChangeLogIndex}, {@link SupplierSearchIndex}). Pretraživanje pretpostavlja sortirane vrijednosti.
+ */
+final class IntArray {
+
+    private int[] values = new int[4];
+    private int size;
+
+    void add(int value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size++] = value;
+    }
+
+    int get(int index) {
+        return values[index];
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Vraća veličinu zauzetog niza, za procjenu zauzeća memorije.
+     */
+    int capacity() {
+        return values.length;
+    }
+
+    /**
+     * Vraća interni niz; valjane su samo vrijednosti do {@link #size()}. Niz se ne smije mijenjati.
+     */
+    int[] backingArray() {
+        return values;
+    }
+
+    /**
+     * Vraća kopiju vrijednosti.
+     */
+    int[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+
+    void clear() {
+        values = new int[4];
+        size = 0;
+    }
+
+    /**
+     * Smanjuje interni niz na broj vrijednosti, nakon što je lista izgrađena.
+     */
+    void trim() {
+        if (size < values.length) {
+            values = Arrays.copyOf(values, Math.max(size, 1));
+        }
+    }
+
+    /**
+     * Vraća indeks prve vrijednosti koja nije manja od zadane; lista mora biti sortirana.
+     */
+    int lowerBound(int value) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (values[mid] < value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Provjerava sadrži li sortirana lista vrijednost.
+     */
+    boolean contains(int value) {
+        int index = lowerBound(value);
+        return index < size && values[index] == value;
+    }
+}
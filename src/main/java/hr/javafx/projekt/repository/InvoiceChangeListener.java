@@ -0,0 +1,57 @@
+package hr.javafx.projekt.repository;
+
+import hr.javafx.projekt.model.Invoice;
+import hr.javafx.projekt.model.InvoiceDelta;
+
+import java.util.List;
+
+/**
+ * Osluškivač koji {@link InvoiceRepository} obavještava nakon uspješnih upisa faktura.
+ * Sve metode imaju praznu zadanu implementaciju pa osluškivač nadjačava samo one koje ga zanimaju.
+ */
+public interface InvoiceChangeListener {
+
+    /**
+     * Poziva se nakon spremanja nove ili ažuriranja postojeće fakture.
+     * @param invoice Faktura s novim podacima.
+     */
+    default void invoiceSaved(Invoice invoice) {}
+
+    /**
+     * Poziva se nakon spremanja nove fakture. Zadana implementacija poziva {@link #invoiceSaved(Invoice)},
+     * pa osluškivač koji ne razlikuje nove i izmijenjene fakture nadjačava samo nju.
+     * @param invoice Spremljena faktura s dodijeljenim ID-em.
+     */
+    default void invoiceInserted(Invoice invoice) {
+        invoiceSaved(invoice);
+    }
+
+    /**
+     * Poziva se nakon brisanja fakture.
+     * @param id ID obrisane fakture.
+     */
+    default void invoiceDeleted(Long id) {}
+
+    /**
+     * Poziva se nakon što je skupina faktura označena kao dospjela.
+     * @param ids ID-evi faktura kojima je status promijenjen.
+     */
+    default void invoicesMarkedOverdue(List<Long> ids) {}
+
+    /**
+     * Poziva se nakon što je skupina novih faktura spremljena jednim grupnim upisom.
+     * Zadana implementacija poziva {@link #invoiceSaved(Invoice)} za svaku fakturu.
+     * @param invoices Spremljene fakture s dodijeljenim ID-evima.
+     */
+    default void invoicesImported(List<Invoice> invoices) {
+        invoices.forEach(this::invoiceSaved);
+    }
+
+    /**
+     * Poziva se kada instanca sazna za promjene faktura koje je napravila druga instanca aplikacije.
+     * Za te fakture nisu poznati novi podaci, samo ID-evi, a kada ni oni nisu poznati, skup promjena
+     * je označen s {@link InvoiceDelta#reloadRequired()}.
+     * @param delta Promjene faktura.
+     */
+    default void invoicesChangedExternally(InvoiceDelta delta) {}
+}
@@ -0,0 +1,435 @@
+package hr.javafx.projekt.repository;
+
+import hr.javafx.projekt.enums.InvoiceSortField;
+import hr.javafx.projekt.enums.InvoiceStatus;
+import hr.javafx.projekt.enums.SortDirection;
+import hr.javafx.projekt.model.Invoice;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Nepromjenjivi kriteriji pretrage faktura koji se prevode u parametrizirani SQL.
+ * Svi kriteriji su opcionalni; kriterij koji nije postavljen ne ograničava rezultat.
+ * Objekt se kreira pomoću {@link Builder} klase.
+ */
+public final class InvoiceCriteria {
+
+    private final String invoiceNumberPrefix;
+    private final String invoiceNumberContains;
+    private final Long supplierId;
+    private final Set<InvoiceStatus> statuses;
+    private final LocalDate dueDateFrom;
+    private final LocalDate dueDateTo;
+    private final BigDecimal amountMin;
+    private final BigDecimal amountMax;
+    private final Set<Long> ids;
+    private final InvoiceSortField sortField;
+    private final SortDirection sortDirection;
+
+    private InvoiceCriteria(Builder builder) {
+        this.invoiceNumberPrefix = builder.invoiceNumberPrefix;
+        this.invoiceNumberContains = builder.invoiceNumberContains;
+        this.supplierId = builder.supplierId;
+        this.statuses = Collections.unmodifiableSet(EnumSet.copyOf(builder.statuses));
+        this.dueDateFrom = builder.dueDateFrom;
+        this.dueDateTo = builder.dueDateTo;
+        this.amountMin = builder.amountMin;
+        this.amountMax = builder.amountMax;
+        this.ids = Set.copyOf(builder.ids);
+        this.sortField = builder.sortField;
+        this.sortDirection = builder.sortDirection;
+    }
+
+    /**
+     * Vraća kriterije bez ograničenja, sortirane po ID-u.
+     * @return Prazni kriteriji.
+     */
+    public static InvoiceCriteria all() {
+        return new Builder().build();
+    }
+
+    public String getInvoiceNumberPrefix() {
+        return invoiceNumberPrefix;
+    }
+
+    public String getInvoiceNumberContains() {
+        return invoiceNumberContains;
+    }
+
+    public Long getSupplierId() {
+        return supplierId;
+    }
+
+    public Set<InvoiceStatus> getStatuses() {
+        return statuses;
+    }
+
+    public LocalDate getDueDateFrom() {
+        return dueDateFrom;
+    }
+
+    public LocalDate getDueDateTo() {
+        return dueDateTo;
+    }
+
+    public BigDecimal getAmountMin() {
+        return amountMin;
+    }
+
+    public BigDecimal getAmountMax() {
+        return amountMax;
+    }
+
+    public Set<Long> getIds() {
+        return ids;
+    }
+
+    public InvoiceSortField getSortField() {
+        return sortField;
+    }
+
+    public SortDirection getSortDirection() {
+        return sortDirection;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof InvoiceCriteria that)) return false;
+        return Objects.equals(invoiceNumberPrefix, that.invoiceNumberPrefix)
+                && Objects.equals(invoiceNumberContains, that.invoiceNumberContains)
+                && Objects.equals(supplierId, that.supplierId)
+                && statuses.equals(that.statuses)
+                && Objects.equals(dueDateFrom, that.dueDateFrom)
+                && Objects.equals(dueDateTo, that.dueDateTo)
+                && Objects.equals(amountMin, that.amountMin)
+                && Objects.equals(amountMax, that.amountMax)
+                && ids.equals(that.ids)
+                && sortField == that.sortField
+                && sortDirection == that.sortDirection;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(invoiceNumberPrefix, invoiceNumberContains, supplierId, statuses,
+                dueDateFrom, dueDateTo, amountMin, amountMax, ids, sortField, sortDirection);
+    }
+
+    /**
+     * Vraća iste kriterije dodatno ograničene na zadane fakture, npr. kako bi se provjerilo koje od
+     * promijenjenih faktura odgovaraju prikazanom filteru.
+     *
+     * @param invoiceIds ID-evi faktura; ne smije biti prazan.
+     * @return Novi kriteriji.
+     */
+    public InvoiceCriteria restrictedTo(Collection<Long> invoiceIds) {
+        if (invoiceIds.isEmpty()) {
+            throw new IllegalArgumentException("Popis ID-eva faktura ne smije biti prazan.");
+        }
+        Builder builder = new Builder()
+                .withInvoiceNumberPrefix(invoiceNumberPrefix)
+                .withInvoiceNumberContaining(invoiceNumberContains)
+                .withSupplierId(supplierId)
+                .withDueDateBetween(dueDateFrom, dueDateTo)
+                .withAmountBetween(amountMin, amountMax)
+                .withIds(invoiceIds)
+                .sortedBy(sortField, sortDirection);
+        builder.statuses.addAll(statuses);
+        return builder.build();
+    }
+
+    /**
+     * Gradi WHERE dio upita (s vodećim razmakom), ili prazan niz ako nema kriterija.
+     * Prefiks broja fakture uspoređuje se bez pretvorbe u mala slova kako bi se mogao koristiti indeks.
+     *
+     * @return WHERE dio upita.
+     */
+    String whereClause() {
+        List<String> conditions = new ArrayList<>();
+        if (invoiceNumberPrefix != null) {
+            conditions.add("i.invoice_number LIKE ?" + LikePatterns.ESCAPE_CLAUSE);
+        }
+        if (invoiceNumberContains != null) {
+            conditions.add("LOWER(i.invoice_number) LIKE ?" + LikePatterns.ESCAPE_CLAUSE);
+        }
+        if (supplierId != null) {
+            conditions.add("i.supplier_id = ?");
+        }
+        if (!statuses.isEmpty()) {
+            conditions.add("i.status IN (" + String.join(", ", Collections.nCopies(statuses.size(), "?")) + ")");
+        }
+        if (dueDateFrom != null) {
+            conditions.add("i.due_date >= ?");
+        }
+        if (dueDateTo != null) {
+            conditions.add("i.due_date <= ?");
+        }
+        if (amountMin != null) {
+            conditions.add("i.amount >= ?");
+        }
+        if (amountMax != null) {
+            conditions.add("i.amount <= ?");
+        }
+        if (!ids.isEmpty()) {
+            conditions.add("i.id IN (" + String.join(", ", Collections.nCopies(ids.size(), "?")) + ")");
+        }
+        return conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions);
+    }
+
+    /**
+     * Gradi ORDER BY dio upita. ID se uvijek dodaje kao zadnji ključ kako bi poredak bio stabilan između stranica.
+     *
+     * @return ORDER BY dio upita.
+     */
+    String orderByClause() {
+        String direction = sortDirection.name();
+        if (sortField == InvoiceSortField.ID) {
+            return " ORDER BY i.id " + direction;
+        }
+        return " ORDER BY " + sortField.getColumn() + " " + direction + ", i.id " + direction;
+    }
+
+    /**
+     * Provjerava može li se stranica dohvatiti u odnosu na zadanu fakturu (keyset), umjesto preskakanjem
+     * redaka. To nije moguće ako faktura nema vrijednost polja po kojem se sortira.
+     *
+     * @param anchor Faktura sa susjedne stranice.
+     * @return True ako faktura ima sve vrijednosti ključa sortiranja.
+     */
+    boolean canSeekFrom(Invoice anchor) {
+        return anchor.getId() != null && sortValue(anchor) != null;
+    }
+
+    /**
+     * Gradi WHERE dio upita koji uz kriterije ograničava rezultat na fakture iza zadane fakture u poretku
+     * kriterija, ili ispred nje. Uvjet je oblika {@code kol >= ? AND (kol > ? OR i.id > ?)}, pa baza može
+     * koristiti indeks stupca po kojem se sortira.
+     *
+     * @param after True za fakture iza zadane, false za fakture ispred nje.
+     * @return WHERE dio upita.
+     */
+    String seekWhereClause(boolean after) {
+        boolean greater = after == (sortDirection == SortDirection.ASC);
+        String strict = greater ? " > ?" : " < ?";
+        String condition = sortField == InvoiceSortField.ID
+                ? "i.id" + strict
+                : sortField.getColumn() + (greater ? " >= ?" : " <= ?")
+                        + " AND (" + sortField.getColumn() + strict + " OR i.id" + strict + ")";
+        String where = whereClause();
+        return where.isEmpty() ? " WHERE " + condition : where + " AND " + condition;
+    }
+
+    /**
+     * Gradi ORDER BY dio upita u obrnutom poretku, za dohvat faktura ispred zadane fakture.
+     *
+     * @return ORDER BY dio upita.
+     */
+    String reversedOrderByClause() {
+        String direction = sortDirection == SortDirection.ASC ? SortDirection.DESC.name() : SortDirection.ASC.name();
+        if (sortField == InvoiceSortField.ID) {
+            return " ORDER BY i.id " + direction;
+        }
+        return " ORDER BY " + sortField.getColumn() + " " + direction + ", i.id " + direction;
+    }
+
+    /**
+     * Postavlja parametre upita izgrađenog s {@link #seekWhereClause(boolean)}, istim redoslijedom.
+     *
+     * @param stmt Pripremljena naredba.
+     * @param anchor Faktura u odnosu na koju se dohvaća stranica.
+     * @return Indeks sljedećeg slobodnog parametra.
+     * @throws SQLException ako postavljanje parametra ne uspije.
+     */
+    int bindSeek(PreparedStatement stmt, Invoice anchor) throws SQLException {
+        int index = bind(stmt);
+        if (sortField != InvoiceSortField.ID) {
+            Object value = sortValue(anchor);
+            stmt.setObject(index++, value);
+            stmt.setObject(index++, value);
+        }
+        stmt.setLong(index++, anchor.getId());
+        return index;
+    }
+
+    private Object sortValue(Invoice invoice) {
+        return switch (sortField) {
+            case ID -> invoice.getId();
+            case INVOICE_NUMBER -> invoice.getInvoiceNumber();
+            case SUPPLIER -> invoice.getSupplier() == null ? null : invoice.getSupplier().getName();
+            case AMOUNT -> invoice.getAmount();
+            case ISSUE_DATE -> invoice.getIssueDate() == null ? null : Date.valueOf(invoice.getIssueDate());
+            case DUE_DATE -> invoice.getDueDate() == null ? null : Date.valueOf(invoice.getDueDate());
+            case STATUS -> invoice.getStatus() == null ? null : invoice.getStatus().name();
+        };
+    }
+
+    /**
+     * Postavlja parametre upita izgrađenog s {@link #whereClause()}, istim redoslijedom.
+     *
+     * @param stmt Pripremljena naredba.
+     * @return Indeks sljedećeg slobodnog parametra.
+     * @throws SQLException ako postavljanje parametra ne uspije.
+     */
+    int bind(PreparedStatement stmt) throws SQLException {
+        int index = 1;
+        if (invoiceNumberPrefix != null) {
+            stmt.setString(index++, LikePatterns.startsWith(invoiceNumberPrefix));
+        }
+        if (invoiceNumberContains != null) {
+            stmt.setString(index++, LikePatterns.contains(invoiceNumberContains.toLowerCase()));
+        }
+        if (supplierId != null) {
+            stmt.setLong(index++, supplierId);
+        }
+        for (InvoiceStatus status : statuses) {
+            stmt.setString(index++, status.name());
+        }
+        if (dueDateFrom != null) {
+            stmt.setDate(index++, Date.valueOf(dueDateFrom));
+        }
+        if (dueDateTo != null) {
+            stmt.setDate(index++, Date.valueOf(dueDateTo));
+        }
+        if (amountMin != null) {
+            stmt.setBigDecimal(index++, amountMin);
+        }
+        if (amountMax != null) {
+            stmt.setBigDecimal(index++, amountMax);
+        }
+        for (Long id : ids) {
+            stmt.setLong(index++, id);
+        }
+        return index;
+    }
+
+    /**
+     * Builder klasa za kreiranje {@link InvoiceCriteria} objekata.
+     */
+    public static class Builder {
+        private String invoiceNumberPrefix;
+        private String invoiceNumberContains;
+        private Long supplierId;
+        private final Set<InvoiceStatus> statuses = EnumSet.noneOf(InvoiceStatus.class);
+        private LocalDate dueDateFrom;
+        private LocalDate dueDateTo;
+        private BigDecimal amountMin;
+        private BigDecimal amountMax;
+        private final Set<Long> ids = new LinkedHashSet<>();
+        private InvoiceSortField sortField = InvoiceSortField.ID;
+        private SortDirection sortDirection = SortDirection.ASC;
+
+        /**
+         * Ograničava rezultat na fakture čiji broj počinje zadanim nizom (razlikuju se velika i mala slova).
+         * @param prefix Početak broja fakture; prazan niz se zanemaruje.
+         * @return Referenca na trenutni Builder objekt.
+         */
+        public Builder withInvoiceNumberPrefix(String prefix) {
+            this.invoiceNumberPrefix = blankToNull(prefix);
+            return this;
+        }
+
+        /**
+         * Ograničava rezultat na fakture čiji broj sadrži zadani niz (ne razlikuju se velika i mala slova).
+         * @param text Dio broja fakture; prazan niz se zanemaruje.
+         * @return Referenca na trenutni Builder objekt.
+         */
+        public Builder withInvoiceNumberContaining(String text) {
+            this.invoiceNumberContains = blankToNull(text);
+            return this;
+        }
+
+        /**
+         * Ograničava rezultat na fakture jednog dobavljača.
+         * @param supplierId ID dobavljača, ili null za sve dobavljače.
+         * @return Referenca na trenutni Builder objekt.
+         */
+        public Builder withSupplierId(Long supplierId) {
+            this.supplierId = supplierId;
+            return this;
+        }
+
+        /**
+         * Ograničava rezultat na fakture s jednim od zadanih statusa.
+         * @param statuses Dopušteni statusi; null vrijednosti se zanemaruju.
+         * @return Referenca na trenutni Builder objekt.
+         */
+        public Builder withStatuses(InvoiceStatus... statuses) {
+            for (InvoiceStatus status : statuses) {
+                if (status != null) {
+                    this.statuses.add(status);
+                }
+            }
+            return this;
+        }
+
+        /**
+         * Ograničava datum dospijeća na zatvoreni interval.
+         * @param from Najraniji datum dospijeća, ili null.
+         * @param to Najkasniji datum dospijeća, ili null.
+         * @return Referenca na trenutni Builder objekt.
+         */
+        public Builder withDueDateBetween(LocalDate from, LocalDate to) {
+            this.dueDateFrom = from;
+            this.dueDateTo = to;
+            return this;
+        }
+
+        /**
+         * Ograničava iznos fakture na zatvoreni interval.
+         * @param min Najmanji iznos, ili null.
+         * @param max Najveći iznos, ili null.
+         * @return Referenca na trenutni Builder objekt.
+         */
+        public Builder withAmountBetween(BigDecimal min, BigDecimal max) {
+            this.amountMin = min;
+            this.amountMax = max;
+            return this;
+        }
+
+        /**
+         * Ograničava rezultat na fakture sa zadanim ID-evima.
+         * @param ids ID-evi faktura; prazan popis ne ograničava rezultat.
+         * @return Referenca na trenutni Builder objekt.
+         */
+        public Builder withIds(Collection<Long> ids) {
+            this.ids.addAll(ids);
+            return this;
+        }
+
+        /**
+         * Postavlja poredak rezultata.
+         * @param field Polje po kojem se sortira.
+         * @param direction Smjer sortiranja.
+         * @return Referenca na trenutni Builder objekt.
+         */
+        public Builder sortedBy(InvoiceSortField field, SortDirection direction) {
+            this.sortField = field;
+            this.sortDirection = direction;
+            return this;
+        }
+
+        /**
+         * Kreira i vraća finalni {@link InvoiceCriteria} objekt.
+         * @return Novi, nepromjenjivi objekt kriterija.
+         */
+        public InvoiceCriteria build() {
+            return new InvoiceCriteria(this);
+        }
+
+        private static String blankToNull(String value) {
+            return value == null || value.isBlank() ? null : value.trim();
+        }
+    }
+}
@@ -1,27 +1,77 @@
 package hr.javafx.projekt.repository;
 
 import hr.javafx.projekt.database.DatabaseConnection;
+import hr.javafx.projekt.enums.ChangeKind;
 import hr.javafx.projekt.enums.InvoiceStatus;
 import hr.javafx.projekt.exception.RepositoryAccessException;
 import hr.javafx.projekt.model.Invoice;
+import hr.javafx.projekt.model.InvoiceDelta;
+import hr.javafx.projekt.model.PayablesSummary;
 import hr.javafx.projekt.model.Supplier;
+import hr.javafx.projekt.model.SupplierOutstanding;
 import hr.javafx.projekt.utils.ChangeLogger;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.math.BigDecimal;
 import java.sql.*;
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
 
 /**
  * Upravlja operacijama nad fakturama u bazi podataka.
+ * Svaki upis u istoj transakciji bilježi promjenu u {@link ChangeSequenceRepository}, kako bi za nju
+ * saznale i ostale instance aplikacije.
  */
 public class InvoiceRepository extends AbstractRepository<Invoice> {
 
-    private static final Logger log = LoggerFactory.getLogger(InvoiceRepository.class);
-    private final AbstractRepository<Supplier> supplierRepository = new SupplierRepository();
+    private static final String SELECT_WITH_SUPPLIER =
+            "SELECT i.id, i.invoice_number, i.issue_date, i.due_date, i.amount, i.status, i.supplier_id, " +
+            "s.name AS supplier_name, s.address AS supplier_address, s.oib AS supplier_oib " +
+            "FROM INVOICE i JOIN SUPPLIER s ON s.id = i.supplier_id";
+
+    private static final List<InvoiceChangeListener> changeListeners = new CopyOnWriteArrayList<>();
+
+    private final ChangeSequenceRepository changeSequence = new ChangeSequenceRepository();
+
+    /**
+     * Registrira osluškivača kojeg se obavještava nakon svakog uspješnog upisa faktura.
+     * Osluškivači su zajednički za sve instance repozitorija.
+     *
+     * @param listener Osluškivač.
+     */
+    public static void addChangeListener(InvoiceChangeListener listener) {
+        changeListeners.add(listener);
+    }
+
+    /**
+     * Uklanja prethodno registriranog osluškivača.
+     *
+     * @param listener Osluškivač.
+     */
+    public static void removeChangeListener(InvoiceChangeListener listener) {
+        changeListeners.remove(listener);
+    }
+
+    /**
+     * Obavještava osluškivače o promjenama faktura koje je napravila druga instanca aplikacije.
+     *
+     * @param delta Promjene pročitane iz slijeda promjena.
+     */
+    public static void notifyExternalChanges(InvoiceDelta delta) {
+        if (!delta.isEmpty()) {
+            changeListeners.forEach(listener -> listener.invoicesChangedExternally(delta));
+        }
+    }
 
     /**
      * Sprema novu fakturu u bazu i bilježi promjenu.
@@ -35,6 +85,7 @@ public class InvoiceRepository extends AbstractRepository<Invoice> {
         String sql = "INSERT INTO INVOICE (invoice_number, issue_date, due_date, amount, status, supplier_id) VALUES (?, ?, ?, ?, ?, ?)";
         try (Connection connection = DatabaseConnection.getConnection();
              PreparedStatement stmt = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            connection.setAutoCommit(false);
             stmt.setString(1, invoice.getInvoiceNumber());
             stmt.setDate(2, Date.valueOf(invoice.getIssueDate()));
             stmt.setDate(3, Date.valueOf(invoice.getDueDate()));
@@ -44,18 +95,120 @@ public class InvoiceRepository extends AbstractRepository<Invoice> {
             stmt.executeUpdate();
 
             try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
-                if (generatedKeys.next()) {
-                    invoice.setId(generatedKeys.getLong(1));
-                    ChangeLogger.logAddition(invoice);
+                if (!generatedKeys.next()) {
+                    throw new SQLException("Baza nije dodijelila ID novoj fakturi.");
                 }
+                invoice.setId(generatedKeys.getLong(1));
             }
+            changeSequence.append(connection, Invoice.class, ChangeKind.INSERT, List.of(invoice.getId()));
+            connection.commit();
         } catch (SQLException | IOException e) {
 
             throw new RepositoryAccessException("Greška prilikom spremanja fakture!", e);
         }
+        ChangeLogger.logAddition(invoice);
+        changeListeners.forEach(listener -> listener.invoiceInserted(invoice));
         return invoice;
     }
 
+    /**
+     * Sprema skupinu novih faktura jednim grupnim upisom (JDBC batch) u jednoj transakciji.
+     * Ako upis bilo koje fakture ne uspije, nijedna faktura iz skupine nije spremljena.
+     * U dnevnik promjena bilježi se zapis o dodavanju za svaku fakturu, a svi zapisi skupine upisuju se zajedno.
+     *
+     * @param invoices Nove fakture; nakon upisa im se postavljaju dodijeljeni ID-evi.
+     * @throws RepositoryAccessException ako dođe do greške pri pristupu bazi.
+     */
+    public void saveAll(List<Invoice> invoices) throws RepositoryAccessException {
+        if (invoices.isEmpty()) {
+            return;
+        }
+        String sql = "INSERT INTO INVOICE (invoice_number, issue_date, due_date, amount, status, supplier_id) VALUES (?, ?, ?, ?, ?, ?)";
+        List<Long> ids = new ArrayList<>(invoices.size());
+        try (Connection connection = DatabaseConnection.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement stmt = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                for (Invoice invoice : invoices) {
+                    stmt.setString(1, invoice.getInvoiceNumber());
+                    stmt.setDate(2, Date.valueOf(invoice.getIssueDate()));
+                    stmt.setDate(3, Date.valueOf(invoice.getDueDate()));
+                    stmt.setBigDecimal(4, invoice.getAmount());
+                    stmt.setString(5, invoice.getStatus().name());
+                    stmt.setLong(6, invoice.getSupplier().getId());
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+                try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
+                    while (generatedKeys.next()) {
+                        ids.add(generatedKeys.getLong(1));
+                    }
+                }
+                if (ids.size() != invoices.size()) {
+                    throw new SQLException("Broj dodijeljenih ID-eva (" + ids.size()
+                            + ") ne odgovara broju faktura (" + invoices.size() + ").");
+                }
+                changeSequence.append(connection, Invoice.class, ChangeKind.INSERT, ids);
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            }
+        } catch (SQLException | IOException e) {
+            throw new RepositoryAccessException("Greška prilikom grupnog spremanja faktura!", e);
+        }
+
+        for (int i = 0; i < invoices.size(); i++) {
+            invoices.get(i).setId(ids.get(i));
+        }
+        ChangeLogger.logAdditions(invoices);
+        List<Invoice> saved = List.copyOf(invoices);
+        changeListeners.forEach(listener -> listener.invoicesImported(saved));
+    }
+
+    /**
+     * Bilježi u dnevnik promjena sažetak jedne skupine uvoza. Zapisi o dodavanju pojedinih faktura
+     * bilježe se već pri spremanju ({@link #saveAll(List)}).
+     *
+     * @param imported Spremljene fakture iz skupine.
+     * @param source Izvor uvoza, npr. naziv datoteke.
+     * @param batchNumber Redni broj skupine unutar uvoza, počevši od 1.
+     */
+    public void logImport(List<Invoice> imported, String source, int batchNumber) {
+        ChangeLogger.logImport(Invoice.class, imported.stream().map(Invoice::getId).toList(), source, batchNumber);
+    }
+
+    /**
+     * Pronalazi koji od zadanih brojeva faktura već postoje u bazi, po dobavljaču.
+     *
+     * @param invoiceNumbers Brojevi faktura koji se provjeravaju.
+     * @return Mapa ID-a dobavljača na brojeve njegovih faktura koji već postoje.
+     * @throws RepositoryAccessException ako dođe do greške pri pristupu bazi.
+     */
+    public Map<Long, Set<String>> findExistingInvoiceNumbers(Collection<String> invoiceNumbers) throws RepositoryAccessException {
+        Map<Long, Set<String>> existing = new HashMap<>();
+        if (invoiceNumbers.isEmpty()) {
+            return existing;
+        }
+        String placeholders = String.join(", ", Collections.nCopies(invoiceNumbers.size(), "?"));
+        String sql = "SELECT supplier_id, invoice_number FROM INVOICE WHERE invoice_number IN (" + placeholders + ")";
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
+            int index = 1;
+            for (String invoiceNumber : invoiceNumbers) {
+                stmt.setString(index++, invoiceNumber);
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    existing.computeIfAbsent(rs.getLong("supplier_id"), id -> new HashSet<>())
+                            .add(rs.getString("invoice_number"));
+                }
+            }
+        } catch (SQLException | IOException e) {
+            throw new RepositoryAccessException("Greška prilikom provjere postojećih brojeva faktura!", e);
+        }
+        return existing;
+    }
+
     /**
      * Dohvaća sve fakture iz baze.
      *
@@ -65,12 +218,12 @@ public class InvoiceRepository extends AbstractRepository<Invoice> {
     @Override
     public List<Invoice> findAll() throws RepositoryAccessException {
         List<Invoice> invoices = new ArrayList<>();
-        String sql = "SELECT id, invoice_number, issue_date, due_date, amount, status, supplier_id FROM INVOICE";
         try (Connection connection = DatabaseConnection.getConnection();
-             PreparedStatement stmt = connection.prepareStatement(sql);
+             PreparedStatement stmt = connection.prepareStatement(SELECT_WITH_SUPPLIER);
              ResultSet rs = stmt.executeQuery()) {
+            InvoiceRowMapper mapper = new InvoiceRowMapper();
             while (rs.next()) {
-                mapResultSetToInvoice(rs).ifPresent(invoices::add);
+                invoices.add(mapper.map(rs));
             }
         } catch (SQLException | IOException e) {
 
@@ -88,13 +241,13 @@ public class InvoiceRepository extends AbstractRepository<Invoice> {
      */
     @Override
     public Optional<Invoice> findById(Long id) throws RepositoryAccessException {
-        String sql = "SELECT id, invoice_number, issue_date, due_date, amount, status, supplier_id FROM INVOICE WHERE id = ?";
+        String sql = SELECT_WITH_SUPPLIER + " WHERE i.id = ?";
         try (Connection connection = DatabaseConnection.getConnection();
              PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setLong(1, id);
             try (ResultSet rs = stmt.executeQuery()) {
                 if (rs.next()) {
-                    return mapResultSetToInvoice(rs);
+                    return Optional.of(new InvoiceRowMapper().map(rs));
                 }
             }
         } catch (SQLException | IOException e) {
@@ -121,6 +274,7 @@ public class InvoiceRepository extends AbstractRepository<Invoice> {
         String sql = "UPDATE INVOICE SET invoice_number = ?, issue_date = ?, due_date = ?, amount = ?, status = ?, supplier_id = ? WHERE id = ?";
         try (Connection connection = DatabaseConnection.getConnection();
              PreparedStatement stmt = connection.prepareStatement(sql)) {
+            connection.setAutoCommit(false);
             stmt.setString(1, invoice.getInvoiceNumber());
             stmt.setDate(2, Date.valueOf(invoice.getIssueDate()));
             stmt.setDate(3, Date.valueOf(invoice.getDueDate()));
@@ -128,11 +282,15 @@ public class InvoiceRepository extends AbstractRepository<Invoice> {
             stmt.setString(5, invoice.getStatus().name());
             stmt.setLong(6, invoice.getSupplier().getId());
             stmt.setLong(7, invoice.getId());
-            stmt.executeUpdate();
-            ChangeLogger.logUpdate(oldInvoice, invoice);
+            if (stmt.executeUpdate() > 0) {
+                changeSequence.append(connection, Invoice.class, ChangeKind.UPDATE, List.of(invoice.getId()));
+            }
+            connection.commit();
         } catch (SQLException | IOException e) {
             throw new RepositoryAccessException("Greška prilikom ažuriranja fakture!", e);
         }
+        ChangeLogger.logUpdate(oldInvoice, invoice);
+        changeListeners.forEach(listener -> listener.invoiceSaved(invoice));
     }
 
     /**
@@ -150,45 +308,311 @@ public class InvoiceRepository extends AbstractRepository<Invoice> {
         Invoice oldInvoice = oldInvoiceOptional.get();
 
         String sql = "DELETE FROM INVOICE WHERE id = ?";
+        int affectedRows;
         try (Connection connection = DatabaseConnection.getConnection();
              PreparedStatement stmt = connection.prepareStatement(sql)) {
+            connection.setAutoCommit(false);
             stmt.setLong(1, id);
-            int affectedRows = stmt.executeUpdate();
+            affectedRows = stmt.executeUpdate();
             if (affectedRows > 0) {
-                ChangeLogger.logDeletion(oldInvoice);
+                changeSequence.append(connection, Invoice.class, ChangeKind.DELETE, List.of(id));
             }
+            connection.commit();
         } catch (SQLException | IOException e) {
             throw new RepositoryAccessException("Greška prilikom brisanja fakture!", e);
         }
+        if (affectedRows > 0) {
+            ChangeLogger.logDeletion(oldInvoice);
+            changeListeners.forEach(listener -> listener.invoiceDeleted(id));
+        }
     }
 
     /**
-     * Mapira result set u fakture
-     * @param rs
-     * @return
-     * @throws SQLException
+     * Jednim upitom označava sve neplaćene fakture kojima je rok dospijeća prošao kao dospjele
+     * i bilježi promjenu statusa za svaku od njih.
+     *
+     * @param today Datum prema kojem se određuje dospijeće.
+     * @return ID-evi faktura kojima je status promijenjen.
+     * @throws RepositoryAccessException ako dođe do greške pri pristupu bazi.
      */
+    public List<Long> markOverdueInvoices(LocalDate today) throws RepositoryAccessException {
+        String sql = "SELECT id FROM FINAL TABLE (UPDATE INVOICE SET status = ? WHERE status = ? AND due_date < ?)";
+        List<Long> overdueIds = new ArrayList<>();
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
+            connection.setAutoCommit(false);
+            stmt.setString(1, InvoiceStatus.OVERDUE.name());
+            stmt.setString(2, InvoiceStatus.UNPAID.name());
+            stmt.setDate(3, Date.valueOf(today));
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    overdueIds.add(rs.getLong("id"));
+                }
+            }
+            changeSequence.append(connection, Invoice.class, ChangeKind.UPDATE, overdueIds);
+            connection.commit();
+        } catch (SQLException | IOException e) {
+            throw new RepositoryAccessException("Greška prilikom označavanja dospjelih faktura!", e);
+        }
 
-    private Optional<Invoice> mapResultSetToInvoice(ResultSet rs) throws SQLException {
-        Optional<Supplier> supplierOptional = supplierRepository.findById(rs.getLong("supplier_id"));
-        if (supplierOptional.isEmpty()) {
-            log.warn("Dobavljač s ID-em {} nije pronađen za fakturu ID {}. Faktura se preskače.", rs.getLong("supplier_id"), rs.getLong("id"));
-            return Optional.empty();
+        ChangeLogger.logBulkUpdate(Invoice.class, "status", InvoiceStatus.UNPAID, InvoiceStatus.OVERDUE, overdueIds);
+        if (!overdueIds.isEmpty()) {
+            changeListeners.forEach(listener -> listener.invoicesMarkedOverdue(overdueIds));
         }
-        Supplier supplier = supplierOptional.get();
+        return overdueIds;
+    }
 
-        InvoiceStatus status = InvoiceStatus.valueOf(rs.getString("status").toUpperCase());
+    /**
+     * Dohvaća datume dospijeća svih neplaćenih faktura.
+     *
+     * @return Mapa ID-a fakture na datum dospijeća.
+     * @throws RepositoryAccessException ako dođe do greške pri pristupu bazi.
+     */
+    public Map<Long, LocalDate> findUnpaidDueDates() throws RepositoryAccessException {
+        String sql = "SELECT id, due_date FROM INVOICE WHERE status = ?";
+        Map<Long, LocalDate> dueDates = new HashMap<>();
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setString(1, InvoiceStatus.UNPAID.name());
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    dueDates.put(rs.getLong("id"), rs.getDate("due_date").toLocalDate());
+                }
+            }
+        } catch (SQLException | IOException e) {
+            throw new RepositoryAccessException("Greška prilikom dohvaćanja datuma dospijeća neplaćenih faktura!", e);
+        }
+        return dueDates;
+    }
 
-        Invoice invoice = new Invoice.Builder(
-                rs.getLong("id"),
-                rs.getString("invoice_number"),
-                rs.getBigDecimal("amount"),
-                supplier)
-                .withIssueDate(rs.getDate("issue_date").toLocalDate())
-                .withDueDate(rs.getDate("due_date").toLocalDate())
-                .withStatus(status)
-                .build();
+    /**
+     * Broji fakture koje odgovaraju kriterijima. Upit ne spaja tablicu dobavljača pa je jeftin i za velike tablice.
+     *
+     * @param criteria Kriteriji pretrage.
+     * @return Broj faktura.
+     * @throws RepositoryAccessException ako dođe do greške pri pristupu bazi.
+     */
+    public int count(InvoiceCriteria criteria) throws RepositoryAccessException {
+        String sql = "SELECT COUNT(*) FROM INVOICE i" + criteria.whereClause();
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
+            criteria.bind(stmt);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        } catch (SQLException | IOException e) {
+            throw new RepositoryAccessException("Greška prilikom prebrojavanja faktura!", e);
+        }
+    }
+
+    /**
+     * Izračunava sažetak neplaćenih obveza agregatnim upitima, bez učitavanja faktura.
+     * Fakturom kojoj je rok prošao smatra se i neplaćena faktura koju monitor još nije označio kao dospjelu.
+     *
+     * @param today Dan prema kojem se računaju dospijeća.
+     * @param topSupplierCount Broj dobavljača s najvećim neplaćenim iznosom koji se vraćaju.
+     * @return Sažetak obveza.
+     * @throws RepositoryAccessException ako dođe do greške pri pristupu bazi.
+     */
+    public PayablesSummary summarizePayables(LocalDate today, int topSupplierCount) throws RepositoryAccessException {
+        String totalsSql = "SELECT COUNT(*) AS unpaid_count, COALESCE(SUM(amount), 0) AS unpaid_total, " +
+                "COUNT(CASE WHEN status = ? OR due_date < ? THEN 1 END) AS overdue_count, " +
+                "COALESCE(SUM(CASE WHEN status = ? OR due_date < ? THEN amount END), 0) AS overdue_total, " +
+                "COALESCE(SUM(CASE WHEN due_date BETWEEN ? AND ? THEN amount END), 0) AS due_7_days, " +
+                "COALESCE(SUM(CASE WHEN due_date BETWEEN ? AND ? THEN amount END), 0) AS due_30_days " +
+                "FROM INVOICE WHERE status IN (?, ?)";
+        String topSuppliersSql = "SELECT s.id, s.name, t.outstanding, t.invoice_count FROM (" +
+                "SELECT supplier_id, SUM(amount) AS outstanding, COUNT(*) AS invoice_count FROM INVOICE " +
+                "WHERE status IN (?, ?) GROUP BY supplier_id ORDER BY outstanding DESC LIMIT ?) t " +
+                "JOIN SUPPLIER s ON s.id = t.supplier_id ORDER BY t.outstanding DESC";
+        Date todayDate = Date.valueOf(today);
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement totals = connection.prepareStatement(totalsSql);
+             PreparedStatement top = connection.prepareStatement(topSuppliersSql)) {
+            totals.setString(1, InvoiceStatus.OVERDUE.name());
+            totals.setDate(2, todayDate);
+            totals.setString(3, InvoiceStatus.OVERDUE.name());
+            totals.setDate(4, todayDate);
+            totals.setDate(5, todayDate);
+            totals.setDate(6, Date.valueOf(today.plusDays(6)));
+            totals.setDate(7, todayDate);
+            totals.setDate(8, Date.valueOf(today.plusDays(29)));
+            totals.setString(9, InvoiceStatus.UNPAID.name());
+            totals.setString(10, InvoiceStatus.OVERDUE.name());
+
+            top.setString(1, InvoiceStatus.UNPAID.name());
+            top.setString(2, InvoiceStatus.OVERDUE.name());
+            top.setInt(3, topSupplierCount);
+            List<SupplierOutstanding> topSuppliers = new ArrayList<>(topSupplierCount);
+            try (ResultSet rs = top.executeQuery()) {
+                while (rs.next()) {
+                    topSuppliers.add(new SupplierOutstanding(rs.getLong("id"), rs.getString("name"),
+                            rs.getBigDecimal("outstanding"), rs.getInt("invoice_count")));
+                }
+            }
+
+            try (ResultSet rs = totals.executeQuery()) {
+                if (!rs.next()) {
+                    return new PayablesSummary(today, BigDecimal.ZERO, 0, BigDecimal.ZERO, 0,
+                            BigDecimal.ZERO, BigDecimal.ZERO, topSuppliers);
+                }
+                return new PayablesSummary(today,
+                        rs.getBigDecimal("unpaid_total"), rs.getInt("unpaid_count"),
+                        rs.getBigDecimal("overdue_total"), rs.getInt("overdue_count"),
+                        rs.getBigDecimal("due_7_days"), rs.getBigDecimal("due_30_days"),
+                        topSuppliers);
+            }
+        } catch (SQLException | IOException e) {
+            throw new RepositoryAccessException("Greška prilikom izračuna sažetka obveza!", e);
+        }
+    }
+
+    /**
+     * Vraća lijeni tok svih neplaćenih i dospjelih faktura s dobavljačima, sortiranih po ID-u.
+     * Redci se dohvaćaju u blokovima pa potrošnja memorije ne ovisi o broju faktura.
+     * Tok drži konekciju dok se ne zatvori, zato ga treba koristiti u {@code try-with-resources} bloku.
+     *
+     * @return Tok neplaćenih faktura.
+     * @throws RepositoryAccessException ako dođe do greške pri pristupu bazi.
+     */
+    public Stream<Invoice> streamOutstanding() throws RepositoryAccessException {
+        return stream(SELECT_WITH_SUPPLIER + " WHERE i.status IN (?, ?) ORDER BY i.id", stmt -> {
+            stmt.setString(1, InvoiceStatus.UNPAID.name());
+            stmt.setString(2, InvoiceStatus.OVERDUE.name());
+        });
+    }
 
-        return Optional.of(invoice);
+    /**
+     * Dohvaća raspon faktura koje odgovaraju kriterijima, u poretku zadanom kriterijima.
+     * Filtriranje i sortiranje obavlja baza, pa se čitaju samo odgovarajući retci.
+     *
+     * @param criteria Kriteriji pretrage.
+     * @param offset Broj faktura koje se preskaču.
+     * @param limit Najveći broj faktura koje se vraćaju.
+     * @return Lista faktura.
+     * @throws RepositoryAccessException ako dođe do greške pri pristupu bazi.
+     */
+    public List<Invoice> findByCriteria(InvoiceCriteria criteria, int offset, int limit) throws RepositoryAccessException {
+        String sql = SELECT_WITH_SUPPLIER + criteria.whereClause() + criteria.orderByClause() + " LIMIT ? OFFSET ?";
+        List<Invoice> invoices = new ArrayList<>(limit);
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
+            int index = criteria.bind(stmt);
+            stmt.setInt(index++, limit);
+            stmt.setInt(index, offset);
+            try (ResultSet rs = stmt.executeQuery()) {
+                InvoiceRowMapper mapper = new InvoiceRowMapper();
+                while (rs.next()) {
+                    invoices.add(mapper.map(rs));
+                }
+            }
+        } catch (SQLException | IOException e) {
+            throw new RepositoryAccessException("Greška prilikom pretrage faktura!", e);
+        }
+        return invoices;
+    }
+
+    /**
+     * Dohvaća stranicu faktura koje odgovaraju kriterijima u odnosu na učitanu susjednu stranicu (keyset):
+     * fakture iza zadnje fakture prethodne stranice, odnosno ispred prve fakture sljedeće stranice.
+     * Baza tada ne mora pročitati i preskočiti sve retke prije stranice, pa cijena dohvata ne raste s
+     * dubinom stranice. Ako susjedna stranica nije poznata, stranica se dohvaća preskakanjem redaka.
+     *
+     * @param criteria Kriteriji pretrage.
+     * @param offset Broj faktura koje se preskaču ako susjedna stranica nije poznata.
+     * @param limit Najveći broj faktura koje se vraćaju.
+     * @param previous Zadnja faktura prethodne stranice, ili null.
+     * @param next Prva faktura sljedeće stranice, ili null.
+     * @return Lista faktura u poretku zadanom kriterijima.
+     * @throws RepositoryAccessException ako dođe do greške pri pristupu bazi.
+     */
+    public List<Invoice> findByCriteria(InvoiceCriteria criteria, int offset, int limit,
+                                        Invoice previous, Invoice next) throws RepositoryAccessException {
+        if (previous != null && criteria.canSeekFrom(previous)) {
+            return seek(criteria, previous, true, limit);
+        }
+        if (next != null && criteria.canSeekFrom(next)) {
+            List<Invoice> invoices = seek(criteria, next, false, limit);
+            Collections.reverse(invoices);
+            return invoices;
+        }
+        return findByCriteria(criteria, offset, limit);
+    }
+
+    private List<Invoice> seek(InvoiceCriteria criteria, Invoice anchor, boolean after, int limit)
+            throws RepositoryAccessException {
+        String sql = SELECT_WITH_SUPPLIER + criteria.seekWhereClause(after)
+                + (after ? criteria.orderByClause() : criteria.reversedOrderByClause()) + " LIMIT ?";
+        List<Invoice> invoices = new ArrayList<>(limit);
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
+            int index = criteria.bindSeek(stmt, anchor);
+            stmt.setInt(index, limit);
+            try (ResultSet rs = stmt.executeQuery()) {
+                InvoiceRowMapper mapper = new InvoiceRowMapper();
+                while (rs.next()) {
+                    invoices.add(mapper.map(rs));
+                }
+            }
+        } catch (SQLException | IOException e) {
+            throw new RepositoryAccessException("Greška prilikom pretrage faktura!", e);
+        }
+        return invoices;
+    }
+
+    @Override
+    protected String selectSql() {
+        return SELECT_WITH_SUPPLIER;
+    }
+
+    @Override
+    protected String idColumn() {
+        return "i.id";
+    }
+
+    @Override
+    protected RowMapper<Invoice> newRowMapper() {
+        return new InvoiceRowMapper();
+    }
+
+    /**
+     * Mapira retke upita {@link #SELECT_WITH_SUPPLIER} u fakture.
+     * Dobavljač se čita iz istog retka, a unutar jednog result seta svaki se dobavljač
+     * kreira samo jednom pa fakture istog dobavljača dijele isti objekt.
+     */
+    private static final class InvoiceRowMapper implements RowMapper<Invoice> {
+        private final Map<Long, Supplier> suppliers = new HashMap<>();
+
+        /**
+         * Mapira trenutni redak result seta u fakturu.
+         * @param rs Result set pozicioniran na redak.
+         * @return Faktura s pripadajućim dobavljačem.
+         * @throws SQLException ako čitanje stupca ne uspije.
+         */
+        @Override
+        public Invoice map(ResultSet rs) throws SQLException {
+            long supplierId = rs.getLong("supplier_id");
+            Supplier supplier = suppliers.get(supplierId);
+            if (supplier == null) {
+                supplier = new Supplier(
+                        supplierId,
+                        rs.getString("supplier_name"),
+                        rs.getString("supplier_address"),
+                        rs.getString("supplier_oib"));
+                suppliers.put(supplierId, supplier);
+            }
+
+            InvoiceStatus status = InvoiceStatus.valueOf(rs.getString("status").toUpperCase());
+
+            return new Invoice.Builder(
+                    rs.getLong("id"),
+                    rs.getString("invoice_number"),
+                    rs.getBigDecimal("amount"),
+                    supplier)
+                    .withIssueDate(rs.getDate("issue_date").toLocalDate())
+                    .withDueDate(rs.getDate("due_date").toLocalDate())
+                    .withStatus(status)
+                    .build();
+        }
     }
 }
\ No newline at end of file
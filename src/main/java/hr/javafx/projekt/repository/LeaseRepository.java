@@ -0,0 +1,117 @@
+package hr.javafx.projekt.repository;
+
+import hr.javafx.projekt.database.DatabaseConnection;
+import hr.javafx.projekt.exception.RepositoryAccessException;
+import hr.javafx.projekt.model.Lease;
+
+import java.io.IOException;
+import java.sql.*;
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Upravlja najmovima ({@code SERVICE_LEASE}) kojima se instance aplikacije spojene na istu bazu dogovaraju
+ * koja od njih izvodi pojedini pozadinski zadatak.
+ * <p>
+ * Najam se preuzima i obnavlja jednim uvjetnim upisom koji uspijeva samo ako instanca najam već drži ili je
+ * on istekao, pa zaključavanje retka osigurava da ga u svakom trenutku drži najviše jedna instanca.
+ * Trajanje se računa satom baze, kako razlika u satovima računala ne bi dala najam dvjema instancama.
+ */
+public class LeaseRepository {
+
+    private static final String DUPLICATE_KEY_STATE = "23505";
+
+    /**
+     * Preuzima ili obnavlja najam.
+     *
+     * @param name Naziv najma.
+     * @param holder Oznaka instance koja preuzima najam.
+     * @param ttl Trajanje najma od ovog trenutka.
+     * @return True ako instanca nakon poziva drži najam, false ako ga drži druga instanca.
+     * @throws RepositoryAccessException ako dođe do greške pri pristupu bazi.
+     */
+    public boolean tryAcquire(String name, String holder, Duration ttl) throws RepositoryAccessException {
+        String update = "UPDATE SERVICE_LEASE SET " +
+                "acquired_at = CASE WHEN holder = ? THEN acquired_at ELSE LOCALTIMESTAMP END, " +
+                "holder = ?, expires_at = DATEADD(MILLISECOND, ?, LOCALTIMESTAMP) " +
+                "WHERE name = ? AND (holder = ? OR expires_at < LOCALTIMESTAMP)";
+        String insert = "INSERT INTO SERVICE_LEASE (name, holder, acquired_at, expires_at) " +
+                "SELECT ?, ?, LOCALTIMESTAMP, DATEADD(MILLISECOND, ?, LOCALTIMESTAMP) " +
+                "WHERE NOT EXISTS (SELECT 1 FROM SERVICE_LEASE WHERE name = ?)";
+        try (Connection connection = DatabaseConnection.getConnection()) {
+            try (PreparedStatement stmt = connection.prepareStatement(update)) {
+                stmt.setString(1, holder);
+                stmt.setString(2, holder);
+                stmt.setLong(3, ttl.toMillis());
+                stmt.setString(4, name);
+                stmt.setString(5, holder);
+                if (stmt.executeUpdate() > 0) {
+                    return true;
+                }
+            }
+            try (PreparedStatement stmt = connection.prepareStatement(insert)) {
+                stmt.setString(1, name);
+                stmt.setString(2, holder);
+                stmt.setLong(3, ttl.toMillis());
+                stmt.setString(4, name);
+                return stmt.executeUpdate() > 0;
+            } catch (SQLException e) {
+                if (DUPLICATE_KEY_STATE.equals(e.getSQLState())) {
+                    // Druga instanca je istovremeno upisala isti najam.
+                    return false;
+                }
+                throw e;
+            }
+        } catch (SQLException | IOException e) {
+            throw new RepositoryAccessException("Greška prilikom preuzimanja najma '" + name + "'!", e);
+        }
+    }
+
+    /**
+     * Dohvaća trenutno stanje najma.
+     *
+     * @param name Naziv najma.
+     * @return Najam, ili prazan Optional ako ga nijedna instanca nije preuzela ili je otpušten.
+     * @throws RepositoryAccessException ako dođe do greške pri pristupu bazi.
+     */
+    public Optional<Lease> findByName(String name) throws RepositoryAccessException {
+        String sql = "SELECT name, holder, acquired_at, expires_at, expires_at < LOCALTIMESTAMP AS expired " +
+                "FROM SERVICE_LEASE WHERE name = ?";
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setString(1, name);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return Optional.of(new Lease(
+                            rs.getString("name"),
+                            rs.getString("holder"),
+                            rs.getTimestamp("acquired_at").toLocalDateTime(),
+                            rs.getTimestamp("expires_at").toLocalDateTime(),
+                            rs.getBoolean("expired")));
+                }
+            }
+        } catch (SQLException | IOException e) {
+            throw new RepositoryAccessException("Greška prilikom dohvaćanja najma '" + name + "'!", e);
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Otpušta najam ako ga drži zadana instanca, kako bi ga druga instanca mogla odmah preuzeti.
+     *
+     * @param name Naziv najma.
+     * @param holder Oznaka instance koja otpušta najam.
+     * @throws RepositoryAccessException ako dođe do greške pri pristupu bazi.
+     */
+    public void release(String name, String holder) throws RepositoryAccessException {
+        String sql = "DELETE FROM SERVICE_LEASE WHERE name = ? AND holder = ?";
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setString(1, name);
+            stmt.setString(2, holder);
+            stmt.executeUpdate();
+        } catch (SQLException | IOException e) {
+            throw new RepositoryAccessException("Greška prilikom otpuštanja najma '" + name + "'!", e);
+        }
+    }
+}
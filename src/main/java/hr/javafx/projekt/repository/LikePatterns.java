@@ -0,0 +1,47 @@
+package hr.javafx.projekt.repository;
+
+/**
+ * Pomoćne metode za sigurno sastavljanje LIKE uzoraka iz korisničkog unosa.
+ * Znakovi {@code %} i {@code _} iz unosa se escapeaju, pa se traži njihovo doslovno pojavljivanje.
+ */
+final class LikePatterns {
+
+    /**
+     * ESCAPE dio uvjeta koji se dodaje iza svakog {@code LIKE ?}.
+     */
+    static final String ESCAPE_CLAUSE = " ESCAPE '\\'";
+
+    private static final char ESCAPE = '\\';
+
+    private LikePatterns() {
+    }
+
+    /**
+     * Vraća uzorak koji odgovara vrijednostima koje počinju zadanim nizom.
+     * @param prefix Početak vrijednosti.
+     * @return LIKE uzorak.
+     */
+    static String startsWith(String prefix) {
+        return escape(prefix) + "%";
+    }
+
+    /**
+     * Vraća uzorak koji odgovara vrijednostima koje sadrže zadani niz.
+     * @param text Traženi niz.
+     * @return LIKE uzorak.
+     */
+    static String contains(String text) {
+        return "%" + escape(text) + "%";
+    }
+
+    private static String escape(String value) {
+        StringBuilder escaped = new StringBuilder(value.length());
+        for (char c : value.toCharArray()) {
+            if (c == '%' || c == '_' || c == ESCAPE) {
+                escaped.append(ESCAPE);
+            }
+            escaped.append(c);
+        }
+        return escaped.toString();
+    }
+}
@@ -0,0 +1,14 @@
+package hr.javafx.projekt.repository;
+
+import java.util.List;
+
+/**
+ * Jedna stranica rezultata dohvaćena keyset paginacijom.
+ *
+ * @param items Zapisi na stranici.
+ * @param nextCursor ID zadnjeg zapisa na stranici, koji se prosljeđuje za dohvat sljedeće stranice.
+ * @param hasMore True ako iza ove stranice postoji još zapisa.
+ * @param <T> Tip zapisa.
+ */
+public record Page<T>(List<T> items, Long nextCursor, boolean hasMore) {
+}
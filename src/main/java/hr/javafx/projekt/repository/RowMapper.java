@@ -0,0 +1,22 @@
+package hr.javafx.projekt.repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Funkcijsko sučelje koje mapira trenutni redak result seta u objekt.
+ * Nova instanca se kreira za svaki result set, pa mapper smije čuvati stanje vezano uz taj upit.
+ *
+ * @param <T> Tip objekta u koji se redak mapira.
+ */
+@FunctionalInterface
+public interface RowMapper<T> {
+
+    /**
+     * Mapira trenutni redak.
+     * @param rs Result set pozicioniran na redak.
+     * @return Mapirani objekt.
+     * @throws SQLException ako čitanje stupca ne uspije.
+     */
+    T map(ResultSet rs) throws SQLException;
+}
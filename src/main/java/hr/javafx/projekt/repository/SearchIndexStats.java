@@ -0,0 +1,25 @@
+package hr.javafx.projekt.repository;
+
+/**
+ * Trenutna slika stanja indeksa za pretragu dobavljača.
+ *
+ * @param suppliers Broj indeksiranih dobavljača.
+ * @param trigrams Broj različitih trigrama u indeksu.
+ * @param postings Ukupan broj pojavljivanja trigrama, uključujući ona obrisanih dobavljača koja još nisu uklonjena.
+ * @param estimatedBytes Procijenjena potrošnja memorije indeksa u bajtovima.
+ */
+public record SearchIndexStats(
+        int suppliers,
+        int trigrams,
+        long postings,
+        long estimatedBytes
+) {
+
+    /**
+     * Vraća procijenjenu potrošnju memorije po indeksiranom dobavljaču.
+     * @return Broj bajtova po dobavljaču, ili 0 ako je indeks prazan.
+     */
+    public long bytesPerSupplier() {
+        return suppliers == 0 ? 0 : estimatedBytes / suppliers;
+    }
+}
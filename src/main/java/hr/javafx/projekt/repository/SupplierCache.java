@@ -0,0 +1,167 @@
+package hr.javafx.projekt.repository;
+
+import hr.javafx.projekt.model.Supplier;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Ograničena LRU priručna memorija dobavljača, zajednička za sve instance {@link SupplierRepository}.
+ * Dohvat je read-through: kod promašaja se dobavljač čita iz baze i sprema u memoriju.
+ * Repozitorij poništava zapise nakon svakog upisa.
+ * <p>
+ * Budući da je {@link Supplier} promjenjiv, pozivatelji uvijek dobivaju kopije, pa izmjena
+ * vraćenog objekta ne mijenja sadržaj memorije. Čitanje iz baze odvija se izvan zaključavanja;
+ * rezultat učitan prije poništavanja se odbacuje kako se ne bi vratili zastarjeli podaci.
+ */
+public final class SupplierCache {
+
+    private static final int MAX_SIZE = 1_000;
+
+    private static final SupplierCache INSTANCE = new SupplierCache(MAX_SIZE);
+
+    /**
+     * Funkcija koja učitava podatke iz baze.
+     *
+     * @param <T> Tip učitanih podataka.
+     */
+    @FunctionalInterface
+    interface Loader<T> {
+        /**
+         * Učitava podatke.
+         * @return Učitani podaci.
+         */
+        T load();
+    }
+
+    private final int maxSize;
+    private final Map<Long, Supplier> suppliers;
+    private List<Supplier> allSuppliers;
+    private long version;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+
+    private SupplierCache(int maxSize) {
+        this.maxSize = maxSize;
+        this.suppliers = new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Supplier> eldest) {
+                if (size() > SupplierCache.this.maxSize) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Vraća jedinstvenu instancu priručne memorije.
+     * @return Instanca priručne memorije.
+     */
+    public static SupplierCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Vraća dobavljača iz memorije ili ga učitava iz baze.
+     *
+     * @param id ID dobavljača.
+     * @param loader Učitava dobavljača iz baze kod promašaja.
+     * @return Kopija dobavljača, ili prazan Optional ako ne postoji.
+     */
+    Optional<Supplier> get(Long id, Loader<Optional<Supplier>> loader) {
+        long loadVersion;
+        synchronized (this) {
+            Supplier cached = suppliers.get(id);
+            if (cached != null) {
+                hits++;
+                return Optional.of(copyOf(cached));
+            }
+            misses++;
+            loadVersion = version;
+        }
+
+        Optional<Supplier> loaded = loader.load();
+        loaded.ifPresent(supplier -> {
+            synchronized (this) {
+                if (version == loadVersion) {
+                    suppliers.put(supplier.getId(), copyOf(supplier));
+                }
+            }
+        });
+        return loaded;
+    }
+
+    /**
+     * Vraća sve dobavljače iz memorije ili ih učitava iz baze. Popis se pamti samo ako stane u memoriju,
+     * a pojedinačni dobavljači iz njega pune i memoriju za dohvat po ID-u.
+     *
+     * @param loader Učitava sve dobavljače iz baze kod promašaja.
+     * @return Kopije svih dobavljača.
+     */
+    List<Supplier> getAll(Loader<List<Supplier>> loader) {
+        long loadVersion;
+        synchronized (this) {
+            if (allSuppliers != null) {
+                hits++;
+                return copyOf(allSuppliers);
+            }
+            misses++;
+            loadVersion = version;
+        }
+
+        List<Supplier> loaded = loader.load();
+        if (loaded.size() <= maxSize) {
+            synchronized (this) {
+                if (version == loadVersion) {
+                    allSuppliers = copyOf(loaded);
+                    allSuppliers.forEach(supplier -> suppliers.put(supplier.getId(), supplier));
+                }
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Poništava zapis jednog dobavljača i popis svih dobavljača.
+     * @param id ID dobavljača.
+     */
+    public synchronized void invalidate(Long id) {
+        version++;
+        invalidations++;
+        suppliers.remove(id);
+        allSuppliers = null;
+    }
+
+    /**
+     * Poništava cijelu memoriju.
+     */
+    public synchronized void invalidateAll() {
+        version++;
+        invalidations++;
+        suppliers.clear();
+        allSuppliers = null;
+    }
+
+    /**
+     * Vraća brojače pogodaka, promašaja i izbacivanja.
+     * @return Trenutna statistika.
+     */
+    public synchronized CacheStats getStats() {
+        return new CacheStats(hits, misses, evictions, invalidations, suppliers.size(), maxSize);
+    }
+
+    private static Supplier copyOf(Supplier supplier) {
+        return new Supplier(supplier.getId(), supplier.getName(), supplier.getAddress(), supplier.getOib());
+    }
+
+    private static List<Supplier> copyOf(List<Supplier> suppliers) {
+        return suppliers.stream().map(SupplierCache::copyOf).toList();
+    }
+}
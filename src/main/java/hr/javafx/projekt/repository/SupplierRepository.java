@@ -1,6 +1,7 @@
 package hr.javafx.projekt.repository;
 
 import hr.javafx.projekt.database.DatabaseConnection;
+import hr.javafx.projekt.enums.ChangeKind;
 import hr.javafx.projekt.exception.RepositoryAccessException;
 import hr.javafx.projekt.model.Supplier;
 import hr.javafx.projekt.utils.ChangeLogger;
@@ -13,9 +14,19 @@ import java.util.Optional;
 
 /**
  * Upravlja operacijama nad dobavljačima u bazi podataka.
+ * Dohvat po ID-u i dohvat svih dobavljača prolaze kroz {@link SupplierCache}, a pretraga kroz
+ * {@link SupplierSearchIndex}. Svaki upis poništava pripadajuće zapise u memoriji i ažurira indeks,
+ * a u istoj transakciji bilježi promjenu u {@link ChangeSequenceRepository}, kako bi svoje zapise
+ * mogle poništiti i ostale instance aplikacije.
  */
 public class SupplierRepository extends AbstractRepository<Supplier> {
 
+    private static final String SELECT_SUPPLIER = "SELECT id, name, address, oib FROM SUPPLIER";
+
+    private final SupplierCache cache = SupplierCache.getInstance();
+    private final SupplierSearchIndex searchIndex = SupplierSearchIndex.getInstance();
+    private final ChangeSequenceRepository changeSequence = new ChangeSequenceRepository();
+
     /**
      * Sprema novog dobavljača u bazu i bilježi promjenu.
      *
@@ -28,21 +39,27 @@ public class SupplierRepository extends AbstractRepository<Supplier> {
         String sql = "INSERT INTO SUPPLIER (name, address, oib) VALUES (?, ?, ?)";
         try (Connection connection = DatabaseConnection.getConnection();
              PreparedStatement stmt = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            connection.setAutoCommit(false);
             stmt.setString(1, supplier.getName());
             stmt.setString(2, supplier.getAddress());
             stmt.setString(3, supplier.getOib());
             stmt.executeUpdate();
 
             try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
-                if (generatedKeys.next()) {
-                    supplier.setId(generatedKeys.getLong(1));
-                    ChangeLogger.logAddition(supplier);
+                if (!generatedKeys.next()) {
+                    throw new SQLException("Baza nije dodijelila ID novom dobavljaču.");
                 }
+                supplier.setId(generatedKeys.getLong(1));
             }
+            changeSequence.append(connection, Supplier.class, ChangeKind.INSERT, List.of(supplier.getId()));
+            connection.commit();
         } catch (SQLException | IOException e) {
 
             throw new RepositoryAccessException("Greška prilikom spremanja dobavljača!", e);
         }
+        cache.invalidate(supplier.getId());
+        searchIndex.put(supplier);
+        ChangeLogger.logAddition(supplier);
         return supplier;
     }
 
@@ -54,18 +71,17 @@ public class SupplierRepository extends AbstractRepository<Supplier> {
      */
     @Override
     public List<Supplier> findAll() throws RepositoryAccessException {
+        return cache.getAll(this::loadAll);
+    }
+
+    private List<Supplier> loadAll() throws RepositoryAccessException {
         List<Supplier> suppliers = new ArrayList<>();
-        String sql = "SELECT id, name, address, oib FROM SUPPLIER";
+        String sql = SELECT_SUPPLIER;
         try (Connection connection = DatabaseConnection.getConnection();
              PreparedStatement stmt = connection.prepareStatement(sql);
              ResultSet rs = stmt.executeQuery()) {
             while (rs.next()) {
-                suppliers.add(new Supplier(
-                        rs.getLong("id"),
-                        rs.getString("name"),
-                        rs.getString("address"),
-                        rs.getString("oib")
-                ));
+                suppliers.add(mapSupplier(rs));
             }
         } catch (SQLException | IOException e) {
 
@@ -74,6 +90,19 @@ public class SupplierRepository extends AbstractRepository<Supplier> {
         return suppliers;
     }
 
+    /**
+     * Pretražuje dobavljače po nazivu, adresi i OIB-u preko {@link SupplierSearchIndex}.
+     * Pretraga podnosi tipfelere, a rezultati su rangirani od najboljeg pogotka.
+     *
+     * @param query Upit; prazan upit vraća dobavljače sortirane po nazivu.
+     * @param limit Najveći broj rezultata.
+     * @return Najbolji pogoci i ukupan broj pronađenih dobavljača.
+     * @throws RepositoryAccessException ako izgradnja indeksa ne uspije dohvatiti dobavljače iz baze.
+     */
+    public SupplierSearchResult search(String query, int limit) throws RepositoryAccessException {
+        return searchIndex.search(query, limit, this::loadAll);
+    }
+
     /**
      * Pronalazi dobavljača prema njegovom jedinstvenom ID-u.
      *
@@ -83,18 +112,17 @@ public class SupplierRepository extends AbstractRepository<Supplier> {
      */
     @Override
     public Optional<Supplier> findById(Long id) throws RepositoryAccessException {
-        String sql = "SELECT id, name, address, oib FROM SUPPLIER WHERE id = ?";
+        return cache.get(id, () -> loadById(id));
+    }
+
+    private Optional<Supplier> loadById(Long id) throws RepositoryAccessException {
+        String sql = SELECT_SUPPLIER + " WHERE id = ?";
         try (Connection connection = DatabaseConnection.getConnection();
              PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setLong(1, id);
             try (ResultSet rs = stmt.executeQuery()) {
                 if (rs.next()) {
-                    return Optional.of(new Supplier(
-                            rs.getLong("id"),
-                            rs.getString("name"),
-                            rs.getString("address"),
-                            rs.getString("oib")
-                    ));
+                    return Optional.of(mapSupplier(rs));
                 }
             }
         } catch (SQLException | IOException e) {
@@ -121,16 +149,22 @@ public class SupplierRepository extends AbstractRepository<Supplier> {
         String sql = "UPDATE SUPPLIER SET name = ?, address = ?, oib = ? WHERE id = ?";
         try (Connection connection = DatabaseConnection.getConnection();
              PreparedStatement stmt = connection.prepareStatement(sql)) {
+            connection.setAutoCommit(false);
             stmt.setString(1, supplier.getName());
             stmt.setString(2, supplier.getAddress());
             stmt.setString(3, supplier.getOib());
             stmt.setLong(4, supplier.getId());
-            stmt.executeUpdate();
-            ChangeLogger.logUpdate(oldSupplier, supplier);
+            if (stmt.executeUpdate() > 0) {
+                changeSequence.append(connection, Supplier.class, ChangeKind.UPDATE, List.of(supplier.getId()));
+            }
+            connection.commit();
         } catch (SQLException | IOException e) {
 
             throw new RepositoryAccessException("Greška prilikom ažuriranja dobavljača!", e);
         }
+        cache.invalidate(supplier.getId());
+        searchIndex.put(supplier);
+        ChangeLogger.logUpdate(oldSupplier, supplier);
     }
 
     /**
@@ -172,16 +206,48 @@ public class SupplierRepository extends AbstractRepository<Supplier> {
         Supplier oldSupplier = oldSupplierOptional.get();
 
         String sql = "DELETE FROM SUPPLIER WHERE id = ?";
+        int affectedRows;
         try (Connection connection = DatabaseConnection.getConnection();
              PreparedStatement stmt = connection.prepareStatement(sql)) {
+            connection.setAutoCommit(false);
             stmt.setLong(1, id);
-            int affectedRows = stmt.executeUpdate();
+            affectedRows = stmt.executeUpdate();
             if (affectedRows > 0) {
-                ChangeLogger.logDeletion(oldSupplier);
+                changeSequence.append(connection, Supplier.class, ChangeKind.DELETE, List.of(id));
             }
+            connection.commit();
         } catch (SQLException | IOException e) {
 
             throw new RepositoryAccessException("Brisanje dobavljača nije uspjelo.", e);
         }
+        cache.invalidate(id);
+        searchIndex.remove(id);
+        if (affectedRows > 0) {
+            ChangeLogger.logDeletion(oldSupplier);
+        }
+    }
+
+    @Override
+    protected String selectSql() {
+        return SELECT_SUPPLIER;
+    }
+
+    @Override
+    protected String idColumn() {
+        return "id";
+    }
+
+    @Override
+    protected RowMapper<Supplier> newRowMapper() {
+        return SupplierRepository::mapSupplier;
+    }
+
+    private static Supplier mapSupplier(ResultSet rs) throws SQLException {
+        return new Supplier(
+                rs.getLong("id"),
+                rs.getString("name"),
+                rs.getString("address"),
+                rs.getString("oib")
+        );
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,646 @@
+package hr.javafx.projekt.repository;
+
+import hr.javafx.projekt.model.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Trigramski indeks u memoriji za pretragu dobavljača po nazivu, adresi i OIB-u,
+ * zajednički za sve instance {@link SupplierRepository}.
+ * <p>
+ * Tekst polja se normalizira (mala slova, bez dijakritika i interpunkcije), a za svako se polje pamte
+ * trigrami cijelog teksta i trigrami pojedinih riječi s razmacima na rubovima. Upit pronalazi dobavljače
+ * koji sadrže zadani niz, a ako ih nema dovoljno, i dobavljače čiji su nazivi ili adrese slični upitu,
+ * pa pretraga podnosi i tipfelere. Rezultati se rangiraju (naziv ispred OIB-a i adrese, podudaranje
+ * na početku ispred podudaranja u sredini) i ograničavaju na zadani broj.
+ * <p>
+ * Indeks se gradi lijeno iz baze kod prve pretrage, a repozitorij ga nakon svakog upisa ažurira
+ * pojedinačno. Obrisani dobavljači ostavljaju prazno mjesto koje se uklanja povremenom ponovnom
+ * izgradnjom. Kao i {@link SupplierCache}, izgradnja koja se preklopila s upisom se ponavlja.
+ */
+public final class SupplierSearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(SupplierSearchIndex.class);
+
+    private static final int FIELD_NAME = 0;
+    private static final int FIELD_OIB = 1;
+    private static final int FIELD_ADDRESS = 2;
+    private static final int FIELD_COUNT = 3;
+
+    private static final int MIN_TRIGRAM_QUERY = 3;
+    private static final int MAX_QUERY_LENGTH = 64;
+    private static final double MIN_SIMILARITY = 0.4;
+    private static final int MIN_DELETED_FOR_COMPACTION = 1_000;
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern LETTER = Pattern.compile("\\p{L}");
+    private static final Pattern NON_ALPHANUMERIC = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private static final SupplierSearchIndex INSTANCE = new SupplierSearchIndex();
+
+    /**
+     * Indeksirani dobavljač s normaliziranim tekstom polja, poredanim prema konstantama FIELD_*.
+     */
+    private record Document(Supplier supplier, String[] fields) {
+    }
+
+    /**
+     * Pogodak pretrage s ocjenom.
+     */
+    private record Match(Document document, double score) {
+    }
+
+    private static final Comparator<Match> BY_RANK = Comparator.comparingDouble(Match::score).reversed()
+            .thenComparing(match -> match.document().fields()[FIELD_NAME])
+            .thenComparing(match -> match.document().supplier().getId());
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Integer> ordinalById = new HashMap<>();
+    private final Map<Long, IntArray> postings = new HashMap<>();
+    private Document[] documents = new Document[64];
+    private int documentCount;
+    private int deletedCount;
+    private long postingCount;
+    private boolean built;
+    private long version;
+    private volatile int[] byName;
+
+    private SupplierSearchIndex() {
+    }
+
+    /**
+     * Vraća jedinstvenu instancu indeksa.
+     * @return Instanca indeksa.
+     */
+    public static SupplierSearchIndex getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Pretražuje dobavljače po nazivu, adresi i OIB-u.
+     *
+     * @param query Upit; prazan upit vraća prve dobavljače po nazivu, a upit od jednog znaka dobavljače
+     *              čiji naziv njime počinje.
+     * @param limit Najveći broj rezultata.
+     * @param loader Učitava sve dobavljače iz baze ako indeks još nije izgrađen.
+     * @return Kopije najboljih pogodaka, od najboljeg prema najlošijem, i ukupan broj pogodaka.
+     */
+    SupplierSearchResult search(String query, int limit, SupplierCache.Loader<List<Supplier>> loader) {
+        if (limit <= 0) {
+            return new SupplierSearchResult(List.of(), 0);
+        }
+        ensureBuilt(loader);
+        String normalized = normalize(query);
+        if (normalized.length() > MAX_QUERY_LENGTH) {
+            normalized = normalized.substring(0, MAX_QUERY_LENGTH).trim();
+        }
+        lock.readLock().lock();
+        try {
+            if (normalized.length() <= 1) {
+                return namesStartingWith(normalized, limit);
+            }
+            PriorityQueue<Match> best = new PriorityQueue<>(BY_RANK.reversed());
+            int total = normalized.length() < MIN_TRIGRAM_QUERY
+                    ? prefixSearch(normalized, best, limit)
+                    : trigramSearch(normalized, best, limit);
+            return new SupplierSearchResult(
+                    drain(best).stream().map(match -> copyOf(match.document().supplier())).toList(), total);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Dodaje dobavljača u indeks ili zamjenjuje njegove postojeće podatke.
+     * @param supplier Spremljeni dobavljač s ID-em.
+     */
+    public void put(Supplier supplier) {
+        lock.writeLock().lock();
+        try {
+            version++;
+            if (!built) {
+                return;
+            }
+            removeDocument(supplier.getId());
+            addDocument(copyOf(supplier));
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Uklanja dobavljača iz indeksa.
+     * @param id ID obrisanog dobavljača.
+     */
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            version++;
+            if (!built) {
+                return;
+            }
+            removeDocument(id);
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Odbacuje cijeli indeks; ponovno se gradi kod sljedeće pretrage.
+     */
+    public void invalidateAll() {
+        lock.writeLock().lock();
+        try {
+            version++;
+            built = false;
+            clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Vraća veličinu indeksa i procjenu potrošnje memorije.
+     * Procjena pretpostavlja 64-bitni JVM sa sažetim pokazivačima i tekst u Latin-1 zapisu.
+     *
+     * @return Trenutna statistika.
+     */
+    public SearchIndexStats getStats() {
+        lock.readLock().lock();
+        try {
+            long bytes = 16L + documents.length * 4L;
+            for (int ordinal = 0; ordinal < documentCount; ordinal++) {
+                Document document = documents[ordinal];
+                if (document != null) {
+                    Supplier supplier = document.supplier();
+                    bytes += 16 + 16 + FIELD_COUNT * 4 + 24 + 16;
+                    bytes += stringBytes(supplier.getName()) + stringBytes(supplier.getAddress())
+                            + stringBytes(supplier.getOib());
+                    for (String field : document.fields()) {
+                        bytes += stringBytes(field);
+                    }
+                }
+            }
+            bytes += ordinalById.size() * (32L + 16 + 16);
+            for (IntArray list : postings.values()) {
+                bytes += 32 + 16 + 16 + 16 + list.capacity() * 4L;
+            }
+            bytes += (long) Integer.highestOneBit(Math.max(1, ordinalById.size() * 2)) * 4;
+            bytes += (long) Integer.highestOneBit(Math.max(1, postings.size() * 2)) * 4;
+            return new SearchIndexStats(ordinalById.size(), postings.size(), postingCount, bytes);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void ensureBuilt(SupplierCache.Loader<List<Supplier>> loader) {
+        while (true) {
+            long loadVersion;
+            lock.readLock().lock();
+            try {
+                if (built) {
+                    return;
+                }
+                loadVersion = version;
+            } finally {
+                lock.readLock().unlock();
+            }
+
+            long start = System.nanoTime();
+            List<Supplier> loaded = loader.load();
+            lock.writeLock().lock();
+            try {
+                if (built) {
+                    return;
+                }
+                if (version == loadVersion) {
+                    rebuild(loaded);
+                    built = true;
+                    log.info("Indeks za pretragu dobavljača izgrađen u {} ms: {}",
+                            (System.nanoTime() - start) / 1_000_000, getStats());
+                    return;
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    private void rebuild(List<Supplier> suppliers) {
+        clear();
+        documents = new Document[Math.max(64, suppliers.size() + suppliers.size() / 4)];
+        for (Supplier supplier : suppliers) {
+            addDocument(copyOf(supplier));
+        }
+        postings.values().forEach(IntArray::trim);
+    }
+
+    private void clear() {
+        ordinalById.clear();
+        postings.clear();
+        documents = new Document[64];
+        documentCount = 0;
+        deletedCount = 0;
+        postingCount = 0;
+        byName = null;
+    }
+
+    private void addDocument(Supplier supplier) {
+        String[] fields = new String[FIELD_COUNT];
+        fields[FIELD_NAME] = normalize(supplier.getName());
+        fields[FIELD_OIB] = normalize(supplier.getOib());
+        fields[FIELD_ADDRESS] = normalize(supplier.getAddress());
+
+        if (documentCount == documents.length) {
+            documents = Arrays.copyOf(documents, documents.length * 2);
+        }
+        int ordinal = documentCount++;
+        documents[ordinal] = new Document(supplier, fields);
+        ordinalById.put(supplier.getId(), ordinal);
+
+        Set<Long> keys = new HashSet<>();
+        for (int field = 0; field < FIELD_COUNT; field++) {
+            keys.clear();
+            addInnerTrigrams(fields[field], keys);
+            addWordTrigrams(fields[field], keys);
+            for (Long key : keys) {
+                postings.computeIfAbsent(key, k -> new IntArray()).add(ordinal * FIELD_COUNT + field);
+            }
+            postingCount += keys.size();
+        }
+        byName = null;
+    }
+
+    private void removeDocument(Long id) {
+        Integer ordinal = ordinalById.remove(id);
+        if (ordinal != null) {
+            documents[ordinal] = null;
+            deletedCount++;
+            byName = null;
+        }
+    }
+
+    /**
+     * Obrisani dobavljači ostaju u popisima pojavljivanja trigrama dok se indeks ne izgradi ponovno.
+     */
+    private void compactIfNeeded() {
+        if (deletedCount >= MIN_DELETED_FOR_COMPACTION && deletedCount > ordinalById.size() / 4) {
+            List<Supplier> live = new ArrayList<>(ordinalById.size());
+            for (int ordinal = 0; ordinal < documentCount; ordinal++) {
+                if (documents[ordinal] != null) {
+                    live.add(documents[ordinal].supplier());
+                }
+            }
+            rebuild(live);
+        }
+    }
+
+    /**
+     * Vraća dobavljače čiji naziv počinje zadanim nizom, binarnim pretraživanjem popisa sortiranog po nazivu.
+     * Koristi se za prazan upit i upit od jednog znaka, koji bi preko trigrama pogodio gotovo sve dobavljače.
+     */
+    private SupplierSearchResult namesStartingWith(String prefix, int limit) {
+        int[] sorted = sortedByName();
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (documents[sorted[middle]].fields()[FIELD_NAME].compareTo(prefix) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        int end = low;
+        high = sorted.length;
+        while (end < high) {
+            int middle = (end + high) >>> 1;
+            if (documents[sorted[middle]].fields()[FIELD_NAME].startsWith(prefix)) {
+                end = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        List<Supplier> result = new ArrayList<>(Math.min(limit, end - low));
+        for (int i = low; i < end && result.size() < limit; i++) {
+            result.add(copyOf(documents[sorted[i]].supplier()));
+        }
+        return new SupplierSearchResult(result, end - low);
+    }
+
+    /**
+     * Popis se računa kod prvog korištenja nakon promjene. Više čitatelja ga može izračunati istodobno,
+     * ali svi dobivaju isti rezultat.
+     */
+    private int[] sortedByName() {
+        int[] sorted = byName;
+        if (sorted == null) {
+            sorted = ordinalById.values().stream()
+                    .sorted(Comparator.comparing((Integer ordinal) -> documents[ordinal].fields()[FIELD_NAME])
+                            .thenComparing(ordinal -> documents[ordinal].supplier().getId()))
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+            byName = sorted;
+        }
+        return sorted;
+    }
+
+    /**
+     * Upit od dva znaka sastoji se od jedne riječi, pa se preko trigrama početka riječi (" ab")
+     * traže riječi koje njime počinju.
+     * @return Ukupan broj pronađenih dobavljača.
+     */
+    private int prefixSearch(String query, PriorityQueue<Match> best, int limit) {
+        IntArray list = postings.get(trigram(' ', query.charAt(0), query.charAt(1)));
+        if (list == null) {
+            return 0;
+        }
+        return collectSubstringMatches(list.backingArray(), list.size(), query, best, limit, new BitSet());
+    }
+
+    /**
+     * Najprije traži dobavljače koji sadrže cijeli upit, a tek ako ih nema dovoljno za {@code limit},
+     * i dobavljače slične upitu. Slični pogoci uvijek imaju nižu ocjenu od pravih, pa ih nije potrebno
+     * tražiti kada je rezultat već popunjen. Upiti bez slova (OIB, kućni broj) traže se samo doslovno.
+     * @return Ukupan broj pronađenih dobavljača; slični pogoci ubrajaju se samo ako su traženi.
+     */
+    private int trigramSearch(String query, PriorityQueue<Match> best, int limit) {
+        BitSet matched = new BitSet(documentCount);
+        int found = 0;
+
+        IntArray[] lists = postingLists(addInnerTrigrams(query, new HashSet<>()));
+        if (lists != null) {
+            int[] candidates = lists[0].toArray();
+            int size = candidates.length;
+            for (int i = 1; i < lists.length && size > 0; i++) {
+                size = retain(candidates, size, lists[i]);
+            }
+            found = collectSubstringMatches(candidates, size, query, best, limit, matched);
+        }
+        if (found < limit && LETTER.matcher(query).find()) {
+            found += collectSimilarMatches(addWordTrigrams(query, new HashSet<>()), best, limit, matched);
+        }
+        return found;
+    }
+
+    /**
+     * Ocjenjuje polja iz sortiranog popisa koja sadrže upit i dodaje najbolju ocjenu svakog dobavljača.
+     * @return Broj pronađenih dobavljača.
+     */
+    private int collectSubstringMatches(int[] slots, int size, String query, PriorityQueue<Match> best,
+                                        int limit, BitSet matched) {
+        int found = 0;
+        int i = 0;
+        while (i < size) {
+            int ordinal = slots[i] / FIELD_COUNT;
+            double score = 0;
+            for (; i < size && slots[i] / FIELD_COUNT == ordinal; i++) {
+                Document document = documents[ordinal];
+                if (document != null) {
+                    int field = slots[i] % FIELD_COUNT;
+                    score = Math.max(score, substringScore(field, document.fields()[field], query));
+                }
+            }
+            if (score > 0) {
+                matched.set(ordinal);
+                found++;
+                offer(best, new Match(documents[ordinal], score), limit);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Traži nazive i adrese koji dijele barem {@link #MIN_SIMILARITY} trigrama riječi upita.
+     * Polje s dovoljno pogodaka mora se nalaziti u barem jednom od {@code n - potrebno + 1} najkraćih
+     * popisa, pa se kandidati skupljaju samo iz njih, a u duljim se popisima samo provjeravaju.
+     * @return Broj pronađenih dobavljača koji nisu već pronađeni doslovno.
+     */
+    private int collectSimilarMatches(Set<Long> keys, PriorityQueue<Match> best, int limit, BitSet matched) {
+        int needed = (int) Math.ceil(MIN_SIMILARITY * keys.size());
+        List<IntArray> lists = new ArrayList<>();
+        for (Long key : keys) {
+            IntArray list = postings.get(key);
+            if (list != null) {
+                lists.add(list);
+            }
+        }
+        if (lists.size() < needed) {
+            return 0;
+        }
+        lists.sort(Comparator.comparingInt(IntArray::size));
+
+        byte[] hits = new byte[documentCount * FIELD_COUNT];
+        IntArray touched = new IntArray();
+        int candidateLists = lists.size() - needed + 1;
+        for (int l = 0; l < candidateLists; l++) {
+            IntArray list = lists.get(l);
+            for (int i = 0; i < list.size(); i++) {
+                int slot = list.get(i);
+                if (slot % FIELD_COUNT != FIELD_OIB && hits[slot]++ == 0) {
+                    touched.add(slot);
+                }
+            }
+        }
+        for (int l = candidateLists; l < lists.size(); l++) {
+            IntArray list = lists.get(l);
+            if (probeIsCheaper(touched.size(), list.size())) {
+                for (int i = 0; i < touched.size(); i++) {
+                    int slot = touched.get(i);
+                    if (list.contains(slot)) {
+                        hits[slot]++;
+                    }
+                }
+            } else {
+                for (int i = 0; i < list.size(); i++) {
+                    int slot = list.get(i);
+                    if (hits[slot] > 0) {
+                        hits[slot]++;
+                    }
+                }
+            }
+        }
+
+        IntArray similar = new IntArray();
+        for (int i = 0; i < touched.size(); i++) {
+            if (hits[touched.get(i)] >= needed) {
+                similar.add(touched.get(i));
+            }
+        }
+        int[] candidates = similar.toArray();
+        Arrays.sort(candidates);
+        int found = 0;
+        int i = 0;
+        while (i < candidates.length) {
+            int ordinal = candidates[i] / FIELD_COUNT;
+            double score = 0;
+            for (; i < candidates.length && candidates[i] / FIELD_COUNT == ordinal; i++) {
+                double similarity = (double) hits[candidates[i]] / keys.size();
+                score = Math.max(score, similarity * (candidates[i] % FIELD_COUNT == FIELD_NAME ? 40 : 20));
+            }
+            if (score > 0 && documents[ordinal] != null && !matched.get(ordinal)) {
+                found++;
+                offer(best, new Match(documents[ordinal], score), limit);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Vraća popise pojavljivanja zadanih trigrama od najkraćeg prema najduljem,
+     * ili null ako neki trigram nije u indeksu.
+     */
+    private IntArray[] postingLists(Set<Long> keys) {
+        IntArray[] lists = new IntArray[keys.size()];
+        int i = 0;
+        for (Long key : keys) {
+            IntArray list = postings.get(key);
+            if (list == null) {
+                return null;
+            }
+            lists[i++] = list;
+        }
+        Arrays.sort(lists, Comparator.comparingInt(IntArray::size));
+        return lists;
+    }
+
+    /**
+     * Zadržava samo kandidate koji se nalaze i u zadanom popisu. Oba su popisa sortirana jer se
+     * dobavljačima redni brojevi dodjeljuju rastuće.
+     * @return Novi broj kandidata.
+     */
+    private static int retain(int[] candidates, int size, IntArray list) {
+        int kept = 0;
+        if (probeIsCheaper(size, list.size())) {
+            for (int i = 0; i < size; i++) {
+                if (list.contains(candidates[i])) {
+                    candidates[kept++] = candidates[i];
+                }
+            }
+            return kept;
+        }
+        int j = 0;
+        for (int i = 0; i < size && j < list.size(); ) {
+            if (candidates[i] < list.get(j)) {
+                i++;
+            } else if (candidates[i] > list.get(j)) {
+                j++;
+            } else {
+                candidates[kept++] = candidates[i];
+                i++;
+                j++;
+            }
+        }
+        return kept;
+    }
+
+    private static boolean probeIsCheaper(int probes, int listSize) {
+        return (long) probes * (32 - Integer.numberOfLeadingZeros(listSize)) < listSize;
+    }
+
+    private static double substringScore(int field, String text, String query) {
+        int position = text.indexOf(query);
+        if (position < 0) {
+            return 0;
+        }
+        double score = switch (field) {
+            case FIELD_NAME -> 100;
+            case FIELD_OIB -> 90;
+            default -> 50;
+        };
+        if (text.length() == query.length()) {
+            score += 30;
+        } else if (position == 0) {
+            score += 20;
+        } else if (text.charAt(position - 1) == ' ') {
+            score += 10;
+        }
+        return score;
+    }
+
+    private static void offer(PriorityQueue<Match> best, Match match, int limit) {
+        if (best.size() < limit) {
+            best.add(match);
+        } else if (match.score() >= best.peek().score() && BY_RANK.compare(match, best.peek()) < 0) {
+            best.poll();
+            best.add(match);
+        }
+    }
+
+    private static List<Match> drain(PriorityQueue<Match> best) {
+        List<Match> matches = new ArrayList<>(best);
+        matches.sort(BY_RANK);
+        return matches;
+    }
+
+    /**
+     * Normalizira tekst za indeksiranje i pretragu: mala slova, bez dijakritika, a sve osim slova
+     * i znamenki zamijenjeno jednim razmakom.
+     */
+    static String normalize(String text) {
+        if (text == null || text.isBlank()) {
+            return "";
+        }
+        String lower = text.toLowerCase(Locale.ROOT).replace('đ', 'd');
+        String withoutMarks = MARKS.matcher(Normalizer.normalize(lower, Normalizer.Form.NFD)).replaceAll("");
+        return NON_ALPHANUMERIC.matcher(withoutMarks).replaceAll(" ").trim();
+    }
+
+    private static Set<Long> addInnerTrigrams(String text, Set<Long> keys) {
+        for (int i = 0; i + 3 <= text.length(); i++) {
+            keys.add(trigram(text.charAt(i), text.charAt(i + 1), text.charAt(i + 2)));
+        }
+        return keys;
+    }
+
+    /**
+     * Trigrami riječi s po jednim razmakom na rubovima, pa počeci i krajevi riječi imaju vlastite trigrame.
+     * Za razliku od PostgreSQL proširenja pg_trgm nema trigrama s dva razmaka ispred prvog slova, jer bi
+     * se njegov popis pojavljivanja protezao kroz gotovo sve dobavljače.
+     */
+    private static Set<Long> addWordTrigrams(String text, Set<Long> keys) {
+        for (String word : text.split(" ")) {
+            if (word.isEmpty()) {
+                continue;
+            }
+            String padded = " " + word + " ";
+            for (int i = 0; i + 3 <= padded.length(); i++) {
+                keys.add(trigram(padded.charAt(i), padded.charAt(i + 1), padded.charAt(i + 2)));
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Sprema tri znaka trigrama u jedan broj, pa ključ mape ne zahtijeva novi niz znakova.
+     */
+    private static long trigram(char first, char second, char third) {
+        return ((long) first << 32) | ((long) second << 16) | third;
+    }
+
+    private static long stringBytes(String text) {
+        return text == null ? 0 : 24 + 16 + text.length();
+    }
+
+    private static Supplier copyOf(Supplier supplier) {
+        return new Supplier(supplier.getId(), supplier.getName(), supplier.getAddress(), supplier.getOib());
+    }
+}
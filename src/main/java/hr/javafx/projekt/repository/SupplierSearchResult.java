@@ -0,0 +1,22 @@
+package hr.javafx.projekt.repository;
+
+import hr.javafx.projekt.model.Supplier;
+
+import java.util.List;
+
+/**
+ * Rezultat pretrage dobavljača ograničen na najbolje pogotke.
+ *
+ * @param suppliers Najbolji pogoci, od najboljeg prema najlošijem.
+ * @param totalMatches Ukupan broj pronađenih dobavljača, uključujući one koji nisu vraćeni.
+ */
+public record SupplierSearchResult(List<Supplier> suppliers, int totalMatches) {
+
+    /**
+     * Provjerava je li pronađeno više dobavljača nego što je vraćeno.
+     * @return True ako rezultat nije potpun.
+     */
+    public boolean truncated() {
+        return totalMatches > suppliers.size();
+    }
+}
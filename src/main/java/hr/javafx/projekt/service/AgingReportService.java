@@ -0,0 +1,336 @@
+package hr.javafx.projekt.service;
+
+import hr.javafx.projekt.enums.AgingBucket;
+import hr.javafx.projekt.enums.InvoiceStatus;
+import hr.javafx.projekt.exception.RepositoryAccessException;
+import hr.javafx.projekt.model.AgingReport;
+import hr.javafx.projekt.model.Invoice;
+import hr.javafx.projekt.model.SupplierAging;
+import hr.javafx.projekt.repository.InvoiceRepository;
+import hr.javafx.projekt.utils.CsvWriter;
+import javafx.application.Platform;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Izrađuje izvještaj o starosnoj strukturi neplaćenih obveza po dobavljačima i izvozi ga u CSV.
+ * <p>
+ * Fakture se čitaju lijenim tokom iz baze i skupljaju u blokove od {@value #CHUNK_SIZE} faktura. Svaki blok
+ * razvrstava se po dobavljačima i razredima starosti u fork/join bazenu: blok se dijeli na dijelove od najviše
+ * {@value #SPLIT_THRESHOLD} faktura, svaki dio zbraja se zasebno, a djelomični zbrojevi spajaju se po ključu
+ * dobavljača. Dok se jedan blok zbraja, iz baze se čita sljedeći, pa je u memoriji najviše dva bloka faktura
+ * i po jedan zbroj za svakog dobavljača, bez obzira na broj faktura. Iznosi se zbrajaju kao {@link BigDecimal}
+ * bez zaokruživanja, pa rezultat ne ovisi o redoslijedu zbrajanja.
+ */
+public final class AgingReportService {
+
+    private static final Logger log = LoggerFactory.getLogger(AgingReportService.class);
+    private static final int CHUNK_SIZE = 20_000;
+    private static final int SPLIT_THRESHOLD = 2_048;
+    private static final AgingBucket[] BUCKETS = AgingBucket.values();
+
+    private static final AgingReportService INSTANCE = new AgingReportService(
+            new InvoiceRepository(), ForkJoinPool.commonPool(), Clock.systemDefaultZone());
+
+    private final InvoiceRepository invoiceRepository;
+    private final ForkJoinPool pool;
+    private final Clock clock;
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "aging-report");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private AgingReportService(InvoiceRepository invoiceRepository, ForkJoinPool pool, Clock clock) {
+        this.invoiceRepository = invoiceRepository;
+        this.pool = pool;
+        this.clock = clock;
+    }
+
+    /**
+     * Vraća jedinstvenu instancu servisa.
+     * @return Instanca servisa.
+     */
+    public static AgingReportService getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Izrađuje izvještaj za današnji dan iz svih neplaćenih faktura u bazi.
+     * @return Izvještaj o starosnoj strukturi obveza.
+     * @throws RepositoryAccessException ako dođe do greške pri pristupu bazi.
+     */
+    public AgingReport buildReport() throws RepositoryAccessException {
+        LocalDate asOf = LocalDate.now(clock);
+        long start = System.nanoTime();
+        AgingReport report;
+        try (Stream<Invoice> invoices = invoiceRepository.streamOutstanding()) {
+            report = aggregate(invoices.iterator(), asOf);
+        }
+        log.info("Starosna struktura obveza izračunata za {} faktura i {} dobavljača u {} ms.",
+                report.invoiceCount(), report.suppliers().size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return report;
+    }
+
+    /**
+     * Izrađuje izvještaj iz zadanih faktura. Plaćene fakture se preskaču.
+     *
+     * @param invoices Fakture, čitaju se samo jednom i redom.
+     * @param asOf Dan prema kojem se računa broj dana nakon dospijeća.
+     * @return Izvještaj o starosnoj strukturi obveza.
+     */
+    public AgingReport aggregate(Iterator<? extends Invoice> invoices, LocalDate asOf) {
+        Map<Long, SupplierTotals> totals = new HashMap<>();
+        ForkJoinTask<Map<Long, SupplierTotals>> pending = null;
+        List<Invoice> chunk = new ArrayList<>(CHUNK_SIZE);
+        while (invoices.hasNext()) {
+            chunk.add(invoices.next());
+            if (chunk.size() == CHUNK_SIZE) {
+                pending = handOff(chunk, asOf, pending, totals);
+                chunk = new ArrayList<>(CHUNK_SIZE);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            pending = handOff(chunk, asOf, pending, totals);
+        }
+        if (pending != null) {
+            mergeInto(totals, pending.join());
+        }
+        return toReport(asOf, totals);
+    }
+
+    /**
+     * Predaje blok bazenu i, dok se on zbraja, spaja rezultat prethodnog bloka.
+     */
+    private ForkJoinTask<Map<Long, SupplierTotals>> handOff(List<Invoice> chunk, LocalDate asOf,
+                                                           ForkJoinTask<Map<Long, SupplierTotals>> pending,
+                                                           Map<Long, SupplierTotals> totals) {
+        ForkJoinTask<Map<Long, SupplierTotals>> next = pool.submit(new BucketTask(chunk, 0, chunk.size(), asOf));
+        if (pending != null) {
+            mergeInto(totals, pending.join());
+        }
+        return next;
+    }
+
+    /**
+     * Izrađuje izvještaj i izvozi ga u CSV datoteku na pozadinskoj niti te predaje rezultat na JavaFX niti.
+     *
+     * @param target Odredišna datoteka.
+     * @param onResult Prima izvezeni izvještaj na JavaFX niti.
+     * @param onError Prima grešku na JavaFX niti.
+     */
+    public void exportAsync(Path target, Consumer<AgingReport> onResult, Consumer<Exception> onError) {
+        worker.submit(() -> {
+            try {
+                AgingReport report = buildReport();
+                exportCsv(report, target);
+                Platform.runLater(() -> onResult.accept(report));
+            } catch (Exception e) {
+                log.error("Izvoz starosne strukture obveza u '{}' nije uspio.", target, e);
+                Platform.runLater(() -> onError.accept(e));
+            }
+        });
+    }
+
+    /**
+     * Zapisuje izvještaj u CSV datoteku: jedan redak po dobavljaču i zbirni redak na kraju.
+     *
+     * @param report Izvještaj.
+     * @param target Odredišna datoteka; postojeća datoteka se prepisuje.
+     * @throws IOException ako zapisivanje ne uspije.
+     */
+    public void exportCsv(AgingReport report, Path target) throws IOException {
+        try (OutputStream out = Files.newOutputStream(target);
+             CsvWriter csv = CsvWriter.forExcel(out)) {
+            List<String> header = new ArrayList<>();
+            header.add("Dobavljač");
+            for (AgingBucket bucket : BUCKETS) {
+                header.add(bucket.getLabel());
+            }
+            header.add("Ukupno");
+            header.add("Broj faktura");
+            csv.writeRow(header);
+
+            for (SupplierAging supplier : report.suppliers()) {
+                csv.writeRow(csvRow(supplier.supplierName(), supplier.amounts(), supplier.total(),
+                        supplier.invoiceCount()));
+            }
+            csv.writeRow(csvRow("Ukupno na dan " + report.asOf(), report.totals(), report.total(),
+                    report.invoiceCount()));
+        }
+    }
+
+    private static List<String> csvRow(String name, Map<AgingBucket, BigDecimal> amounts, BigDecimal total,
+                                       int invoiceCount) {
+        List<String> row = new ArrayList<>(BUCKETS.length + 3);
+        row.add(name);
+        for (AgingBucket bucket : BUCKETS) {
+            row.add(formatCsvAmount(amounts.get(bucket)));
+        }
+        row.add(formatCsvAmount(total));
+        row.add(String.valueOf(invoiceCount));
+        return row;
+    }
+
+    /**
+     * Iznos se zapisuje bez grupiranja znamenki i s decimalnim zarezom, kako ga čita Excel s hrvatskim postavkama.
+     */
+    private static String formatCsvAmount(BigDecimal amount) {
+        return amount.toPlainString().replace('.', ',');
+    }
+
+    private static void mergeInto(Map<Long, SupplierTotals> target, Map<Long, SupplierTotals> source) {
+        for (SupplierTotals totals : source.values()) {
+            SupplierTotals existing = target.putIfAbsent(totals.supplierId, totals);
+            if (existing != null) {
+                existing.add(totals);
+            }
+        }
+    }
+
+    private static AgingReport toReport(LocalDate asOf, Map<Long, SupplierTotals> totals) {
+        List<SupplierAging> suppliers = new ArrayList<>(totals.size());
+        BigDecimal[] bucketTotals = zeros();
+        int invoiceCount = 0;
+        for (SupplierTotals supplier : totals.values()) {
+            suppliers.add(supplier.toSupplierAging());
+            for (int i = 0; i < BUCKETS.length; i++) {
+                bucketTotals[i] = bucketTotals[i].add(supplier.amounts[i]);
+            }
+            invoiceCount += supplier.invoiceCount;
+        }
+        suppliers.sort(Comparator.comparing(SupplierAging::total).reversed()
+                .thenComparing(SupplierAging::supplierName, Comparator.nullsLast(Comparator.naturalOrder())));
+        return new AgingReport(asOf, suppliers, toMap(bucketTotals), sum(bucketTotals), invoiceCount);
+    }
+
+    private static BigDecimal[] zeros() {
+        BigDecimal[] amounts = new BigDecimal[BUCKETS.length];
+        Arrays.fill(amounts, BigDecimal.ZERO);
+        return amounts;
+    }
+
+    private static Map<AgingBucket, BigDecimal> toMap(BigDecimal[] amounts) {
+        Map<AgingBucket, BigDecimal> map = new EnumMap<>(AgingBucket.class);
+        for (int i = 0; i < BUCKETS.length; i++) {
+            map.put(BUCKETS[i], amounts[i]);
+        }
+        return map;
+    }
+
+    private static BigDecimal sum(BigDecimal[] amounts) {
+        BigDecimal total = BigDecimal.ZERO;
+        for (BigDecimal amount : amounts) {
+            total = total.add(amount);
+        }
+        return total;
+    }
+
+    /**
+     * Djelomični zbroj obveza jednog dobavljača po razredima starosti. Pripada jednom zadatku dok se ne spoji.
+     */
+    private static final class SupplierTotals {
+        private final Long supplierId;
+        private final String supplierName;
+        private final BigDecimal[] amounts = zeros();
+        private int invoiceCount;
+
+        private SupplierTotals(Long supplierId, String supplierName) {
+            this.supplierId = supplierId;
+            this.supplierName = supplierName;
+        }
+
+        private void add(AgingBucket bucket, BigDecimal amount) {
+            amounts[bucket.ordinal()] = amounts[bucket.ordinal()].add(amount);
+            invoiceCount++;
+        }
+
+        private void add(SupplierTotals other) {
+            for (int i = 0; i < amounts.length; i++) {
+                amounts[i] = amounts[i].add(other.amounts[i]);
+            }
+            invoiceCount += other.invoiceCount;
+        }
+
+        private SupplierAging toSupplierAging() {
+            return new SupplierAging(supplierId, supplierName, toMap(amounts), sum(amounts), invoiceCount);
+        }
+    }
+
+    /**
+     * Zbraja dio bloka faktura po dobavljačima; veće dijelove dijeli na dva podzadatka.
+     */
+    private static final class BucketTask extends RecursiveTask<Map<Long, SupplierTotals>> {
+        private final List<Invoice> invoices;
+        private final int from;
+        private final int to;
+        private final LocalDate asOf;
+
+        private BucketTask(List<Invoice> invoices, int from, int to, LocalDate asOf) {
+            this.invoices = invoices;
+            this.from = from;
+            this.to = to;
+            this.asOf = asOf;
+        }
+
+        @Override
+        protected Map<Long, SupplierTotals> compute() {
+            if (to - from <= SPLIT_THRESHOLD) {
+                return computeDirectly();
+            }
+            int middle = (from + to) >>> 1;
+            BucketTask left = new BucketTask(invoices, from, middle, asOf);
+            left.fork();
+            Map<Long, SupplierTotals> right = new BucketTask(invoices, middle, to, asOf).compute();
+            Map<Long, SupplierTotals> leftResult = left.join();
+            // Manja mapa spaja se u veću, pa spajanje ovisi o broju dobavljača u manjem dijelu.
+            if (leftResult.size() < right.size()) {
+                mergeInto(right, leftResult);
+                return right;
+            }
+            mergeInto(leftResult, right);
+            return leftResult;
+        }
+
+        private Map<Long, SupplierTotals> computeDirectly() {
+            Map<Long, SupplierTotals> totals = new HashMap<>();
+            for (int i = from; i < to; i++) {
+                Invoice invoice = invoices.get(i);
+                if (invoice.getStatus() == InvoiceStatus.PAID) {
+                    continue;
+                }
+                long daysOverdue = ChronoUnit.DAYS.between(invoice.getDueDate(), asOf);
+                Long supplierId = invoice.getSupplier().getId();
+                totals.computeIfAbsent(supplierId, id -> new SupplierTotals(id, invoice.getSupplier().getName()))
+                        .add(AgingBucket.forDaysOverdue(daysOverdue), invoice.getAmountPayable());
+            }
+            return totals;
+        }
+    }
+}
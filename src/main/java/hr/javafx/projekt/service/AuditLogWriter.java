@@ -0,0 +1,261 @@
+package hr.javafx.projekt.service;
+
+import hr.javafx.projekt.model.ChangeLogEntry;
+import hr.javafx.projekt.repository.ChangeLogRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pozadinski pisač zapisa o promjenama.
+ * Repozitoriji predaju zapise u ograničeni red i odmah nastavljaju s radom, a pozadinska nit
+ * zapise koji stignu unutar kratkog vremenskog prozora upisuje jednim upisom na disk (group commit).
+ * Kada je red pun, pozivatelj čeka dok se ne oslobodi mjesto (back-pressure).
+ */
+public final class AuditLogWriter {
+
+    private static final Logger log = LoggerFactory.getLogger(AuditLogWriter.class);
+    private static final int QUEUE_CAPACITY = 10_000;
+    private static final int MAX_BATCH_SIZE = 512;
+    private static final long GROUP_COMMIT_WINDOW_MILLIS = 5;
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 10;
+    private static final ChangeLogEntry POISON_PILL =
+            new ChangeLogEntry("STOP", "N/A", "N/A", "N/A", "N/A", LocalDateTime.MIN, "N/A");
+
+    private static final AuditLogWriter INSTANCE = new AuditLogWriter();
+
+    private final BlockingQueue<ChangeLogEntry> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final ChangeLogRepository changeLogRepository = new ChangeLogRepository();
+    private final Object progressMonitor = new Object();
+    private final AtomicLong submittedCount = new AtomicLong();
+    private long writtenCount;
+    private Thread writerThread;
+    private volatile boolean stopped;
+
+    private final LongAdder entriesWritten = new LongAdder();
+    private final LongAdder batchesWritten = new LongAdder();
+    private final LongAdder backPressureWaits = new LongAdder();
+    private final LongAdder totalFlushNanos = new LongAdder();
+    private final AtomicLong maxFlushNanos = new AtomicLong();
+    private volatile long lastFlushNanos;
+
+    private AuditLogWriter() {}
+
+    /**
+     * Vraća jedinstvenu instancu pisača.
+     * @return Instanca pisača.
+     */
+    public static AuditLogWriter getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Predaje zapis na asinkroni upis. Ako je red pun, čeka dok se ne oslobodi mjesto.
+     * Nakon gašenja pisača zapis se upisuje sinkrono.
+     * @param entry Zapis o promjeni.
+     */
+    public void submit(ChangeLogEntry entry) {
+        submitAll(List.of(entry));
+    }
+
+    /**
+     * Predaje više zapisa na asinkroni upis, redoslijedom kojim su zadani.
+     * @param entries Zapisi o promjenama.
+     */
+    public void submitAll(List<ChangeLogEntry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        synchronized (this) {
+            if (!stopped) {
+                ensureStarted();
+                for (ChangeLogEntry entry : entries) {
+                    enqueue(entry);
+                }
+                return;
+            }
+        }
+        changeLogRepository.saveChanges(entries);
+    }
+
+    /**
+     * Čeka dok svi do sada predani zapisi ne budu upisani na disk.
+     * @param timeout Najdulje vrijeme čekanja.
+     * @param unit Jedinica vremena.
+     * @return True ako su svi zapisi upisani prije isteka vremena.
+     */
+    public boolean flush(long timeout, TimeUnit unit) {
+        long target = submittedCount.get();
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        synchronized (progressMonitor) {
+            while (writtenCount < target) {
+                long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remainingMillis <= 0) {
+                    return writtenCount >= target;
+                }
+                try {
+                    progressMonitor.wait(remainingMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Zaustavlja pisača nakon što upiše sve zapise koji su već u redu.
+     * Poziva se prilikom gašenja aplikacije.
+     */
+    public void shutdown() {
+        Thread thread;
+        synchronized (this) {
+            if (stopped) {
+                return;
+            }
+            stopped = true;
+            thread = writerThread;
+        }
+        if (thread == null) {
+            return;
+        }
+        try {
+            queue.put(POISON_PILL);
+            thread.join(TimeUnit.SECONDS.toMillis(SHUTDOWN_TIMEOUT_SECONDS));
+            if (thread.isAlive()) {
+                log.warn("Pisač zapisa o promjenama nije završio u {} sekundi.", SHUTDOWN_TIMEOUT_SECONDS);
+            }
+        } catch (InterruptedException e) {
+            log.error("Prekinut proces čekanja na gašenje pisača zapisa o promjenama.", e);
+            Thread.currentThread().interrupt();
+        }
+        List<ChangeLogEntry> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        remaining.remove(POISON_PILL);
+        if (!remaining.isEmpty()) {
+            changeLogRepository.saveChanges(remaining);
+            markWritten(remaining.size());
+        }
+        log.info("Pisač zapisa o promjenama ugašen. Upisano {} zapisa u {} grupa.", entriesWritten.sum(), batchesWritten.sum());
+    }
+
+    /**
+     * Vraća metrike pisača.
+     * @return Trenutne metrike.
+     */
+    public AuditWriterMetrics getMetrics() {
+        long batches = batchesWritten.sum();
+        return new AuditWriterMetrics(
+                queue.size(),
+                QUEUE_CAPACITY,
+                entriesWritten.sum(),
+                batches,
+                backPressureWaits.sum(),
+                lastFlushNanos / 1_000_000.0,
+                batches == 0 ? 0.0 : totalFlushNanos.sum() / (double) batches / 1_000_000.0,
+                maxFlushNanos.get() / 1_000_000.0);
+    }
+
+    private void ensureStarted() {
+        if (writerThread == null) {
+            writerThread = new Thread(this::runWriter, "audit-log-writer");
+            writerThread.setDaemon(true);
+            writerThread.start();
+        }
+    }
+
+    private void enqueue(ChangeLogEntry entry) {
+        submittedCount.incrementAndGet();
+        if (queue.offer(entry)) {
+            return;
+        }
+        backPressureWaits.increment();
+        log.debug("Red zapisa o promjenama je pun, čekam na slobodno mjesto.");
+        try {
+            queue.put(entry);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Prekinuto čekanje na red zapisa o promjenama, zapis se upisuje sinkrono.");
+            changeLogRepository.saveChanges(List.of(entry));
+            markWritten(1);
+        }
+    }
+
+    /**
+     * Glavna petlja pozadinske niti: čeka prvi zapis, skuplja sve koji stignu unutar prozora
+     * i upisuje ih zajedno.
+     */
+    private void runWriter() {
+        List<ChangeLogEntry> batch = new ArrayList<>(MAX_BATCH_SIZE);
+        boolean running = true;
+        while (running) {
+            try {
+                ChangeLogEntry first = queue.take();
+                running = first != POISON_PILL;
+                if (running) {
+                    batch.add(first);
+                    running = collectBatch(batch);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+            if (!batch.isEmpty()) {
+                writeBatch(batch);
+                batch.clear();
+            }
+        }
+        synchronized (progressMonitor) {
+            progressMonitor.notifyAll();
+        }
+    }
+
+    /**
+     * Skuplja zapise koji stignu unutar prozora grupnog upisa.
+     * @return False ako je primljen signal za zaustavljanje.
+     */
+    private boolean collectBatch(List<ChangeLogEntry> batch) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(GROUP_COMMIT_WINDOW_MILLIS);
+        while (batch.size() < MAX_BATCH_SIZE) {
+            long remaining = deadline - System.nanoTime();
+            ChangeLogEntry next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+            if (next == null) {
+                return true;
+            }
+            if (next == POISON_PILL) {
+                return false;
+            }
+            batch.add(next);
+        }
+        return true;
+    }
+
+    private void writeBatch(List<ChangeLogEntry> batch) {
+        long start = System.nanoTime();
+        changeLogRepository.saveChanges(batch);
+        long elapsed = System.nanoTime() - start;
+
+        lastFlushNanos = elapsed;
+        totalFlushNanos.add(elapsed);
+        maxFlushNanos.accumulateAndGet(elapsed, Math::max);
+        entriesWritten.add(batch.size());
+        batchesWritten.increment();
+        markWritten(batch.size());
+    }
+
+    private void markWritten(int count) {
+        synchronized (progressMonitor) {
+            writtenCount += count;
+            progressMonitor.notifyAll();
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package hr.javafx.projekt.service;
+
+/**
+ * Trenutna slika stanja pozadinskog pisača zapisa o promjenama.
+ *
+ * @param queueDepth Broj zapisa koji čekaju na upis.
+ * @param queueCapacity Kapacitet reda.
+ * @param entriesWritten Ukupan broj upisanih zapisa.
+ * @param batchesWritten Ukupan broj grupnih upisa.
+ * @param backPressureWaits Broj slučajeva kada je pozivatelj morao čekati jer je red bio pun.
+ * @param lastFlushMillis Trajanje zadnjeg grupnog upisa.
+ * @param averageFlushMillis Prosječno trajanje grupnog upisa.
+ * @param maxFlushMillis Najdulje trajanje grupnog upisa.
+ */
+public record AuditWriterMetrics(
+        int queueDepth,
+        int queueCapacity,
+        long entriesWritten,
+        long batchesWritten,
+        long backPressureWaits,
+        double lastFlushMillis,
+        double averageFlushMillis,
+        double maxFlushMillis
+) {
+
+    /**
+     * Vraća prosječan broj zapisa po grupnom upisu.
+     * @return Prosječna veličina grupe.
+     */
+    public double averageBatchSize() {
+        return batchesWritten == 0 ? 0.0 : (double) entriesWritten / batchesWritten;
+    }
+}
@@ -0,0 +1,271 @@
+package hr.javafx.projekt.service;
+
+import hr.javafx.projekt.database.InstanceIdentity;
+import hr.javafx.projekt.enums.ChangeKind;
+import hr.javafx.projekt.exception.RepositoryAccessException;
+import hr.javafx.projekt.model.Invoice;
+import hr.javafx.projekt.model.InvoiceDelta;
+import hr.javafx.projekt.model.SequencedChange;
+import hr.javafx.projekt.model.Supplier;
+import hr.javafx.projekt.repository.ChangeSequenceRepository;
+import hr.javafx.projekt.repository.InvoiceRepository;
+import hr.javafx.projekt.repository.SupplierCache;
+import hr.javafx.projekt.repository.SupplierRepository;
+import hr.javafx.projekt.repository.SupplierSearchIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * Periodički čita slijed promjena ({@link ChangeSequenceRepository}) i primjenjuje promjene drugih instanci
+ * aplikacije: poništava dobavljače u {@link SupplierCache}, ažurira {@link SupplierSearchIndex} i dojavljuje ih
+ * preko {@link SupplierChangeBus}, a promjene faktura dojavljuje osluškivačima {@link InvoiceRepository}, pa ih
+ * otvoreni ekrani prikazuju bez punog učitavanja.
+ * <p>
+ * Kada nema promjena, jedan prolaz je jedan upit po primarnom ključu ({@code WHERE seq > ?}) koji ne vraća ništa.
+ * Redni brojevi dodjeljuju se pri upisu, a ne pri potvrdi transakcije, pa se preskočeni brojevi pamte kao praznine
+ * i sljedećih {@link #GAP_GRACE} čitaju ponovno, za slučaj da pripadaju transakciji koja još nije potvrđena.
+ * Ako praznina ne bude popunjena, ili je instanca predugo bila bez veze s bazom, točne promjene nisu poznate
+ * pa se poništavaju sve priručne memorije, a ekrani ponovno učitavaju podatke.
+ * <p>
+ * Položaj u slijedu i praznine pomiču se tek kada su sve pročitane promjene primijenjene, pa se promjene
+ * prolaza koji nije uspio (greška baze usred čitanja ili primjene) čitaju i primjenjuju ponovno.
+ * <p>
+ * Nije sigurna za istovremeno pozivanje; izvršava se na jednoj pozadinskoj niti.
+ */
+public final class ChangeSequencePoller implements Runnable {
+
+    private static final Logger log = LoggerFactory.getLogger(ChangeSequencePoller.class);
+
+    /** Koliko dugo se promjene čuvaju u slijedu. */
+    public static final Duration RETENTION = Duration.ofDays(1);
+
+    private static final Duration GAP_GRACE = Duration.ofSeconds(30);
+    private static final int BATCH_SIZE = 1_000;
+    private static final int MAX_GAPS = 1_000;
+    private static final int MAX_PATCHED_SUPPLIERS = 100;
+
+    private static final String INVOICE_TYPE = Invoice.class.getSimpleName();
+    private static final String SUPPLIER_TYPE = Supplier.class.getSimpleName();
+
+    /**
+     * Raspon preskočenih rednih brojeva.
+     *
+     * @param to Zadnji preskočeni redni broj (uključivo).
+     * @param seenAt Trenutak kada je praznina uočena.
+     */
+    private record Gap(long to, Instant seenAt) {
+    }
+
+    private final ChangeSequenceRepository changeSequence;
+    private final SupplierRepository supplierRepository;
+    private final Clock clock;
+    private final String origin = InstanceIdentity.get();
+
+    private final TreeMap<Long, Gap> gaps = new TreeMap<>();
+    private long lastSeen = -1;
+    private Instant lastPolled;
+
+    /**
+     * Kreira čitača slijeda promjena.
+     *
+     * @param changeSequence Repozitorij slijeda promjena.
+     * @param supplierRepository Repozitorij iz kojeg se čitaju promijenjeni dobavljači.
+     * @param clock Sat prema kojem se mjeri trajanje praznina.
+     */
+    public ChangeSequencePoller(ChangeSequenceRepository changeSequence, SupplierRepository supplierRepository,
+                                Clock clock) {
+        this.changeSequence = changeSequence;
+        this.supplierRepository = supplierRepository;
+        this.clock = clock;
+    }
+
+    /**
+     * Čita nove promjene i primjenjuje ih. Greške se samo logiraju, a promjene se čitaju u sljedećem
+     * prolazu; iznimka ne smije izaći iz metode jer bi periodičko izvršavanje tada prestalo.
+     */
+    @Override
+    public void run() {
+        try {
+            poll();
+        } catch (RepositoryAccessException e) {
+            log.warn("Čitanje slijeda promjena nije uspjelo; pokušat ću ponovno.", e);
+        } catch (RuntimeException e) {
+            log.error("Neočekivana greška pri primjeni slijeda promjena; pokušat ću ponovno.", e);
+        }
+    }
+
+    /**
+     * Briše promjene starije od {@link #RETENTION} iz slijeda. Greške se samo logiraju.
+     */
+    public void pruneExpired() {
+        try {
+            int deleted = changeSequence.deleteOlderThan(LocalDateTime.now(clock).minus(RETENTION));
+            log.info("Iz slijeda promjena uklonjeno je {} zastarjelih zapisa.", deleted);
+        } catch (RepositoryAccessException e) {
+            log.error("Uklanjanje zastarjelih zapisa iz slijeda promjena nije uspjelo.", e);
+        }
+    }
+
+    private void poll() {
+        Instant now = clock.instant();
+        if (lastSeen < 0 || Duration.between(lastPolled, now).compareTo(RETENTION) > 0) {
+            if (lastSeen >= 0) {
+                log.warn("Slijed promjena nije pročitan od {}; poništavam sve priručne memorije.", lastPolled);
+                invalidateAll();
+            }
+            lastSeen = changeSequence.findLatestSequence();
+            gaps.clear();
+            lastPolled = now;
+            log.info("Praćenje slijeda promjena počinje od rednog broja {} (instanca {}).", lastSeen, origin);
+            return;
+        }
+        if (expireGaps(now)) {
+            invalidateAll();
+        }
+
+        long seenBefore = lastSeen;
+        TreeMap<Long, Gap> gapsBefore = new TreeMap<>(gaps);
+        try {
+            readAndApply(now);
+        } catch (RuntimeException e) {
+            lastSeen = seenBefore;
+            gaps.clear();
+            gaps.putAll(gapsBefore);
+            throw e;
+        }
+        lastPolled = now;
+    }
+
+    /**
+     * Čita promjene nakon zadnje pročitane i primjenjuje ih. Ako čitanje ili primjena ne uspije,
+     * pozivatelj vraća pročitani položaj i praznine, pa se iste promjene čitaju i primjenjuju ponovno.
+     */
+    private void readAndApply(Instant now) {
+        List<SequencedChange> changes = new ArrayList<>();
+        long readFrom = gaps.isEmpty() ? lastSeen : gaps.firstKey() - 1;
+        List<SequencedChange> batch;
+        do {
+            batch = changeSequence.findAfter(readFrom, BATCH_SIZE);
+            for (SequencedChange change : batch) {
+                if (accept(change.seq(), now) && !origin.equals(change.origin())) {
+                    changes.add(change);
+                }
+            }
+            if (!batch.isEmpty()) {
+                readFrom = batch.get(batch.size() - 1).seq();
+            }
+        } while (batch.size() == BATCH_SIZE);
+
+        if (gaps.size() > MAX_GAPS) {
+            log.warn("Previše nepopunjenih praznina u slijedu promjena ({}); poništavam sve priručne memorije.",
+                    gaps.size());
+            gaps.clear();
+            invalidateAll();
+            return;
+        }
+        if (!changes.isEmpty()) {
+            apply(changes);
+        }
+    }
+
+    /**
+     * Bilježi pročitani redni broj i određuje treba li promjenu primijeniti.
+     * @return True ako promjena dosad nije pročitana.
+     */
+    private boolean accept(long seq, Instant now) {
+        if (seq > lastSeen) {
+            if (seq > lastSeen + 1) {
+                gaps.put(lastSeen + 1, new Gap(seq - 1, now));
+            }
+            lastSeen = seq;
+            return true;
+        }
+        Map.Entry<Long, Gap> entry = gaps.floorEntry(seq);
+        if (entry == null || entry.getValue().to() < seq) {
+            return false;
+        }
+        Gap gap = gaps.remove(entry.getKey());
+        if (entry.getKey() < seq) {
+            gaps.put(entry.getKey(), new Gap(seq - 1, gap.seenAt()));
+        }
+        if (seq < gap.to()) {
+            gaps.put(seq + 1, new Gap(gap.to(), gap.seenAt()));
+        }
+        return true;
+    }
+
+    /**
+     * Uklanja praznine starije od {@link #GAP_GRACE}.
+     * @return True ako je uklonjena barem jedna praznina.
+     */
+    private boolean expireGaps(Instant now) {
+        Instant cutoff = now.minus(GAP_GRACE);
+        boolean expired = gaps.values().removeIf(gap -> gap.seenAt().isBefore(cutoff));
+        if (expired) {
+            log.info("Dio slijeda promjena nije popunjen u {} s; poništavam sve priručne memorije.",
+                    GAP_GRACE.toSeconds());
+        }
+        return expired;
+    }
+
+    private void apply(List<SequencedChange> changes) {
+        InvoiceDelta.Builder invoices = new InvoiceDelta.Builder();
+        List<SequencedChange> suppliers = new ArrayList<>();
+        for (SequencedChange change : changes) {
+            if (INVOICE_TYPE.equals(change.entityType())) {
+                List<Long> id = List.of(change.entityId());
+                switch (change.kind()) {
+                    case INSERT -> invoices.inserted(id);
+                    case UPDATE -> invoices.updated(id);
+                    case DELETE -> invoices.deleted(id);
+                }
+            } else if (SUPPLIER_TYPE.equals(change.entityType())) {
+                suppliers.add(change);
+            }
+        }
+        log.debug("Primjenjujem {} promjena drugih instanci ({} dobavljača).", changes.size(), suppliers.size());
+
+        if (suppliers.size() > MAX_PATCHED_SUPPLIERS) {
+            SupplierCache.getInstance().invalidateAll();
+            SupplierSearchIndex.getInstance().invalidateAll();
+        } else {
+            suppliers.forEach(this::applySupplierChange);
+        }
+        if (!suppliers.isEmpty()) {
+            SupplierChangeBus.getInstance().publish();
+        }
+        InvoiceRepository.notifyExternalChanges(invoices.build());
+    }
+
+    private void applySupplierChange(SequencedChange change) {
+        Long id = change.entityId();
+        SupplierCache.getInstance().invalidate(id);
+        if (change.kind() == ChangeKind.DELETE) {
+            SupplierSearchIndex.getInstance().remove(id);
+            return;
+        }
+        Optional<Supplier> supplier = supplierRepository.findById(id);
+        if (supplier.isPresent()) {
+            SupplierSearchIndex.getInstance().put(supplier.get());
+        } else {
+            SupplierSearchIndex.getInstance().remove(id);
+        }
+    }
+
+    private void invalidateAll() {
+        SupplierCache.getInstance().invalidateAll();
+        SupplierSearchIndex.getInstance().invalidateAll();
+        SupplierChangeBus.getInstance().publish();
+        InvoiceRepository.notifyExternalChanges(InvoiceDelta.RELOAD);
+    }
+}
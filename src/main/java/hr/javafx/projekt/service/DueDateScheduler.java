@@ -0,0 +1,228 @@
+package hr.javafx.projekt.service;
+
+import hr.javafx.projekt.enums.InvoiceStatus;
+import hr.javafx.projekt.exception.RepositoryAccessException;
+import hr.javafx.projekt.model.Invoice;
+import hr.javafx.projekt.model.InvoiceDelta;
+import hr.javafx.projekt.repository.InvoiceChangeListener;
+import hr.javafx.projekt.repository.InvoiceRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Raspoređivač koji budi {@link InvoiceStatusMonitor} točno na granici dana kada neka
+ * neplaćena faktura prijeđe rok dospijeća, umjesto periodičkog pregledavanja cijele tablice.
+ * Neplaćene fakture drži u strukturi sortiranoj po datumu dospijeća koju inkrementalno
+ * ažurira na temelju upisa u {@link InvoiceRepository}.
+ */
+public final class DueDateScheduler implements InvoiceChangeListener {
+
+    private static final Logger log = LoggerFactory.getLogger(DueDateScheduler.class);
+
+    private final ScheduledExecutorService executor;
+    private final InvoiceStatusMonitor monitor;
+    private final InvoiceRepository invoiceRepository = new InvoiceRepository();
+    private final Clock clock;
+
+    private final TreeMap<LocalDate, Set<Long>> unpaidByDueDate = new TreeMap<>();
+    private final Map<Long, LocalDate> dueDateById = new HashMap<>();
+    private ScheduledFuture<?> nextWakeUp;
+    private LocalDate scheduledFor;
+    private boolean running;
+
+    /**
+     * Konstruktor raspoređivača.
+     * @param executor Executor na kojem se izvršava buđenje monitora.
+     * @param monitor Monitor koji označava dospjele fakture.
+     * @param clock Sat prema kojem se određuje granica dana.
+     */
+    public DueDateScheduler(ScheduledExecutorService executor, InvoiceStatusMonitor monitor, Clock clock) {
+        this.executor = executor;
+        this.monitor = monitor;
+        this.clock = clock;
+    }
+
+    /**
+     * Registrira se kao osluškivač repozitorija. Neplaćene fakture se učitavaju
+     * prvim pozivom {@link #reconcile()} ili {@link #reload()}.
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        InvoiceRepository.addChangeListener(this);
+    }
+
+    /**
+     * Prestaje osluškivati promjene i otkazuje zakazano buđenje.
+     */
+    public synchronized void stop() {
+        running = false;
+        InvoiceRepository.removeChangeListener(this);
+        cancelWakeUp();
+    }
+
+    /**
+     * Rezervni, periodički prolaz: pokreće puni monitor i ponovno učitava neplaćene fakture
+     * iz baze, čime se ispravljaju eventualna odstupanja (npr. promjene iz drugih instanci).
+     */
+    public void reconcile() {
+        monitor.run();
+        reload();
+    }
+
+    /**
+     * Ponovno učitava datume dospijeća svih neplaćenih faktura iz baze.
+     */
+    public void reload() {
+        Map<Long, LocalDate> dueDates;
+        try {
+            dueDates = invoiceRepository.findUnpaidDueDates();
+        } catch (RepositoryAccessException e) {
+            log.error("Nije moguće učitati datume dospijeća neplaćenih faktura.", e);
+            return;
+        }
+        synchronized (this) {
+            unpaidByDueDate.clear();
+            dueDateById.clear();
+            dueDates.forEach(this::track);
+            reschedule();
+        }
+        log.debug("Raspoređivač dospijeća prati {} neplaćenih faktura.", dueDates.size());
+    }
+
+    @Override
+    public synchronized void invoiceSaved(Invoice invoice) {
+        untrack(invoice.getId());
+        if (invoice.getStatus() == InvoiceStatus.UNPAID && invoice.getDueDate() != null) {
+            track(invoice.getId(), invoice.getDueDate());
+        }
+        reschedule();
+    }
+
+    @Override
+    public synchronized void invoicesImported(List<Invoice> invoices) {
+        for (Invoice invoice : invoices) {
+            if (invoice.getStatus() == InvoiceStatus.UNPAID && invoice.getDueDate() != null) {
+                track(invoice.getId(), invoice.getDueDate());
+            }
+        }
+        reschedule();
+    }
+
+    @Override
+    public synchronized void invoiceDeleted(Long id) {
+        untrack(id);
+        reschedule();
+    }
+
+    @Override
+    public synchronized void invoicesMarkedOverdue(List<Long> ids) {
+        ids.forEach(this::untrack);
+        reschedule();
+    }
+
+    /**
+     * Za promjene drugih instanci nisu poznati novi datumi dospijeća, pa se neplaćene fakture ponovno učitavaju.
+     * @param delta Promjene faktura.
+     */
+    @Override
+    public void invoicesChangedExternally(InvoiceDelta delta) {
+        if (!delta.reloadRequired() && delta.inserted().isEmpty() && delta.updated().isEmpty()) {
+            synchronized (this) {
+                delta.deleted().forEach(this::untrack);
+                reschedule();
+            }
+            return;
+        }
+        reload();
+    }
+
+    /**
+     * Izvršava se na granici dana: pokreće monitor koji jednim upitom označava dospjele fakture.
+     */
+    private void onDayBoundary() {
+        synchronized (this) {
+            nextWakeUp = null;
+            scheduledFor = null;
+            if (!running) {
+                return;
+            }
+        }
+        log.info("Granica dana dosegnuta, pokrećem provjeru dospjelih faktura.");
+        monitor.run();
+        synchronized (this) {
+            LocalDate today = LocalDate.now(clock);
+            while (!unpaidByDueDate.isEmpty() && unpaidByDueDate.firstKey().isBefore(today)) {
+                Set<Long> expired = unpaidByDueDate.pollFirstEntry().getValue();
+                expired.forEach(dueDateById::remove);
+            }
+            reschedule();
+        }
+    }
+
+    /**
+     * Zakazuje buđenje za početak dana nakon najranijeg datuma dospijeća.
+     * Poziva se isključivo dok se drži zaključavanje.
+     */
+    private void reschedule() {
+        if (!running) {
+            return;
+        }
+        if (unpaidByDueDate.isEmpty()) {
+            cancelWakeUp();
+            return;
+        }
+        LocalDate boundary = unpaidByDueDate.firstKey().plusDays(1);
+        if (boundary.equals(scheduledFor) && nextWakeUp != null && !nextWakeUp.isDone()) {
+            return;
+        }
+        cancelWakeUp();
+
+        ZonedDateTime now = ZonedDateTime.now(clock);
+        ZonedDateTime wakeUpAt = boundary.atStartOfDay(clock.getZone());
+        long delayMillis = Math.max(Duration.between(now, wakeUpAt).toMillis(), 0);
+        nextWakeUp = executor.schedule(this::onDayBoundary, delayMillis, TimeUnit.MILLISECONDS);
+        scheduledFor = boundary;
+        log.debug("Sljedeća provjera dospijeća zakazana za {} (za {} ms).", wakeUpAt, delayMillis);
+    }
+
+    private void cancelWakeUp() {
+        if (nextWakeUp != null) {
+            nextWakeUp.cancel(false);
+            nextWakeUp = null;
+            scheduledFor = null;
+        }
+    }
+
+    private void track(Long id, LocalDate dueDate) {
+        dueDateById.put(id, dueDate);
+        unpaidByDueDate.computeIfAbsent(dueDate, date -> new HashSet<>()).add(id);
+    }
+
+    private void untrack(Long id) {
+        LocalDate dueDate = dueDateById.remove(id);
+        if (dueDate != null) {
+            Set<Long> ids = unpaidByDueDate.get(dueDate);
+            ids.remove(id);
+            if (ids.isEmpty()) {
+                unpaidByDueDate.remove(dueDate);
+            }
+        }
+    }
+}
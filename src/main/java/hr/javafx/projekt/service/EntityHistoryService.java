@@ -0,0 +1,224 @@
+package hr.javafx.projekt.service;
+
+import hr.javafx.projekt.model.ChangeLogEntry;
+import hr.javafx.projekt.model.EntityState;
+import hr.javafx.projekt.model.FieldChange;
+import hr.javafx.projekt.repository.ChangeLogCriteria;
+import hr.javafx.projekt.repository.ChangeLogRepository;
+import hr.javafx.projekt.repository.Page;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Rekonstruira stanje entiteta u zadanom trenutku ponovnim primjenjivanjem zapisa iz dnevnika promjena.
+ * <p>
+ * Dodavanje postavlja polja iz zapisanog opisa entiteta, ažuriranje mijenja promijenjena polja,
+ * a brisanje uklanja entitet. Ako dnevnik nema zapis o dodavanju entiteta, stanje sastavljeno samo od
+ * ažuriranja označava se kao nepotpuno ({@link EntityState#complete()}).
+ * <p>
+ * Tijekom rekonstrukcije svakih {@value #SNAPSHOT_INTERVAL} primijenjenih zapisa pamti se snimka stanja,
+ * pa sljedeća rekonstrukcija istog entiteta kreće od najbliže ranije snimke i iz dnevnika čita samo
+ * zapise nastale nakon nje. Snimke se drže za ograničen broj entiteta (LRU).
+ * <p>
+ * Arhivirani segmenti su sažeti, pa za razdoblja u arhivi međustanja između spojenih ažuriranja
+ * nisu dostupna; stanje nakon svakog spojenog ažuriranja je točno.
+ */
+public final class EntityHistoryService {
+
+    private static final int SNAPSHOT_INTERVAL = 64;
+    private static final int MAX_SNAPSHOT_ENTITIES = 1_000;
+    private static final int PAGE_SIZE = 1_000;
+    private static final String NOT_APPLICABLE = "N/A";
+    private static final Pattern DESCRIPTION = Pattern.compile("\\w+\\[(.*)]", Pattern.DOTALL);
+    private static final Pattern PROPERTY_SEPARATOR = Pattern.compile(", (?=\\w+=)");
+
+    private static final EntityHistoryService INSTANCE = new EntityHistoryService(new ChangeLogRepository());
+
+    /**
+     * Ključ entiteta u memoriji snimki.
+     */
+    private record EntityKey(String entityName, Long entityId) {
+    }
+
+    /**
+     * Stanje entiteta nakon svih zapisa zaključno s vremenom {@code timestampMillis}.
+     */
+    private record Snapshot(long timestampMillis, boolean exists, boolean complete, Map<String, String> fields,
+                            LocalDateTime lastChange) {
+    }
+
+    private final ChangeLogRepository changeLogRepository;
+    private final Map<EntityKey, NavigableMap<Long, Snapshot>> snapshots =
+            new LinkedHashMap<>(64, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<EntityKey, NavigableMap<Long, Snapshot>> eldest) {
+                    return size() > MAX_SNAPSHOT_ENTITIES;
+                }
+            };
+
+    private EntityHistoryService(ChangeLogRepository changeLogRepository) {
+        this.changeLogRepository = changeLogRepository;
+    }
+
+    /**
+     * Vraća jedinstvenu instancu servisa.
+     * @return Instanca servisa.
+     */
+    public static EntityHistoryService getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Rekonstruira stanje entiteta u zadanom trenutku.
+     *
+     * @param entityName Naziv entiteta, npr. "Invoice".
+     * @param entityId ID entiteta.
+     * @param asOf Trenutak za koji se traži stanje (uključivo).
+     * @return Stanje entiteta, ili prazan Optional ako u tom trenutku nije postojao ili o njemu nema zapisa.
+     */
+    public Optional<EntityState> stateAt(String entityName, Long entityId, LocalDateTime asOf) {
+        EntityKey key = new EntityKey(entityName, entityId);
+        long asOfMillis = toMillis(asOf);
+        Snapshot start = nearestSnapshot(key, asOfMillis);
+
+        List<ChangeLogEntry> delta = readDelta(key, start, asOf);
+        boolean exists = start != null && start.exists();
+        boolean complete = start != null && start.complete();
+        Map<String, String> fields = start == null ? new HashMap<>() : new HashMap<>(start.fields());
+        LocalDateTime lastChange = start == null ? null : start.lastChange();
+        List<Snapshot> taken = new ArrayList<>();
+        int sinceSnapshot = 0;
+        for (int i = 0; i < delta.size(); i++) {
+            ChangeLogEntry entry = delta.get(i);
+            exists = apply(entry, fields);
+            if ("ADD".equals(entry.changeType()) || "DELETE".equals(entry.changeType())) {
+                complete = exists;
+            }
+            lastChange = entry.timestamp();
+            sinceSnapshot++;
+            // Snimka smije pasti samo između zapisa različitih milisekundi, jer se čitanje nastavlja iza njezina vremena.
+            long millis = toMillis(lastChange);
+            boolean boundary = i + 1 < delta.size() && toMillis(delta.get(i + 1).timestamp()) > millis;
+            if (sinceSnapshot >= SNAPSHOT_INTERVAL && boundary) {
+                taken.add(new Snapshot(millis, exists, complete, Map.copyOf(fields), lastChange));
+                sinceSnapshot = 0;
+            }
+        }
+        remember(key, taken);
+
+        if (!exists) {
+            return Optional.empty();
+        }
+        return Optional.of(new EntityState(entityName, entityId, fields, lastChange, complete));
+    }
+
+    private synchronized Snapshot nearestSnapshot(EntityKey key, long asOfMillis) {
+        NavigableMap<Long, Snapshot> entitySnapshots = snapshots.get(key);
+        if (entitySnapshots == null) {
+            return null;
+        }
+        Map.Entry<Long, Snapshot> nearest = entitySnapshots.floorEntry(asOfMillis);
+        return nearest == null ? null : nearest.getValue();
+    }
+
+    private synchronized void remember(EntityKey key, List<Snapshot> taken) {
+        if (!taken.isEmpty()) {
+            NavigableMap<Long, Snapshot> entitySnapshots = snapshots.computeIfAbsent(key, k -> new TreeMap<>());
+            for (Snapshot snapshot : taken) {
+                entitySnapshots.putIfAbsent(snapshot.timestampMillis(), snapshot);
+            }
+        }
+    }
+
+    /**
+     * Čita zapise entiteta nakon snimke (ili od početka) do zadanog trenutka, od najstarijeg prema najnovijem.
+     * Zapisi u dnevniku imaju vrijeme zaokruženo na milisekundu, pa se čitanje nastavlja milisekundu nakon snimke.
+     */
+    private List<ChangeLogEntry> readDelta(EntityKey key, Snapshot start, LocalDateTime asOf) {
+        LocalDateTime from = start == null
+                ? null
+                : start.lastChange().truncatedTo(ChronoUnit.MILLIS).plus(1, ChronoUnit.MILLIS);
+        ChangeLogCriteria criteria = new ChangeLogCriteria.Builder()
+                .withEntityName(key.entityName())
+                .withEntityId(key.entityId())
+                .withTimeBetween(from, asOf)
+                .build();
+        List<ChangeLogEntry> newestFirst = new ArrayList<>();
+        Long cursor = null;
+        Page<ChangeLogEntry> page;
+        do {
+            page = changeLogRepository.findChanges(criteria, cursor, PAGE_SIZE);
+            newestFirst.addAll(page.items());
+            cursor = page.nextCursor();
+        } while (page.hasMore());
+        Collections.reverse(newestFirst);
+        return newestFirst;
+    }
+
+    /**
+     * Primjenjuje jedan zapis na polja entiteta.
+     * @return True ako entitet nakon zapisa postoji.
+     */
+    private static boolean apply(ChangeLogEntry entry, Map<String, String> fields) {
+        if ("DELETE".equals(entry.changeType())) {
+            fields.clear();
+            return false;
+        }
+        if ("ADD".equals(entry.changeType())) {
+            fields.clear();
+            fields.putAll(parseDescription(entry.newValue()));
+        } else if (!entry.changes().isEmpty()) {
+            for (FieldChange change : entry.changes()) {
+                putValue(fields, change.fieldName(), change.newValue());
+            }
+        } else if (!NOT_APPLICABLE.equals(entry.fieldName())) {
+            putValue(fields, entry.fieldName(), entry.newValue());
+        }
+        return true;
+    }
+
+    private static void putValue(Map<String, String> fields, String fieldName, String value) {
+        if (fieldName != null && value != null) {
+            fields.put(fieldName, value);
+        }
+    }
+
+    /**
+     * Čita polja iz opisa entiteta oblika "Entitet[polje=vrijednost, ...]", kakav se zapisuje pri dodavanju.
+     * Vrijednost smije sadržavati zarez ako iza njega ne slijedi novi naziv polja.
+     */
+    private static Map<String, String> parseDescription(String description) {
+        Map<String, String> fields = new HashMap<>();
+        if (description == null) {
+            return fields;
+        }
+        Matcher matcher = DESCRIPTION.matcher(description);
+        if (!matcher.matches() || matcher.group(1).isEmpty()) {
+            return fields;
+        }
+        for (String property : PROPERTY_SEPARATOR.split(matcher.group(1))) {
+            int separator = property.indexOf('=');
+            if (separator > 0) {
+                fields.put(property.substring(0, separator), property.substring(separator + 1));
+            }
+        }
+        return fields;
+    }
+
+    private static long toMillis(LocalDateTime timestamp) {
+        return timestamp.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+}
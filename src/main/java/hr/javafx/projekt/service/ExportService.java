@@ -0,0 +1,238 @@
+package hr.javafx.projekt.service;
+
+import hr.javafx.projekt.enums.ExportFormat;
+import hr.javafx.projekt.enums.InvoiceCsvColumn;
+import hr.javafx.projekt.model.Entity;
+import hr.javafx.projekt.model.Invoice;
+import hr.javafx.projekt.model.Supplier;
+import hr.javafx.projekt.repository.AbstractRepository;
+import hr.javafx.projekt.repository.InvoiceRepository;
+import hr.javafx.projekt.repository.SupplierRepository;
+import hr.javafx.projekt.utils.CsvWriter;
+import hr.javafx.projekt.utils.XlsxWriter;
+import javafx.application.Platform;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Izvozi fakture i dobavljače u CSV ili XLSX datoteku.
+ * <p>
+ * Retci se čitaju lijenim tokom iz baze ({@link AbstractRepository#streamAll()}) i svaki se redak odmah
+ * zapisuje u datoteku, pa je u memoriji samo blok redaka koji je baza dohvatila i međuspremnik pisača,
+ * bez obzira na broj redaka. Izvoz se izvodi na pozadinskoj niti, a napredak se prikazuje kao zadatak
+ * u {@link StatusBarState}. Podaci se zapisuju u privremenu datoteku koja se tek na kraju premješta na
+ * odredište, pa prekinuti izvoz ne ostavlja nepotpunu datoteku.
+ * <p>
+ * Stupci izvoza faktura odgovaraju formatu uvoza ({@link InvoiceCsvColumn}), pa se izvezena CSV datoteka
+ * može ponovno uvesti.
+ */
+public final class ExportService {
+
+    private static final Logger log = LoggerFactory.getLogger(ExportService.class);
+    private static final int PROGRESS_STEP_ROWS = 1_000;
+
+    private static final ExportService INSTANCE = new ExportService(new InvoiceRepository(), new SupplierRepository());
+
+    private final InvoiceRepository invoiceRepository;
+    private final SupplierRepository supplierRepository;
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "export");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Opis jednog izvoza: naziv, zaglavlje i pretvorba entiteta u ćelije retka.
+     */
+    private record ExportDefinition<T>(String name, List<String> header, Function<T, List<Object>> toCells) {
+    }
+
+    private static final ExportDefinition<Invoice> INVOICES = new ExportDefinition<>(
+            "Fakture",
+            Arrays.stream(InvoiceCsvColumn.values()).map(InvoiceCsvColumn::getHeader).toList(),
+            invoice -> Arrays.asList(
+                    invoice.getInvoiceNumber(),
+                    invoice.getSupplier().getOib(),
+                    invoice.getSupplier().getName(),
+                    invoice.getIssueDate(),
+                    invoice.getDueDate(),
+                    invoice.getAmount(),
+                    invoice.getStatus().name()));
+
+    private static final ExportDefinition<Supplier> SUPPLIERS = new ExportDefinition<>(
+            "Dobavljači",
+            List.of("id", "naziv", "adresa", "oib"),
+            supplier -> Arrays.asList(supplier.getId(), supplier.getName(), supplier.getAddress(), supplier.getOib()));
+
+    private ExportService(InvoiceRepository invoiceRepository, SupplierRepository supplierRepository) {
+        this.invoiceRepository = invoiceRepository;
+        this.supplierRepository = supplierRepository;
+    }
+
+    /**
+     * Vraća jedinstvenu instancu servisa.
+     * @return Instanca servisa.
+     */
+    public static ExportService getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Izvozi sve fakture na pozadinskoj niti.
+     *
+     * @param target Odredišna datoteka.
+     * @param format Format datoteke.
+     * @param state Statusna traka u kojoj se prikazuje napredak.
+     * @param onResult Prima broj izvezenih redaka na JavaFX niti.
+     * @param onError Prima grešku na JavaFX niti.
+     */
+    public void exportInvoicesAsync(Path target, ExportFormat format, StatusBarState state,
+                                    Consumer<Long> onResult, Consumer<Exception> onError) {
+        submit(invoiceRepository, INVOICES, target, format, state, onResult, onError);
+    }
+
+    /**
+     * Izvozi sve dobavljače na pozadinskoj niti.
+     *
+     * @param target Odredišna datoteka.
+     * @param format Format datoteke.
+     * @param state Statusna traka u kojoj se prikazuje napredak.
+     * @param onResult Prima broj izvezenih redaka na JavaFX niti.
+     * @param onError Prima grešku na JavaFX niti.
+     */
+    public void exportSuppliersAsync(Path target, ExportFormat format, StatusBarState state,
+                                     Consumer<Long> onResult, Consumer<Exception> onError) {
+        submit(supplierRepository, SUPPLIERS, target, format, state, onResult, onError);
+    }
+
+    private <T extends Entity> void submit(AbstractRepository<T> repository, ExportDefinition<T> definition,
+                                           Path target, ExportFormat format, StatusBarState state,
+                                           Consumer<Long> onResult, Consumer<Exception> onError) {
+        worker.submit(() -> {
+            state.startTask("Izvoz: " + definition.name());
+            try {
+                long rows = export(repository, definition, target, format, state);
+                Platform.runLater(() -> onResult.accept(rows));
+            } catch (Exception e) {
+                log.error("Izvoz '{}' u '{}' nije uspio.", definition.name(), target, e);
+                Platform.runLater(() -> onError.accept(e));
+            } finally {
+                state.finishTask();
+            }
+        });
+    }
+
+    private <T extends Entity> long export(AbstractRepository<T> repository, ExportDefinition<T> definition,
+                                           Path target, ExportFormat format, StatusBarState state) throws IOException {
+        long start = System.nanoTime();
+        int total = repository.countAll();
+        Path temp = Files.createTempFile(target.toAbsolutePath().getParent(), ".export-", format.getExtension());
+        long rows = 0;
+        try {
+            try (OutputStream out = Files.newOutputStream(temp);
+                 RowSink sink = openSink(out, format, definition.name());
+                 Stream<T> entities = repository.streamAll()) {
+                sink.writeHeader(definition.header());
+                Iterator<T> iterator = entities.iterator();
+                while (iterator.hasNext()) {
+                    sink.writeRow(definition.toCells().apply(iterator.next()));
+                    rows++;
+                    if (rows % PROGRESS_STEP_ROWS == 0) {
+                        state.updateTask(String.format("Izvoz: %s (%d/%d)", definition.name(), rows, total),
+                                total > 0 ? Math.min(1.0, (double) rows / total) : -1.0);
+                    }
+                }
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        log.info("Izvoz '{}' u '{}': {} redaka u {} ms.", definition.name(), target, rows,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return rows;
+    }
+
+    private static RowSink openSink(OutputStream out, ExportFormat format, String sheetName) throws IOException {
+        return switch (format) {
+            case CSV -> new CsvSink(CsvWriter.forExcel(out));
+            case XLSX -> new XlsxSink(XlsxWriter.create(out, sheetName));
+        };
+    }
+
+    /**
+     * Odredište redaka izvoza, neovisno o formatu datoteke.
+     */
+    private interface RowSink extends Closeable {
+        void writeHeader(List<String> titles) throws IOException;
+
+        void writeRow(List<Object> cells) throws IOException;
+    }
+
+    /**
+     * Zapisuje retke u CSV. Iznosi se zapisuju s decimalnim zarezom, a datumi u ISO obliku, kako ih čita uvoz.
+     */
+    private record CsvSink(CsvWriter writer) implements RowSink {
+        @Override
+        public void writeHeader(List<String> titles) throws IOException {
+            writer.writeRow(titles);
+        }
+
+        @Override
+        public void writeRow(List<Object> cells) throws IOException {
+            List<String> values = new ArrayList<>(cells.size());
+            for (Object cell : cells) {
+                if (cell == null) {
+                    values.add(null);
+                } else if (cell instanceof BigDecimal amount) {
+                    values.add(amount.toPlainString().replace('.', ','));
+                } else {
+                    values.add(cell.toString());
+                }
+            }
+            writer.writeRow(values);
+        }
+
+        @Override
+        public void close() throws IOException {
+            writer.close();
+        }
+    }
+
+    /**
+     * Zapisuje retke u XLSX, s iznosima kao brojevima i datumima kao datumima.
+     */
+    private record XlsxSink(XlsxWriter writer) implements RowSink {
+        @Override
+        public void writeHeader(List<String> titles) throws IOException {
+            writer.writeHeader(titles);
+        }
+
+        @Override
+        public void writeRow(List<Object> cells) throws IOException {
+            writer.writeRow(cells);
+        }
+
+        @Override
+        public void close() throws IOException {
+            writer.close();
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package hr.javafx.projekt.service;
+
+import hr.javafx.projekt.model.Invoice;
+import hr.javafx.projekt.model.InvoiceDelta;
+import hr.javafx.projekt.repository.InvoiceChangeListener;
+import hr.javafx.projekt.repository.InvoiceRepository;
+import javafx.application.Platform;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.ref.WeakReference;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Sabirnica promjena faktura za korisničko sučelje. Osluškuje upise u {@link InvoiceRepository}
+ * (i one koje obavlja {@link InvoiceStatusMonitor}), kao i promjene drugih instanci aplikacije koje
+ * dojavljuje {@link ChangeSequencePoller}, te pretplatnicima na JavaFX niti objavljuje
+ * {@link InvoiceDelta} s ID-evima dodanih, izmijenjenih i obrisanih faktura.
+ * <p>
+ * Promjene koje nastanu prije nego što JavaFX nit stigne objaviti prethodne spajaju se u jedan skup,
+ * pa niz upisa (npr. uvoz) uzrokuje jedno osvježavanje, a prazan skup promjena se ne objavljuje.
+ * <p>
+ * Sabirnica pretplatnike drži preko slabih referenci, kako pretplata ne bi zadržala kontroler ekrana
+ * koji je zatvoren. Pretplatnik zato mora sam držati referencu na objekt kojim se pretplatio (npr. u polju).
+ */
+public final class InvoiceChangeBus implements InvoiceChangeListener {
+
+    private static final Logger log = LoggerFactory.getLogger(InvoiceChangeBus.class);
+
+    private static final InvoiceChangeBus INSTANCE = new InvoiceChangeBus();
+
+    private final List<WeakReference<Consumer<InvoiceDelta>>> subscribers = new CopyOnWriteArrayList<>();
+    private InvoiceDelta.Builder pending = new InvoiceDelta.Builder();
+    private boolean flushScheduled;
+
+    private InvoiceChangeBus() {
+        InvoiceRepository.addChangeListener(this);
+    }
+
+    /**
+     * Vraća jedinstvenu instancu sabirnice.
+     * @return Instanca sabirnice.
+     */
+    public static InvoiceChangeBus getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Pretplaćuje primatelja na promjene. Primatelj se poziva na JavaFX niti.
+     * @param subscriber Primatelj promjena; pozivatelj mora držati referencu na njega.
+     */
+    public void subscribe(Consumer<InvoiceDelta> subscriber) {
+        subscribers.add(new WeakReference<>(subscriber));
+    }
+
+    /**
+     * Otkazuje pretplatu.
+     * @param subscriber Prethodno pretplaćeni primatelj.
+     */
+    public void unsubscribe(Consumer<InvoiceDelta> subscriber) {
+        subscribers.removeIf(reference -> {
+            Consumer<InvoiceDelta> current = reference.get();
+            return current == null || current == subscriber;
+        });
+    }
+
+    /**
+     * Dodaje promjene u skup koji će se objaviti. Smije se pozvati s bilo koje niti.
+     * @param delta Promjene.
+     */
+    public void publish(InvoiceDelta delta) {
+        if (delta.isEmpty()) {
+            return;
+        }
+        synchronized (this) {
+            pending.add(delta);
+            if (flushScheduled) {
+                return;
+            }
+            flushScheduled = true;
+        }
+        Platform.runLater(this::flush);
+    }
+
+    @Override
+    public void invoiceInserted(Invoice invoice) {
+        publish(InvoiceDelta.inserted(List.of(invoice.getId())));
+    }
+
+    @Override
+    public void invoiceSaved(Invoice invoice) {
+        publish(InvoiceDelta.updated(List.of(invoice.getId())));
+    }
+
+    @Override
+    public void invoicesImported(List<Invoice> invoices) {
+        publish(InvoiceDelta.inserted(invoices.stream().map(Invoice::getId).toList()));
+    }
+
+    @Override
+    public void invoiceDeleted(Long id) {
+        publish(InvoiceDelta.deleted(List.of(id)));
+    }
+
+    @Override
+    public void invoicesMarkedOverdue(List<Long> ids) {
+        publish(InvoiceDelta.updated(ids));
+    }
+
+    @Override
+    public void invoicesChangedExternally(InvoiceDelta delta) {
+        publish(delta);
+    }
+
+    private void flush() {
+        InvoiceDelta delta;
+        synchronized (this) {
+            delta = pending.build();
+            pending = new InvoiceDelta.Builder();
+            flushScheduled = false;
+        }
+        if (delta.isEmpty()) {
+            return;
+        }
+        log.debug("Objava promjena faktura: {} dodano, {} izmijenjeno, {} obrisano.",
+                delta.inserted().size(), delta.updated().size(), delta.deleted().size());
+        for (WeakReference<Consumer<InvoiceDelta>> reference : subscribers) {
+            Consumer<InvoiceDelta> subscriber = reference.get();
+            if (subscriber == null) {
+                subscribers.remove(reference);
+                continue;
+            }
+            try {
+                subscriber.accept(delta);
+            } catch (RuntimeException e) {
+                log.error("Primatelj promjena faktura nije uspio obraditi promjene.", e);
+            }
+        }
+    }
+}
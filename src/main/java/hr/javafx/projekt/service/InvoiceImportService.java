@@ -0,0 +1,514 @@
+package hr.javafx.projekt.service;
+
+import hr.javafx.projekt.database.DatabaseConnection;
+import hr.javafx.projekt.enums.InvoiceCsvColumn;
+import hr.javafx.projekt.enums.InvoiceStatus;
+import hr.javafx.projekt.exception.RepositoryAccessException;
+import hr.javafx.projekt.exception.ValidationException;
+import hr.javafx.projekt.model.ImportResult;
+import hr.javafx.projekt.model.Invoice;
+import hr.javafx.projekt.model.Supplier;
+import hr.javafx.projekt.repository.InvoiceRepository;
+import hr.javafx.projekt.repository.SupplierRepository;
+import hr.javafx.projekt.utils.CsvReader;
+import hr.javafx.projekt.utils.CsvWriter;
+import javafx.application.Platform;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTimeoutException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * Uvozi fakture iz CSV datoteke u formatu {@link InvoiceCsvColumn}.
+ * <p>
+ * Datoteka se čita redak po redak i svaki redak prolazi kroz faze: čitanje, provjera polja, prepoznavanje
+ * dobavljača (po OIB-u, inače po nazivu) i provjera duplikata unutar datoteke. Ispravni retci skupljaju se
+ * u skupine od {@value #BATCH_SIZE} faktura. Za svaku skupinu se jednim upitom provjerava koji brojevi faktura
+ * već postoje u bazi, a ostale fakture spremaju se jednim grupnim upisom u jednoj transakciji. U dnevnik
+ * promjena bilježi se zapis o dodavanju svake spremljene fakture i sažetak skupine (izvor, redni broj skupine
+ * i broj faktura). Ako grupni upis ne uspije, fakture iz skupine spremaju se pojedinačno kako bi se odbile
+ * samo one koje baza ne prihvaća; uvoz se prekida samo ako greška dolazi od veze s bazom.
+ * <p>
+ * Odbijeni retci zapisuju se u datoteku pored izvorne, s brojem retka i razlogom odbijanja, pa se nakon
+ * ispravka mogu ponovno uvesti. U memoriji je samo jedna skupina redaka i ključevi već uvezenih faktura.
+ */
+public final class InvoiceImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(InvoiceImportService.class);
+    private static final int BATCH_SIZE = 500;
+    private static final String QUARANTINE_SUFFIX = ".odbijeno.csv";
+    private static final String CONNECTION_ERROR_CLASS = "08";
+    private static final DateTimeFormatter LOCAL_DATE = DateTimeFormatter.ofPattern("d.M.yyyy[.]");
+
+    private static final InvoiceImportService INSTANCE =
+            new InvoiceImportService(new InvoiceRepository(), new SupplierRepository());
+
+    private final InvoiceRepository invoiceRepository;
+    private final SupplierRepository supplierRepository;
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "invoice-import");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Redak koji je prošao provjeru i čeka grupni upis.
+     */
+    private record StagedRow(long lineNumber, List<String> values, Invoice invoice) {
+    }
+
+    private InvoiceImportService(InvoiceRepository invoiceRepository, SupplierRepository supplierRepository) {
+        this.invoiceRepository = invoiceRepository;
+        this.supplierRepository = supplierRepository;
+    }
+
+    /**
+     * Vraća jedinstvenu instancu servisa.
+     * @return Instanca servisa.
+     */
+    public static InvoiceImportService getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Uvozi datoteku na pozadinskoj niti. Napredak i rezultat predaju se na JavaFX niti.
+     *
+     * @param source CSV datoteka.
+     * @param onProgress Prima opis napretka nakon svake skupine.
+     * @param onResult Prima rezultat uvoza.
+     * @param onError Prima grešku zbog koje uvoz nije mogao završiti.
+     */
+    public void importAsync(Path source, Consumer<String> onProgress, Consumer<ImportResult> onResult,
+                            Consumer<Exception> onError) {
+        worker.submit(() -> {
+            try {
+                ImportResult result = importFile(source,
+                        progress -> Platform.runLater(() -> onProgress.accept(progress)));
+                Platform.runLater(() -> onResult.accept(result));
+            } catch (Exception e) {
+                log.error("Uvoz faktura iz '{}' nije uspio.", source, e);
+                Platform.runLater(() -> onError.accept(e));
+            }
+        });
+    }
+
+    /**
+     * Uvozi fakture iz datoteke. Fakture iz skupina spremljenih prije greške ostaju spremljene.
+     *
+     * @param source CSV datoteka sa zaglavljem.
+     * @param onProgress Prima opis napretka nakon svake skupine, na niti uvoza.
+     * @return Rezultat uvoza.
+     * @throws IOException ako čitanje datoteke ili zapisivanje odbijenih redaka ne uspije.
+     * @throws RepositoryAccessException ako baza nije dostupna.
+     * @throws ValidationException ako zaglavlje datoteke nije ispravno.
+     */
+    public ImportResult importFile(Path source, Consumer<String> onProgress) throws IOException {
+        long start = System.nanoTime();
+        String origin = source.getFileName().toString();
+        Path quarantinePath = source.resolveSibling(origin + QUARANTINE_SUFFIX);
+        Files.deleteIfExists(quarantinePath);
+        SupplierLookup suppliers = new SupplierLookup(supplierRepository.findAll());
+
+        long rowsRead = 0;
+        int imported = 0;
+        int batches = 0;
+        try (InputStream in = Files.newInputStream(source);
+             CsvReader csv = CsvReader.forExcel(in);
+             Quarantine quarantine = new Quarantine(quarantinePath)) {
+            List<String> header = csv.readRow();
+            if (header == null) {
+                throw new ValidationException("Datoteka je prazna.");
+            }
+            Map<InvoiceCsvColumn, Integer> columns = mapColumns(header);
+            quarantine.setHeader(header);
+
+            Set<String> seenKeys = new HashSet<>();
+            List<StagedRow> batch = new ArrayList<>(BATCH_SIZE);
+            List<String> row;
+            while ((row = csv.readRow()) != null) {
+                rowsRead++;
+                long lineNumber = csv.getRowLineNumber();
+                try {
+                    Invoice invoice = toInvoice(row, columns, suppliers);
+                    if (!seenKeys.add(invoice.getSupplier().getId() + "/" + invoice.getInvoiceNumber())) {
+                        throw new ValidationException("Faktura se u datoteci pojavljuje više puta.");
+                    }
+                    batch.add(new StagedRow(lineNumber, row, invoice));
+                } catch (ValidationException e) {
+                    quarantine.reject(lineNumber, row, e.getMessage());
+                }
+                if (batch.size() == BATCH_SIZE) {
+                    imported += storeBatch(batch, quarantine, origin, batches + 1);
+                    batches++;
+                    batch.clear();
+                    onProgress.accept(progressText(rowsRead, imported, quarantine.count(), start));
+                }
+            }
+            if (!batch.isEmpty()) {
+                imported += storeBatch(batch, quarantine, origin, batches + 1);
+                batches++;
+            }
+
+            Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+            ImportResult result = new ImportResult(source, rowsRead, imported, quarantine.count(), batches, elapsed,
+                    quarantine.count() > 0 ? quarantinePath : null);
+            log.info("Uvoz iz '{}': {} redaka, {} faktura spremljeno u {} skupina, {} odbijeno, {} ms ({} redaka/s).",
+                    origin, rowsRead, imported, batches, result.rejected(), elapsed.toMillis(),
+                    Math.round(result.rowsPerSecond()));
+            return result;
+        }
+    }
+
+    /**
+     * Sprema skupinu ispravnih redaka: odbija fakture koje već postoje u bazi, a ostale sprema grupnim upisom
+     * i bilježi sažetak skupine u dnevniku promjena.
+     * @return Broj spremljenih faktura.
+     */
+    private int storeBatch(List<StagedRow> batch, Quarantine quarantine, String source, int batchNumber)
+            throws IOException {
+        Set<String> invoiceNumbers = new LinkedHashSet<>();
+        for (StagedRow staged : batch) {
+            invoiceNumbers.add(staged.invoice().getInvoiceNumber());
+        }
+        Map<Long, Set<String>> existing = invoiceRepository.findExistingInvoiceNumbers(invoiceNumbers);
+
+        List<StagedRow> accepted = new ArrayList<>(batch.size());
+        for (StagedRow staged : batch) {
+            Invoice invoice = staged.invoice();
+            if (existing.getOrDefault(invoice.getSupplier().getId(), Set.of()).contains(invoice.getInvoiceNumber())) {
+                quarantine.reject(staged.lineNumber(), staged.values(), "Faktura već postoji u bazi.");
+            } else {
+                accepted.add(staged);
+            }
+        }
+        if (accepted.isEmpty()) {
+            return 0;
+        }
+
+        List<Invoice> saved;
+        try {
+            List<Invoice> invoices = accepted.stream().map(StagedRow::invoice).toList();
+            invoiceRepository.saveAll(invoices);
+            saved = invoices;
+        } catch (RepositoryAccessException e) {
+            if (isConnectionFailure(e)) {
+                throw e;
+            }
+            log.warn("Grupni upis {} faktura nije uspio, fakture se spremaju pojedinačno.", accepted.size(), e);
+            saved = storeIndividually(accepted, quarantine, e);
+        }
+        invoiceRepository.logImport(saved, source, batchNumber);
+        return saved.size();
+    }
+
+    /**
+     * Sprema retke jedan po jedan nakon neuspjelog grupnog upisa, a retke koje baza odbije zapisuje
+     * u datoteku odbijenih redaka. Greška veze s bazom ne pripisuje se retku nego prekida uvoz; ako se
+     * nijedan redak ne može spremiti, provjerava se i je li baza uopće dostupna.
+     * @return Spremljene fakture.
+     */
+    private List<Invoice> storeIndividually(List<StagedRow> rows, Quarantine quarantine,
+                                            RepositoryAccessException batchFailure) throws IOException {
+        List<Invoice> saved = new ArrayList<>();
+        List<StagedRow> failed = new ArrayList<>();
+        List<String> reasons = new ArrayList<>();
+        for (StagedRow staged : rows) {
+            try {
+                invoiceRepository.saveAll(List.of(staged.invoice()));
+                saved.add(staged.invoice());
+            } catch (RepositoryAccessException e) {
+                if (isConnectionFailure(e)) {
+                    throw e;
+                }
+                failed.add(staged);
+                reasons.add("Spremanje nije uspjelo: " + rootMessage(e));
+            }
+        }
+        if (saved.isEmpty() && !DatabaseConnection.isAvailable()) {
+            throw batchFailure;
+        }
+        for (int i = 0; i < failed.size(); i++) {
+            quarantine.reject(failed.get(i).lineNumber(), failed.get(i).values(), reasons.get(i));
+        }
+        return saved;
+    }
+
+    /**
+     * Provjerava je li greška nastala zbog veze s bazom (SQLSTATE klase {@value #CONNECTION_ERROR_CLASS},
+     * istek čekanja ili greška čitanja postavki), a ne zbog podataka retka.
+     */
+    private static boolean isConnectionFailure(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof IOException
+                    || cause instanceof SQLTimeoutException
+                    || cause instanceof SQLTransientConnectionException
+                    || cause instanceof SQLNonTransientConnectionException
+                    || cause instanceof SQLRecoverableException) {
+                return true;
+            }
+            if (cause instanceof SQLException sqlException && sqlException.getSQLState() != null
+                    && sqlException.getSQLState().startsWith(CONNECTION_ERROR_CLASS)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String rootMessage(Throwable e) {
+        Throwable root = e;
+        while (root.getCause() != null) {
+            root = root.getCause();
+        }
+        return root.getMessage();
+    }
+
+    private static String progressText(long rowsRead, int imported, int rejected, long startNanos) {
+        double seconds = Math.max(1, System.nanoTime() - startNanos) / 1e9;
+        return String.format("Uvoz faktura: %d redaka, %d spremljeno, %d odbijeno (%.0f redaka/s)",
+                rowsRead, imported, rejected, rowsRead / seconds);
+    }
+
+    /**
+     * Pronalazi položaj svakog poznatog stupca u zaglavlju. Nepoznati stupci se zanemaruju.
+     * @throws ValidationException ako nedostaje obavezan stupac ili stupac dobavljača.
+     */
+    private static Map<InvoiceCsvColumn, Integer> mapColumns(List<String> header) {
+        Map<InvoiceCsvColumn, Integer> columns = new EnumMap<>(InvoiceCsvColumn.class);
+        for (int i = 0; i < header.size(); i++) {
+            String name = header.get(i).trim().toLowerCase(Locale.ROOT);
+            for (InvoiceCsvColumn column : InvoiceCsvColumn.values()) {
+                if (column.getHeader().equals(name)) {
+                    columns.putIfAbsent(column, i);
+                }
+            }
+        }
+        StringBuilder errorMessage = new StringBuilder();
+        for (InvoiceCsvColumn column : InvoiceCsvColumn.values()) {
+            if (column.isRequired() && !columns.containsKey(column)) {
+                errorMessage.append("Nedostaje stupac '").append(column.getHeader()).append("'.\n");
+            }
+        }
+        if (!columns.containsKey(InvoiceCsvColumn.SUPPLIER_OIB) && !columns.containsKey(InvoiceCsvColumn.SUPPLIER_NAME)) {
+            errorMessage.append("Nedostaje stupac '").append(InvoiceCsvColumn.SUPPLIER_OIB.getHeader())
+                    .append("' ili '").append(InvoiceCsvColumn.SUPPLIER_NAME.getHeader()).append("'.\n");
+        }
+        if (!errorMessage.isEmpty()) {
+            throw new ValidationException(errorMessage.toString());
+        }
+        return columns;
+    }
+
+    /**
+     * Provjerava polja retka i kreira novu fakturu. Sve greške retka skupljaju se u jednu poruku.
+     * @throws ValidationException ako redak nije ispravan.
+     */
+    private static Invoice toInvoice(List<String> row, Map<InvoiceCsvColumn, Integer> columns,
+                                     SupplierLookup suppliers) {
+        List<String> errors = new ArrayList<>();
+
+        String invoiceNumber = value(row, columns, InvoiceCsvColumn.INVOICE_NUMBER);
+        if (invoiceNumber.isEmpty()) {
+            errors.add("Broj fakture je obavezan.");
+        }
+
+        BigDecimal amount = null;
+        String amountText = value(row, columns, InvoiceCsvColumn.AMOUNT);
+        if (amountText.isEmpty()) {
+            errors.add("Iznos je obavezan.");
+        } else {
+            try {
+                amount = parseAmount(amountText);
+                if (amount.signum() <= 0) {
+                    errors.add("Iznos mora biti pozitivan.");
+                }
+            } catch (NumberFormatException e) {
+                errors.add("Iznos '" + amountText + "' nije ispravan broj.");
+            }
+        }
+
+        LocalDate issueDate = parseDate(value(row, columns, InvoiceCsvColumn.ISSUE_DATE), "Datum izdavanja", errors);
+        LocalDate dueDate = parseDate(value(row, columns, InvoiceCsvColumn.DUE_DATE), "Datum dospijeća", errors);
+        if (issueDate != null && dueDate != null && dueDate.isBefore(issueDate)) {
+            errors.add("Datum dospijeća ne može biti prije datuma izdavanja.");
+        }
+
+        InvoiceStatus status = InvoiceStatus.UNPAID;
+        String statusText = value(row, columns, InvoiceCsvColumn.STATUS);
+        if (!statusText.isEmpty()) {
+            try {
+                status = InvoiceStatus.valueOf(statusText.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                errors.add("Status '" + statusText + "' nije poznat.");
+            }
+        }
+
+        Supplier supplier = null;
+        try {
+            supplier = suppliers.resolve(value(row, columns, InvoiceCsvColumn.SUPPLIER_OIB),
+                    value(row, columns, InvoiceCsvColumn.SUPPLIER_NAME));
+        } catch (ValidationException e) {
+            errors.add(e.getMessage());
+        }
+
+        if (!errors.isEmpty()) {
+            throw new ValidationException(String.join(" ", errors));
+        }
+        return new Invoice.Builder(null, invoiceNumber, amount, supplier)
+                .withIssueDate(issueDate).withDueDate(dueDate).withStatus(status).build();
+    }
+
+    private static String value(List<String> row, Map<InvoiceCsvColumn, Integer> columns, InvoiceCsvColumn column) {
+        Integer index = columns.get(column);
+        return index == null || index >= row.size() ? "" : row.get(index).trim();
+    }
+
+    /**
+     * Čita iznos s decimalnom točkom ili zarezom; ako je naveden zarez, točke se smatraju odvajanjem tisućica.
+     */
+    private static BigDecimal parseAmount(String text) {
+        String normalized = text.replace(" ", "").replace("\u00A0", "");
+        if (normalized.indexOf(',') >= 0) {
+            normalized = normalized.replace(".", "").replace(',', '.');
+        }
+        return new BigDecimal(normalized);
+    }
+
+    /**
+     * Čita datum u obliku 2024-05-31 ili 31.5.2024.
+     */
+    private static LocalDate parseDate(String text, String fieldName, List<String> errors) {
+        if (text.isEmpty()) {
+            errors.add(fieldName + " je obavezan.");
+            return null;
+        }
+        try {
+            return text.indexOf('.') >= 0 ? LocalDate.parse(text, LOCAL_DATE) : LocalDate.parse(text);
+        } catch (DateTimeParseException e) {
+            errors.add(fieldName + " '" + text + "' nije ispravan datum.");
+            return null;
+        }
+    }
+
+    /**
+     * Prepoznaje dobavljače po OIB-u ili po nazivu, bez obzira na velika i mala slova.
+     * Naziv koji ima više dobavljača nije jednoznačan pa se po njemu dobavljač ne prepoznaje.
+     */
+    private static final class SupplierLookup {
+        private final Map<String, Supplier> byOib = new HashMap<>();
+        private final Map<String, Supplier> byName = new HashMap<>();
+        private final Set<String> ambiguousNames = new HashSet<>();
+
+        private SupplierLookup(List<Supplier> suppliers) {
+            for (Supplier supplier : suppliers) {
+                if (supplier.getOib() != null && !supplier.getOib().isBlank()) {
+                    byOib.put(supplier.getOib().trim(), supplier);
+                }
+                if (supplier.getName() != null) {
+                    String name = normalizeName(supplier.getName());
+                    if (byName.putIfAbsent(name, supplier) != null) {
+                        ambiguousNames.add(name);
+                    }
+                }
+            }
+        }
+
+        private Supplier resolve(String oib, String name) {
+            if (!oib.isEmpty()) {
+                Supplier supplier = byOib.get(oib);
+                if (supplier == null) {
+                    throw new ValidationException("Dobavljač s OIB-om " + oib + " ne postoji.");
+                }
+                return supplier;
+            }
+            if (name.isEmpty()) {
+                throw new ValidationException("Dobavljač je obavezan.");
+            }
+            String normalized = normalizeName(name);
+            if (ambiguousNames.contains(normalized)) {
+                throw new ValidationException("Više dobavljača ima naziv '" + name + "', navedite OIB.");
+            }
+            Supplier supplier = byName.get(normalized);
+            if (supplier == null) {
+                throw new ValidationException("Dobavljač '" + name + "' ne postoji.");
+            }
+            return supplier;
+        }
+
+        private static String normalizeName(String name) {
+            return name.trim().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    /**
+     * Zapisuje odbijene retke s brojem retka i razlogom. Datoteka se kreira tek kod prvog odbijenog retka.
+     */
+    private static final class Quarantine implements Closeable {
+        private final Path path;
+        private List<String> header = List.of();
+        private CsvWriter writer;
+        private int count;
+
+        private Quarantine(Path path) {
+            this.path = path;
+        }
+
+        private void setHeader(List<String> header) {
+            this.header = header;
+        }
+
+        private void reject(long lineNumber, List<String> values, String reason) throws IOException {
+            if (writer == null) {
+                writer = CsvWriter.forExcel(Files.newOutputStream(path));
+                List<String> quarantineHeader = new ArrayList<>(header);
+                quarantineHeader.add("redak");
+                quarantineHeader.add("razlog");
+                writer.writeRow(quarantineHeader);
+            }
+            List<String> row = new ArrayList<>(values);
+            while (row.size() < header.size()) {
+                row.add("");
+            }
+            row.add(String.valueOf(lineNumber));
+            row.add(reason);
+            writer.writeRow(row);
+            count++;
+        }
+
+        private int count() {
+            return count;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (writer != null) {
+                writer.close();
+            }
+        }
+    }
+}
@@ -1,8 +1,5 @@
 package hr.javafx.projekt.service;
 
-import hr.javafx.projekt.enums.InvoiceStatus;
-import hr.javafx.projekt.exception.RepositoryAccessException;
-import hr.javafx.projekt.model.Invoice;
 import hr.javafx.projekt.repository.InvoiceRepository;
 import javafx.application.Platform;
 import org.slf4j.Logger;
@@ -15,48 +12,54 @@ import java.util.List;
 
 /**
  * Pozadinski servis (Runnable) koji periodički provjerava i ažurira status dospjelih faktura.
+ * Kada je na istu bazu spojeno više instanci aplikacije, provjeru izvodi samo voditelj kojeg određuje
+ * {@link LeaderElection}; ostale instance za promjene saznaju iz slijeda promjena ({@link ChangeSequencePoller}).
  */
 public class InvoiceStatusMonitor implements Runnable {
 
     private static final Logger log = LoggerFactory.getLogger(InvoiceStatusMonitor.class);
     private final InvoiceRepository invoiceRepository = new InvoiceRepository();
     private final StatusBarState state;
+    private final LeaderElection leaderElection;
 
     /**
      * Konstruktor za inicijalizaciju monitora sa stanjem statusne trake.
      * @param state Centralno stanje statusne trake.
+     * @param leaderElection Izbor voditelja koji određuje izvodi li ova instanca provjeru.
      */
-    public InvoiceStatusMonitor(StatusBarState state) {
+    public InvoiceStatusMonitor(StatusBarState state, LeaderElection leaderElection) {
         this.state = state;
+        this.leaderElection = leaderElection;
     }
 
     /**
-     * Glavna logika servisa. Dohvaća sve fakture, pronalazi one koje su dospjele
-     * i ažurira njihov status, te na kraju signalizira UI-u da se osvježi.
+     * Glavna logika servisa. Jednim upitom u bazi označava sve neplaćene fakture kojima je
+     * rok prošao kao dospjele. Ekrani za promijenjene fakture saznaju preko {@link InvoiceChangeBus},
+     * pa provjera bez promjena ne osvježava ništa. Instanca koja nije voditelj provjeru preskače,
+     * ali ipak ponovno pokreće odbrojavanje u statusnoj traci.
      */
     @Override
     public void run() {
+        if (!leaderElection.isLeader()) {
+            log.debug("Provjeru statusa faktura izvodi druga instanca; preskačem.");
+            Platform.runLater(() -> {
+                state.setProgress(0.0);
+                state.setLastUpdateText("Provjeru izvodi druga instanca");
+            });
+            return;
+        }
         log.info("Pokretanje provjere statusa faktura...");
         Platform.runLater(() -> state.setLastUpdateText("Provjera u tijeku..."));
 
         long overdueCount = 0;
 
         try {
-            List<Invoice> allInvoices = invoiceRepository.findAll();
-
-            List<Invoice> overdueInvoices = allInvoices.stream()
-                    .filter(inv -> inv.getStatus() == InvoiceStatus.UNPAID && inv.getDueDate().isBefore(LocalDate.now()))
-                    .toList();
-            overdueInvoices.forEach(this::updateInvoiceToOverdue);
-
-            overdueCount = overdueInvoices.size();
+            List<Long> overdueIds = invoiceRepository.markOverdueInvoices(LocalDate.now());
+            overdueCount = overdueIds.size();
 
             if (overdueCount > 0) {
-                log.info("Ažurirano {} dospjelih faktura.", overdueCount);
+                log.info("Ažurirano {} dospjelih faktura: {}", overdueCount, overdueIds);
             }
-
-            state.triggerRefresh();
-
         } catch (Exception e) {
             log.error("Greška prilikom automatskog ažuriranja statusa faktura.", e);
         }
@@ -71,24 +74,4 @@ public class InvoiceStatusMonitor implements Runnable {
         });
         log.info("Završena provjera statusa faktura.");
     }
-
-
-    /**
-     * Pomoćna metoda za ažuriranje statusa pojedine fakture na 'OVERDUE'.
-     * @param invoice Faktura za ažuriranje.
-     */
-    private void updateInvoiceToOverdue(Invoice invoice) {
-        try {
-            log.info("Faktura {} je dospjela. Mijenjam status u 'OVERDUE'.", invoice.getInvoiceNumber());
-            Invoice updatedInvoice = new Invoice.Builder(
-                    invoice.getId(), invoice.getInvoiceNumber(), invoice.getAmount(), invoice.getSupplier())
-                    .withIssueDate(invoice.getIssueDate())
-                    .withDueDate(invoice.getDueDate())
-                    .withStatus(InvoiceStatus.OVERDUE)
-                    .build();
-            invoiceRepository.update(updatedInvoice);
-        } catch (RepositoryAccessException e) {
-            log.error("Neuspjelo ažuriranje statusa za fakturu ID: {}", invoice.getId(), e);
-        }
-    }
-}
\ No newline at end of file
+}
@@ -0,0 +1,87 @@
+package hr.javafx.projekt.service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogram trajanja s eksponencijalnim pretincima (granice su potencije broja 2 u milisekundama).
+ * Bilježenje je bez zaključavanja pa se smije pozivati iz više niti istovremeno.
+ * Percentili su procjena: vraća se gornja granica pretinca u koji percentil pada, najviše maksimum.
+ */
+public class LatencyHistogram {
+
+    private static final int BUCKETS = 17;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong totalNanos = new AtomicLong();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    /**
+     * Bilježi jedno mjerenje.
+     * @param nanos Trajanje u nanosekundama.
+     */
+    public void record(long nanos) {
+        long millis = TimeUnit.NANOSECONDS.toMillis(Math.max(0, nanos));
+        int bucket = millis == 0 ? 0 : Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(millis));
+        buckets.incrementAndGet(bucket);
+        count.incrementAndGet();
+        totalNanos.addAndGet(nanos);
+        maxNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    /**
+     * Vraća broj zabilježenih mjerenja.
+     * @return Broj mjerenja.
+     */
+    public long getCount() {
+        return count.get();
+    }
+
+    /**
+     * Vraća prosječno trajanje.
+     * @return Prosjek u milisekundama.
+     */
+    public double getMeanMillis() {
+        long n = count.get();
+        return n == 0 ? 0 : totalNanos.get() / 1_000_000.0 / n;
+    }
+
+    /**
+     * Vraća najdulje zabilježeno trajanje.
+     * @return Maksimum u milisekundama.
+     */
+    public double getMaxMillis() {
+        return maxNanos.get() / 1_000_000.0;
+    }
+
+    /**
+     * Procjenjuje percentil trajanja.
+     * @param percentile Percentil između 0 i 100.
+     * @return Gornja granica pretinca u milisekundama, ili 0 ako nema mjerenja.
+     */
+    public long getPercentileMillis(double percentile) {
+        long n = count.get();
+        if (n == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * n));
+        long max = (long) Math.ceil(getMaxMillis());
+        long seen = 0;
+        for (int i = 0; i < BUCKETS - 1; i++) {
+            seen += buckets.get(i);
+            if (seen >= rank) {
+                return Math.min(1L << i, max);
+            }
+        }
+        return max;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("n=%d, prosjek=%.1f ms, p50≤%d ms, p95≤%d ms, p99≤%d ms, maks=%.1f ms",
+                getCount(), getMeanMillis(), getPercentileMillis(50), getPercentileMillis(95),
+                getPercentileMillis(99), getMaxMillis());
+    }
+}
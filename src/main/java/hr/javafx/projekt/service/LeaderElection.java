@@ -0,0 +1,163 @@
+package hr.javafx.projekt.service;
+
+import hr.javafx.projekt.database.InstanceIdentity;
+import hr.javafx.projekt.exception.RepositoryAccessException;
+import hr.javafx.projekt.model.Lease;
+import hr.javafx.projekt.repository.LeaseRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.format.DateTimeFormatter;
+import java.util.Optional;
+
+/**
+ * Izbor voditelja među instancama aplikacije spojenima na istu bazu, na temelju najma iz {@link LeaseRepository}.
+ * Samo instanca koja drži najam ({@link #isLeader()}) izvodi zadatak koji se ne smije izvoditi više puta
+ * (npr. {@link InvoiceStatusMonitor}).
+ * <p>
+ * Svaki prolaz ({@link #run()}) pokušava preuzeti ili obnoviti najam. Ako se voditelj ugasi ili izgubi vezu
+ * s bazom, njegov najam istječe i preuzima ga prva instanca koja nakon toga pokuša. Voditelj se sam smatra
+ * voditeljem samo do nešto prije isteka najma prema vlastitom satu, pa ni kod prekida veze s bazom
+ * dvije instance ne izvode zadatak istovremeno.
+ * <p>
+ * Instanca koja drži najam prikazuje se u statusnoj traci i bilježi u logu kod svake promjene.
+ */
+public final class LeaderElection implements Runnable {
+
+    private static final Logger log = LoggerFactory.getLogger(LeaderElection.class);
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm:ss");
+
+    private final LeaseRepository leaseRepository;
+    private final String leaseName;
+    private final Duration ttl;
+    private final StatusBarState state;
+    private final Runnable onElected;
+    private final String holder = InstanceIdentity.get();
+
+    private volatile boolean leader;
+    private volatile long validUntilNanos;
+    private String reportedText;
+
+    /**
+     * Kreira izbor voditelja.
+     *
+     * @param leaseRepository Repozitorij najmova.
+     * @param leaseName Naziv najma, zajednički svim instancama.
+     * @param ttl Trajanje najma; {@link #run()} se mora pozivati nekoliko puta unutar tog vremena.
+     * @param state Statusna traka u kojoj se prikazuje voditelj.
+     * @param onElected Izvršava se na niti prolaza kada ova instanca postane voditelj.
+     */
+    public LeaderElection(LeaseRepository leaseRepository, String leaseName, Duration ttl,
+                          StatusBarState state, Runnable onElected) {
+        this.leaseRepository = leaseRepository;
+        this.leaseName = leaseName;
+        this.ttl = ttl;
+        this.state = state;
+        this.onElected = onElected;
+    }
+
+    /**
+     * Provjerava je li ova instanca voditelj. Smije se pozvati s bilo koje niti.
+     * @return True ako instanca drži najam koji prema vlastitom satu još nije istekao.
+     */
+    public boolean isLeader() {
+        return leader && System.nanoTime() - validUntilNanos < 0;
+    }
+
+    /**
+     * Pokušava preuzeti ili obnoviti najam. Greške se samo logiraju, jer bi iznimka koja izađe iz metode
+     * zaustavila periodičko izvršavanje; voditelj tada ostaje voditelj dok mu najam ne istekne.
+     */
+    @Override
+    public void run() {
+        try {
+            renew();
+        } catch (RuntimeException e) {
+            log.error("Neočekivana greška pri obnovi najma '{}'.", leaseName, e);
+            if (leader && !isLeader()) {
+                stepDown();
+            }
+        }
+    }
+
+    private void renew() {
+        long attemptedAt = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = leaseRepository.tryAcquire(leaseName, holder, ttl);
+        } catch (RepositoryAccessException e) {
+            log.warn("Obnova najma '{}' nije uspjela.", leaseName, e);
+            if (leader && !isLeader()) {
+                stepDown();
+            }
+            return;
+        }
+
+        if (acquired) {
+            validUntilNanos = attemptedAt + ttl.toNanos() - ttl.toNanos() / 5;
+            if (!leader) {
+                leader = true;
+                log.info("Instanca {} preuzela je najam '{}'.", holder, leaseName);
+                report(holder, "ova instanca");
+                onElected.run();
+            }
+            return;
+        }
+        if (leader) {
+            stepDown();
+        }
+        reportHolder();
+    }
+
+    /**
+     * Otpušta najam ako ga ova instanca drži, kako bi ga druga instanca preuzela bez čekanja na istek.
+     * Poziva se prilikom gašenja aplikacije, nakon zaustavljanja prolaza.
+     */
+    public void release() {
+        if (!leader) {
+            return;
+        }
+        leader = false;
+        try {
+            leaseRepository.release(leaseName, holder);
+            log.info("Instanca {} otpustila je najam '{}'.", holder, leaseName);
+        } catch (RepositoryAccessException e) {
+            log.warn("Otpuštanje najma '{}' nije uspjelo; istječe za najviše {} s.", leaseName, ttl.toSeconds(), e);
+        }
+    }
+
+    private void stepDown() {
+        leader = false;
+        log.warn("Instanca {} više ne drži najam '{}'.", holder, leaseName);
+    }
+
+    private void reportHolder() {
+        Optional<Lease> lease;
+        try {
+            lease = leaseRepository.findByName(leaseName).filter(current -> !current.expired());
+        } catch (RepositoryAccessException e) {
+            log.warn("Dohvat najma '{}' nije uspio.", leaseName, e);
+            return;
+        }
+        if (lease.isPresent()) {
+            Lease current = lease.get();
+            report(current.holder(), String.format("%s (od %s)", current.holder(),
+                    current.acquiredAt().format(TIME_FORMAT)));
+        } else {
+            report(null, "nitko");
+        }
+    }
+
+    private void report(String currentHolder, String description) {
+        String text = "Provjeru izvodi: " + description;
+        if (text.equals(reportedText)) {
+            return;
+        }
+        reportedText = text;
+        if (currentHolder != null && !currentHolder.equals(holder)) {
+            log.info("Najam '{}' drži instanca {}.", leaseName, currentHolder);
+        }
+        state.setLeaseHolderText(text);
+    }
+}
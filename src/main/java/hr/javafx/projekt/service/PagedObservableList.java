@@ -0,0 +1,405 @@
+package hr.javafx.projekt.service;
+
+import hr.javafx.projekt.exception.RepositoryAccessException;
+import javafx.application.Platform;
+import javafx.collections.ObservableListBase;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Lista za prikaz u tablici koja podatke učitava po stranicama, samo kada ih tablica zatraži.
+ * Veličina liste dolazi iz jeftinog COUNT upita, a retci koji još nisu učitani vraćaju se kao null
+ * dok pozadinska nit ne dohvati njihovu stranicu. Stranica uz već učitanu susjednu stranicu traži se
+ * u odnosu na njezin rubni zapis, pa pomicanje kroz tablicu ne preskače sve prethodne retke. Učitava se i susjedna stranica kada se prikaz
+ * približi rubu trenutne, a u memoriji se drži samo ograničen broj nedavno korištenih stranica.
+ * <p>
+ * Lista nije thread-safe i koristi se isključivo na JavaFX niti; na pozadinskoj niti izvršavaju se
+ * samo upiti nad bazom. Lista je samo za čitanje, pa sortiranje mora obaviti izvor podataka.
+ *
+ * @param <T> Tip zapisa u listi.
+ */
+public class PagedObservableList<T> extends ObservableListBase<T> {
+
+    private static final Logger log = LoggerFactory.getLogger(PagedObservableList.class);
+
+    private static final ExecutorService loader = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "page-loader");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Izvor podataka iz kojeg lista učitava veličinu i stranice. Metode se pozivaju na pozadinskoj niti.
+     *
+     * @param <T> Tip zapisa.
+     */
+    public interface PageSource<T> {
+
+        /**
+         * Vraća ukupan broj zapisa.
+         * @return Broj zapisa.
+         * @throws RepositoryAccessException ako dođe do greške pri pristupu bazi.
+         */
+        int count() throws RepositoryAccessException;
+
+        /**
+         * Dohvaća raspon zapisa.
+         * @param offset Indeks prvog zapisa.
+         * @param limit Najveći broj zapisa.
+         * @return Zapisi u rasponu.
+         * @throws RepositoryAccessException ako dođe do greške pri pristupu bazi.
+         */
+        List<T> load(int offset, int limit) throws RepositoryAccessException;
+
+        /**
+         * Dohvaća raspon zapisa uz poznate rubne zapise susjednih stranica, kako bi izvor mogao stranicu
+         * dohvatiti u odnosu na njih (keyset) umjesto preskakanjem {@code offset} redaka. Zadano se
+         * susjedi zanemaruju.
+         *
+         * @param offset Indeks prvog zapisa.
+         * @param limit Najveći broj zapisa.
+         * @param previous Zadnji zapis prethodne stranice, ili null ako ona nije učitana.
+         * @param next Prvi zapis sljedeće stranice, ili null ako ona nije učitana.
+         * @return Zapisi u rasponu.
+         * @throws RepositoryAccessException ako dođe do greške pri pristupu bazi.
+         */
+        default List<T> load(int offset, int limit, T previous, T next) throws RepositoryAccessException {
+            return load(offset, limit);
+        }
+    }
+
+    private final int pageSize;
+    private final int prefetchMargin;
+    private final int maxCachedPages;
+    private final Consumer<RepositoryAccessException> errorHandler;
+    private final Map<Integer, List<T>> pages;
+    private final Set<Integer> stalePages = new HashSet<>();
+    private final Set<Integer> pendingPages = new HashSet<>();
+    private final Set<Integer> failedPages = new HashSet<>();
+
+    private PageSource<T> source;
+    private int size;
+    private boolean errorReported;
+    private boolean resetPending;
+    private volatile long generation;
+    private volatile int lastRequestedPage;
+
+    /**
+     * Kreira praznu listu. Podaci se počinju učitavati tek postavljanjem izvora.
+     *
+     * @param pageSize Broj zapisa na jednoj stranici.
+     * @param maxCachedPages Najveći broj stranica koje se drže u memoriji; mora pokriti vidljivi dio tablice.
+     * @param errorHandler Poziva se na JavaFX niti kada učitavanje ne uspije, najviše jednom po osvježavanju.
+     */
+    public PagedObservableList(int pageSize, int maxCachedPages, Consumer<RepositoryAccessException> errorHandler) {
+        if (pageSize <= 0 || maxCachedPages < 2) {
+            throw new IllegalArgumentException("Neispravna veličina stranice ili priručne memorije.");
+        }
+        this.pageSize = pageSize;
+        this.prefetchMargin = Math.max(1, pageSize / 4);
+        this.maxCachedPages = maxCachedPages;
+        this.errorHandler = errorHandler;
+        this.pages = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, List<T>> eldest) {
+                return size() > PagedObservableList.this.maxCachedPages;
+            }
+        };
+    }
+
+    /**
+     * Postavlja novi izvor podataka (npr. nakon promjene filtera) i učitava ga iznova.
+     *
+     * @param source Izvor podataka.
+     */
+    public void setSource(PageSource<T> source) {
+        this.source = Objects.requireNonNull(source);
+        pages.clear();
+        stalePages.clear();
+        resetPending = true;
+        refresh();
+    }
+
+    /**
+     * Postavlja novi izvor podataka zajedno s već dohvaćenom veličinom i prvom stranicom,
+     * pa se tablica odmah prikazuje bez dodatnog upita.
+     *
+     * @param source Izvor podataka za ostale stranice.
+     * @param count Ukupan broj zapisa.
+     * @param firstPage Prva stranica zapisa.
+     */
+    public void setSource(PageSource<T> source, int count, List<T> firstPage) {
+        this.source = Objects.requireNonNull(source);
+        ++generation;
+        pages.clear();
+        stalePages.clear();
+        pendingPages.clear();
+        failedPages.clear();
+        errorReported = false;
+        if (!firstPage.isEmpty()) {
+            pages.put(0, List.copyOf(firstPage));
+        }
+        resetTo(count);
+    }
+
+    /**
+     * Ponovno učitava veličinu i stranice koje su trenutno u memoriji. Dok nove stranice ne stignu,
+     * prikazuju se postojeći podaci, pa tablica zadržava poziciju i odabir.
+     */
+    public void refresh() {
+        if (source == null) {
+            return;
+        }
+        long gen = ++generation;
+        PageSource<T> currentSource = source;
+        pendingPages.clear();
+        failedPages.clear();
+        errorReported = false;
+
+        loader.execute(() -> {
+            try {
+                int count = currentSource.count();
+                Platform.runLater(() -> applyCount(gen, count));
+            } catch (RepositoryAccessException e) {
+                Platform.runLater(() -> reportError(gen, null, e));
+            }
+        });
+    }
+
+    @Override
+    public T get(int index) {
+        Objects.checkIndex(index, size);
+        int pageIndex = index / pageSize;
+        int offsetInPage = index % pageSize;
+        lastRequestedPage = pageIndex;
+
+        List<T> page = pages.get(pageIndex);
+        if (page == null || stalePages.contains(pageIndex)) {
+            requestPage(pageIndex);
+        }
+        if (offsetInPage >= pageSize - prefetchMargin) {
+            requestPage(pageIndex + 1);
+        } else if (offsetInPage < prefetchMargin) {
+            requestPage(pageIndex - 1);
+        }
+
+        return page != null && offsetInPage < page.size() ? page.get(offsetInPage) : null;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Traži zapis samo među učitanim stranicama, kako pretraga ne bi učitala cijelu tablicu.
+     */
+    @Override
+    public int indexOf(Object o) {
+        for (Map.Entry<Integer, List<T>> entry : pages.entrySet()) {
+            int offsetInPage = entry.getValue().indexOf(o);
+            if (offsetInPage >= 0) {
+                return entry.getKey() * pageSize + offsetInPage;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Vraća indeks prvog učitanog zapisa koji zadovoljava uvjet. Ne učitava nove stranice.
+     * @param matcher Uvjet.
+     * @return Indeks zapisa, ili -1 ako takav zapis nije učitan.
+     */
+    public int indexOfLoaded(Predicate<? super T> matcher) {
+        for (Map.Entry<Integer, List<T>> entry : pages.entrySet()) {
+            List<T> page = entry.getValue();
+            for (int offsetInPage = 0; offsetInPage < page.size(); offsetInPage++) {
+                if (matcher.test(page.get(offsetInPage))) {
+                    return entry.getKey() * pageSize + offsetInPage;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Vraća zapis ako je njegova stranica učitana, bez traženja stranice od izvora.
+     * @param index Indeks zapisa.
+     * @return Zapis, ili null ako stranica nije učitana.
+     */
+    public T getLoaded(int index) {
+        List<T> page = pages.get(index / pageSize);
+        int offsetInPage = index % pageSize;
+        return page != null && offsetInPage < page.size() ? page.get(offsetInPage) : null;
+    }
+
+    /**
+     * Zamjenjuje jedan učitani zapis novijom verzijom, npr. nakon izmjene u bazi, bez ponovnog učitavanja
+     * stranice. Tablica dobiva obavijest samo o tom retku, pa zadržava poziciju i odabir. Pozivatelj
+     * jamči da zapis i dalje pripada izvoru i da mu se mjesto u poretku nije promijenilo.
+     *
+     * @param index Indeks zapisa.
+     * @param item Nova verzija zapisa.
+     * @return True ako je zapis zamijenjen, false ako njegova stranica nije učitana.
+     */
+    public boolean replaceLoaded(int index, T item) {
+        Objects.checkIndex(index, size);
+        int pageIndex = index / pageSize;
+        List<T> page = pages.get(pageIndex);
+        int offsetInPage = index % pageSize;
+        if (page == null || offsetInPage >= page.size()) {
+            return false;
+        }
+        List<T> updated = new ArrayList<>(page);
+        T old = updated.set(offsetInPage, Objects.requireNonNull(item));
+        pages.put(pageIndex, Collections.unmodifiableList(updated));
+
+        beginChange();
+        nextSet(index, old);
+        endChange();
+        return true;
+    }
+
+    @Override
+    public int lastIndexOf(Object o) {
+        return indexOf(o);
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return indexOf(o) >= 0;
+    }
+
+    private void requestPage(int pageIndex) {
+        if (pageIndex < 0 || (long) pageIndex * pageSize >= size
+                || pendingPages.contains(pageIndex) || failedPages.contains(pageIndex)
+                || (pages.containsKey(pageIndex) && !stalePages.contains(pageIndex))) {
+            return;
+        }
+        pendingPages.add(pageIndex);
+
+        long gen = generation;
+        PageSource<T> currentSource = source;
+        T previous = edgeOf(pageIndex - 1, true);
+        T next = edgeOf(pageIndex + 1, false);
+        loader.execute(() -> {
+            if (gen != generation || Math.abs(pageIndex - lastRequestedPage) > maxCachedPages / 2) {
+                Platform.runLater(() -> {
+                    if (gen == generation) {
+                        pendingPages.remove(pageIndex);
+                    }
+                });
+                return;
+            }
+            try {
+                List<T> items = currentSource.load(pageIndex * pageSize, pageSize, previous, next);
+                Platform.runLater(() -> applyPage(gen, pageIndex, items));
+            } catch (RepositoryAccessException e) {
+                Platform.runLater(() -> reportError(gen, pageIndex, e));
+            }
+        });
+    }
+
+    /**
+     * Vraća zadnji ili prvi zapis susjedne stranice ako je ona učitana, svježa i puna, pa se zna da
+     * tražena stranica počinje, odnosno završava, točno uz nju.
+     */
+    private T edgeOf(int pageIndex, boolean last) {
+        List<T> page = pages.get(pageIndex);
+        if (page == null || page.size() != pageSize || stalePages.contains(pageIndex)) {
+            return null;
+        }
+        return last ? page.get(pageSize - 1) : page.get(0);
+    }
+
+    private void applyCount(long gen, int count) {
+        if (gen != generation) {
+            return;
+        }
+        if (resetPending) {
+            resetPending = false;
+            resetTo(count);
+            return;
+        }
+
+        int oldSize = size;
+        size = count;
+        pages.keySet().removeIf(pageIndex -> (long) pageIndex * pageSize >= count);
+        stalePages.clear();
+        stalePages.addAll(pages.keySet());
+
+        if (count != oldSize) {
+            beginChange();
+            if (count > oldSize) {
+                nextAdd(oldSize, count);
+            } else {
+                nextRemove(count, Collections.nCopies(oldSize - count, (T) null));
+            }
+            endChange();
+        }
+
+        for (Integer pageIndex : List.copyOf(stalePages)) {
+            requestPage(pageIndex);
+        }
+    }
+
+    private void resetTo(int count) {
+        int oldSize = size;
+        size = count;
+        beginChange();
+        if (oldSize > 0) {
+            nextRemove(0, Collections.nCopies(oldSize, (T) null));
+        }
+        if (count > 0) {
+            nextAdd(0, count);
+        }
+        endChange();
+    }
+
+    private void applyPage(long gen, int pageIndex, List<T> items) {
+        if (gen != generation) {
+            return;
+        }
+        pendingPages.remove(pageIndex);
+        stalePages.remove(pageIndex);
+        pages.put(pageIndex, List.copyOf(items));
+
+        int from = pageIndex * pageSize;
+        int to = Math.min(from + pageSize, size);
+        if (from < to) {
+            beginChange();
+            for (int i = from; i < to; i++) {
+                nextUpdate(i);
+            }
+            endChange();
+        }
+    }
+
+    private void reportError(long gen, Integer pageIndex, RepositoryAccessException e) {
+        if (gen != generation) {
+            return;
+        }
+        if (pageIndex != null) {
+            pendingPages.remove(pageIndex);
+            failedPages.add(pageIndex);
+        }
+        log.error("Učitavanje stranice podataka nije uspjelo.", e);
+        if (!errorReported) {
+            errorReported = true;
+            errorHandler.accept(e);
+        }
+    }
+}
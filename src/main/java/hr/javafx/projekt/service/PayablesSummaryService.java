@@ -0,0 +1,148 @@
+package hr.javafx.projekt.service;
+
+import hr.javafx.projekt.exception.RepositoryAccessException;
+import hr.javafx.projekt.model.Invoice;
+import hr.javafx.projekt.model.InvoiceDelta;
+import hr.javafx.projekt.model.PayablesSummary;
+import hr.javafx.projekt.repository.InvoiceChangeListener;
+import hr.javafx.projekt.repository.InvoiceRepository;
+import javafx.application.Platform;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Izračunava i pamti sažetak obveza za dashboard.
+ * <p>
+ * Sažetak se računa agregatnim upitima u bazi ({@link InvoiceRepository#summarizePayables}) i pamti dok se
+ * fakture ne promijene: servis osluškuje upise u {@link InvoiceRepository} i nakon svakog upisa odbacuje
+ * zapamćeni sažetak. Sažetak se odbacuje i kada se promijeni dan, jer o danu ovise dospijeća, te nakon
+ * {@value #MAX_AGE_MINUTES} minuta, kako bi se vidjele i promjene koje nisu prošle kroz repozitorij
+ * faktura (npr. promjena naziva dobavljača).
+ */
+public final class PayablesSummaryService implements InvoiceChangeListener {
+
+    private static final Logger log = LoggerFactory.getLogger(PayablesSummaryService.class);
+    private static final int TOP_SUPPLIER_COUNT = 5;
+    private static final long MAX_AGE_MINUTES = 5;
+
+    private static final PayablesSummaryService INSTANCE = new PayablesSummaryService(Clock.systemDefaultZone());
+
+    private final InvoiceRepository invoiceRepository = new InvoiceRepository();
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "payables-summary");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Clock clock;
+    private PayablesSummary cached;
+    private long cachedAtMillis;
+    private long version;
+
+    private PayablesSummaryService(Clock clock) {
+        this.clock = clock;
+        InvoiceRepository.addChangeListener(this);
+    }
+
+    /**
+     * Vraća jedinstvenu instancu servisa.
+     * @return Instanca servisa.
+     */
+    public static PayablesSummaryService getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Vraća zapamćeni sažetak ako je još važeći, bez pristupa bazi.
+     * @return Važeći sažetak, ili prazan Optional ako ga treba ponovno izračunati.
+     */
+    public synchronized Optional<PayablesSummary> getCachedSummary() {
+        boolean fresh = cached != null
+                && cached.asOf().equals(LocalDate.now(clock))
+                && clock.millis() - cachedAtMillis < TimeUnit.MINUTES.toMillis(MAX_AGE_MINUTES);
+        return fresh ? Optional.of(cached) : Optional.empty();
+    }
+
+    /**
+     * Vraća važeći sažetak, izračunavajući ga u bazi ako zapamćeni sažetak ne postoji ili je zastario.
+     * @return Sažetak obveza.
+     * @throws RepositoryAccessException ako dođe do greške pri pristupu bazi.
+     */
+    public PayablesSummary getSummary() throws RepositoryAccessException {
+        Optional<PayablesSummary> current = getCachedSummary();
+        if (current.isPresent()) {
+            return current.get();
+        }
+        long loadVersion;
+        synchronized (this) {
+            loadVersion = version;
+        }
+        long start = System.nanoTime();
+        PayablesSummary summary = invoiceRepository.summarizePayables(LocalDate.now(clock), TOP_SUPPLIER_COUNT);
+        log.debug("Sažetak obveza izračunat u {} ms.", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        synchronized (this) {
+            // Sažetak izračunat prije upisa koji se dogodio tijekom izračuna ne pamti se.
+            if (loadVersion == version) {
+                cached = summary;
+                cachedAtMillis = clock.millis();
+            }
+        }
+        return summary;
+    }
+
+    /**
+     * Izračunava sažetak na pozadinskoj niti i predaje rezultat na JavaFX niti.
+     *
+     * @param onResult Prima sažetak na JavaFX niti.
+     * @param onError Prima grešku na JavaFX niti.
+     */
+    public void loadAsync(Consumer<PayablesSummary> onResult, Consumer<Exception> onError) {
+        worker.submit(() -> {
+            try {
+                PayablesSummary summary = getSummary();
+                Platform.runLater(() -> onResult.accept(summary));
+            } catch (Exception e) {
+                log.error("Sažetak obveza nije moguće izračunati.", e);
+                Platform.runLater(() -> onError.accept(e));
+            }
+        });
+    }
+
+    @Override
+    public void invoiceSaved(Invoice invoice) {
+        invalidate();
+    }
+
+    @Override
+    public void invoicesImported(List<Invoice> invoices) {
+        invalidate();
+    }
+
+    @Override
+    public void invoiceDeleted(Long id) {
+        invalidate();
+    }
+
+    @Override
+    public void invoicesMarkedOverdue(List<Long> ids) {
+        invalidate();
+    }
+
+    @Override
+    public void invoicesChangedExternally(InvoiceDelta delta) {
+        invalidate();
+    }
+
+    private synchronized void invalidate() {
+        cached = null;
+        version++;
+    }
+}
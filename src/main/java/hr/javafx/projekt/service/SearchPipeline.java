@@ -0,0 +1,204 @@
+package hr.javafx.projekt.service;
+
+import hr.javafx.projekt.database.QueryCancellation;
+import hr.javafx.projekt.exception.RepositoryAccessException;
+import javafx.application.Platform;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Cjevovod za pretragu iz korisničkog sučelja. Upiti se odgađaju dok korisnik ne prestane tipkati,
+ * izvršavaju se na pozadinskoj niti, a na JavaFX nit se objavljuje samo rezultat najnovijeg upita.
+ * Novi upit prekida prethodni koji je još u tijeku, i to u samoj bazi ({@link QueryCancellation}), jer prekid
+ * niti ne zaustavlja upit koji se već izvršava.
+ * <p>
+ * Trajanje izvršenih upita bilježi se u {@link LatencyHistogram} zajednički za sve cjevovode istog naziva.
+ * Metode {@link #submit} i {@link #submitNow} pozivaju se s JavaFX niti.
+ *
+ * @param <Q> Tip upita.
+ * @param <R> Tip rezultata.
+ */
+public class SearchPipeline<Q, R> {
+
+    private static final Logger log = LoggerFactory.getLogger(SearchPipeline.class);
+    private static final int SUMMARY_INTERVAL = 50;
+
+    private static final ScheduledExecutorService debouncer =
+            Executors.newSingleThreadScheduledExecutor(daemonThreads("search-debounce"));
+    private static final ExecutorService workers =
+            Executors.newFixedThreadPool(2, daemonThreads("search-worker"));
+    private static final Map<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+
+    /**
+     * Funkcija koja izvršava upit. Poziva se na pozadinskoj niti.
+     *
+     * @param <Q> Tip upita.
+     * @param <R> Tip rezultata.
+     */
+    @FunctionalInterface
+    public interface SearchFunction<Q, R> {
+        /**
+         * Izvršava upit.
+         * @param query Upit.
+         * @return Rezultat.
+         * @throws RepositoryAccessException ako dođe do greške pri pristupu bazi.
+         */
+        R search(Q query) throws RepositoryAccessException;
+    }
+
+    private final String name;
+    private final long debounceMillis;
+    private final SearchFunction<Q, R> searchFunction;
+    private final Consumer<R> onResult;
+    private final Consumer<RepositoryAccessException> onError;
+    private final LatencyHistogram histogram;
+
+    private long latestSequence;
+    private ScheduledFuture<?> pendingDebounce;
+    private Future<?> inFlight;
+    private QueryCancellation inFlightQuery;
+
+    /**
+     * Kreira cjevovod.
+     *
+     * @param name Naziv cjevovoda, koristi se za histogram i logove.
+     * @param debounce Vrijeme mirovanja nakon zadnjeg unosa prije izvršavanja upita.
+     * @param searchFunction Funkcija koja izvršava upit.
+     * @param onResult Prima rezultat najnovijeg upita na JavaFX niti.
+     * @param onError Prima grešku najnovijeg upita na JavaFX niti.
+     */
+    public SearchPipeline(String name, Duration debounce, SearchFunction<Q, R> searchFunction,
+                          Consumer<R> onResult, Consumer<RepositoryAccessException> onError) {
+        this.name = name;
+        this.debounceMillis = debounce.toMillis();
+        this.searchFunction = searchFunction;
+        this.onResult = onResult;
+        this.onError = onError;
+        this.histogram = histograms.computeIfAbsent(name, key -> new LatencyHistogram());
+    }
+
+    /**
+     * Vraća histograme trajanja upita za sve cjevovode, prema nazivu.
+     * @return Nepromjenjiva kopija mape histograma.
+     */
+    public static Map<String, LatencyHistogram> getHistograms() {
+        return Map.copyOf(histograms);
+    }
+
+    /**
+     * Zakazuje upit nakon razdoblja mirovanja. Svaki novi poziv poništava prethodno zakazani upit.
+     * @param query Upit.
+     */
+    public void submit(Q query) {
+        long sequence = nextSequence();
+        pendingDebounce = debouncer.schedule(
+                () -> Platform.runLater(() -> dispatch(sequence, query)),
+                debounceMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Odmah izvršava upit, npr. nakon pritiska tipke Enter ili gumba za filtriranje.
+     * @param query Upit.
+     */
+    public void submitNow(Q query) {
+        dispatch(nextSequence(), query);
+    }
+
+    /**
+     * Poništava zakazani upit i prekida upit u tijeku. Rezultati koji pristignu nakon toga se odbacuju.
+     */
+    public void cancel() {
+        nextSequence();
+        cancelInFlight();
+    }
+
+    private void cancelInFlight() {
+        if (inFlight != null) {
+            inFlight.cancel(true);
+            inFlightQuery.cancel();
+            inFlight = null;
+            inFlightQuery = null;
+        }
+    }
+
+    private long nextSequence() {
+        if (pendingDebounce != null) {
+            pendingDebounce.cancel(false);
+            pendingDebounce = null;
+        }
+        return ++latestSequence;
+    }
+
+    private void dispatch(long sequence, Q query) {
+        if (sequence != latestSequence) {
+            return;
+        }
+        cancelInFlight();
+        QueryCancellation cancellation = new QueryCancellation();
+        inFlightQuery = cancellation;
+        inFlight = workers.submit(() -> execute(sequence, query, cancellation));
+    }
+
+    private void execute(long sequence, Q query, QueryCancellation cancellation) {
+        long start = System.nanoTime();
+        cancellation.activate();
+        try {
+            R result = searchFunction.search(query);
+            recordLatency(System.nanoTime() - start);
+            Platform.runLater(() -> {
+                if (sequence == latestSequence) {
+                    onResult.accept(result);
+                }
+            });
+        } catch (RepositoryAccessException e) {
+            if (cancellation.isCancelled() || Thread.currentThread().isInterrupted()) {
+                log.debug("Pretraga '{}' je prekinuta novijim upitom.", name);
+                return;
+            }
+            publishError(sequence, e);
+        } catch (RuntimeException e) {
+            log.error("Pretraga '{}' nije uspjela zbog neočekivane greške.", name, e);
+            publishError(sequence, new RepositoryAccessException("Greška prilikom pretrage!", e));
+        } finally {
+            cancellation.close();
+        }
+    }
+
+    private void publishError(long sequence, RepositoryAccessException e) {
+        Platform.runLater(() -> {
+            if (sequence == latestSequence) {
+                onError.accept(e);
+            }
+        });
+    }
+
+    private void recordLatency(long nanos) {
+        histogram.record(nanos);
+        log.debug("Pretraga '{}' trajala je {} ms.", name, TimeUnit.NANOSECONDS.toMillis(nanos));
+        if (histogram.getCount() % SUMMARY_INTERVAL == 0) {
+            log.info("Trajanje pretrage '{}': {}", name, histogram);
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -11,7 +11,11 @@ public class StatusBarState {
     private final DoubleProperty progress = new SimpleDoubleProperty(0.0);
     private final StringProperty lastUpdateText = new SimpleStringProperty("Inicijalizacija...");
 
-    private final LongProperty refreshSignal = new SimpleLongProperty(0L);
+    private final BooleanProperty taskRunning = new SimpleBooleanProperty(false);
+    private final StringProperty taskText = new SimpleStringProperty("");
+    private final DoubleProperty taskProgress = new SimpleDoubleProperty(0.0);
+
+    private final StringProperty leaseHolderText = new SimpleStringProperty("Provjeru izvodi: -");
 
     /**
      * Vraća trenutnu vrijednost napretka.
@@ -56,19 +60,78 @@ public class StatusBarState {
     }
 
     /**
-     * Vraća read-only svojstvo signala za osvježavanje na koje se UI može pretplatiti.
-     * @return Read-only svojstvo signala.
+     * Vraća svojstvo koje označava izvodi li se pozadinski zadatak (npr. izvoz).
+     * @return Read-only svojstvo.
+     */
+    public ReadOnlyBooleanProperty taskRunningProperty() {
+        return taskRunning;
+    }
+
+    /**
+     * Vraća svojstvo s opisom pozadinskog zadatka.
+     * @return Read-only svojstvo.
+     */
+    public ReadOnlyStringProperty taskTextProperty() {
+        return taskText;
+    }
+
+    /**
+     * Vraća svojstvo s napretkom pozadinskog zadatka, od 0 do 1, ili -1 ako napredak nije poznat.
+     * @return Read-only svojstvo.
+     */
+    public ReadOnlyDoubleProperty taskProgressProperty() {
+        return taskProgress;
+    }
+
+    /**
+     * Vraća svojstvo s opisom instance koja izvodi provjeru dospjelih faktura.
+     * @return Read-only svojstvo.
+     */
+    public ReadOnlyStringProperty leaseHolderTextProperty() {
+        return leaseHolderText;
+    }
+
+    /**
+     * Postavlja opis instance koja izvodi provjeru dospjelih faktura. Smije se pozvati s bilo koje niti.
+     * @param text Opis instance.
+     */
+    public void setLeaseHolderText(String text) {
+        Platform.runLater(() -> leaseHolderText.set(text));
+    }
+
+    /**
+     * Prikazuje pozadinski zadatak u statusnoj traci. Statusna traka prikazuje jedan zadatak,
+     * pa novi zadatak zamjenjuje prethodni. Smije se pozvati s bilo koje niti.
+     * @param text Opis zadatka.
+     */
+    public void startTask(String text) {
+        Platform.runLater(() -> {
+            taskText.set(text);
+            taskProgress.set(-1.0);
+            taskRunning.set(true);
+        });
+    }
+
+    /**
+     * Ažurira opis i napredak pozadinskog zadatka. Smije se pozvati s bilo koje niti.
+     * @param text Opis zadatka.
+     * @param progress Napredak od 0 do 1, ili -1 ako napredak nije poznat.
      */
-    public ReadOnlyLongProperty refreshSignalProperty() {
-        return refreshSignal;
+    public void updateTask(String text, double progress) {
+        Platform.runLater(() -> {
+            taskText.set(text);
+            taskProgress.set(progress);
+        });
     }
 
     /**
-     * Okidač koji pozivaju pozadinski servisi kako bi signalizirali potrebu za osvježavanjem.
-     * Postavlja novu vrijednost na signal property, što pokreće sve listenere.
-     * Koristi se Platform.runLater kako bi se osiguralo da se promjena dogodi na JavaFX niti.
+     * Uklanja pozadinski zadatak iz statusne trake. Smije se pozvati s bilo koje niti.
      */
-    public void triggerRefresh() {
-        Platform.runLater(() -> refreshSignal.set(System.currentTimeMillis()));
+    public void finishTask() {
+        Platform.runLater(() -> {
+            taskRunning.set(false);
+            taskText.set("");
+            taskProgress.set(0.0);
+        });
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,93 @@
+package hr.javafx.projekt.service;
+
+import javafx.application.Platform;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.ref.WeakReference;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Sabirnica promjena dobavljača koje su napravile druge instance aplikacije, a dojavljuje ih
+ * {@link ChangeSequencePoller} nakon što ih primijeni na priručnu memoriju i indeks pretrage.
+ * Otvoreni ekrani tada ponovno izvršavaju svoju pretragu, koja se izvodi nad indeksom u memoriji.
+ * <p>
+ * Promjene koje nastanu prije nego što JavaFX nit stigne objaviti prethodne objavljuju se jednom.
+ * Pretplatnici se drže preko slabih referenci, kao kod {@link InvoiceChangeBus}, pa pretplatnik
+ * mora sam držati referencu na objekt kojim se pretplatio.
+ */
+public final class SupplierChangeBus {
+
+    private static final Logger log = LoggerFactory.getLogger(SupplierChangeBus.class);
+
+    private static final SupplierChangeBus INSTANCE = new SupplierChangeBus();
+
+    private final List<WeakReference<Runnable>> subscribers = new CopyOnWriteArrayList<>();
+    private boolean flushScheduled;
+
+    private SupplierChangeBus() {
+    }
+
+    /**
+     * Vraća jedinstvenu instancu sabirnice.
+     * @return Instanca sabirnice.
+     */
+    public static SupplierChangeBus getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Pretplaćuje primatelja na promjene. Primatelj se poziva na JavaFX niti.
+     * @param subscriber Primatelj promjena; pozivatelj mora držati referencu na njega.
+     */
+    public void subscribe(Runnable subscriber) {
+        subscribers.add(new WeakReference<>(subscriber));
+    }
+
+    /**
+     * Otkazuje pretplatu.
+     * @param subscriber Prethodno pretplaćeni primatelj.
+     */
+    public void unsubscribe(Runnable subscriber) {
+        subscribers.removeIf(reference -> {
+            Runnable current = reference.get();
+            return current == null || current == subscriber;
+        });
+    }
+
+    /**
+     * Dojavljuje da su se dobavljači promijenili. Smije se pozvati s bilo koje niti.
+     * Ako nijedan ekran nije pretplaćen, ništa se ne zakazuje na JavaFX niti.
+     */
+    public void publish() {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        synchronized (this) {
+            if (flushScheduled) {
+                return;
+            }
+            flushScheduled = true;
+        }
+        Platform.runLater(this::flush);
+    }
+
+    private void flush() {
+        synchronized (this) {
+            flushScheduled = false;
+        }
+        for (WeakReference<Runnable> reference : subscribers) {
+            Runnable subscriber = reference.get();
+            if (subscriber == null) {
+                subscribers.remove(reference);
+                continue;
+            }
+            try {
+                subscriber.run();
+            } catch (RuntimeException e) {
+                log.error("Primatelj promjena dobavljača nije uspio obraditi promjene.", e);
+            }
+        }
+    }
+}
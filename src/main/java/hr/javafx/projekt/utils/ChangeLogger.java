@@ -2,25 +2,23 @@ package hr.javafx.projekt.utils;
 
 import hr.javafx.projekt.model.ChangeLogEntry;
 import hr.javafx.projekt.model.Entity;
-import hr.javafx.projekt.repository.ChangeLogRepository;
+import hr.javafx.projekt.model.FieldChange;
+import hr.javafx.projekt.service.AuditLogWriter;
 import hr.javafx.projekt.session.SessionManager;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
-import java.lang.reflect.Modifier;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Objects;
 
 /**
  * Uslužna klasa za generiranje i spremanje zapisa o promjenama entiteta.
- * Koristi refleksiju za automatsko praćenje promjena.
+ * Promijenjena polja pronalazi {@link EntityDiffer}, a zapise asinkrono upisuje {@link AuditLogWriter}.
  */
 public final class ChangeLogger {
 
-    private static final Logger log = LoggerFactory.getLogger(ChangeLogger.class);
-    private static final ChangeLogRepository changeLogRepository = new ChangeLogRepository();
+    private static final String SYSTEM_ROLE = "SYSTEM";
 
     private ChangeLogger() {}
 
@@ -29,7 +27,7 @@ public final class ChangeLogger {
      */
     public static <T extends Entity> void logAddition(T newEntity) {
         if (newEntity == null) return;
-        logChange("ADD", newEntity.getClass().getSimpleName(), "N/A", "N/A", newEntity.toString());
+        logChange("ADD", newEntity.getClass().getSimpleName(), newEntity.getId(), "N/A", "N/A", newEntity.toString());
     }
 
     /**
@@ -37,77 +35,102 @@ public final class ChangeLogger {
      */
     public static <T extends Entity> void logDeletion(T oldEntity) {
         if (oldEntity == null) return;
-        logChange("DELETE", oldEntity.getClass().getSimpleName(), "N/A", oldEntity.toString(), "N/A");
+        logChange("DELETE", oldEntity.getClass().getSimpleName(), oldEntity.getId(), "N/A", oldEntity.toString(), "N/A");
     }
 
     /**
-     * Uspoređuje dva entiteta i bilježi svaku promjenu polja.
+     * Uspoređuje dva entiteta i bilježi sva promijenjena polja jednim zapisom.
+     * Ako se nijedno polje nije promijenilo, ništa se ne bilježi.
      */
     public static <T extends Entity> void logUpdate(T oldEntity, T newEntity) {
         if (oldEntity == null || newEntity == null) return;
 
-        for (Method method : oldEntity.getClass().getMethods()) {
-            if (isGetter(method)) {
-                try {
-                    Object oldValue = method.invoke(oldEntity);
-                    Object newValue = method.invoke(newEntity);
-
-                    if (!Objects.equals(oldValue, newValue)) {
-                        String fieldName = getFieldNameFromGetter(method.getName());
-                        logChange(
-                                "UPDATE",
-                                oldEntity.getClass().getSimpleName(),
-                                fieldName,
-                                Objects.toString(oldValue, "null"),
-                                Objects.toString(newValue, "null")
-                        );
-                    }
-                } catch (IllegalAccessException | InvocationTargetException e) {
-                    log.error("Nije moguće pozvati metodu '{}' za logiranje promjena.", method.getName(), e);
-                }
-            }
-        }
+        List<FieldChange> changes = EntityDiffer.diff(oldEntity, newEntity);
+        if (changes.isEmpty()) return;
+
+        AuditLogWriter.getInstance().submit(ChangeLogEntry.ofUpdate(
+                oldEntity.getClass().getSimpleName(), newEntity.getId(), changes, LocalDateTime.now(), currentRole()));
     }
 
     /**
-     * Provjerava je li metoda javni getter.
+     * Bilježi istu promjenu jednog polja na više entiteta odjednom.
+     * Svi zapisi predaju se pisaču zajedno pa završavaju u istom grupnom upisu.
      */
-    private static boolean isGetter(Method method) {
-        if (!Modifier.isPublic(method.getModifiers()) ||
-                method.getParameterCount() != 0 ||
-                method.getReturnType() == void.class) {
-            return false;
+    public static <T extends Entity> void logBulkUpdate(Class<T> entityType, String fieldName,
+                                                        Object oldValue, Object newValue, List<Long> ids) {
+        if (ids.isEmpty()) return;
+
+        List<ChangeLogEntry> entries = new ArrayList<>(ids.size());
+        List<FieldChange> changes = List.of(new FieldChange(fieldName,
+                Objects.toString(oldValue, "null"), Objects.toString(newValue, "null")));
+        LocalDateTime timestamp = LocalDateTime.now();
+        String role = currentRole();
+        for (Long id : ids) {
+            entries.add(ChangeLogEntry.ofUpdate(entityType.getSimpleName(), id, changes, timestamp, role));
         }
-        String methodName = method.getName();
-        return (methodName.startsWith("get") || methodName.startsWith("is")) && !methodName.equals("getClass");
+        AuditLogWriter.getInstance().submitAll(entries);
     }
 
     /**
-     * Pretvara naziv getter metode u naziv polja (npr. "getName" -> "name").
+     * Bilježi dodavanje više novih entiteta odjednom, npr. pri uvozu, jednim zapisom po entitetu.
+     * Svi zapisi predaju se pisaču zajedno pa završavaju u istom grupnom upisu.
      */
-    private static String getFieldNameFromGetter(String getterName) {
-        if (getterName.startsWith("get")) {
-            return Character.toLowerCase(getterName.charAt(3)) + getterName.substring(4);
-        }
-        if (getterName.startsWith("is")) {
-            return Character.toLowerCase(getterName.charAt(2)) + getterName.substring(3);
+    public static <T extends Entity> void logAdditions(List<T> newEntities) {
+        if (newEntities.isEmpty()) return;
+
+        List<ChangeLogEntry> entries = new ArrayList<>(newEntities.size());
+        for (T entity : newEntities) {
+            entries.add(createEntry("ADD", entity.getClass().getSimpleName(), entity.getId(),
+                    "N/A", "N/A", entity.toString(), List.of()));
         }
-        return getterName;
+        AuditLogWriter.getInstance().submitAll(entries);
+    }
+
+    /**
+     * Bilježi sažetak jedne skupine uvoza zapisom tipa "IMPORT", uz zapise o dodavanju pojedinih entiteta.
+     * Zapis sadrži izvor uvoza, redni broj skupine, broj spremljenih entiteta i raspon njihovih ID-eva.
+     */
+    public static <T extends Entity> void logImport(Class<T> entityType, List<Long> ids, String source,
+                                                    int batchNumber) {
+        if (ids.isEmpty()) return;
+
+        String summary = String.format("%d zapisa, skupina %d, ID %d-%d, izvor: %s",
+                ids.size(), batchNumber, Collections.min(ids), Collections.max(ids), source);
+        logChange("IMPORT", entityType.getSimpleName(), null, "N/A", "N/A", summary);
+    }
+
+    /**
+     * Pomoćna metoda za kreiranje zapisa o promjeni i predaju pozadinskom pisaču.
+     */
+    private static void logChange(String changeType, String entityName, Long entityId,
+                                  String fieldName, String oldValue, String newValue) {
+        AuditLogWriter.getInstance().submit(
+                createEntry(changeType, entityName, entityId, fieldName, oldValue, newValue, List.of()));
     }
 
     /**
-     * Pomoćna metoda za kreiranje i spremanje zapisa o promjeni.
+     * Kreira zapis o promjeni s trenutnim vremenom i rolom prijavljenog korisnika.
      */
-    private static void logChange(String changeType, String entityName, String fieldName, String oldValue, String newValue) {
-        ChangeLogEntry entry = new ChangeLogEntry(
+    private static ChangeLogEntry createEntry(String changeType, String entityName, Long entityId, String fieldName,
+                                              String oldValue, String newValue, List<FieldChange> changes) {
+        return new ChangeLogEntry(
                 changeType,
                 entityName,
                 fieldName,
                 oldValue,
                 newValue,
                 LocalDateTime.now(),
-                SessionManager.getUserRole().name()
+                currentRole(),
+                entityId,
+                changes
         );
-        changeLogRepository.saveChange(entry);
     }
-}
\ No newline at end of file
+
+    /**
+     * Vraća rolu prijavljenog korisnika. Promjene koje pozadinski servisi naprave dok nitko
+     * nije prijavljen bilježe se kao {@value #SYSTEM_ROLE}.
+     */
+    private static String currentRole() {
+        return SessionManager.getUserRole() != null ? SessionManager.getUserRole().name() : SYSTEM_ROLE;
+    }
+}
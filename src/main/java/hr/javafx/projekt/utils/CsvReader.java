@@ -0,0 +1,150 @@
+package hr.javafx.projekt.utils;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Čita CSV zapise (RFC 4180) iz ulaznog toka, redak po redak, bez učitavanja cijele datoteke.
+ * Vrijednosti u navodnicima smiju sadržavati separator, udvostručene navodnike i prijelome retka.
+ * Format odgovara onome koji zapisuje {@link CsvWriter}.
+ */
+public final class CsvReader implements Closeable {
+
+    private static final char UTF8_BOM = '\uFEFF';
+
+    private static final int NONE = -2;
+
+    private final Reader reader;
+    private final char separator;
+    private final StringBuilder value = new StringBuilder();
+    private int peeked = NONE;
+    private boolean started;
+    private long lineNumber = 1;
+    private long rowLineNumber;
+
+    /**
+     * Kreira čitač sa zadanim separatorom.
+     * @param reader Izvor zapisa; čitač ga sam ne buffera.
+     * @param separator Separator vrijednosti u retku.
+     */
+    public CsvReader(Reader reader, char separator) {
+        this.reader = reader;
+        this.separator = separator;
+    }
+
+    /**
+     * Kreira čitač za UTF-8 datoteku sa zadanim separatorom {@link CsvWriter#DEFAULT_SEPARATOR}.
+     * Oznaka kodiranja (BOM) na početku se preskače.
+     *
+     * @param in Ulazni tok.
+     * @return Čitač.
+     */
+    public static CsvReader forExcel(InputStream in) {
+        return new CsvReader(new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)),
+                CsvWriter.DEFAULT_SEPARATOR);
+    }
+
+    /**
+     * Čita sljedeći redak. Prazni retci se preskaču.
+     * @return Vrijednosti retka, ili null na kraju toka.
+     * @throws IOException ako čitanje ne uspije ili navodnici nisu zatvoreni.
+     */
+    public List<String> readRow() throws IOException {
+        int c = read();
+        while (c == '\r' || c == '\n') {
+            endLine(c);
+            c = read();
+        }
+        if (c == -1) {
+            return null;
+        }
+        rowLineNumber = lineNumber;
+        List<String> row = new ArrayList<>();
+        value.setLength(0);
+        boolean quoted = false;
+        while (true) {
+            if (quoted) {
+                if (c == -1) {
+                    throw new IOException("Navodnici otvoreni u retku " + rowLineNumber + " nisu zatvoreni.");
+                }
+                if (c == '"') {
+                    int following = read();
+                    if (following != '"') {
+                        quoted = false;
+                        c = following;
+                        continue;
+                    }
+                    value.append('"');
+                } else {
+                    if (c == '\n') {
+                        lineNumber++;
+                    }
+                    value.append((char) c);
+                }
+            } else if (c == '"' && value.isEmpty()) {
+                quoted = true;
+            } else if (c == separator) {
+                row.add(value.toString());
+                value.setLength(0);
+            } else if (c == '\r' || c == '\n' || c == -1) {
+                row.add(value.toString());
+                if (c != -1) {
+                    endLine(c);
+                }
+                return row;
+            } else {
+                value.append((char) c);
+            }
+            c = read();
+        }
+    }
+
+    /**
+     * Vraća broj retka u datoteci u kojem počinje zadnji pročitani zapis.
+     * @return Broj retka, počevši od 1.
+     */
+    public long getRowLineNumber() {
+        return rowLineNumber;
+    }
+
+    /**
+     * Završava redak koji je završio znakom {@code c}; CRLF se broji kao jedan kraj retka.
+     */
+    private void endLine(int c) throws IOException {
+        if (c == '\r') {
+            int following = read();
+            if (following != '\n') {
+                peeked = following;
+            }
+        }
+        lineNumber++;
+    }
+
+    private int read() throws IOException {
+        if (peeked != NONE) {
+            int c = peeked;
+            peeked = NONE;
+            return c;
+        }
+        int c = reader.read();
+        if (!started) {
+            started = true;
+            if (c == UTF8_BOM) {
+                c = reader.read();
+            }
+        }
+        return c;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -0,0 +1,107 @@
+package hr.javafx.projekt.utils;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Zapisuje retke u CSV formatu (RFC 4180) izravno u izlazni tok, redak po redak.
+ * Vrijednosti koje sadrže separator, navodnike ili prijelom retka stavljaju se u navodnike.
+ * Zadani separator je točka-zarez, kakav očekuje Excel s hrvatskim regionalnim postavkama.
+ */
+public final class CsvWriter implements Closeable, Flushable {
+
+    public static final char DEFAULT_SEPARATOR = ';';
+    private static final String LINE_END = "\r\n";
+    private static final char UTF8_BOM = '\uFEFF';
+
+    private final Writer writer;
+    private final char separator;
+
+    /**
+     * Kreira pisač sa zadanim separatorom.
+     * @param writer Odredište zapisa.
+     * @param separator Separator vrijednosti u retku.
+     */
+    public CsvWriter(Writer writer, char separator) {
+        this.writer = writer;
+        this.separator = separator;
+    }
+
+    /**
+     * Kreira pisač koji u tok zapisuje UTF-8 tekst s oznakom kodiranja (BOM), kako bi Excel
+     * ispravno prikazao dijakritičke znakove.
+     *
+     * @param out Izlazni tok.
+     * @return Pisač sa zadanim separatorom.
+     * @throws IOException ako zapisivanje oznake kodiranja ne uspije.
+     */
+    public static CsvWriter forExcel(OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write(UTF8_BOM);
+        return new CsvWriter(writer, DEFAULT_SEPARATOR);
+    }
+
+    /**
+     * Zapisuje jedan redak.
+     * @param values Vrijednosti retka; null se zapisuje kao prazna vrijednost.
+     * @throws IOException ako zapisivanje ne uspije.
+     */
+    public void writeRow(String... values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(separator);
+            }
+            writeValue(values[i]);
+        }
+        writer.write(LINE_END);
+    }
+
+    /**
+     * Zapisuje jedan redak.
+     * @param values Vrijednosti retka; null se zapisuje kao prazna vrijednost.
+     * @throws IOException ako zapisivanje ne uspije.
+     */
+    public void writeRow(List<String> values) throws IOException {
+        writeRow(values.toArray(new String[0]));
+    }
+
+    private void writeValue(String value) throws IOException {
+        if (value == null || value.isEmpty()) {
+            return;
+        }
+        if (!needsQuoting(value)) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    private boolean needsQuoting(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == separator || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+}
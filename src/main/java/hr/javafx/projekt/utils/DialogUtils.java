@@ -1,10 +1,14 @@
 package hr.javafx.projekt.utils;
 
+import hr.javafx.projekt.enums.ExportFormat;
 import javafx.scene.control.Alert;
 import javafx.scene.control.ButtonType;
+import javafx.stage.FileChooser;
+import javafx.stage.Window;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
 import java.util.Optional;
 
 /**
@@ -53,6 +57,21 @@ public final class DialogUtils {
         return result.isPresent() && result.get() == ButtonType.YES;
     }
 
+    /**
+     * Prikazuje dijalog za odabir datoteke u koju se izvoze podaci, s ponuđenim formatima izvoza.
+     * Format se određuje iz nastavka odabrane datoteke ({@link ExportFormat#fromFileName}).
+     */
+    public static Optional<File> showExportDialog(Window owner, String title, String baseName) {
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle(title);
+        fileChooser.setInitialFileName(baseName + ExportFormat.CSV.getExtension());
+        for (ExportFormat format : ExportFormat.values()) {
+            fileChooser.getExtensionFilters().add(
+                    new FileChooser.ExtensionFilter(format.getDescription(), "*" + format.getExtension()));
+        }
+        return Optional.ofNullable(fileChooser.showSaveDialog(owner));
+    }
+
     /**
      * Privatna metoda koja kreira i prikazuje Alert dijalog.
      */
@@ -0,0 +1,147 @@
+package hr.javafx.projekt.utils;
+
+import hr.javafx.projekt.model.Entity;
+import hr.javafx.projekt.model.FieldChange;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Uspoređuje dvije instance istog entiteta i vraća promijenjena polja.
+ * Za svaki tip entiteta jednom se izgradi plan usporedbe (popis gettera kao {@link MethodHandle}-ova)
+ * koji se pamti u {@link ClassValue}, pa usporedba ne koristi refleksiju nakon prvog poziva.
+ * <p>
+ * Polja čija je vrijednost također entitet uspoređuju se po ID-u, jer entiteti ne nadjačavaju {@code equals}.
+ * ID samog entiteta se ne uspoređuje.
+ */
+public final class EntityDiffer {
+
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    private static final ClassValue<DiffPlan> PLANS = new ClassValue<>() {
+        @Override
+        protected DiffPlan computeValue(Class<?> type) {
+            return DiffPlan.build(type);
+        }
+    };
+
+    private EntityDiffer() {}
+
+    /**
+     * Vraća promijenjena polja između stare i nove verzije entiteta.
+     *
+     * @param oldEntity Stara verzija entiteta.
+     * @param newEntity Nova verzija entiteta, istog tipa kao stara.
+     * @return Promijenjena polja, redoslijedom naziva polja; prazna lista ako nema promjena.
+     */
+    public static List<FieldChange> diff(Object oldEntity, Object newEntity) {
+        if (oldEntity.getClass() != newEntity.getClass()) {
+            throw new IllegalArgumentException("Nije moguće usporediti entitete različitih tipova: "
+                    + oldEntity.getClass().getSimpleName() + " i " + newEntity.getClass().getSimpleName());
+        }
+        return PLANS.get(oldEntity.getClass()).diff(oldEntity, newEntity);
+    }
+
+    /**
+     * Jedno svojstvo entiteta u planu usporedbe.
+     */
+    private record Property(String name, MethodHandle getter, boolean entityValued) {
+
+        private boolean sameValue(Object oldValue, Object newValue) {
+            if (entityValued && oldValue instanceof Entity oldRef && newValue instanceof Entity newRef) {
+                return Objects.equals(oldRef.getId(), newRef.getId());
+            }
+            return Objects.equals(oldValue, newValue);
+        }
+    }
+
+    /**
+     * Unaprijed izgrađen popis svojstava jednog tipa entiteta.
+     */
+    private record DiffPlan(Property[] properties) {
+
+        private static DiffPlan build(Class<?> type) {
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            Method[] getters = Arrays.stream(type.getMethods())
+                    .filter(EntityDiffer::isGetter)
+                    .sorted(Comparator.comparing(Method::getName))
+                    .toArray(Method[]::new);
+
+            List<Property> properties = new ArrayList<>(getters.length);
+            for (Method getter : getters) {
+                String fieldName = fieldNameFromGetter(getter.getName());
+                if ("id".equals(fieldName)) {
+                    continue;
+                }
+                try {
+                    MethodHandle handle = lookup.unreflect(getter).asType(GETTER_TYPE);
+                    properties.add(new Property(fieldName, handle, Entity.class.isAssignableFrom(getter.getReturnType())));
+                } catch (IllegalAccessException e) {
+                    throw new IllegalStateException("Getter '" + getter.getName() + "' nije dostupan za usporedbu.", e);
+                }
+            }
+            return new DiffPlan(properties.toArray(Property[]::new));
+        }
+
+        private List<FieldChange> diff(Object oldEntity, Object newEntity) {
+            List<FieldChange> changes = null;
+            for (Property property : properties) {
+                Object oldValue = read(property, oldEntity);
+                Object newValue = read(property, newEntity);
+                if (!property.sameValue(oldValue, newValue)) {
+                    if (changes == null) {
+                        changes = new ArrayList<>(properties.length);
+                    }
+                    changes.add(new FieldChange(property.name(),
+                            Objects.toString(oldValue, "null"), Objects.toString(newValue, "null")));
+                }
+            }
+            return changes == null ? List.of() : changes;
+        }
+
+        private static Object read(Property property, Object entity) {
+            try {
+                return property.getter().invokeExact(entity);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable t) {
+                throw new IllegalStateException("Čitanje polja '" + property.name() + "' nije uspjelo.", t);
+            }
+        }
+    }
+
+    /**
+     * Provjerava je li metoda javni getter.
+     */
+    private static boolean isGetter(Method method) {
+        if (!Modifier.isPublic(method.getModifiers()) ||
+                Modifier.isStatic(method.getModifiers()) ||
+                method.getParameterCount() != 0 ||
+                method.getReturnType() == void.class) {
+            return false;
+        }
+        String methodName = method.getName();
+        return (methodName.startsWith("get") || methodName.startsWith("is")) && !methodName.equals("getClass");
+    }
+
+    /**
+     * Pretvara naziv getter metode u naziv polja (npr. "getName" -> "name").
+     */
+    private static String fieldNameFromGetter(String getterName) {
+        if (getterName.startsWith("get") && getterName.length() > 3) {
+            return Character.toLowerCase(getterName.charAt(3)) + getterName.substring(4);
+        }
+        if (getterName.startsWith("is") && getterName.length() > 2) {
+            return Character.toLowerCase(getterName.charAt(2)) + getterName.substring(3);
+        }
+        return getterName;
+    }
+}
@@ -0,0 +1,231 @@
+package hr.javafx.projekt.utils;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Zapisuje Excel radnu knjigu (XLSX) s jednim listom izravno u izlazni tok, redak po redak.
+ * <p>
+ * XLSX je ZIP arhiva XML dokumenata. Nepromjenjivi dijelovi (popis sadržaja, veze, radna knjiga i stilovi)
+ * zapisuju se odmah, a list ostaje otvoren dok se retci zapisuju. Tekst se zapisuje izravno u ćeliju
+ * (inline string) umjesto u zajedničku tablicu tekstova, pa pisač ne pamti ništa od zapisanih redaka
+ * i potrošnja memorije ne ovisi o broju redaka.
+ * <p>
+ * Vrijednosti tipa {@link Number} zapisuju se kao brojevi ({@link BigDecimal} s dvije decimale),
+ * {@link LocalDate} kao datum, a sve ostalo kao tekst.
+ */
+public final class XlsxWriter implements Closeable {
+
+    /** Najveći broj redaka na listu koji Excel podržava. */
+    public static final int MAX_ROWS = 1_048_576;
+
+    private static final int STYLE_HEADER = 1;
+    private static final int STYLE_DATE = 2;
+    private static final int STYLE_AMOUNT = 3;
+    private static final LocalDate EXCEL_EPOCH = LocalDate.of(1899, 12, 30);
+    private static final int MAX_SHEET_NAME_LENGTH = 31;
+
+    private static final String CONTENT_TYPES = """
+            <?xml version="1.0" encoding="UTF-8" standalone="yes"?>
+            <Types xmlns="http://schemas.openxmlformats.org/package/2006/content-types">\
+            <Default Extension="rels" ContentType="application/vnd.openxmlformats-package.relationships+xml"/>\
+            <Default Extension="xml" ContentType="application/xml"/>\
+            <Override PartName="/xl/workbook.xml" ContentType="application/vnd.openxmlformats-officedocument.spreadsheetml.sheet.main+xml"/>\
+            <Override PartName="/xl/worksheets/sheet1.xml" ContentType="application/vnd.openxmlformats-officedocument.spreadsheetml.worksheet+xml"/>\
+            <Override PartName="/xl/styles.xml" ContentType="application/vnd.openxmlformats-officedocument.spreadsheetml.styles+xml"/>\
+            </Types>""";
+
+    private static final String ROOT_RELS = """
+            <?xml version="1.0" encoding="UTF-8" standalone="yes"?>
+            <Relationships xmlns="http://schemas.openxmlformats.org/package/2006/relationships">\
+            <Relationship Id="rId1" Type="http://schemas.openxmlformats.org/officeDocument/2006/relationships/officeDocument" Target="xl/workbook.xml"/>\
+            </Relationships>""";
+
+    private static final String WORKBOOK_RELS = """
+            <?xml version="1.0" encoding="UTF-8" standalone="yes"?>
+            <Relationships xmlns="http://schemas.openxmlformats.org/package/2006/relationships">\
+            <Relationship Id="rId1" Type="http://schemas.openxmlformats.org/officeDocument/2006/relationships/worksheet" Target="worksheets/sheet1.xml"/>\
+            <Relationship Id="rId2" Type="http://schemas.openxmlformats.org/officeDocument/2006/relationships/styles" Target="styles.xml"/>\
+            </Relationships>""";
+
+    private static final String WORKBOOK = """
+            <?xml version="1.0" encoding="UTF-8" standalone="yes"?>
+            <workbook xmlns="http://schemas.openxmlformats.org/spreadsheetml/2006/main" \
+            xmlns:r="http://schemas.openxmlformats.org/officeDocument/2006/relationships">\
+            <sheets><sheet name="%s" sheetId="1" r:id="rId1"/></sheets>\
+            </workbook>""";
+
+    private static final String STYLES = """
+            <?xml version="1.0" encoding="UTF-8" standalone="yes"?>
+            <styleSheet xmlns="http://schemas.openxmlformats.org/spreadsheetml/2006/main">\
+            <numFmts count="1"><numFmt numFmtId="164" formatCode="dd.mm.yyyy"/></numFmts>\
+            <fonts count="2"><font><sz val="11"/><name val="Calibri"/></font>\
+            <font><b/><sz val="11"/><name val="Calibri"/></font></fonts>\
+            <fills count="2"><fill><patternFill patternType="none"/></fill>\
+            <fill><patternFill patternType="gray125"/></fill></fills>\
+            <borders count="1"><border><left/><right/><top/><bottom/><diagonal/></border></borders>\
+            <cellStyleXfs count="1"><xf numFmtId="0" fontId="0" fillId="0" borderId="0"/></cellStyleXfs>\
+            <cellXfs count="4">\
+            <xf numFmtId="0" fontId="0" fillId="0" borderId="0" xfId="0"/>\
+            <xf numFmtId="0" fontId="1" fillId="0" borderId="0" xfId="0" applyFont="1"/>\
+            <xf numFmtId="164" fontId="0" fillId="0" borderId="0" xfId="0" applyNumberFormat="1"/>\
+            <xf numFmtId="4" fontId="0" fillId="0" borderId="0" xfId="0" applyNumberFormat="1"/>\
+            </cellXfs>\
+            <cellStyles count="1"><cellStyle name="Normal" xfId="0" builtinId="0"/></cellStyles>\
+            </styleSheet>""";
+
+    private static final String SHEET_START = """
+            <?xml version="1.0" encoding="UTF-8" standalone="yes"?>
+            <worksheet xmlns="http://schemas.openxmlformats.org/spreadsheetml/2006/main">\
+            <sheetViews><sheetView workbookViewId="0">\
+            <pane ySplit="1" topLeftCell="A2" activePane="bottomLeft" state="frozen"/>\
+            </sheetView></sheetViews>\
+            <sheetData>""";
+
+    private static final String SHEET_END = "</sheetData></worksheet>";
+
+    private final ZipOutputStream zip;
+    private final Writer writer;
+    private int rowCount;
+
+    private XlsxWriter(OutputStream out, String sheetName) throws IOException {
+        this.zip = new ZipOutputStream(new BufferedOutputStream(out));
+        this.writer = new BufferedWriter(new OutputStreamWriter(zip, StandardCharsets.UTF_8));
+        writeEntry("[Content_Types].xml", CONTENT_TYPES);
+        writeEntry("_rels/.rels", ROOT_RELS);
+        writeEntry("xl/_rels/workbook.xml.rels", WORKBOOK_RELS);
+        writeEntry("xl/workbook.xml", WORKBOOK.formatted(escape(sheetName(sheetName))));
+        writeEntry("xl/styles.xml", STYLES);
+        zip.putNextEntry(new ZipEntry("xl/worksheets/sheet1.xml"));
+        writer.write(SHEET_START);
+    }
+
+    /**
+     * Kreira pisač i zapisuje nepromjenjive dijelove radne knjige. Prvi redak lista je zamrznut kao zaglavlje.
+     *
+     * @param out Izlazni tok; zatvara se zatvaranjem pisača.
+     * @param sheetName Naziv lista; skraćuje se na 31 znak.
+     * @return Pisač.
+     * @throws IOException ako zapisivanje ne uspije.
+     */
+    public static XlsxWriter create(OutputStream out, String sheetName) throws IOException {
+        return new XlsxWriter(out, sheetName);
+    }
+
+    /**
+     * Zapisuje redak zaglavlja podebljanim slovima.
+     * @param titles Nazivi stupaca.
+     * @throws IOException ako zapisivanje ne uspije ili je list pun.
+     */
+    public void writeHeader(List<String> titles) throws IOException {
+        startRow();
+        for (String title : titles) {
+            writeText(title, STYLE_HEADER);
+        }
+        writer.write("</row>");
+    }
+
+    /**
+     * Zapisuje jedan redak.
+     * @param cells Vrijednosti ćelija; null ostavlja praznu ćeliju.
+     * @throws IOException ako zapisivanje ne uspije ili je list pun.
+     */
+    public void writeRow(List<?> cells) throws IOException {
+        startRow();
+        for (Object cell : cells) {
+            if (cell == null) {
+                writer.write("<c/>");
+            } else if (cell instanceof BigDecimal amount) {
+                writer.write("<c s=\"" + STYLE_AMOUNT + "\"><v>" + amount.toPlainString() + "</v></c>");
+            } else if (cell instanceof Number number) {
+                writer.write("<c><v>" + number + "</v></c>");
+            } else if (cell instanceof LocalDate date) {
+                writer.write("<c s=\"" + STYLE_DATE + "\"><v>" + ChronoUnit.DAYS.between(EXCEL_EPOCH, date) + "</v></c>");
+            } else {
+                writeText(cell.toString(), 0);
+            }
+        }
+        writer.write("</row>");
+    }
+
+    private void startRow() throws IOException {
+        if (rowCount == MAX_ROWS) {
+            throw new IOException("List radne knjige može imati najviše " + MAX_ROWS + " redaka.");
+        }
+        rowCount++;
+        writer.write("<row>");
+    }
+
+    private void writeText(String text, int style) throws IOException {
+        writer.write(style == 0 ? "<c t=\"inlineStr\">" : "<c t=\"inlineStr\" s=\"" + style + "\">");
+        writer.write("<is><t xml:space=\"preserve\">");
+        writer.write(escape(text));
+        writer.write("</t></is></c>");
+    }
+
+    private void writeEntry(String name, String content) throws IOException {
+        zip.putNextEntry(new ZipEntry(name));
+        writer.write(content);
+        writer.flush();
+        zip.closeEntry();
+    }
+
+    /**
+     * Naziv lista ne smije sadržavati znakove {@code \ / ? * [ ] :} niti biti dulji od 31 znaka.
+     */
+    private static String sheetName(String name) {
+        String cleaned = name.replaceAll("[\\\\/?*\\[\\]:]", " ").trim();
+        if (cleaned.isEmpty()) {
+            cleaned = "List1";
+        }
+        return cleaned.length() > MAX_SHEET_NAME_LENGTH ? cleaned.substring(0, MAX_SHEET_NAME_LENGTH) : cleaned;
+    }
+
+    /**
+     * Escapira posebne XML znakove i izostavlja kontrolne znakove koje XML ne dopušta.
+     */
+    private static String escape(String text) {
+        StringBuilder escaped = null;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            String replacement = switch (c) {
+                case '&' -> "&amp;";
+                case '<' -> "&lt;";
+                case '>' -> "&gt;";
+                case '"' -> "&quot;";
+                default -> c < 0x20 && c != '\t' && c != '\n' && c != '\r' ? "" : null;
+            };
+            if (replacement != null && escaped == null) {
+                escaped = new StringBuilder(text.length() + 16).append(text, 0, i);
+            }
+            if (escaped != null) {
+                if (replacement != null) {
+                    escaped.append(replacement);
+                } else {
+                    escaped.append(c);
+                }
+            }
+        }
+        return escaped == null ? text : escaped.toString();
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.write(SHEET_END);
+        writer.flush();
+        zip.closeEntry();
+        writer.close();
+    }
+}
@@ -0,0 +1,90 @@
+package hr.javafx.projekt.changelog;
+
+import hr.javafx.projekt.model.ChangeLogEntry;
+import hr.javafx.projekt.model.FieldChange;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChangeLogCodecTest {
+
+    private static final LocalDateTime TIMESTAMP = LocalDateTime.of(2024, 3, 15, 10, 30, 45, 123_000_000);
+
+    @Test
+    void roundTripsAdditionWithoutEntityId() throws IOException {
+        ChangeLogEntry entry = new ChangeLogEntry("ADD", "Supplier", "N/A", null,
+                "Supplier[name=Kraš d.d., address=Ravnice 48, oib=12345678901]", TIMESTAMP, "ADMIN");
+
+        assertEquals(entry, roundTrip(entry));
+    }
+
+    @Test
+    void roundTripsUpdateWithDerivedSummary() throws IOException {
+        ChangeLogEntry entry = ChangeLogEntry.ofUpdate("Invoice", 42L, List.of(
+                new FieldChange("amount", "100.00", "150.00"),
+                new FieldChange("status", "UNPAID", "PAID"),
+                new FieldChange("note", null, "Plaćeno gotovinom")), TIMESTAMP, "USER");
+
+        assertEquals(entry, roundTrip(entry));
+    }
+
+    @Test
+    void roundTripsUpdateWithStoredSummary() throws IOException {
+        ChangeLogEntry entry = new ChangeLogEntry("UPDATE", "Supplier", "address", "Ilica 1", "Ilica 2",
+                TIMESTAMP, "SYSTEM", 7L, List.of(new FieldChange("address", "Ilica 1", "Ilica 2")));
+
+        assertEquals(entry, roundTrip(entry));
+    }
+
+    @Test
+    void roundTripsCompressedEntry() throws IOException {
+        String longValue = "Invoice[invoiceNumber=R-2024-0001, amount=1250.00, status=UNPAID]".repeat(4);
+        ChangeLogEntry entry = new ChangeLogEntry("DELETE", "Invoice", "N/A", longValue, null,
+                TIMESTAMP, "ADMIN", 1L, List.of());
+
+        byte[] payload = ChangeLogCodec.encode(entry);
+
+        assertTrue(payload.length < longValue.length());
+        assertEquals(entry, ChangeLogCodec.decode(ChangeLogCodec.CURRENT_VERSION, payload));
+    }
+
+    @Test
+    void decodesFromBufferWithoutMovingPosition() throws IOException {
+        ChangeLogEntry entry = ChangeLogEntry.ofUpdate("Supplier", 3L,
+                List.of(new FieldChange("name", "Stari naziv", "Novi naziv")), TIMESTAMP, "ADMIN");
+        ByteBuffer buffer = ByteBuffer.wrap(ChangeLogCodec.encode(entry));
+
+        assertEquals(entry, ChangeLogCodec.decode(ChangeLogCodec.CURRENT_VERSION, buffer));
+        assertEquals(0, buffer.position());
+    }
+
+    @Test
+    void rejectsTruncatedPayload() {
+        ChangeLogEntry entry = ChangeLogEntry.ofUpdate("Supplier", 3L,
+                List.of(new FieldChange("name", "Stari naziv", "Novi naziv")), TIMESTAMP, "ADMIN");
+        byte[] payload = ChangeLogCodec.encode(entry);
+        byte[] truncated = Arrays.copyOf(payload, payload.length - 3);
+
+        assertThrows(IOException.class, () -> ChangeLogCodec.decode(ChangeLogCodec.CURRENT_VERSION, truncated));
+    }
+
+    @Test
+    void rejectsUnsupportedVersion() {
+        byte[] payload = ChangeLogCodec.encode(new ChangeLogEntry("ADD", "User", "N/A", null, "x",
+                TIMESTAMP, "ADMIN"));
+
+        assertThrows(IOException.class, () -> ChangeLogCodec.decode((byte) 9, payload));
+    }
+
+    private static ChangeLogEntry roundTrip(ChangeLogEntry entry) throws IOException {
+        return ChangeLogCodec.decode(ChangeLogCodec.CURRENT_VERSION, ChangeLogCodec.encode(entry));
+    }
+}
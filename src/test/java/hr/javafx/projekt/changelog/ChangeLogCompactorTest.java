@@ -0,0 +1,78 @@
+package hr.javafx.projekt.changelog;
+
+import hr.javafx.projekt.model.ChangeLogEntry;
+import hr.javafx.projekt.model.FieldChange;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class ChangeLogCompactorTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 5, 1, 8, 0);
+
+    @Test
+    void mergesConsecutiveUpdatesKeepingFirstOldAndLastNewValue() {
+        ChangeLogEntry first = update("Invoice", 1L, 0, "ADMIN",
+                new FieldChange("amount", "100", "120"), new FieldChange("status", "UNPAID", "OVERDUE"));
+        ChangeLogEntry second = update("Invoice", 1L, 1, "ADMIN", new FieldChange("amount", "120", "150"));
+
+        List<ChangeLogEntry> compacted = ChangeLogCompactor.compact(List.of(first, second));
+
+        assertEquals(List.of(ChangeLogEntry.ofUpdate("Invoice", 1L, List.of(
+                new FieldChange("amount", "100", "150"),
+                new FieldChange("status", "UNPAID", "OVERDUE")), second.timestamp(), "ADMIN")), compacted);
+    }
+
+    @Test
+    void mergesAcrossUpdatesOfOtherEntitiesInPlaceOfLastUpdate() {
+        ChangeLogEntry first = update("Supplier", 1L, 0, "ADMIN", new FieldChange("name", "A", "B"));
+        ChangeLogEntry other = update("Supplier", 2L, 1, "ADMIN", new FieldChange("name", "X", "Y"));
+        ChangeLogEntry second = update("Supplier", 1L, 2, "ADMIN", new FieldChange("name", "B", "C"));
+
+        List<ChangeLogEntry> compacted = ChangeLogCompactor.compact(List.of(first, other, second));
+
+        assertEquals(2, compacted.size());
+        assertSame(other, compacted.get(0));
+        assertEquals(List.of(new FieldChange("name", "A", "C")), compacted.get(1).changes());
+        assertEquals(second.timestamp(), compacted.get(1).timestamp());
+    }
+
+    @Test
+    void dropsUpdatesThatRevertToOriginalValue() {
+        ChangeLogEntry first = update("Supplier", 1L, 0, "ADMIN", new FieldChange("address", "Ilica 1", "Ilica 2"));
+        ChangeLogEntry second = update("Supplier", 1L, 1, "ADMIN", new FieldChange("address", "Ilica 2", "Ilica 1"));
+
+        assertEquals(List.of(), ChangeLogCompactor.compact(List.of(first, second)));
+    }
+
+    @Test
+    void doesNotMergeAcrossDeletionOrDifferentRole() {
+        ChangeLogEntry first = update("Invoice", 1L, 0, "ADMIN", new FieldChange("amount", "1", "2"));
+        ChangeLogEntry byUser = update("Invoice", 1L, 1, "USER", new FieldChange("amount", "2", "3"));
+        ChangeLogEntry deletion = new ChangeLogEntry("DELETE", "Invoice", "N/A", "Invoice[...]", null,
+                START.plusMinutes(2), "USER", 1L, List.of());
+        ChangeLogEntry afterDeletion = update("Invoice", 1L, 3, "USER", new FieldChange("amount", "3", "4"));
+        List<ChangeLogEntry> entries = List.of(first, byUser, deletion, afterDeletion);
+
+        assertEquals(entries, ChangeLogCompactor.compact(entries));
+    }
+
+    @Test
+    void keepsEntriesWithoutEntityIdUnchanged() {
+        ChangeLogEntry legacy = new ChangeLogEntry("UPDATE", "Supplier", "name", "A", "B", START, "ADMIN");
+        ChangeLogEntry legacyAgain = new ChangeLogEntry("UPDATE", "Supplier", "name", "B", "C",
+                START.plusMinutes(1), "ADMIN");
+        List<ChangeLogEntry> entries = List.of(legacy, legacyAgain);
+
+        assertEquals(entries, ChangeLogCompactor.compact(entries));
+    }
+
+    private static ChangeLogEntry update(String entityName, Long entityId, int minute, String role,
+                                         FieldChange... changes) {
+        return ChangeLogEntry.ofUpdate(entityName, entityId, List.of(changes), START.plusMinutes(minute), role);
+    }
+}
@@ -0,0 +1,108 @@
+package hr.javafx.projekt.changelog;
+
+import hr.javafx.projekt.enums.FsyncPolicy;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SegmentedLogTest {
+
+    private static final long MAX_SEGMENT_BYTES = 1024 * 1024;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void discardsPartialRecordAtEndOfActiveSegment() throws IOException {
+        try (SegmentedLog log = open()) {
+            log.appendAll(payloads("prvi", "drugi", "treći"));
+        }
+        long intactSize = Files.size(activeSegmentFile());
+        ByteBuffer partial = ByteBuffer.allocate(Integer.BYTES * 2 + 4).putInt(100).putInt(0).putInt(42);
+        Files.write(activeSegmentFile(), partial.array(), StandardOpenOption.APPEND);
+
+        try (SegmentedLog log = open()) {
+            assertEquals(List.of("prvi", "drugi", "treći"), readAll(log));
+            assertEquals(intactSize, log.segmentSize(log.activeSegmentId()));
+
+            RecordPointer pointer = log.append(bytes("četvrti"));
+            assertEquals(intactSize, pointer.offset());
+        }
+        try (SegmentedLog log = open()) {
+            assertEquals(List.of("prvi", "drugi", "treći", "četvrti"), readAll(log));
+        }
+    }
+
+    @Test
+    void discardsLastRecordWithDamagedContent() throws IOException {
+        try (SegmentedLog log = open()) {
+            log.appendAll(payloads("prvi", "drugi", "treći"));
+        }
+        byte[] content = Files.readAllBytes(activeSegmentFile());
+        content[content.length - 1] ^= 0x7F;
+        Files.write(activeSegmentFile(), content);
+
+        try (SegmentedLog log = open()) {
+            assertEquals(List.of("prvi", "drugi"), readAll(log));
+        }
+    }
+
+    @Test
+    void keepsRecordsAcrossSegmentsAfterReopen() throws IOException {
+        List<String> written = new ArrayList<>();
+        try (SegmentedLog log = new SegmentedLog(directory, 64, FsyncPolicy.NEVER, 0)) {
+            for (int i = 0; i < 10; i++) {
+                written.add("zapis-" + i);
+                log.append(bytes("zapis-" + i));
+            }
+            assertTrue(log.segmentIds().size() > 1);
+        }
+        try (SegmentedLog log = new SegmentedLog(directory, 64, FsyncPolicy.NEVER, 0)) {
+            assertEquals(written, readAll(log));
+        }
+    }
+
+    private SegmentedLog open() throws IOException {
+        return new SegmentedLog(directory, MAX_SEGMENT_BYTES, FsyncPolicy.NEVER, 0);
+    }
+
+    private Path activeSegmentFile() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".log"))
+                    .sorted()
+                    .reduce((first, second) -> second)
+                    .orElseThrow();
+        }
+    }
+
+    private static List<String> readAll(SegmentedLog log) throws IOException {
+        List<String> records = new ArrayList<>();
+        log.scan((segmentId, offset, formatVersion, payload) ->
+                records.add(StandardCharsets.UTF_8.decode(payload).toString()));
+        return records;
+    }
+
+    private static List<byte[]> payloads(String... values) {
+        List<byte[]> payloads = new ArrayList<>();
+        for (String value : values) {
+            payloads.add(bytes(value));
+        }
+        return payloads;
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,85 @@
+package hr.javafx.projekt.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InvoiceDeltaTest {
+
+    @Test
+    void updateOfInsertedInvoiceStaysInsertion() {
+        InvoiceDelta delta = new InvoiceDelta.Builder()
+                .inserted(List.of(1L))
+                .updated(List.of(1L, 2L))
+                .build();
+
+        assertEquals(Set.of(1L), delta.inserted());
+        assertEquals(Set.of(2L), delta.updated());
+        assertEquals(Set.of(), delta.deleted());
+    }
+
+    @Test
+    void deletionOfInsertedInvoiceOmitsIt() {
+        InvoiceDelta delta = new InvoiceDelta.Builder()
+                .inserted(List.of(1L, 2L))
+                .updated(List.of(1L))
+                .deleted(List.of(1L))
+                .build();
+
+        assertEquals(Set.of(2L), delta.inserted());
+        assertEquals(Set.of(), delta.updated());
+        assertEquals(Set.of(), delta.deleted());
+    }
+
+    @Test
+    void updateBeforeAndAfterDeletionBecomesDeletion() {
+        InvoiceDelta delta = new InvoiceDelta.Builder()
+                .updated(List.of(3L))
+                .deleted(List.of(3L))
+                .updated(List.of(3L))
+                .build();
+
+        assertEquals(Set.of(), delta.updated());
+        assertEquals(Set.of(3L), delta.deleted());
+        assertEquals(1, delta.size());
+    }
+
+    @Test
+    void mergeAppliesLaterChangesInOrder() {
+        InvoiceDelta earlier = InvoiceDelta.inserted(List.of(1L)).merge(InvoiceDelta.updated(List.of(2L)));
+        InvoiceDelta later = new InvoiceDelta.Builder()
+                .updated(List.of(1L))
+                .deleted(List.of(2L))
+                .build();
+
+        InvoiceDelta merged = earlier.merge(later);
+
+        assertEquals(Set.of(1L), merged.inserted());
+        assertEquals(Set.of(), merged.updated());
+        assertEquals(Set.of(2L), merged.deleted());
+    }
+
+    @Test
+    void mergeKeepsReloadFlag() {
+        InvoiceDelta merged = InvoiceDelta.updated(List.of(5L)).merge(InvoiceDelta.RELOAD);
+
+        assertTrue(merged.reloadRequired());
+        assertEquals(Set.of(5L), merged.updated());
+    }
+
+    @Test
+    void changesThatCancelOutBuildEmptyDelta() {
+        InvoiceDelta delta = new InvoiceDelta.Builder()
+                .inserted(List.of(7L))
+                .deleted(List.of(7L))
+                .build();
+
+        assertSame(InvoiceDelta.EMPTY, delta);
+        assertTrue(delta.isEmpty());
+    }
+}
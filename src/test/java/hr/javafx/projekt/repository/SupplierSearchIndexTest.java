@@ -0,0 +1,84 @@
+package hr.javafx.projekt.repository;
+
+import hr.javafx.projekt.model.Supplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SupplierSearchIndexTest {
+
+    private static final List<Supplier> SUPPLIERS = List.of(
+            new Supplier(1L, "Kraš d.d.", "Ravnice 48, Zagreb", "11111111111"),
+            new Supplier(2L, "Mikraš obrt", "Ilica 5, Zagreb", "22222222222"),
+            new Supplier(3L, "Podravka d.d.", "Krapinska 5, Koprivnica", "33333333333"),
+            new Supplier(4L, "Zvečevo", "Kolodvorska 1, Požega", "44444444444"));
+
+    private final SupplierSearchIndex index = SupplierSearchIndex.getInstance();
+
+    @BeforeEach
+    void setUp() {
+        index.invalidateAll();
+    }
+
+    @AfterEach
+    void tearDown() {
+        index.invalidateAll();
+    }
+
+    @Test
+    void ranksNamePrefixBeforeNameInfixBeforeAddress() {
+        SupplierSearchResult result = search("kra", 10);
+
+        assertEquals(List.of(1L, 2L, 3L), ids(result));
+        assertEquals(3, result.totalMatches());
+        assertFalse(result.truncated());
+    }
+
+    @Test
+    void ignoresCaseAndDiacritics() {
+        assertEquals(List.of(1L, 2L), ids(search("KRAŠ", 2)));
+        assertEquals(List.of(4L), ids(search("zvecevo", 10)));
+    }
+
+    @Test
+    void findsSimilarNameDespiteTypo() {
+        assertEquals(List.of(3L), ids(search("podravak", 10)));
+    }
+
+    @Test
+    void matchesOibLiterally() {
+        assertEquals(List.of(2L), ids(search("2222222", 10)));
+    }
+
+    @Test
+    void reportsTotalWhenResultIsTruncated() {
+        SupplierSearchResult result = search("zagreb", 1);
+
+        assertEquals(1, result.suppliers().size());
+        assertEquals(2, result.totalMatches());
+        assertTrue(result.truncated());
+    }
+
+    @Test
+    void reflectsUpdatesAndRemovals() {
+        search("", 10);
+        index.put(new Supplier(4L, "Zvečevo Kraš", "Kolodvorska 1, Požega", "44444444444"));
+        index.remove(2L);
+
+        assertEquals(List.of(1L, 4L, 3L), ids(search("kra", 10)));
+    }
+
+    private SupplierSearchResult search(String query, int limit) {
+        return index.search(query, limit, () -> SUPPLIERS);
+    }
+
+    private static List<Long> ids(SupplierSearchResult result) {
+        return result.suppliers().stream().map(Supplier::getId).toList();
+    }
+}
@@ -0,0 +1,205 @@
+package hr.javafx.projekt.service;
+
+import hr.javafx.projekt.database.InstanceIdentity;
+import hr.javafx.projekt.enums.ChangeKind;
+import hr.javafx.projekt.exception.RepositoryAccessException;
+import hr.javafx.projekt.model.InvoiceDelta;
+import hr.javafx.projekt.model.SequencedChange;
+import hr.javafx.projekt.model.Supplier;
+import hr.javafx.projekt.repository.ChangeSequenceRepository;
+import hr.javafx.projekt.repository.InvoiceChangeListener;
+import hr.javafx.projekt.repository.InvoiceRepository;
+import hr.javafx.projekt.repository.SupplierRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChangeSequencePollerTest {
+
+    private static final String OTHER_INSTANCE = "druga-instanca:1:0";
+
+    private final FakeChangeSequence changeSequence = new FakeChangeSequence();
+    private final FakeSupplierRepository suppliers = new FakeSupplierRepository();
+    private final MutableClock clock = new MutableClock(Instant.parse("2024-06-01T08:00:00Z"));
+    private final List<InvoiceDelta> deltas = new ArrayList<>();
+    private final InvoiceChangeListener listener = new InvoiceChangeListener() {
+        @Override
+        public void invoicesChangedExternally(InvoiceDelta delta) {
+            deltas.add(delta);
+        }
+    };
+    private ChangeSequencePoller poller;
+
+    @BeforeEach
+    void setUp() {
+        InvoiceRepository.addChangeListener(listener);
+        poller = new ChangeSequencePoller(changeSequence, suppliers, clock);
+        poller.run();
+    }
+
+    @AfterEach
+    void tearDown() {
+        InvoiceRepository.removeChangeListener(listener);
+    }
+
+    @Test
+    void appliesOnlyChangesOfOtherInstances() {
+        changeSequence.add(1, 10L, ChangeKind.INSERT, OTHER_INSTANCE);
+        changeSequence.add(2, 11L, ChangeKind.UPDATE, InstanceIdentity.get());
+
+        poller.run();
+        poller.run();
+
+        assertEquals(List.of(InvoiceDelta.inserted(List.of(10L))), deltas);
+    }
+
+    @Test
+    void appliesChangeThatFillsGapWithinGracePeriod() {
+        changeSequence.add(1, 10L, ChangeKind.INSERT, OTHER_INSTANCE);
+        changeSequence.add(3, 30L, ChangeKind.INSERT, OTHER_INSTANCE);
+        poller.run();
+
+        changeSequence.add(2, 20L, ChangeKind.UPDATE, OTHER_INSTANCE);
+        clock.advance(Duration.ofSeconds(10));
+        poller.run();
+        clock.advance(Duration.ofMinutes(1));
+        poller.run();
+
+        assertEquals(List.of(
+                InvoiceDelta.inserted(List.of(10L, 30L)),
+                InvoiceDelta.updated(List.of(20L))), deltas);
+    }
+
+    @Test
+    void reloadsEverythingWhenGapIsNotFilledInTime() {
+        changeSequence.add(1, 10L, ChangeKind.INSERT, OTHER_INSTANCE);
+        changeSequence.add(3, 30L, ChangeKind.INSERT, OTHER_INSTANCE);
+        poller.run();
+
+        clock.advance(Duration.ofSeconds(31));
+        poller.run();
+        changeSequence.add(2, 20L, ChangeKind.UPDATE, OTHER_INSTANCE);
+        poller.run();
+
+        assertEquals(List.of(InvoiceDelta.inserted(List.of(10L, 30L)), InvoiceDelta.RELOAD), deltas);
+    }
+
+    @Test
+    void reloadsEverythingAfterMissingRetentionPeriod() {
+        clock.advance(ChangeSequencePoller.RETENTION.plusMinutes(1));
+        changeSequence.add(1, 10L, ChangeKind.INSERT, OTHER_INSTANCE);
+        poller.run();
+        poller.run();
+
+        assertEquals(List.of(InvoiceDelta.RELOAD), deltas);
+    }
+
+    @Test
+    void rereadsAllBatchesWhenLaterBatchFails() {
+        LongStream.rangeClosed(1, 1_500)
+                .forEach(seq -> changeSequence.add(seq, seq, ChangeKind.INSERT, OTHER_INSTANCE));
+        changeSequence.failOnCall = 2;
+
+        poller.run();
+        assertTrue(deltas.isEmpty());
+
+        poller.run();
+        assertEquals(1, deltas.size());
+        assertEquals(1_500, deltas.get(0).inserted().size());
+    }
+
+    @Test
+    void reappliesAllChangesWhenApplyingFails() {
+        changeSequence.add(1, 7L, "Supplier", ChangeKind.UPDATE, OTHER_INSTANCE);
+        changeSequence.add(2, 10L, ChangeKind.INSERT, OTHER_INSTANCE);
+        suppliers.failure = new RepositoryAccessException("Baza nije dostupna.");
+
+        poller.run();
+        assertTrue(deltas.isEmpty());
+
+        suppliers.failure = null;
+        poller.run();
+        assertEquals(List.of(InvoiceDelta.inserted(List.of(10L))), deltas);
+    }
+
+    private static final class FakeChangeSequence extends ChangeSequenceRepository {
+        private final TreeMap<Long, SequencedChange> changes = new TreeMap<>();
+        private int failOnCall;
+        private int calls;
+
+        void add(long seq, long invoiceId, ChangeKind kind, String origin) {
+            add(seq, invoiceId, "Invoice", kind, origin);
+        }
+
+        void add(long seq, long entityId, String entityType, ChangeKind kind, String origin) {
+            changes.put(seq, new SequencedChange(seq, entityType, entityId, kind, origin, LocalDateTime.now()));
+        }
+
+        @Override
+        public long findLatestSequence() {
+            return changes.isEmpty() ? 0 : changes.lastKey();
+        }
+
+        @Override
+        public List<SequencedChange> findAfter(long afterSeq, int limit) {
+            if (++calls == failOnCall) {
+                throw new RepositoryAccessException("Čitanje slijeda nije uspjelo.");
+            }
+            return changes.tailMap(afterSeq, false).values().stream().limit(limit).toList();
+        }
+    }
+
+    private static final class FakeSupplierRepository extends SupplierRepository {
+        private RepositoryAccessException failure;
+
+        @Override
+        public Optional<Supplier> findById(Long id) {
+            if (failure != null) {
+                throw failure;
+            }
+            return Optional.empty();
+        }
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
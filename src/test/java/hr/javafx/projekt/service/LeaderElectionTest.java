@@ -0,0 +1,110 @@
+package hr.javafx.projekt.service;
+
+import hr.javafx.projekt.exception.RepositoryAccessException;
+import hr.javafx.projekt.model.Lease;
+import hr.javafx.projekt.repository.LeaseRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LeaderElectionTest {
+
+    private static final Duration TTL = Duration.ofSeconds(30);
+
+    private final FakeLeaseRepository leases = new FakeLeaseRepository();
+    private final List<String> reported = new ArrayList<>();
+    private final StatusBarState state = new StatusBarState() {
+        @Override
+        public void setLeaseHolderText(String text) {
+            reported.add(text);
+        }
+    };
+    private int elections;
+
+    @Test
+    void runsElectionHookOnceWhileHoldingLease() {
+        LeaderElection election = election(TTL);
+
+        election.run();
+        election.run();
+
+        assertTrue(election.isLeader());
+        assertEquals(1, elections);
+        assertEquals(List.of("Provjeru izvodi: ova instanca"), reported);
+    }
+
+    @Test
+    void stepsDownWhenAnotherInstanceHoldsLease() {
+        LeaderElection election = election(TTL);
+        election.run();
+
+        leases.acquire = false;
+        election.run();
+
+        assertFalse(election.isLeader());
+        assertEquals("Provjeru izvodi: nitko", reported.get(reported.size() - 1));
+
+        leases.acquire = true;
+        election.run();
+
+        assertTrue(election.isLeader());
+        assertEquals(2, elections);
+    }
+
+    @Test
+    void staysLeaderOnDatabaseErrorUntilLeaseExpires() throws InterruptedException {
+        LeaderElection election = election(Duration.ofMillis(200));
+        election.run();
+
+        leases.failure = new RepositoryAccessException("Baza nije dostupna.");
+        election.run();
+        assertTrue(election.isLeader());
+
+        Thread.sleep(250);
+        election.run();
+        assertFalse(election.isLeader());
+    }
+
+    @Test
+    void keepsRunningAfterUnexpectedError() {
+        LeaderElection election = new LeaderElection(leases, "test", TTL, state, () -> {
+            elections++;
+            throw new IllegalStateException("Neuspjela provjera.");
+        });
+
+        election.run();
+        election.run();
+
+        assertTrue(election.isLeader());
+        assertEquals(1, elections);
+    }
+
+    private LeaderElection election(Duration ttl) {
+        return new LeaderElection(leases, "test", ttl, state, () -> elections++);
+    }
+
+    private static final class FakeLeaseRepository extends LeaseRepository {
+        private boolean acquire = true;
+        private RepositoryAccessException failure;
+
+        @Override
+        public boolean tryAcquire(String name, String holder, Duration ttl) throws RepositoryAccessException {
+            if (failure != null) {
+                throw failure;
+            }
+            return acquire;
+        }
+
+        @Override
+        public Optional<Lease> findByName(String name) {
+            return Optional.empty();
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package hr.javafx.projekt.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CsvReaderTest {
+
+    @Test
+    void readsQuotedSeparatorAndDoubledQuotes() throws IOException {
+        CsvReader reader = reader("\"Kraš; d.d.\";\"Tvrtka \"\"Kraš\"\"\";12345678901\n");
+
+        assertEquals(List.of("Kraš; d.d.", "Tvrtka \"Kraš\"", "12345678901"), reader.readRow());
+        assertNull(reader.readRow());
+    }
+
+    @Test
+    void readsLineBreakInsideQuotesAndCountsLines() throws IOException {
+        CsvReader reader = reader("naziv;adresa\r\n\"Podravka\";\"Ante Starčevića 32\r\nKoprivnica\"\r\nzadnji;red\r\n");
+
+        assertEquals(List.of("naziv", "adresa"), reader.readRow());
+        assertEquals(1, reader.getRowLineNumber());
+        assertEquals(List.of("Podravka", "Ante Starčevića 32\r\nKoprivnica"), reader.readRow());
+        assertEquals(2, reader.getRowLineNumber());
+        assertEquals(List.of("zadnji", "red"), reader.readRow());
+        assertEquals(4, reader.getRowLineNumber());
+        assertNull(reader.readRow());
+    }
+
+    @Test
+    void keepsEmptyValuesAndSkipsEmptyLines() throws IOException {
+        CsvReader reader = reader("a;;\"\"\n\n\n;b");
+
+        assertEquals(List.of("a", "", ""), reader.readRow());
+        assertEquals(List.of("", "b"), reader.readRow());
+        assertEquals(4, reader.getRowLineNumber());
+        assertNull(reader.readRow());
+    }
+
+    @Test
+    void skipsByteOrderMark() throws IOException {
+        byte[] content = "\uFEFFbroj;iznos\n".getBytes(StandardCharsets.UTF_8);
+
+        try (CsvReader reader = CsvReader.forExcel(new ByteArrayInputStream(content))) {
+            assertEquals(List.of("broj", "iznos"), reader.readRow());
+        }
+    }
+
+    @Test
+    void rejectsUnclosedQuotes() throws IOException {
+        CsvReader reader = reader("prvi;red\n\"nezatvoreni;navodnici\n");
+
+        assertEquals(List.of("prvi", "red"), reader.readRow());
+        IOException e = assertThrows(IOException.class, reader::readRow);
+        assertEquals("Navodnici otvoreni u retku 2 nisu zatvoreni.", e.getMessage());
+    }
+
+    private static CsvReader reader(String content) {
+        return new CsvReader(new StringReader(content), CsvWriter.DEFAULT_SEPARATOR);
+    }
+}